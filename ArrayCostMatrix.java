@@ -0,0 +1,104 @@
+// =================================================================================================================================
+/**
+ * A <code>CostMatrix</code> held on the heap as an ordinary two-dimensional array.  This is the right choice for any roster whose
+ * costs fit comfortably in memory.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class ArrayCostMatrix implements CostMatrix {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The costs themselves, indexed first by row and then by column. */
+    private final double[][] _costs;
+
+    /** The number of columns in every row of <code>_costs</code>. */
+    private final int        _cols;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Wrap an existing array without copying it.
+     *
+     * @param costs The costs, where <code>costs[i][j]</code> is the cost of assigning worker <i>i</i> to job <i>j</i>.  All rows
+     *              must have the same length.
+     */
+    public ArrayCostMatrix (double[][] costs) {
+
+	_costs = costs;
+	_cols  = (costs.length > 0 ? costs[0].length : 0);
+	for (double[] row : costs) {
+	    if (row.length != _cols) {
+		throw new IllegalArgumentException("Irregular cost matrix");
+	    }
+	}
+
+    } // ArrayCostMatrix ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Allocate a new matrix of zero costs.
+     *
+     * @param rows The number of workers.
+     * @param cols The number of jobs.
+     */
+    public ArrayCostMatrix (int rows, int cols) {
+	this(new double[rows][cols]);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int rows () {
+	return _costs.length;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int cols () {
+	return _cols;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public double get (int row, int col) {
+	return _costs[row][col];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public void set (int row, int col, double cost) {
+	_costs[row][col] = cost;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public void readRow (int row, double[] into) {
+	System.arraycopy(_costs[row], 0, into, 0, _cols);
+    }
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class ArrayCostMatrix
+// =================================================================================================================================
@@ -0,0 +1,50 @@
+// =================================================================================================================================
+/**
+ * An engine that finds an assignment of rows (students) to columns (preceptors) for the problem it was constructed with.  Each
+ * engine suits a different shape of problem, so callers that need not care which one runs, such as <code>Portfolio</code>, hold
+ * them through this interface.
+ * <p>
+ *
+ * An engine may be run on a thread that is later interrupted; those that run long check for that between steps and give up by
+ * throwing <code>java.util.concurrent.CancellationException</code>.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ * @see HungarianAlgorithm
+ * @see SparseAssignment
+ * @see Preprocessor
+ */
+public interface AssignmentSolver {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find the assignment.
+     *
+     * @return The column assigned to each row, or <code>-1</code> for a row left unassigned.
+     */
+    public int[] execute ();
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Check the assignment that <code>execute()</code> returned against the engine's duals (see <code>Certificate</code>).
+     * Engines that keep no duals for the whole problem cannot prove their results, and return <code>null</code>.
+     *
+     * @param matches The assignment, as returned by <code>execute()</code>.
+     * @return The check, or <code>null</code> if the engine cannot make one.
+     */
+    public default Certificate certify (int[] matches) {
+	return null;
+    }
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // interface AssignmentSolver
+// =================================================================================================================================
@@ -0,0 +1,888 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * Timing harnesses for the matching machinery, run on synthetic data so that they can be repeated at any scale.  Each experiment
+ * is named by the first command-line argument; see <code>showUsageAndExit()</code>.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class Benchmark {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The seed for all synthetic data, so that runs are comparable. */
+    private static final long _SEED = 20140812L;
+
+    /** The scorer of every synthetic pairing: the hand-written one. */
+    private static final PairScorer _SCORER = Student::cross;
+
+    /** The vocabularies from which synthetic records are drawn. */
+    private static final String[] _TOWNS              = { "Amherst", "Northampton", "Springfield", "Holyoke", "Greenfield",
+							   "Pittsfield", "Worcester", "Hadley" };
+    private static final String[] _PRACTICES          = { "FP", "IM", "Ped", "Geriatrician", "FP/IM", "Ped/FP", "IM/Geriatrician" };
+    private static final String[] _SETTINGS           = { "Urban", "Suburban", "Rural", "Underserved", "Urban/Underserved",
+							   "Rural/Suburban" };
+    private static final String[] _GENDER_PREFERENCES = { "none", "none", "none", "female", "male" };
+    private static final String[] _DAYS               = { "Monday", "Tuesday", "Wednesday", "Thursday", "Friday" };
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Run the requested experiment.
+     *
+     * @param args The name of the experiment followed by its parameters.
+     */
+    public static void main (String[] args) throws IOException {
+
+	if (args.length < 2) {
+	    showUsageAndExit();
+	}
+	String experiment = args[0];
+	int    size       = Integer.parseInt(args[1]);
+
+	if (experiment.equalsIgnoreCase("offheap")) {
+	    offHeap(size);
+	} else if (experiment.equalsIgnoreCase("lazy")) {
+	    lazy(size);
+	} else if (experiment.equalsIgnoreCase("integer")) {
+	    integer(size);
+	} else if (experiment.equalsIgnoreCase("model")) {
+	    model(size);
+	} else if (experiment.equalsIgnoreCase("constraints")) {
+	    constraints(size);
+	} else if (experiment.equalsIgnoreCase("sweep")) {
+	    sweep(size);
+	} else if (experiment.equalsIgnoreCase("filtered")) {
+	    filtered(size);
+	} else if (experiment.equalsIgnoreCase("bottleneck")) {
+	    bottleneck(size);
+	} else if (experiment.equalsIgnoreCase("preprocess")) {
+	    preprocess(size);
+	} else if (experiment.equalsIgnoreCase("parallel")) {
+	    parallel(size, (args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors()));
+	} else if (experiment.equalsIgnoreCase("portfolio")) {
+	    portfolio(size);
+	} else if (experiment.equalsIgnoreCase("compact")) {
+	    compact(size);
+	} else {
+	    showUsageAndExit();
+	}
+
+    } // main ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Compare the solver's throughput on the same square matrix held on the heap, mapped as doubles, and mapped as floats.
+     *
+     * @param size The number of rows and columns.
+     */
+    private static void offHeap (int size) throws IOException {
+
+	double[][] costs = randomCosts(size, size);
+	CostMatrix onHeap = new ArrayCostMatrix(costs);
+	MappedCostMatrix mapped   = new MappedCostMatrix(size, size, null, false);
+	MappedCostMatrix mapped32 = new MappedCostMatrix(size, size, null, true);
+	for (int i = 0; i < size; i += 1) {
+	    for (int j = 0; j < size; j += 1) {
+		mapped.set(i, j, costs[i][j]);
+		mapped32.set(i, j, costs[i][j]);
+	    }
+	}
+
+	// Run each twice so that the second, reported timing is of compiled code.
+	for (int round = 0; round < 2; round += 1) {
+	    time("on-heap",          onHeap);
+	    time("off-heap float64", mapped);
+	    time("off-heap float32", mapped32);
+	}
+	mapped.close();
+	mapped32.close();
+
+    } // offHeap ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Measure the trade between memory and recomputation for lazily evaluated costs.  A synthetic roster is solved once with a
+     * fully materialized matrix and then with row caches of decreasing size, reporting the time taken, the number of rows computed
+     * (each one costing a full row of <code>Student.cross()</code> calls), and the memory held by the cache.
+     *
+     * @param size The number of students and of preceptors.
+     */
+    private static void lazy (int size) {
+
+	Random          random     = new Random(_SEED);
+	List<Student>   students   = syntheticStudents(size, random);
+	List<Preceptor> preceptors = syntheticPreceptors(size, random);
+
+	for (int round = 0; round < 2; round += 1) {
+	    long start = System.nanoTime();
+	    CostMatrix materialized = new ArrayCostMatrix(size, size);
+	    for (int i = 0; i < size; i += 1) {
+		for (int j = 0; j < size; j += 1) {
+		    materialized.set(i, j, _SCORER.cost(students.get(i), preceptors.get(j)));
+		}
+	    }
+	    new HungarianAlgorithm(materialized).execute();
+	    System.out.printf("%-24s %10.1f ms   %10d rows computed   %8.1f MB held\n",
+			      "materialized",
+			      (System.nanoTime() - start) / 1e6,
+			      size,
+			      (double)size * size * Double.BYTES / (1 << 20));
+
+	    for (int fraction : new int[] { 1, 4, 16, 64 }) {
+		int cachedRows = Math.max(1, size / fraction);
+		start = System.nanoTime();
+		LazyCostMatrix costs = new LazyCostMatrix(students, preceptors, _SCORER, cachedRows);
+		new HungarianAlgorithm(costs).execute();
+		System.out.printf("%-24s %10.1f ms   %10d rows computed   %8.1f MB held\n",
+				  "lazy, " + cachedRows + " rows",
+				  (System.nanoTime() - start) / 1e6,
+				  costs.rowsComputed(),
+				  (double)cachedRows * size * Double.BYTES / (1 << 20));
+	    }
+	}
+
+    } // lazy ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Compare the floating-point solver with the integer solver on the same synthetic roster, reporting the total (inverse-score)
+     * cost found by each.
+     *
+     * @param size The number of students and of preceptors.
+     */
+    private static void integer (int size) {
+
+	Random          random     = new Random(_SEED);
+	List<Student>   students   = syntheticStudents(size, random);
+	List<Preceptor> preceptors = syntheticPreceptors(size, random);
+	CostMatrix      costs      = new ArrayCostMatrix(size, size);
+	for (int i = 0; i < size; i += 1) {
+	    for (int j = 0; j < size; j += 1) {
+		costs.set(i, j, _SCORER.cost(students.get(i), preceptors.get(j)));
+	    }
+	}
+	int[][] integerCosts = IntegerCosts.of(students, preceptors, _SCORER);
+
+	for (int round = 0; round < 2; round += 1) {
+	    time("double", costs);
+	    long  start   = System.nanoTime();
+	    int[] matches = new IntegerHungarianAlgorithm(integerCosts).execute();
+	    System.out.printf("%-24s %6d x %-6d %10.1f ms   total cost %.6f\n",
+			      "integer",
+			      size,
+			      size,
+			      (System.nanoTime() - start) / 1e6,
+			      totalCost(costs, matches));
+	}
+
+    } // integer ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Compare the throughput of the hand-written scorer with that of the default scoring model compiled from configuration, and
+     * confirm that the two agree on every pairing.
+     *
+     * @param size The number of students and of preceptors.
+     */
+    private static void model (int size) {
+
+	Random          random     = new Random(_SEED);
+	List<Student>   students    = syntheticStudents(size, random);
+	List<Preceptor> preceptors  = syntheticPreceptors(size, random);
+	PairScorer      handWritten = Student::cross;
+	PairScorer      compiled    = new ScoringModel(new Properties()).compile();
+
+	for (int round = 0; round < 5; round += 1) {
+	    for (PairScorer scorer : new PairScorer[] { handWritten, compiled }) {
+		long   start = System.nanoTime();
+		double sum   = 0.0;
+		for (Student student : students) {
+		    for (Preceptor preceptor : preceptors) {
+			sum += scorer.score(student, preceptor);
+		    }
+		}
+		System.out.printf("%-24s %6d x %-6d %10.1f ms   score sum %.6f\n",
+				  (scorer == handWritten ? "hand-written" : "compiled model"),
+				  size,
+				  size,
+				  (System.nanoTime() - start) / 1e6,
+				  sum);
+	    }
+	}
+
+	for (Student student : students) {
+	    for (Preceptor preceptor : preceptors) {
+		if (handWritten.score(student, preceptor) != compiled.score(student, preceptor)) {
+		    Utility.abort("Benchmark.model(): Scorers disagree on " + student.getName() + " and " + preceptor.getName());
+		}
+	    }
+	}
+	System.out.println("Scorers agree on every pairing.");
+
+    } // model ()
+    // =============================================================================================================================
+
+
+    // =============================================================================================================================
+    /**
+     * Check the preceptors' gender and Spanish requirements as the hard constraints apply them.  A preceptor who asks for a male
+     * student must admit a male student and turn away a female one, and likewise for a female student; then, across a synthetic
+     * roster, a scoring model that filters on both requirements must rule out exactly the pairings that
+     * <code>Preceptor.admits()</code> does not admit, and the graph of allowed pairings must hold exactly those it does.
+     *
+     * @param size The number of students and of preceptors.
+     */
+    private static void constraints (int size) {
+
+	Student male   = new Student("MLast;MFirst;M;1;2;3;4;1;2;3;4;no;Amherst;;");
+	Student female = new Student("FLast;FFirst;F;1;2;3;4;1;2;3;4;no;Amherst;;");
+	for (String preference : new String[] { "male", "female", "none" }) {
+	    Preceptor preceptor = new Preceptor("PLast;PFirst;FP;Amherst;Urban 2-14%;" + preference + ";n;Monday;Tuesday;;");
+	    Utility.abortIfFalse(preceptor.admits(male) == !preference.equals("female"),
+				 "Benchmark.constraints(): A preceptor preferring " + preference + " misjudges a male student");
+	    Utility.abortIfFalse(preceptor.admits(female) == !preference.equals("male"),
+				 "Benchmark.constraints(): A preceptor preferring " + preference + " misjudges a female student");
+	}
+	System.out.println("Gender preferences admit the students asked for.");
+
+	Random          random     = new Random(_SEED);
+	List<Student>   students   = syntheticStudents(size, random);
+	List<Preceptor> preceptors = syntheticPreceptors(size, random);
+	Properties      filters    = new Properties();
+	filters.setProperty("filter.gender",  "true");
+	filters.setProperty("filter.spanish", "true");
+	PairScorer      filtering  = new ScoringModel(filters).compile();
+	SparseCostGraph allowed    = SparseCostGraph.allowed(students, preceptors, filtering, null, true, false);
+	int             admitted   = 0;
+	for (int i = 0; i < size; i += 1) {
+	    for (int j = 0; j < size; j += 1) {
+		boolean admits = preceptors.get(j).admits(students.get(i));
+		Utility.abortIfFalse(admits == (filtering.score(students.get(i), preceptors.get(j)) > 0),
+				     "Benchmark.constraints(): The filtering model disagrees with admits() on " +
+				     students.get(i).getName() + " and " + preceptors.get(j).getName());
+		admitted += (admits ? 1 : 0);
+	    }
+	}
+	Utility.abortIfFalse(allowed.edges() == admitted,
+			     "Benchmark.constraints(): The allowed graph holds " + allowed.edges() + " pairings, not " + admitted);
+	System.out.printf("%d of %d pairings admitted; the filtering model and the allowed graph agree.\n", admitted, size * size);
+
+    } // constraints ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Sweep a synthetic roster, one of whose preceptors has a practice type and setting that cannot be read, over weightings that
+     * score some pairings (or all of them) at zero: practice alone, setting alone, and no weight at all.  Such pairings once cost
+     * an infinity that drove the solver past the end of its arrays.  Every sweep must finish, pair no student by a pairing scored
+     * at zero, and, under no weight at all, pair no one.
+     *
+     * @param size The number of students and of preceptors.
+     */
+    private static void sweep (int size) {
+
+	Random          random     = new Random(_SEED);
+	List<Student>   students   = syntheticStudents(size, random);
+	List<Preceptor> preceptors = syntheticPreceptors(size, random);
+	preceptors.set(0, new Preceptor("PLast0;PFirst0;Unknown;Amherst;Unknown;none;n;Monday;Tuesday;;"));
+	List<double[]>  weightings = new ArrayList<double[]>();
+	weightings.add(new double[] { 1, 0, 0, 0 });
+	weightings.add(new double[] { 0, 1, 0, 0 });
+	weightings.add(new double[] { 0, 0, 0, 0 });
+
+	long        start = System.nanoTime();
+	WeightSweep sweep = new WeightSweep(students, preceptors, weightings);
+	sweep.run();
+	System.out.printf("%-24s %6d x %-6d %10.1f ms   %d weightings\n",
+			  "sweep",
+			  size,
+			  size,
+			  (System.nanoTime() - start) / 1e6,
+			  weightings.size() + 1);
+	for (int k = 0; k <= weightings.size(); k += 1) {
+	    MatchResult result = sweep.result(k);
+	    int         paired = 0;
+	    for (int i = 0; i < size; i += 1) {
+		if (result.preceptorOf(i) != -1) {
+		    paired += 1;
+		    Utility.abortIfFalse(result.preceptorOf(i) != 0 || k == 0,
+					 "Benchmark.sweep(): Weighting " + k + " pairs the preceptor that it scores at zero");
+		    Utility.abortIfFalse(result.quality(i) < PairScorer._FILTERED_COST,
+					 "Benchmark.sweep(): Weighting " + k + " pairs " + students.get(i).getName() + " at zero");
+		}
+	    }
+	    Utility.abortIfFalse(k < weightings.size() || paired == 0, "Benchmark.sweep(): No weight at all still pairs students");
+	    System.out.printf("%-24s weighting %d pairs %d students, total cost %.6f\n", "", k, paired, result.totalQuality());
+	}
+
+    } // sweep ()
+    // =============================================================================================================================
+
+
+
+
+    // =============================================================================================================================
+    /**
+     * Solve a synthetic roster with a scorer that rules out one preceptor for every student, as a model's filter can, with each
+     * solver in turn.  The column of that preceptor holds nothing but <code>PairScorer._FILTERED_COST</code> (or, in integer
+     * costs, <code>IntegerCosts.MAX_COST</code>), which once drove the Hungarian algorithm past the end of its arrays.  Each
+     * solver must finish with exactly one student either paired with that preceptor or left unpaired; the sparse graph leaves the
+     * preceptor out entirely.
+     *
+     * @param size The number of students and of preceptors.
+     */
+    private static void filtered (int size) {
+
+	Random          random     = new Random(_SEED);
+	List<Student>   students   = syntheticStudents(size, random);
+	List<Preceptor> preceptors = syntheticPreceptors(size, random);
+	Preceptor       excluded   = preceptors.get(0);
+	PairScorer      filtering  = (s, p) -> (p == excluded ? 0.0 : _SCORER.score(s, p));
+	CostMatrix      costs      = new ArrayCostMatrix(size, size);
+	for (int i = 0; i < size; i += 1) {
+	    for (int j = 0; j < size; j += 1) {
+		costs.set(i, j, filtering.cost(students.get(i), preceptors.get(j)));
+	    }
+	}
+
+	Portfolio portfolio = new Portfolio(costs, null);
+	List<String> labels = new ArrayList<String>();
+	labels.add("hungarian");
+	labels.add("lazy");
+	labels.add("integer");
+	labels.add("bottleneck");
+	labels.add("bottleneck, any total");
+	for (String engine : portfolio.ranking()) {
+	    labels.add("portfolio " + engine);
+	}
+	labels.add("portfolio");
+	labels.add("sparse, allowed");
+
+	for (String label : labels) {
+	    long  start = System.nanoTime();
+	    int[] matches;
+	    if (label.equals("hungarian")) {
+		matches = new HungarianAlgorithm(costs).execute();
+	    } else if (label.equals("lazy")) {
+		matches = new HungarianAlgorithm(new LazyCostMatrix(students, preceptors, filtering, 64)).execute();
+	    } else if (label.equals("integer")) {
+		matches = new IntegerHungarianAlgorithm(IntegerCosts.of(students, preceptors, filtering)).execute();
+	    } else if (label.startsWith("bottleneck")) {
+		matches = new BottleneckAssignment(costs, label.equals("bottleneck")).execute();
+	    } else if (label.startsWith("portfolio ")) {
+		matches = portfolio.engine(label.substring("portfolio ".length())).execute();
+	    } else if (label.equals("portfolio")) {
+		matches = portfolio.execute(Runtime.getRuntime().availableProcessors());
+	    } else {
+		matches = new SparseAssignment(SparseCostGraph.allowed(students, preceptors, filtering, null, false, false)).execute();
+	    }
+	    long elapsed = System.nanoTime() - start;
+
+	    double total     = 0.0;
+	    int    ruledOut  = 0;
+	    int    unmatched = 0;
+	    for (int i = 0; i < size; i += 1) {
+		if (matches[i] == -1) {
+		    unmatched += 1;
+		} else if (costs.get(i, matches[i]) >= PairScorer._FILTERED_COST) {
+		    ruledOut += 1;
+		} else {
+		    total += costs.get(i, matches[i]);
+		}
+	    }
+	    System.out.printf("%-24s %6d x %-6d %10.1f ms   total cost %.6f, %d ruled out, %d unmatched\n",
+			      label,
+			      size,
+			      size,
+			      elapsed / 1e6,
+			      total,
+			      ruledOut,
+			      unmatched);
+	    Utility.abortIfFalse(ruledOut + unmatched == 1,
+				 "Benchmark.filtered(): " + label + " left " + (ruledOut + unmatched) + " students without a pairing of merit");
+	}
+
+    } // filtered ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Compare the bottleneck solver with a plain Hungarian solve of the same synthetic roster, reporting the time taken and the
+     * cost of the worst pairing in each assignment.
+     *
+     * @param size The number of students and of preceptors.
+     */
+    private static void bottleneck (int size) {
+
+	Random          random     = new Random(_SEED);
+	List<Student>   students   = syntheticStudents(size, random);
+	List<Preceptor> preceptors = syntheticPreceptors(size, random);
+	CostMatrix      costs      = new ArrayCostMatrix(size, size);
+	for (int i = 0; i < size; i += 1) {
+	    for (int j = 0; j < size; j += 1) {
+		costs.set(i, j, _SCORER.cost(students.get(i), preceptors.get(j)));
+	    }
+	}
+
+	for (int round = 0; round < 2; round += 1) {
+	    int[] matches = time("hungarian", costs);
+	    System.out.printf("%-24s worst pairing %.6f\n", "", worstCost(costs, matches));
+
+	    for (boolean minimizeTotal : new boolean[] { true, false }) {
+		long                 start  = System.nanoTime();
+		BottleneckAssignment solver = new BottleneckAssignment(costs, minimizeTotal);
+		matches = solver.execute();
+		System.out.printf("%-24s %6d x %-6d %10.1f ms   total cost %.6f\n",
+				  (minimizeTotal ? "bottleneck" : "bottleneck, any total"),
+				  size,
+				  size,
+				  (System.nanoTime() - start) / 1e6,
+				  totalCost(costs, matches));
+		System.out.printf("%-24s worst pairing %.6f after %d feasibility checks\n",
+				  "",
+				  worstCost(costs, matches),
+				  solver.probes());
+	    }
+	}
+
+    } // bottleneck ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Compare a plain Hungarian solve of a synthetic roster with one preceded by <code>Preprocessor</code>, reporting the time
+     * taken, the reductions made, and the cost found.  Three rosters are tried: a square one, one with a fifth more preceptors
+     * than students, and a small cohort of a fifth as many students drawn from the full pool of preceptors.
+     *
+     * @param size The number of preceptors.
+     */
+    private static void preprocess (int size) {
+
+	int[][] shapes = { { size, size }, { size - size / 6, size }, { size / 5, size } };
+	for (int[] shape : shapes) {
+	    Random          random     = new Random(_SEED);
+	    List<Student>   students   = syntheticStudents(shape[0], random);
+	    List<Preceptor> preceptors = syntheticPreceptors(shape[1], random);
+	    CostMatrix      costs      = new ArrayCostMatrix(shape[0], shape[1]);
+	    for (int i = 0; i < shape[0]; i += 1) {
+		for (int j = 0; j < shape[1]; j += 1) {
+		    costs.set(i, j, _SCORER.cost(students.get(i), preceptors.get(j)));
+		}
+	    }
+
+	    for (int round = 0; round < 2; round += 1) {
+		time("hungarian", costs);
+
+		long         start        = System.nanoTime();
+		Preprocessor preprocessor = new Preprocessor(costs);
+		int[]        matches      = preprocessor.execute();
+		System.out.printf("%-24s %6d x %-6d %10.1f ms   total cost %.6f\n",
+				  "preprocessed",
+				  costs.rows(),
+				  costs.cols(),
+				  (System.nanoTime() - start) / 1e6,
+				  totalCost(costs, matches));
+		System.out.printf("%-24s %s\n", "", preprocessor.summary());
+	    }
+	}
+
+    } // preprocess ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Compare the solver's time on the same random matrix with its sweeps run on one thread and shared among more, up to a given
+     * number, checking that every run finds the same assignment.  Sweeps are shared only at <code>PARALLEL_THRESHOLD</code> or
+     * more on a side, and only more than one processor can show a gain; with one, only the cost of the sharing shows.
+     *
+     * @param size    The number of rows and columns.
+     * @param threads The most threads to try, by default the number of processors.
+     */
+    private static void parallel (int size, int threads) {
+
+	if (size < HungarianAlgorithm.PARALLEL_THRESHOLD) {
+	    System.out.printf("Sweeps are shared only at %d or more on a side\n", HungarianAlgorithm.PARALLEL_THRESHOLD);
+	}
+	int processors = Runtime.getRuntime().availableProcessors();
+	if (threads > processors) {
+	    System.out.printf("Only %d of the %d threads can run at once\n", processors, threads);
+	}
+	CostMatrix    costs  = new ArrayCostMatrix(randomCosts(size, size));
+	List<Integer> counts = new ArrayList<Integer>();
+	for (int count = 1; count < threads; count *= 2) {
+	    counts.add(count);
+	}
+	counts.add(threads);
+
+	int[] expected = null;
+	for (int round = 0; round < 2; round += 1) {
+	    double alone = 0.0;
+	    for (int count : counts) {
+		long   start   = System.nanoTime();
+		int[]  matches = new HungarianAlgorithm(costs, count).execute();
+		double time    = (System.nanoTime() - start) / 1e6;
+		if (count == 1) {
+		    alone = time;
+		}
+		System.out.printf("%-24s %6d x %-6d %10.1f ms   speedup %5.2f   total cost %.6f\n",
+				  count + (count == 1 ? " thread" : " threads"),
+				  size,
+				  size,
+				  time,
+				  alone / time,
+				  totalCost(costs, matches));
+		if (expected == null) {
+		    expected = matches;
+		} else if (!Arrays.equals(expected, matches)) {
+		    System.out.printf("%-24s DIFFERENT ASSIGNMENT\n", "");
+		}
+	    }
+	}
+
+    } // parallel ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Time each of the portfolio's engines alone on synthetic rosters, square and wide, and on a random matrix with most of its
+     * pairings forbidden, against the ranking the portfolio gives each shape and a race among as many engines as there are
+     * processors.
+     *
+     * @param size The number of preceptors.
+     */
+    private static void portfolio (int size) {
+
+	List<CostMatrix> problems = new ArrayList<CostMatrix>();
+	int[][]          shapes   = { { size, size }, { size / 5, size } };
+	for (int[] shape : shapes) {
+	    Random          random     = new Random(_SEED);
+	    List<Student>   students   = syntheticStudents(shape[0], random);
+	    List<Preceptor> preceptors = syntheticPreceptors(shape[1], random);
+	    CostMatrix      costs      = new ArrayCostMatrix(shape[0], shape[1]);
+	    for (int i = 0; i < shape[0]; i += 1) {
+		for (int j = 0; j < shape[1]; j += 1) {
+		    costs.set(i, j, _SCORER.cost(students.get(i), preceptors.get(j)));
+		}
+	    }
+	    problems.add(costs);
+	}
+	double[][] sparse = randomCosts(size, size);
+	Random     random = new Random(_SEED);
+	for (double[] row : sparse) {
+	    for (int j = 0; j < row.length; j += 1) {
+		if (random.nextDouble() >= 0.1) {
+		    row[j] = Double.POSITIVE_INFINITY;
+		}
+	    }
+	}
+	problems.add(new ArrayCostMatrix(sparse));
+
+	for (CostMatrix costs : problems) {
+	    Portfolio portfolio = new Portfolio(costs, null);
+	    System.out.printf("%s, ranked %s\n", portfolio.shape(), portfolio.ranking());
+	    for (String engine : portfolio.ranking()) {
+		long  start   = System.nanoTime();
+		int[] matches = portfolio.engine(engine).execute();
+		System.out.printf("%-24s %6d x %-6d %10.1f ms   total cost %.6f\n",
+				  engine,
+				  costs.rows(),
+				  costs.cols(),
+				  (System.nanoTime() - start) / 1e6,
+				  totalCost(costs, matches));
+	    }
+	    long  start   = System.nanoTime();
+	    int[] matches = portfolio.execute(Runtime.getRuntime().availableProcessors());
+	    System.out.printf("%-24s %6d x %-6d %10.1f ms   total cost %.6f\n",
+			      "portfolio",
+			      costs.rows(),
+			      costs.cols(),
+			      (System.nanoTime() - start) / 1e6,
+			      totalCost(costs, matches));
+	    System.out.printf("%-24s %s\n", "", portfolio.summary());
+	}
+
+    } // portfolio ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Compare the heap held by a synthetic roster as lists of profiles with that held by the same roster in a
+     * <code>CompactRoster</code>, and confirm that the two score every pairing of a sample alike.
+     *
+     * @param size The number of students and of preceptors.
+     */
+    private static void compact (int size) {
+
+	long            before     = usedHeap();
+	Random          random     = new Random(_SEED);
+	List<Student>   students   = syntheticStudents(size, random);
+	List<Preceptor> preceptors = syntheticPreceptors(size, random);
+	long            objects    = usedHeap() - before;
+
+	before = usedHeap();
+	CompactRoster compact = new CompactRoster(students, preceptors);
+	long          columns = usedHeap() - before;
+
+	System.out.printf("%-24s %6d + %-6d %10.1f MB   %6.1f bytes per profile\n",
+			  "profile objects",
+			  size,
+			  size,
+			  objects / 1e6,
+			  (double)objects / (2 * size));
+	System.out.printf("%-24s %6d + %-6d %10.1f MB   %6.1f bytes per profile   (%.1fx smaller; %.1f MB in columns)\n",
+			  "compact roster",
+			  size,
+			  size,
+			  columns / 1e6,
+			  (double)columns / (2 * size),
+			  (double)objects / columns,
+			  compact.bytes() / 1e6);
+
+	Random sample = new Random(_SEED);
+	for (int k = 0; k < 100 * size; k += 1) {
+	    int i = sample.nextInt(size);
+	    int j = sample.nextInt(size);
+	    if (compact.cross(i, j) != students.get(i).cross(preceptors.get(j))) {
+		Utility.abort("Benchmark.compact(): Rosters disagree on " + students.get(i).getName() + " and " +
+			      preceptors.get(j).getName());
+	    }
+	}
+	System.out.println("Rosters agree on every pairing sampled.");
+
+    } // compact ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The bytes of heap in use, after collecting what garbage can be collected. */
+    private static long usedHeap () {
+
+	Runtime runtime = Runtime.getRuntime();
+	for (int round = 0; round < 4; round += 1) {
+	    System.gc();
+	}
+	return runtime.totalMemory() - runtime.freeMemory();
+
+    } // usedHeap ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    static double worstCost (CostMatrix costs, int[] matches) {
+
+	double worst = Double.NEGATIVE_INFINITY;
+	for (int i = 0; i < matches.length; i += 1) {
+	    if (matches[i] != -1) {
+		worst = Math.max(worst, costs.get(i, matches[i]));
+	    }
+	}
+	return worst;
+
+    } // worstCost ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Solve the given matrix and report how long it took along with the total cost of the assignment found.
+     *
+     * @param label A name for the configuration being timed.
+     * @param costs The matrix to solve.
+     * @return The assignment found.
+     */
+    static int[] time (String label, CostMatrix costs) {
+
+	long   start   = System.nanoTime();
+	int[]  matches = new HungarianAlgorithm(costs).execute();
+	long   elapsed = System.nanoTime() - start;
+	System.out.printf("%-24s %6d x %-6d %10.1f ms   total cost %.6f\n",
+			  label,
+			  costs.rows(),
+			  costs.cols(),
+			  elapsed / 1e6,
+			  totalCost(costs, matches));
+	return matches;
+
+    } // time ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    static double totalCost (CostMatrix costs, int[] matches) {
+
+	double total = 0.0;
+	for (int i = 0; i < matches.length; i += 1) {
+	    if (matches[i] != -1) {
+		total += costs.get(i, matches[i]);
+	    }
+	}
+	return total;
+
+    } // totalCost ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return A matrix of costs drawn uniformly from [0, 1).
+     */
+    static double[][] randomCosts (int rows, int cols) {
+
+	Random random = new Random(_SEED);
+	double[][] costs = new double[rows][cols];
+	for (int i = 0; i < rows; i += 1) {
+	    for (int j = 0; j < cols; j += 1) {
+		costs[i][j] = random.nextDouble();
+	    }
+	}
+	return costs;
+
+    } // randomCosts ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Generate students with random genders, languages, and rank orderings, all of them pairable.
+     *
+     * @param count  The number of students.
+     * @param random The source of randomness.
+     * @return The students.
+     */
+    static List<Student> syntheticStudents (int count, Random random) {
+
+	List<Student> students = new ArrayList<Student>(count);
+	for (int i = 0; i < count; i += 1) {
+	    String record = ("Last" + i + ";First" + i + ";" +
+			     (random.nextBoolean() ? "F" : "M") + ";" +
+			     randomRanks(random) + ";" +
+			     randomRanks(random) + ";" +
+			     (random.nextInt(4) == 0 ? "yes" : "no") + ";" +
+			     _TOWNS[random.nextInt(_TOWNS.length)] + ";;");
+	    students.add(new Student(record));
+	}
+	return students;
+
+    } // syntheticStudents ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Generate preceptors with random practice types, settings, and preferences, all of them pairable.
+     *
+     * @param count  The number of preceptors.
+     * @param random The source of randomness.
+     * @return The preceptors.
+     */
+    static List<Preceptor> syntheticPreceptors (int count, Random random) {
+
+	List<Preceptor> preceptors = new ArrayList<Preceptor>(count);
+	for (int j = 0; j < count; j += 1) {
+	    String practice = _PRACTICES[random.nextInt(_PRACTICES.length)];
+	    String setting  = _SETTINGS[random.nextInt(_SETTINGS.length)];
+	    if (!practice.equals("Ped")) {
+		int low = random.nextInt(10);
+		setting += " " + low + "-" + (low + random.nextInt(20)) + "%";
+	    }
+	    String record = ("PLast" + j + ";PFirst" + j + ";" +
+			     practice + ";" +
+			     _TOWNS[random.nextInt(_TOWNS.length)] + ";" +
+			     setting + ";" +
+			     _GENDER_PREFERENCES[random.nextInt(_GENDER_PREFERENCES.length)] + ";" +
+			     (random.nextInt(5) == 0 ? "y" : "n") + ";" +
+			     _DAYS[random.nextInt(_DAYS.length)] + ";" +
+			     _DAYS[random.nextInt(_DAYS.length)] + ";;");
+	    preceptors.add(new Preceptor(record));
+	}
+	return preceptors;
+
+    } // syntheticPreceptors ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return A random permutation of the ranks 1 through 4, as four semicolon-separated fields. */
+    private static String randomRanks (Random random) {
+
+	List<Integer> ranks = new ArrayList<Integer>();
+	for (int rank = 1; rank <= 4; rank += 1) {
+	    ranks.add(rank);
+	}
+	Collections.shuffle(ranks, random);
+	return ranks.get(0) + ";" + ranks.get(1) + ";" + ranks.get(2) + ";" + ranks.get(3);
+
+    } // randomRanks ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static void showUsageAndExit () {
+
+	System.err.printf("USAGE: java Benchmark [offheap|lazy|integer|model|constraints|sweep|filtered|bottleneck|preprocess|\n");
+	System.err.printf("                      parallel|portfolio|compact] <size>\n");
+	System.err.printf("       java Benchmark parallel <size> <most threads>\n");
+	System.exit(1);
+
+    } // showUsageAndExit ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class Benchmark
+// =================================================================================================================================
@@ -0,0 +1,309 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A solver for the bottleneck assignment problem: among all assignments of the same size as the Hungarian algorithm's, find one
+ * whose <i>worst</i> pairing is as cheap as possible, and among those, the one of least total cost.  Minimizing total cost alone
+ * can leave a few students with very poor matches while the average looks good; this mode guards against that.
+ * <p>
+ *
+ * The smallest feasible threshold is found by binary search over the distinct costs.  Each probe asks whether the edges no more
+ * costly than the threshold admit a complete matching, which Hopcroft-Karp answers in near-linear time in the number of those
+ * edges.  Only costs between a simple lower bound (no student can do better than their own best pairing) and a simple upper bound
+ * (the worst pairing of a greedy assignment) need be searched.  The total is then minimized by a sparse solve (see
+ * <code>SparseAssignment</code>) over only the edges within the threshold, which are few when the threshold is tight; it may be
+ * skipped when any assignment within the threshold will do.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class BottleneckAssignment implements AssignmentSolver {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    private final CostMatrix _costs;
+    private final int        _rows;
+    private final int        _cols;
+
+    /** Whether to minimize the total cost among assignments within the threshold, or to accept any one of them. */
+    private final boolean    _minimizeTotal;
+
+    /** The most recent feasibility check's threshold, the edges within it, and its matching. */
+    private double           _lastThreshold = Double.NaN;
+    private SparseCostGraph  _lastGraph;
+    private HopcroftKarp     _lastMatching;
+
+    /** The least threshold on the worst pairing for which a complete assignment exists, once found. */
+    private double           _threshold = Double.NaN;
+
+    /** The number of feasibility checks performed in finding the threshold. */
+    private int              _probes;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param costs         The cost of assigning each worker (row) to each job (column).  Costs must not be negative.
+     * @param minimizeTotal Whether to follow the search for the threshold with a solve that minimizes the total cost within it.
+     *                      Without it, any assignment within the threshold is returned, sparing that solve.
+     */
+    public BottleneckAssignment (CostMatrix costs, boolean minimizeTotal) {
+
+	_costs         = costs;
+	_rows          = costs.rows();
+	_cols          = costs.cols();
+	_minimizeTotal = minimizeTotal;
+
+    } // BottleneckAssignment ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find the assignment.
+     *
+     * @return The job assigned to each worker, or <code>-1</code> for an unassigned worker; as many workers are assigned as by
+     *         <code>HungarianAlgorithm</code>, namely the lesser of the number of workers and the number of jobs.
+     */
+    public int[] execute () {
+
+	if (_rows == 0 || _cols == 0) {
+	    int[] none = new int[_rows];
+	    Arrays.fill(none, -1);
+	    return none;
+	}
+
+	// Bound the search and collect the distinct costs within the bounds.
+	double   lower      = lowerBound();
+	double   upper      = upperBound();
+	double[] candidates = candidates(lower, upper);
+
+	// The upper bound is always feasible, so search for the least feasible candidate.
+	int need = Math.min(_rows, _cols);
+	int low  = 0;
+	int high = candidates.length - 1;
+	while (low < high) {
+	    int middle = (low + high) >>> 1;
+	    if (matchingSize(candidates[middle]) == need) {
+		high = middle;
+	    } else {
+		low = middle + 1;
+	    }
+	}
+	_threshold = candidates[low];
+
+	// Minimize the total among assignments within the threshold, or settle for the first one found.
+	if (_lastThreshold != _threshold) {
+	    matchingSize(_threshold);
+	}
+	if (_minimizeTotal) {
+	    return new SparseAssignment(_lastGraph).execute();
+	}
+	return _lastMatching.matchOfLeft().clone();
+
+    } // execute ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The cost of the worst pairing in the assignment found by <code>execute()</code>. */
+    public double threshold () {
+	return _threshold;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of feasibility checks that <code>execute()</code> performed. */
+    public int probes () {
+	return _probes;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Every vertex on the smaller side must be matched, and none can do better than its cheapest edge, so the worst pairing can
+     * be no cheaper than the greatest of those cheapest edges.
+     *
+     * @return A lower bound on the threshold.
+     */
+    private double lowerBound () {
+
+	double[] row   = new double[_cols];
+	double   bound = Double.NEGATIVE_INFINITY;
+	if (_rows <= _cols) {
+	    for (int i = 0; i < _rows; i += 1) {
+		_costs.readRow(i, row);
+		double min = Double.POSITIVE_INFINITY;
+		for (int j = 0; j < _cols; j += 1) {
+		    min = Math.min(min, row[j]);
+		}
+		bound = Math.max(bound, min);
+	    }
+	} else {
+	    double[] min = new double[_cols];
+	    Arrays.fill(min, Double.POSITIVE_INFINITY);
+	    for (int i = 0; i < _rows; i += 1) {
+		_costs.readRow(i, row);
+		for (int j = 0; j < _cols; j += 1) {
+		    min[j] = Math.min(min[j], row[j]);
+		}
+	    }
+	    for (int j = 0; j < _cols; j += 1) {
+		bound = Math.max(bound, min[j]);
+	    }
+	}
+	return bound;
+
+    } // lowerBound ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Greedily give each vertex on the smaller side its cheapest remaining partner; the worst pairing of that complete assignment
+     * bounds the threshold from above.
+     *
+     * @return An upper bound on the threshold, itself a cost in the matrix.
+     */
+    private double upperBound () {
+
+	double   bound = Double.NEGATIVE_INFINITY;
+	double[] row   = new double[_cols];
+	if (_rows <= _cols) {
+	    boolean[] taken = new boolean[_cols];
+	    for (int i = 0; i < _rows; i += 1) {
+		_costs.readRow(i, row);
+		int best = -1;
+		for (int j = 0; j < _cols; j += 1) {
+		    if (!taken[j] && (best == -1 || row[j] < row[best])) {
+			best = j;
+		    }
+		}
+		taken[best] = true;
+		bound = Math.max(bound, row[best]);
+	    }
+	} else {
+	    boolean[] taken = new boolean[_rows];
+	    for (int j = 0; j < _cols; j += 1) {
+		int best = -1;
+		for (int i = 0; i < _rows; i += 1) {
+		    if (!taken[i] && (best == -1 || _costs.get(i, j) < _costs.get(best, j))) {
+			best = i;
+		    }
+		}
+		taken[best] = true;
+		bound = Math.max(bound, _costs.get(best, j));
+	    }
+	}
+	return bound;
+
+    } // upperBound ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return The distinct costs in <code>[lower, upper]</code>, in increasing order.
+     */
+    private double[] candidates (double lower, double upper) {
+
+	double[] values = new double[1024];
+	int      count  = 0;
+	double[] row    = new double[_cols];
+	for (int i = 0; i < _rows; i += 1) {
+	    _costs.readRow(i, row);
+	    for (int j = 0; j < _cols; j += 1) {
+		if (row[j] >= lower && row[j] <= upper) {
+		    if (count == values.length) {
+			values = Arrays.copyOf(values, 2 * count);
+		    }
+		    values[count++] = row[j];
+		}
+	    }
+	}
+	Arrays.sort(values, 0, count);
+
+	int distinct = 0;
+	for (int k = 0; k < count; k += 1) {
+	    if (distinct == 0 || values[k] != values[distinct - 1]) {
+		values[distinct++] = values[k];
+	    }
+	}
+	return Arrays.copyOf(values, distinct);
+
+    } // candidates ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find a maximum matching using only edges that cost no more than the threshold, keeping those edges, with their costs, for
+     * the solve that follows.
+     *
+     * @param threshold The greatest cost allowed.
+     * @return The size of the matching.
+     */
+    private int matchingSize (double threshold) {
+
+	_probes += 1;
+
+	// Count, then fill, the admissible edges of each row.
+	double[] row     = new double[_cols];
+	int[]    offsets = new int[_rows + 1];
+	for (int i = 0; i < _rows; i += 1) {
+	    _costs.readRow(i, row);
+	    int degree = 0;
+	    for (int j = 0; j < _cols; j += 1) {
+		if (row[j] <= threshold) {
+		    degree += 1;
+		}
+	    }
+	    offsets[i + 1] = offsets[i] + degree;
+	}
+	int[]    targets = new int[offsets[_rows]];
+	double[] costs   = new double[offsets[_rows]];
+	for (int i = 0; i < _rows; i += 1) {
+	    _costs.readRow(i, row);
+	    int at = offsets[i];
+	    for (int j = 0; j < _cols; j += 1) {
+		if (row[j] <= threshold) {
+		    targets[at] = j;
+		    costs[at]   = row[j];
+		    at         += 1;
+		}
+	    }
+	}
+
+	_lastThreshold = threshold;
+	_lastGraph     = new SparseCostGraph(_rows, _cols, offsets, targets, costs);
+	_lastMatching  = new HopcroftKarp(_rows, _cols, offsets, targets);
+	return _lastMatching.execute();
+
+    } // matchingSize ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class BottleneckAssignment
+// =================================================================================================================================
@@ -0,0 +1,414 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A check that an assignment is optimal, made from the assignment and the dual values (one per row and one per column) that the
+ * solver found along with it.  An assignment is certified when:
+ * <ul>
+ *   <li><b>primal feasibility:</b> every row or every column, whichever are fewer, is paired, and no two rows share a column;</li>
+ *   <li><b>dual feasibility:</b> no pairing costs less than the sum of its row's and its column's duals, and on the larger side,
+ *       no dual is positive; and</li>
+ *   <li><b>complementary slackness:</b> every pairing made costs exactly that sum, and on the larger side, every row or column left
+ *       unpaired has a dual of zero.</li>
+ * </ul>
+ * Together these give a lower bound on the cost of every assignment that the checked one meets, so no solver need be trusted: the
+ * check takes one pass over the costs, far less work than finding the assignment, and serves equally to catch a faulty new solver
+ * by running it against the same costs.
+ * <p>
+ *
+ * The duals of the larger side are shifted by a common amount (and those of the smaller side by its opposite, which changes no
+ * sum) so that the greatest is zero, since a solver that pads the costs to a square, as <code>HungarianAlgorithm</code> does,
+ * leaves them offset by the duals of the padding.  Sums of doubles are compared within a tolerance relative to the largest dual.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class Certificate {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The reason the check failed, or <code>null</code> if it passed. */
+    private final String _failure;
+
+    /** The cost of the assignment, and the bound from the duals that it was to meet. */
+    private final double _primal;
+    private final double _dual;
+
+    /** The greatest amount by which any pairing was found to cost less than its duals allow. */
+    private final double _worstViolation;
+
+    /** The tolerance, relative to the largest dual (or to one, if greater), within which two sums of doubles are equal. */
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The source of the costs of each row checked: every pairing for a full matrix, and only the allowed ones for a sparse graph.
+     */
+    private interface Rows {
+
+	/**
+	 * @param row     The row.
+	 * @param columns A buffer into which to write the columns of the row's pairings.
+	 * @param costs   A buffer into which to write their costs.
+	 * @return The number of pairings written.
+	 */
+	int read (int row, int[] columns, double[] costs);
+
+    } // interface Rows
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private Certificate (String failure, double primal, double dual, double worstViolation) {
+
+	_failure        = failure;
+	_primal         = primal;
+	_dual           = dual;
+	_worstViolation = worstViolation;
+
+    } // Certificate ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Check an assignment over a full matrix of costs, such as <code>HungarianAlgorithm</code> returns.
+     *
+     * @param costs    The costs.
+     * @param matches  The column assigned to each row, or <code>-1</code>.
+     * @param rowDuals The dual of each row.
+     * @param colDuals The dual of each column.
+     * @return The outcome of the check.
+     */
+    public static Certificate check (final CostMatrix costs, int[] matches, double[] rowDuals, double[] colDuals) {
+
+	final int cols = costs.cols();
+	Rows rows = new Rows () {
+		public int read (int row, int[] columns, double[] into) {
+		    costs.readRow(row, into);
+		    return cols;
+		}
+	    };
+	return check(costs.rows(), cols, rows, matches, rowDuals, colDuals, DEFAULT_TOLERANCE);
+
+    } // check ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Check an assignment over a full matrix of integer costs, such as <code>IntegerHungarianAlgorithm</code> returns.  The check
+     * is exact, with no tolerance, so long as the sums involved stay within the 53 bits that a double holds exactly.
+     *
+     * @param costs    The costs.
+     * @param matches  The column assigned to each row, or <code>-1</code>.
+     * @param rowDuals The dual of each row.
+     * @param colDuals The dual of each column.
+     * @return The outcome of the check.
+     */
+    public static Certificate check (final int[][] costs, int[] matches, long[] rowDuals, long[] colDuals) {
+
+	final int cols = (costs.length > 0 ? costs[0].length : 0);
+	Rows rows = new Rows () {
+		public int read (int row, int[] columns, double[] into) {
+		    for (int j = 0; j < cols; j += 1) {
+			into[j] = costs[row][j];
+		    }
+		    return cols;
+		}
+	    };
+	return check(costs.length, cols, rows, matches, toDoubles(rowDuals), toDoubles(colDuals), 0.0);
+
+    } // check ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Check an assignment over a sparse graph of allowed pairings, such as <code>SparseAssignment</code> returns.  Only the allowed
+     * pairings are examined, since a pairing that is not allowed costs more than any duals.
+     *
+     * @param graph    The allowed pairings and their costs.
+     * @param matches  The column assigned to each row, or <code>-1</code>.
+     * @param rowDuals The dual of each row.
+     * @param colDuals The dual of each column.
+     * @return The outcome of the check.
+     */
+    public static Certificate check (SparseCostGraph graph, int[] matches, double[] rowDuals, double[] colDuals) {
+
+	final int[]    offsets = graph.offsets();
+	final int[]    targets = graph.targets();
+	final double[] costs   = graph.costs();
+	Rows rows = new Rows () {
+		public int read (int row, int[] columns, double[] into) {
+		    int count = offsets[row + 1] - offsets[row];
+		    System.arraycopy(targets, offsets[row], columns, 0, count);
+		    System.arraycopy(costs,   offsets[row], into,    0, count);
+		    return count;
+		}
+	    };
+	return check(graph.rows(), graph.cols(), rows, matches, rowDuals, colDuals, DEFAULT_TOLERANCE);
+
+    } // check ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Check an assignment, reading the costs a row at a time.
+     *
+     * @param rowCount  The number of rows.
+     * @param colCount  The number of columns.
+     * @param rows      The costs of each row, by column.  A column not given is one that cannot be paired with the row.
+     * @param matches   The column assigned to each row, or <code>-1</code>.
+     * @param rowDuals  The dual of each row.
+     * @param colDuals  The dual of each column.
+     * @param tolerance The tolerance, relative to the largest dual or to one, within which sums are equal.
+     * @return The outcome of the check.
+     */
+    private static Certificate check (int      rowCount,
+				      int      colCount,
+				      Rows     rows,
+				      int[]    matches,
+				      double[] rowDuals,
+				      double[] colDuals,
+				      double   tolerance) {
+
+	if (matches.length != rowCount || rowDuals.length != rowCount || colDuals.length != colCount) {
+	    return failed("The assignment or duals do not match the costs in size");
+	}
+
+	// Primal feasibility: the smaller side is paired throughout, and to distinct partners.
+	int[] matchOfColumn = new int[colCount];
+	Arrays.fill(matchOfColumn, -1);
+	int paired = 0;
+	for (int i = 0; i < rowCount; i += 1) {
+	    int j = matches[i];
+	    if (j == -1) {
+		continue;
+	    }
+	    if (j < 0 || j >= colCount) {
+		return failed(String.format("Row %d is paired with column %d, which does not exist", i, j));
+	    }
+	    if (matchOfColumn[j] != -1) {
+		return failed(String.format("Rows %d and %d are both paired with column %d", matchOfColumn[j], i, j));
+	    }
+	    matchOfColumn[j] = i;
+	    paired += 1;
+	}
+	if (paired < Math.min(rowCount, colCount)) {
+	    return failed(String.format("Only %d of %d %s are paired", paired, Math.min(rowCount, colCount),
+					(rowCount <= colCount ? "rows" : "columns")));
+	}
+
+	// Shift the duals of the larger side so that the greatest is zero.
+	double[] u = rowDuals.clone();
+	double[] v = colDuals.clone();
+	if (rowCount < colCount) {
+	    shift(v, u);
+	} else if (rowCount > colCount) {
+	    shift(u, v);
+	}
+	double scale = 1.0;
+	for (double dual : u) {
+	    scale = Math.max(scale, Math.abs(dual));
+	}
+	for (double dual : v) {
+	    scale = Math.max(scale, Math.abs(dual));
+	}
+	double epsilon = tolerance * scale;
+	if (Double.isNaN(scale) || Double.isInfinite(scale)) {
+	    return failed("Some dual is not finite");
+	}
+
+	// Complementary slackness on the larger side: only a paired row or column may have a negative dual.
+	double dual = 0.0;
+	for (int i = 0; i < rowCount; i += 1) {
+	    if (u[i] < -epsilon && matches[i] == -1) {
+		return failed(String.format("Row %d is unpaired, but its dual is %g", i, u[i]));
+	    }
+	    dual += u[i];
+	}
+	for (int j = 0; j < colCount; j += 1) {
+	    if (v[j] < -epsilon && matchOfColumn[j] == -1) {
+		return failed(String.format("Column %d is unpaired, but its dual is %g", j, v[j]));
+	    }
+	    dual += v[j];
+	}
+
+	// Dual feasibility over every pairing, and complementary slackness over those made.
+	int[]    columns        = new int[colCount];
+	double[] costs          = new double[colCount];
+	double   primal         = 0.0;
+	double   worstViolation = 0.0;
+	for (int j = 0; j < colCount; j += 1) {
+	    columns[j] = j;
+	}
+	for (int i = 0; i < rowCount; i += 1) {
+	    int     count = rows.read(i, columns, costs);
+	    boolean found = (matches[i] == -1);
+	    for (int k = 0; k < count; k += 1) {
+		int    j     = columns[k];
+		double slack = costs[k] - u[i] - v[j];
+		if (Double.isNaN(slack)) {
+		    return failed(String.format("The cost of pairing row %d with column %d is not a number", i, j));
+		}
+		worstViolation = Math.max(worstViolation, -slack);
+		if (j == matches[i]) {
+		    if (Math.abs(slack) > epsilon) {
+			return failed(String.format("Row %d is paired with column %d at %g more than its duals", i, j, slack));
+		    }
+		    primal += costs[k];
+		    found   = true;
+		}
+	    }
+	    if (!found) {
+		return failed(String.format("Row %d is paired with column %d, which is not an allowed pairing", i, matches[i]));
+	    }
+	}
+	if (worstViolation > epsilon) {
+	    return new Certificate(String.format("Some pairing costs %g less than its duals", worstViolation),
+				   primal, dual, worstViolation);
+	}
+	return new Certificate(null, primal, dual, worstViolation);
+
+    } // check ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Shift one side's duals so that the greatest is zero, and the other's by the opposite amount.
+     *
+     * @param larger  The duals of the larger side.
+     * @param smaller The duals of the smaller side.
+     */
+    private static void shift (double[] larger, double[] smaller) {
+
+	double greatest = Double.NEGATIVE_INFINITY;
+	for (double dual : larger) {
+	    greatest = Math.max(greatest, dual);
+	}
+	for (int k = 0; k < larger.length; k += 1) {
+	    larger[k] -= greatest;
+	}
+	for (int k = 0; k < smaller.length; k += 1) {
+	    smaller[k] += greatest;
+	}
+
+    } // shift ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static Certificate failed (String failure) {
+	return new Certificate(failure, Double.NaN, Double.NaN, Double.NaN);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static double[] toDoubles (long[] values) {
+
+	double[] doubles = new double[values.length];
+	for (int k = 0; k < values.length; k += 1) {
+	    doubles[k] = values[k];
+	}
+	return doubles;
+
+    } // toDoubles ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Whether the assignment was certified optimal. */
+    public boolean certified () {
+	return _failure == null;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Why the assignment was not certified, or <code>null</code> if it was. */
+    public String failure () {
+	return _failure;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The cost of the assignment, or <code>NaN</code> if the check stopped before adding it up. */
+    public double primal () {
+	return _primal;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The lower bound from the duals on the cost of any assignment, or <code>NaN</code> as above. */
+    public double dual () {
+	return _dual;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The amount by which the cost of the assignment exceeds the bound, which is zero (to rounding) when certified. */
+    public double gap () {
+	return _primal - _dual;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The greatest amount by which any pairing costs less than its duals allow, or <code>NaN</code> as above. */
+    public double worstViolation () {
+	return _worstViolation;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String toString () {
+
+	if (_failure != null) {
+	    return "Not certified: " + _failure;
+	}
+	return String.format("Certified optimal: cost %.6f, dual bound %.6f, gap %.3g", _primal, _dual, gap());
+
+    } // toString ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class Certificate
+// =================================================================================================================================
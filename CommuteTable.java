@@ -0,0 +1,308 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * The commute between every student's home and every preceptor's practice, computed once for a roster so that scoring a pairing
+ * costs two table lookups rather than any geometry.  Students share towns, as do preceptors, so the table is kept over the distinct
+ * homes and distinct practice locations rather than over students and preceptors.
+ * <p>
+ *
+ * Only the locations within the maximum commute of a home are measured.  They are found through a grid over the practice locations
+ * whose cells are at least the maximum commute on a side, so that every location within reach of a home lies in the home's cell
+ * or one of its eight neighbors; every other location is recorded as beyond reach without being measured.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class CommuteTable {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The row of the table for each distinct home, and the column for each distinct practice location, by name. */
+    private final Map<String, Integer> _homeIndex     = new HashMap<String, Integer>();
+    private final Map<String, Integer> _locationIndex = new HashMap<String, Integer>();
+
+    /** The same, by student and by preceptor, so that scoring a pairing neither builds nor hashes any string. */
+    private final Map<Student, Integer>   _rowOfStudent      = new IdentityHashMap<Student, Integer>();
+    private final Map<Preceptor, Integer> _columnOfPreceptor = new IdentityHashMap<Preceptor, Integer>();
+
+    /**
+     * The commute, in miles, from each home to each location: <code>NaN</code> if either place is unknown to the gazetteer, and
+     * infinite if it is beyond the maximum.
+     */
+    private final float[][]            _miles;
+
+    /** The longest commute that earns any credit. */
+    private final double               _maxCommute;
+
+    /** The credit given a pairing whose commute cannot be measured, between none (beyond reach) and full (no commute at all). */
+    public static final double UNKNOWN_COMMUTE_CREDIT = 0.5;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Build the table for a roster.  Each place named by the roster but missing from the gazetteer is reported once.
+     *
+     * @param gazetteer  The coordinates of the places named.
+     * @param students   The students, whose homes are the origins.
+     * @param preceptors The preceptors, whose practice locations are the destinations.
+     * @param maxCommute The longest commute, in miles, that earns any credit.
+     */
+    public CommuteTable (Gazetteer gazetteer, List<Student> students, List<Preceptor> preceptors, double maxCommute) {
+
+	Utility.abortIfFalse(maxCommute > 0.0, "CommuteTable(): The maximum commute must be positive: " + maxCommute);
+	_maxCommute = maxCommute;
+
+	// Number the distinct places, noting where each lies in the gazetteer.
+	List<Integer> homePlaces     = new ArrayList<Integer>();
+	List<Integer> locationPlaces = new ArrayList<Integer>();
+	Set<String>   unknown        = new TreeSet<String>();
+	for (Student student : students) {
+	    _rowOfStudent.put(student, number(student.home(), _homeIndex, homePlaces, gazetteer, unknown));
+	}
+	for (Preceptor preceptor : preceptors) {
+	    _columnOfPreceptor.put(preceptor, number(preceptor.location(), _locationIndex, locationPlaces, gazetteer, unknown));
+	}
+	for (String name : unknown) {
+	    Utility.warning("No coordinates for \"" + name + "\"; commutes to and from it get neutral credit");
+	}
+
+	// Start every entry as beyond reach, or as unknown where either end is; then measure only those within reach.
+	_miles = new float[homePlaces.size()][locationPlaces.size()];
+	for (int h = 0; h < _miles.length; h += 1) {
+	    Arrays.fill(_miles[h], Float.POSITIVE_INFINITY);
+	    if (homePlaces.get(h) == -1) {
+		Arrays.fill(_miles[h], Float.NaN);
+	    }
+	}
+	for (int l = 0; l < locationPlaces.size(); l += 1) {
+	    if (locationPlaces.get(l) == -1) {
+		for (int h = 0; h < _miles.length; h += 1) {
+		    _miles[h][l] = Float.NaN;
+		}
+	    }
+	}
+
+	// A degree of longitude shrinks away from the equator, so size the grid's cells for the place farthest from it.
+	double farthest = 0.0;
+	for (List<Integer> places : Arrays.asList(homePlaces, locationPlaces)) {
+	    for (int place : places) {
+		if (place != -1) {
+		    farthest = Math.max(farthest, Math.abs(gazetteer.latitude(place)));
+		}
+	    }
+	}
+	Grid grid = new Grid(gazetteer, locationPlaces, maxCommute, farthest);
+	for (int h = 0; h < _miles.length; h += 1) {
+	    int home = homePlaces.get(h);
+	    if (home == -1) {
+		continue;
+	    }
+	    for (int l : grid.near(home)) {
+		double miles = gazetteer.distance(home, locationPlaces.get(l));
+		if (miles <= maxCommute) {
+		    _miles[h][l] = (float)miles;
+		}
+	    }
+	}
+
+    } // CommuteTable ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Give a place its number in the table, if it has none yet.
+     *
+     * @param name      The name of the place.
+     * @param index     The numbers given so far, by name.
+     * @param places    The gazetteer's index for each place numbered so far, or <code>-1</code> for those it lacks.
+     * @param gazetteer The coordinates of the places.
+     * @param unknown   The names of the places that the gazetteer lacks, to which this place is added if it is one.
+     * @return The place's number.
+     */
+    private static int number (String               name,
+			       Map<String, Integer> index,
+			       List<Integer>        places,
+			       Gazetteer            gazetteer,
+			       Set<String>          unknown) {
+
+	String  key    = key(name);
+	Integer number = index.get(key);
+	if (number != null) {
+	    return number;
+	}
+	int place = gazetteer.indexOf(name);
+	if (place == -1) {
+	    unknown.add(name);
+	}
+	index.put(key, places.size());
+	places.add(place);
+	return places.size() - 1;
+
+    } // number ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student   The student.
+     * @param preceptor The preceptor.
+     * @return The commute from the student's home to the preceptor's practice, in miles: <code>NaN</code> if it cannot be measured,
+     *         and infinite if it exceeds the maximum.
+     */
+    public double miles (Student student, Preceptor preceptor) {
+
+	Integer h = _rowOfStudent.get(student);
+	Integer l = _columnOfPreceptor.get(preceptor);
+	if (h == null) {
+	    h = _homeIndex.get(key(student.home()));
+	}
+	if (l == null) {
+	    l = _locationIndex.get(key(preceptor.location()));
+	}
+	return (h == null || l == null ? Double.NaN : _miles[h][l]);
+
+    } // miles ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student   The student.
+     * @param preceptor The preceptor.
+     * @return Whether the commute is known to exceed the maximum.
+     */
+    public boolean beyondReach (Student student, Preceptor preceptor) {
+	return miles(student, preceptor) == Double.POSITIVE_INFINITY;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The commute component of a match's quality: full credit for no commute, falling linearly to none at the maximum commute.
+     *
+     * @param student   The student.
+     * @param preceptor The preceptor.
+     * @return The quality of the commute, from 0 to 1.
+     */
+    public double quality (Student student, Preceptor preceptor) {
+
+	double miles = miles(student, preceptor);
+	if (Double.isNaN(miles)) {
+	    return UNKNOWN_COMMUTE_CREDIT;
+	}
+	return Math.max(0.0, 1.0 - miles / _maxCommute);
+
+    } // quality ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static String key (String name) {
+	return (name == null ? "" : name.trim().toLowerCase());
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * A uniform grid over a set of places, by latitude and longitude, with cells no smaller than a given distance on a side.
+     */
+    private static class Grid {
+
+	private final Gazetteer                _gazetteer;
+	private final double                   _cellLatitude;
+	private final double                   _cellLongitude;
+	private final Map<Long, List<Integer>> _cells = new HashMap<Long, List<Integer>>();
+
+	/**
+	 * @param gazetteer The coordinates of the places.
+	 * @param places    The gazetteer's index for each place to put in the grid, or <code>-1</code> to leave it out.
+	 * @param reach     The least size of a cell, in miles.
+	 * @param farthest  The greatest distance from the equator, in degrees of latitude, of any place to be put in or sought in
+	 *                  the grid.
+	 */
+	Grid (Gazetteer gazetteer, List<Integer> places, double reach, double farthest) {
+
+	    _gazetteer     = gazetteer;
+	    _cellLatitude  = reach / Gazetteer.milesPerDegree();
+	    _cellLongitude = Math.min(360.0, reach / (Gazetteer.milesPerDegree() * Math.max(1e-6, Math.cos(Math.toRadians(farthest)))));
+
+	    for (int k = 0; k < places.size(); k += 1) {
+		int place = places.get(k);
+		if (place != -1) {
+		    _cells.computeIfAbsent(cell(row(place), column(place)), c -> new ArrayList<Integer>()).add(k);
+		}
+	    }
+
+	}
+
+	/**
+	 * @param origin The gazetteer's index of a place.
+	 * @return The places in the grid (by their position in the list given to the constructor) that might lie within reach of the
+	 *         origin: those in its cell and the eight around it.
+	 */
+	List<Integer> near (int origin) {
+
+	    List<Integer> near   = new ArrayList<Integer>();
+	    long          row    = row(origin);
+	    long          column = column(origin);
+	    for (long r = row - 1; r <= row + 1; r += 1) {
+		for (long c = column - 1; c <= column + 1; c += 1) {
+		    List<Integer> cell = _cells.get(cell(r, c));
+		    if (cell != null) {
+			near.addAll(cell);
+		    }
+		}
+	    }
+	    return near;
+
+	}
+
+	private long row (int place) {
+	    return (long)Math.floor(_gazetteer.latitude(place) / _cellLatitude);
+	}
+
+	private long column (int place) {
+	    return (long)Math.floor(_gazetteer.longitude(place) / _cellLongitude);
+	}
+
+	private static long cell (long row, long column) {
+	    return (row << 32) ^ (column & 0xffffffffL);
+	}
+
+    } // class Grid
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class CommuteTable
+// =================================================================================================================================
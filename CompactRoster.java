@@ -0,0 +1,735 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * The profiles of a roster held in columns of primitives rather than as one <code>Student</code> or <code>Preceptor</code> object
+ * apiece, so that rosters of a million or more records fit in a modest heap.  The layout:
+ * <ul>
+ *   <li>every name (last, first, and pre-match, for students and preceptors alike) lies in one shared <code>char</code> buffer,
+ *       each record holding only offsets into it;</li>
+ *   <li>the categorical fields (places, practice types, days) are dictionary-encoded, each distinct text kept once and each record
+ *       holding only its code;</li>
+ *   <li>a student's eight ranks, each from one to four, are packed four bits apiece into one <code>int</code>;</li>
+ *   <li>a preceptor's practice and setting masks, which take only a few distinct values across a roster, are dictionary-encoded
+ *       as well;</li>
+ *   <li>the remaining traits are bits of one flag byte per record.</li>
+ * </ul>
+ * Records are read through the ordinary constructors, so they are parsed (and their problems warned of) exactly as they are for a
+ * list of profiles, but each object is dropped as soon as its traits are copied.  <code>cross()</code> scores a pairing exactly as
+ * <code>Student.cross()</code> does.
+ * <p>
+ *
+ * This is a store for callers that work by index, not a path that <code>Pairer</code> takes: every mode of <code>Pairer</code>
+ * writes its pairings through <code>MatchResult</code> and <code>ResultWriter</code>, which hold a <code>Roster</code> of
+ * profile objects, and a roster large enough to need this one is far too large for any of its dense solves.  Only
+ * <code>Benchmark compact</code> uses it here, to measure it against the list of profiles and to confirm that the two score
+ * alike.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class CompactRoster {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** A set of distinct texts, each known by the order in which it was first added. */
+    private static class Dictionary {
+
+	private final Map<String, Integer> _codes = new HashMap<String, Integer>();
+	private final List<String>         _texts = new ArrayList<String>();
+
+	int encode (String text) {
+
+	    Integer code = _codes.get(text);
+	    if (code == null) {
+		code = _texts.size();
+		_codes.put(text, code);
+		_texts.add(text);
+	    }
+	    return code;
+
+	}
+
+	String decode (int code) {
+	    return _texts.get(code);
+	}
+
+	int size () {
+	    return _texts.size();
+	}
+
+    } // class Dictionary
+
+    /** The bits of a student's flags. */
+    private static final byte _STUDENT_PAIRABLE = 0x01;
+    private static final byte _FEMALE           = 0x02;
+    private static final byte _SPEAKS_SPANISH   = 0x04;
+
+    /** The bits of a preceptor's flags. */
+    private static final byte _PRECEPTOR_PAIRABLE = 0x01;
+    private static final byte _GENDER_PREFERENCE  = 0x02;
+    private static final byte _PREFERS_FEMALE     = 0x04;
+    private static final byte _PREFERS_SPANISH    = 0x08;
+
+    /** The names kept for each record, in the order of their offsets. */
+    private static final int _LAST_NAME     = 0;
+    private static final int _FIRST_NAME    = 1;
+    private static final int _PRE_MATCH     = 2;
+    private static final int _NAMES_PER     = 3;
+
+    /** The width, in bits, of one packed rank, and the number of ranks of each kind. */
+    private static final int _RANK_BITS     = 4;
+    private static final int _PRACTICES     = Student._numberPracticeFields;
+    private static final int _SETTINGS      = Student._numberSettingFields;
+
+    /** The largest code a categorical column of <code>char</code> can hold. */
+    private static final int _MAX_CODE      = Character.MAX_VALUE;
+
+    /** The number of records for which the columns first make room. */
+    private static final int _INITIAL_SIZE  = 1 << 10;
+
+    private static final double[] _WEIGHTS  = Student.defaultWeights();
+
+    /** Every name, end to end.  <code>_nameLength</code> chars are in use. */
+    private char[]     _names            = new char[_INITIAL_SIZE * 16];
+    private int        _nameLength;
+
+    /** The dictionaries: places (homes and practice locations alike), practice types, day texts, and distinct mask pairs. */
+    private final Dictionary _places     = new Dictionary();
+    private final Dictionary _practices  = new Dictionary();
+    private final Dictionary _days       = new Dictionary();
+    private final Dictionary _maskKeys   = new Dictionary();
+
+    /** The set of <code>Days</code> that each day text names, by its code. */
+    private int[]      _daySets          = new int[16];
+
+    /** The practice masks and then the setting masks of each distinct pair, by its code. */
+    private double[]   _masks            = new double[16 * (_PRACTICES + _SETTINGS)];
+
+    /** The student columns; <code>_studentNames</code> holds <code>_NAMES_PER</code> offsets per student and one past the last. */
+    private int        _studentCount;
+    private int[]      _studentNames     = new int[_INITIAL_SIZE * _NAMES_PER + 1];
+    private int[]      _home             = new int[_INITIAL_SIZE];
+    private int[]      _ranks            = new int[_INITIAL_SIZE];
+    private byte[]     _availableDays    = new byte[_INITIAL_SIZE];
+    private byte[]     _studentFlags     = new byte[_INITIAL_SIZE];
+
+    /** The preceptor columns, likewise. */
+    private int        _preceptorCount;
+    private int[]      _preceptorNames   = new int[_INITIAL_SIZE * _NAMES_PER + 1];
+    private int[]      _location         = new int[_INITIAL_SIZE];
+    private char[]     _practiceType     = new char[_INITIAL_SIZE];
+    private char[]     _preferredDay     = new char[_INITIAL_SIZE];
+    private char[]     _secondaryDay     = new char[_INITIAL_SIZE];
+    private char[]     _mask             = new char[_INITIAL_SIZE];
+    private byte[]     _preceptorFlags   = new byte[_INITIAL_SIZE];
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private CompactRoster () {
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Copy a roster of profiles already read.
+     *
+     * @param students   The students, in the order that their indices will follow.
+     * @param preceptors The preceptors, likewise.
+     */
+    public CompactRoster (List<Student> students, List<Preceptor> preceptors) {
+
+	this();
+	for (Student student : students) {
+	    add(student);
+	}
+	for (Preceptor preceptor : preceptors) {
+	    add(preceptor);
+	}
+	trim();
+
+    } // CompactRoster ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Read a pair of roster files straight into columns, never holding more than one profile object at a time.
+     *
+     * @param studentsPath   The file of student records, the first line of which is a header.
+     * @param preceptorsPath The file of preceptor records, likewise.
+     * @return The roster.
+     */
+    public static CompactRoster read (String studentsPath, String preceptorsPath) {
+
+	CompactRoster    roster   = new CompactRoster();
+	Iterator<String> students = lines(studentsPath);
+	Schema           schema   = Student.schema(students.next());
+	if (schema.problem() != null) {
+	    Utility.warning(schema.problem());
+	}
+	while (students.hasNext()) {
+	    roster.add(new Student(students.next(), schema));
+	}
+	Iterator<String> preceptors = lines(preceptorsPath);
+	schema = Preceptor.schema(preceptors.next());
+	if (schema.problem() != null) {
+	    Utility.warning(schema.problem());
+	}
+	while (preceptors.hasNext()) {
+	    roster.add(new Preceptor(preceptors.next(), schema));
+	}
+	roster.trim();
+	return roster;
+
+    } // read ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The lines of a roster file, read one at a time as they are iterated over.
+     *
+     * @param path The file, the first line of which is a header.
+     * @return The lines, the header first.
+     */
+    private static Iterator<String> lines (final String path) {
+
+	final BufferedReader reader;
+	try {
+	    reader = RosterInput.open(path);
+	} catch (FileNotFoundException e) {
+	    Utility.abort("CompactRoster.read(): No such file " + path);
+	    return null;
+	} catch (IOException e) {
+	    Utility.abort("CompactRoster.read(): Unable to read " + path + ": " + e.getMessage());
+	    return null;
+	}
+
+	Iterator<String> lines = new Iterator<String>() {
+
+		private String _next = advance();
+
+		private String advance () {
+		    try {
+			String line = reader.readLine();
+			if (line == null) {
+			    reader.close();
+			}
+			return line;
+		    } catch (IOException e) {
+			Utility.abort("CompactRoster.read(): Unable to read " + path + ": " + e.getMessage());
+			return null;
+		    }
+		}
+
+		public boolean hasNext () {
+		    return (_next != null);
+		}
+
+		public String next () {
+		    String line = _next;
+		    _next = advance();
+		    return line;
+		}
+
+	    };
+	Utility.abortIfFalse(lines.hasNext(), "CompactRoster.read(): No lines of data in " + path);
+	return lines;
+
+    } // lines ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Copy a student's traits into the columns.
+     *
+     * @param student The student.
+     */
+    private void add (Student student) {
+
+	int i = _studentCount;
+	if (i == _home.length) {
+	    int size = 2 * i;
+	    _studentNames  = Arrays.copyOf(_studentNames,  size * _NAMES_PER + 1);
+	    _home          = Arrays.copyOf(_home,          size);
+	    _ranks         = Arrays.copyOf(_ranks,         size);
+	    _availableDays = Arrays.copyOf(_availableDays, size);
+	    _studentFlags  = Arrays.copyOf(_studentFlags,  size);
+	}
+
+	appendNames(_studentNames, i, student.lastName(), student.firstName(), student.preMatch());
+	_home[i]          = _places.encode(student.home());
+	_availableDays[i] = (byte)student.availableDays();
+
+	byte flags = 0;
+	if (student.pairable()) {
+	    flags |= _STUDENT_PAIRABLE;
+	    int ranks = 0;
+	    for (int k = 0; k < _PRACTICES; k += 1) {
+		ranks |= student.getPracticeRank(k) << (_RANK_BITS * k);
+	    }
+	    for (int k = 0; k < _SETTINGS; k += 1) {
+		ranks |= student.getSettingRank(k) << (_RANK_BITS * (_PRACTICES + k));
+	    }
+	    _ranks[i] = ranks;
+	    if (student.isFemale()) {
+		flags |= _FEMALE;
+	    }
+	    if (student.speaksSpanish()) {
+		flags |= _SPEAKS_SPANISH;
+	    }
+	}
+	_studentFlags[i] = flags;
+	_studentCount += 1;
+
+    } // add ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Copy a preceptor's traits into the columns.
+     *
+     * @param preceptor The preceptor.
+     */
+    private void add (Preceptor preceptor) {
+
+	int j = _preceptorCount;
+	if (j == _location.length) {
+	    int size = 2 * j;
+	    _preceptorNames = Arrays.copyOf(_preceptorNames, size * _NAMES_PER + 1);
+	    _location       = Arrays.copyOf(_location,       size);
+	    _practiceType   = Arrays.copyOf(_practiceType,   size);
+	    _preferredDay   = Arrays.copyOf(_preferredDay,   size);
+	    _secondaryDay   = Arrays.copyOf(_secondaryDay,   size);
+	    _mask           = Arrays.copyOf(_mask,           size);
+	    _preceptorFlags = Arrays.copyOf(_preceptorFlags, size);
+	}
+
+	appendNames(_preceptorNames, j, preceptor.lastName(), preceptor.firstName(), preceptor.preMatch());
+	_location[j]     = _places.encode(preceptor.location());
+	_practiceType[j] = code(_practices.encode(preceptor.practiceType()));
+	_preferredDay[j] = dayCode(preceptor.preferredDay());
+	_secondaryDay[j] = dayCode(preceptor.secondaryDay());
+	_mask[j]         = maskCode(preceptor);
+
+	byte flags = 0;
+	if (preceptor.pairable()) {
+	    flags |= _PRECEPTOR_PAIRABLE;
+	}
+	if (preceptor.hasGenderPreference()) {
+	    flags |= _GENDER_PREFERENCE;
+	}
+	if (preceptor.prefersFemale()) {
+	    flags |= _PREFERS_FEMALE;
+	}
+	if (preceptor.prefersSpanish()) {
+	    flags |= _PREFERS_SPANISH;
+	}
+	_preceptorFlags[j] = flags;
+	_preceptorCount += 1;
+
+    } // add ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Append a record's names to the shared buffer, recording where each begins (and where the last ends).
+     *
+     * @param offsets  The offsets of the records' names.
+     * @param record   The record's index.
+     * @param last     The last name.
+     * @param first    The first name.
+     * @param preMatch The name of the pre-match, or <code>null</code>.
+     */
+    private void appendNames (int[] offsets, int record, String last, String first, String preMatch) {
+
+	String[] names = { last, first, (preMatch == null ? "" : preMatch) };
+	for (int k = 0; k < _NAMES_PER; k += 1) {
+	    offsets[record * _NAMES_PER + k] = _nameLength;
+	    if (_nameLength + names[k].length() > _names.length) {
+		_names = Arrays.copyOf(_names, Math.max(2 * _names.length, _nameLength + names[k].length()));
+	    }
+	    names[k].getChars(0, names[k].length(), _names, _nameLength);
+	    _nameLength += names[k].length();
+	}
+	offsets[(record + 1) * _NAMES_PER] = _nameLength;
+
+    } // appendNames ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Encode a day text, recording the set of days it names if it is new.  Texts that name no day that can be parsed are taken to
+     * mean any day, as <code>Preceptor</code> takes them.
+     *
+     * @param text The day text.
+     * @return Its code.
+     */
+    private char dayCode (String text) {
+
+	int code = _days.encode(text);
+	if (code == _daySets.length) {
+	    _daySets = Arrays.copyOf(_daySets, 2 * code);
+	}
+	try {
+	    _daySets[code] = Days.parse(text);
+	} catch (InsufficientDataException e) {
+	    _daySets[code] = Days.ALL;
+	}
+	return code(code);
+
+    } // dayCode ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Encode a preceptor's practice and setting masks as one pair, recording the pair's values if it is new.
+     *
+     * @param preceptor The preceptor.
+     * @return The pair's code.
+     */
+    private char maskCode (Preceptor preceptor) {
+
+	double[] masks = new double[_PRACTICES + _SETTINGS];
+	for (int k = 0; k < _PRACTICES; k += 1) {
+	    masks[k] = preceptor.getPracticeMask(k);
+	}
+	for (int k = 0; k < _SETTINGS; k += 1) {
+	    masks[_PRACTICES + k] = preceptor.getSettingMask(k);
+	}
+	int code = _maskKeys.encode(Arrays.toString(masks));
+	if ((code + 1) * masks.length > _masks.length) {
+	    _masks = Arrays.copyOf(_masks, 2 * _masks.length);
+	}
+	System.arraycopy(masks, 0, _masks, code * masks.length, masks.length);
+	return code(code);
+
+    } // maskCode ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static char code (int code) {
+
+	Utility.abortIfFalse(code <= _MAX_CODE, "CompactRoster: More than " + (_MAX_CODE + 1) + " distinct values in one field");
+	return (char)code;
+
+    } // code ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** Shrink every column to its contents, once all of the records are in. */
+    private void trim () {
+
+	_names          = Arrays.copyOf(_names,          _nameLength);
+	_studentNames   = Arrays.copyOf(_studentNames,   _studentCount * _NAMES_PER + 1);
+	_home           = Arrays.copyOf(_home,           _studentCount);
+	_ranks          = Arrays.copyOf(_ranks,          _studentCount);
+	_availableDays  = Arrays.copyOf(_availableDays,  _studentCount);
+	_studentFlags   = Arrays.copyOf(_studentFlags,   _studentCount);
+	_preceptorNames = Arrays.copyOf(_preceptorNames, _preceptorCount * _NAMES_PER + 1);
+	_location       = Arrays.copyOf(_location,       _preceptorCount);
+	_practiceType   = Arrays.copyOf(_practiceType,   _preceptorCount);
+	_preferredDay   = Arrays.copyOf(_preferredDay,   _preceptorCount);
+	_secondaryDay   = Arrays.copyOf(_secondaryDay,   _preceptorCount);
+	_mask           = Arrays.copyOf(_mask,           _preceptorCount);
+	_preceptorFlags = Arrays.copyOf(_preceptorFlags, _preceptorCount);
+
+    } // trim ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Measure the quality of the match between a student and a preceptor, exactly as <code>Student.cross()</code> would measure it
+     * for the profiles from which they were copied.
+     *
+     * @param student   The student's index.
+     * @param preceptor The preceptor's index.
+     * @return The quality of the match.  Higher scores are better matches.
+     */
+    public double cross (int student, int preceptor) {
+
+	if (!(studentPairable(student) && preceptorPairable(preceptor))) {
+	    Utility.abort(String.format("Tried to pair unpairable student (%s) and preceptor (%s)",
+					studentName(student, true),
+					preceptorName(preceptor, true)));
+	}
+
+	int ranks = _ranks[student];
+	int mask  = _mask[preceptor] * (_PRACTICES + _SETTINGS);
+
+	double practiceMatchQuality = 0.0;
+	for (int k = 0; k < _PRACTICES; k += 1) {
+	    practiceMatchQuality += (1.0 / ((ranks >>> (_RANK_BITS * k)) & 0xf)) * _masks[mask + k];
+	}
+	double settingMatchQuality = 0.0;
+	for (int k = 0; k < _SETTINGS; k += 1) {
+	    settingMatchQuality += (1.0 / ((ranks >>> (_RANK_BITS * (_PRACTICES + k))) & 0xf)) * _masks[mask + _PRACTICES + k];
+	}
+
+	byte   studentFlags        = _studentFlags[student];
+	byte   preceptorFlags      = _preceptorFlags[preceptor];
+	double genderMatchQuality  = 0.25;
+	if ((preceptorFlags & _GENDER_PREFERENCE) != 0) {
+	    genderMatchQuality = (((preceptorFlags & _PREFERS_FEMALE) != 0) == ((studentFlags & _FEMALE) != 0) ? 1.0 : 0.0);
+	}
+	double spanishMatchQuality = 0.25;
+	if ((preceptorFlags & _PREFERS_SPANISH) != 0) {
+	    spanishMatchQuality = ((studentFlags & _SPEAKS_SPANISH) != 0 ? 1.0 : 0.0);
+	}
+
+	double[] components = new double[Student._numberComponents];
+	components[Student._PRACTICE_COMPONENT] = practiceMatchQuality;
+	components[Student._SETTING_COMPONENT]  = settingMatchQuality;
+	components[Student._GENDER_COMPONENT]   = genderMatchQuality;
+	components[Student._SPANISH_COMPONENT]  = spanishMatchQuality;
+	return Student.combine(components, _WEIGHTS);
+
+    } // cross ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student   The student's index.
+     * @param preceptor The preceptor's index.
+     * @return The cost of the pairing, as <code>PairScorer.cost()</code> computes it for the hand-written scorer.
+     */
+    public double cost (int student, int preceptor) {
+	return 1 / cross(student, preceptor);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return An estimate of the bytes held by the columns and dictionaries, counting each array's contents but not the headers of
+     *         the arrays or of the dictionaries' entries.
+     */
+    public long bytes () {
+
+	long bytes = 2L * _names.length;
+	bytes += 4L * (_studentNames.length + _home.length + _ranks.length) + _availableDays.length + _studentFlags.length;
+	bytes += (4L * (_preceptorNames.length + _location.length) +
+		  2L * (_practiceType.length + _preferredDay.length + _secondaryDay.length + _mask.length) +
+		  _preceptorFlags.length);
+	bytes += 4L * _daySets.length + 8L * _masks.length;
+	for (Dictionary dictionary : new Dictionary[] { _places, _practices, _days, _maskKeys }) {
+	    for (int code = 0; code < dictionary.size(); code += 1) {
+		bytes += 2L * dictionary.decode(code).length();
+	    }
+	}
+	return bytes;
+
+    } // bytes ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private String name (int[] offsets, int record, int which) {
+
+	int begin = offsets[record * _NAMES_PER + which];
+	return new String(_names, begin, offsets[record * _NAMES_PER + which + 1] - begin);
+
+    } // name ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int studentCount () {
+	return _studentCount;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int preceptorCount () {
+	return _preceptorCount;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student       The student's index.
+     * @param lastNameFirst Whether to give the name as <code>Student.getName(true)</code> does, rather than first name first.
+     * @return The student's name.
+     */
+    public String studentName (int student, boolean lastNameFirst) {
+
+	String last  = name(_studentNames, student, _LAST_NAME);
+	String first = name(_studentNames, student, _FIRST_NAME);
+	return (lastNameFirst ? last + ", " + first : first + " " + last);
+
+    } // studentName ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param preceptor     The preceptor's index.
+     * @param lastNameFirst Whether to give the name as <code>Preceptor.getName(true)</code> does, rather than first name first.
+     * @return The preceptor's name.
+     */
+    public String preceptorName (int preceptor, boolean lastNameFirst) {
+
+	String last  = name(_preceptorNames, preceptor, _LAST_NAME);
+	String first = name(_preceptorNames, preceptor, _FIRST_NAME);
+	return (lastNameFirst ? last + ", " + first : first + " " + last);
+
+    } // preceptorName ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The name of the preceptor with whom the student is pre-matched, or <code>null</code>. */
+    public String studentPreMatch (int student) {
+
+	String preMatch = name(_studentNames, student, _PRE_MATCH);
+	return (preMatch.isEmpty() ? null : preMatch);
+
+    } // studentPreMatch ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The name of the student with whom the preceptor is pre-matched, or <code>null</code>. */
+    public String preceptorPreMatch (int preceptor) {
+
+	String preMatch = name(_preceptorNames, preceptor, _PRE_MATCH);
+	return (preMatch.isEmpty() ? null : preMatch);
+
+    } // preceptorPreMatch ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public boolean studentPairable (int student) {
+	return ((_studentFlags[student] & _STUDENT_PAIRABLE) != 0);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public boolean preceptorPairable (int preceptor) {
+	return ((_preceptorFlags[preceptor] & _PRECEPTOR_PAIRABLE) != 0);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String home (int student) {
+	return _places.decode(_home[student]);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The days on which the student is free, as a set of <code>Days</code>. */
+    public int studentDays (int student) {
+	return _availableDays[student];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String location (int preceptor) {
+	return _places.decode(_location[preceptor]);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String practiceType (int preceptor) {
+	return _practices.decode(_practiceType[preceptor]);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String preferredDay (int preceptor) {
+	return _days.decode(_preferredDay[preceptor]);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String secondaryDay (int preceptor) {
+	return _days.decode(_secondaryDay[preceptor]);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The days on which the preceptor can work with a student, as <code>Preceptor.availableDays()</code> gives them. */
+    public int preceptorDays (int preceptor) {
+
+	int days = _daySets[_preferredDay[preceptor]] | _daySets[_secondaryDay[preceptor]];
+	return (Days.any(days) ? days : Days.ALL);
+
+    } // preceptorDays ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class CompactRoster
+// =================================================================================================================================
@@ -0,0 +1,77 @@
+// =================================================================================================================================
+/**
+ * A rectangular matrix of assignment costs, where the entry at <code>(row, col)</code> is the cost of pairing the <i>row</i>-th
+ * worker (student) with the <i>col</i>-th job (preceptor).  The assignment solvers read their costs only through this interface,
+ * so the storage behind it may be an on-heap array or something much larger than the heap can hold.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ * @see ArrayCostMatrix
+ * @see MappedCostMatrix
+ */
+public interface CostMatrix {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of rows (workers) in the matrix. */
+    public int rows ();
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of columns (jobs) in the matrix. */
+    public int cols ();
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param row The worker's index.
+     * @param col The job's index.
+     * @return The cost of assigning the given worker to the given job.
+     */
+    public double get (int row, int col);
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Record the cost of assigning a worker to a job.
+     *
+     * @param row  The worker's index.
+     * @param col  The job's index.
+     * @param cost The cost to store.  Implementations with reduced precision may round it.
+     */
+    public void set (int row, int col, double cost);
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Copy one complete row of costs into a caller-supplied buffer.  Solvers walk the matrix a row at a time, so implementations
+     * should override this with a bulk copy where their storage allows it.
+     *
+     * @param row  The worker's index.
+     * @param into The buffer to fill; its first <code>cols()</code> entries are overwritten.
+     */
+    public default void readRow (int row, double[] into) {
+
+	int cols = cols();
+	for (int col = 0; col < cols; col += 1) {
+	    into[col] = get(row, col);
+	}
+
+    } // readRow ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // interface CostMatrix
+// =================================================================================================================================
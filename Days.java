@@ -0,0 +1,134 @@
+// =================================================================================================================================
+/**
+ * Days of the week, held as sets in the low seven bits of an <code>int</code> (bit 0 for Monday through bit 6 for Sunday), so that
+ * whether a student and a preceptor share a day is a single mask test.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class Days {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The set of no days. */
+    public static final int NONE = 0;
+
+    /** The set of every day. */
+    public static final int ALL  = 0x7f;
+
+    /** The name of each day, indexed by its bit. */
+    private static final String[] _NAMES = { "Monday",
+					     "Tuesday",
+					     "Wednesday",
+					     "Thursday",
+					     "Friday",
+					     "Saturday",
+					     "Sunday"
+    };
+
+    /** The case-insensitive texts, beyond the names of days, that mean any day at all. */
+    private static final String[] _ANY_TEXTS = { "any",
+						 "all",
+						 "flexible"
+    };
+
+    /** The fewest letters of a day's name accepted as an abbreviation for it (as in <i>Mon</i> or <i>Thu</i>). */
+    private static final int _MINIMUM_ABBREVIATION = 2;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Parse a list of days, such as <i>Monday</i>, <i>Tue/Thu</i>, or <i>Mon, Wed, Fri</i>.  Each day may be named in full or by
+     * an unambiguous abbreviation of at least two letters.
+     *
+     * @param text The list of days, separated by commas, slashes, ampersands, or spaces.
+     * @return The set of days named; <code>ALL</code> if the text says any day will do; <code>NONE</code> if the text is empty.
+     * @throws InsufficientDataException if any entry names no day, or more than one.
+     */
+    public static int parse (String text) throws InsufficientDataException {
+
+	int days = NONE;
+	for (String token : text.trim().split("[\\s,/&]+")) {
+	    if (token.length() == 0 || token.equalsIgnoreCase("and")) {
+		continue;
+	    }
+	    days |= parseDay(token);
+	}
+	return days;
+
+    } // parse ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param token The name or abbreviation of one day.
+     * @return The set containing that one day, or <code>ALL</code> if the token says any day will do.
+     * @throws InsufficientDataException if the token names no day, or more than one.
+     */
+    private static int parseDay (String token) throws InsufficientDataException {
+
+	for (String anyText : _ANY_TEXTS) {
+	    if (anyText.equalsIgnoreCase(token)) {
+		return ALL;
+	    }
+	}
+
+	if (token.length() >= _MINIMUM_ABBREVIATION) {
+	    int found = NONE;
+	    for (int day = 0; day < _NAMES.length; day += 1) {
+		if (_NAMES[day].regionMatches(true, 0, token, 0, token.length())) {
+		    if (found != NONE) {
+			throw new InsufficientDataException("Ambiguous day: " + token);
+		    }
+		    found = 1 << day;
+		}
+	    }
+	    if (found != NONE) {
+		return found;
+	    }
+	}
+	throw new InsufficientDataException("Unable to parse day: " + token);
+
+    } // parseDay ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param days A set of days.
+     * @return Whether the set has any day in it.
+     */
+    public static boolean any (int days) {
+	return (days & ALL) != NONE;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param days A set of days.
+     * @return The name of the earliest day in the week in the set, or <code>null</code> if the set is empty.
+     */
+    public static String first (int days) {
+
+	days &= ALL;
+	return (days == NONE ? null : _NAMES[Integer.numberOfTrailingZeros(days)]);
+
+    } // first ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class Days
+// =================================================================================================================================
@@ -0,0 +1,208 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A local table of place names and their coordinates, so that the towns named in the rosters can be placed on a map without
+ * consulting any outside service.  The file has one place per line, as <code>name;latitude;longitude</code> in decimal degrees;
+ * blank lines and lines beginning with <code>#</code> are ignored, and names are matched without regard to case or surrounding
+ * space.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class Gazetteer {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The index of each place, by its name in lower case. */
+    private final Map<String, Integer> _indexOfName = new HashMap<String, Integer>();
+
+    /** The name, latitude, and longitude of each place, indexed as above. */
+    private final List<String>         _names       = new ArrayList<String>();
+    private double[]                   _latitudes   = new double[16];
+    private double[]                   _longitudes  = new double[16];
+
+    /** The mean radius of the Earth, in miles. */
+    private static final double _EARTH_RADIUS = 3958.8;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Read a gazetteer from a file.
+     *
+     * @param path The file of places.
+     * @return The gazetteer.
+     */
+    public static Gazetteer load (String path) {
+
+	Gazetteer gazetteer = new Gazetteer();
+	try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		line = line.trim();
+		if (line.equals("") || line.startsWith("#")) {
+		    continue;
+		}
+		String[] fields = line.split(";");
+		Utility.abortIfFalse(fields.length == 3, "Gazetteer.load(): Expected name;latitude;longitude: " + line);
+		try {
+		    gazetteer.add(fields[0], Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim()));
+		} catch (NumberFormatException e) {
+		    Utility.abort("Gazetteer.load(): Unable to parse coordinates in: " + line);
+		}
+	    }
+	} catch (IOException e) {
+	    Utility.abort("Gazetteer.load(): Unable to read " + path + ": " + e.getMessage());
+	}
+	return gazetteer;
+
+    } // load ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Add a place, replacing any of the same name.
+     *
+     * @param name      The name of the place.
+     * @param latitude  Its latitude, in degrees.
+     * @param longitude Its longitude, in degrees.
+     */
+    public void add (String name, double latitude, double longitude) {
+
+	Utility.abortIfFalse(Math.abs(latitude) <= 90.0 && Math.abs(longitude) <= 180.0,
+			     "Gazetteer.add(): Coordinates out of range for " + name);
+	String  key   = key(name);
+	Integer index = _indexOfName.get(key);
+	if (index == null) {
+	    index = _names.size();
+	    _indexOfName.put(key, index);
+	    _names.add(name.trim());
+	    if (index == _latitudes.length) {
+		_latitudes  = Arrays.copyOf(_latitudes,  2 * index);
+		_longitudes = Arrays.copyOf(_longitudes, 2 * index);
+	    }
+	}
+	_latitudes[index]  = latitude;
+	_longitudes[index] = longitude;
+
+    } // add ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param name The name of a place.
+     * @return The index of the place, or <code>-1</code> if it is not in this gazetteer (or the name is <code>null</code>).
+     */
+    public int indexOf (String name) {
+
+	if (name == null) {
+	    return -1;
+	}
+	Integer index = _indexOfName.get(key(name));
+	return (index == null ? -1 : index);
+
+    } // indexOf ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int size () {
+	return _names.size();
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String name (int index) {
+	return _names.get(index);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public double latitude (int index) {
+	return _latitudes[index];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public double longitude (int index) {
+	return _longitudes[index];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The great-circle distance between two places, by the haversine formula.
+     *
+     * @param from The index of one place.
+     * @param to   The index of the other.
+     * @return The distance, in miles.
+     */
+    public double distance (int from, int to) {
+
+	double phi1   = Math.toRadians(_latitudes[from]);
+	double phi2   = Math.toRadians(_latitudes[to]);
+	double dPhi   = phi2 - phi1;
+	double dLamda = Math.toRadians(_longitudes[to] - _longitudes[from]);
+	double a      = (Math.sin(dPhi / 2) * Math.sin(dPhi / 2) +
+			 Math.cos(phi1) * Math.cos(phi2) * Math.sin(dLamda / 2) * Math.sin(dLamda / 2));
+	return 2 * _EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+
+    } // distance ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Miles per degree of latitude, everywhere; a degree of longitude is this much times the cosine of the latitude.
+     */
+    public static double milesPerDegree () {
+	return _EARTH_RADIUS * Math.PI / 180.0;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static String key (String name) {
+	return name.trim().toLowerCase();
+    }
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class Gazetteer
+// =================================================================================================================================
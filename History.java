@@ -0,0 +1,186 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * The record of every pairing made in earlier rotations, kept in an append-only file so that each run can see what came before it
+ * without any earlier record ever being rewritten.  Each line is one pairing:
+ *
+ * <pre>
+ *   rotation;student name;preceptor name;practice type
+ * </pre>
+ *
+ * where the names are given first-name-first, as in the rosters' pre-match fields.  Blank lines and lines beginning with
+ * <code>#</code> are ignored.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class History {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The file to which new pairings are appended, or <code>null</code> to keep them only in memory. */
+    private final String                   _path;
+
+    /** The preceptors, and the practice types, with which each student has already been paired, by student name. */
+    private final Map<String, Set<String>> _preceptorsOf    = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> _practiceTypesOf = new HashMap<String, Set<String>>();
+
+    /** The latest rotation recorded. */
+    private int                            _lastRotation;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Read the history in a file, if the file exists; pairings recorded later are appended to it.
+     *
+     * @param path The history file, or <code>null</code> for an empty history kept only in memory.
+     */
+    public History (String path) {
+
+	_path = path;
+	if (path == null) {
+	    return;
+	}
+
+	try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		line = line.trim();
+		if (line.equals("") || line.startsWith("#")) {
+		    continue;
+		}
+		String[] fields = line.split(";", -1);
+		Utility.abortIfFalse(fields.length == 4, "History(): Expected rotation;student;preceptor;practice type: " + line);
+		try {
+		    remember(Integer.parseInt(fields[0].trim()), fields[1], fields[2], fields[3]);
+		} catch (NumberFormatException e) {
+		    Utility.abort("History(): Unable to parse rotation in: " + line);
+		}
+	    }
+	} catch (FileNotFoundException e) {
+	    // No history yet; the first rotation recorded will create the file.
+	} catch (IOException e) {
+	    Utility.abort("History(): Unable to read " + path + ": " + e.getMessage());
+	}
+
+    } // History ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Record the pairings of a rotation, appending them to the history file in a single write.
+     *
+     * @param rotation   The rotation in which the pairings were made.
+     * @param students   The students.
+     * @param preceptors The preceptors.
+     * @param matches    The index of the preceptor paired with each student, or <code>-1</code> for a student left unpaired.
+     */
+    public void record (int rotation, List<Student> students, List<Preceptor> preceptors, int[] matches) {
+
+	StringBuilder lines = new StringBuilder();
+	for (int i = 0; i < matches.length; i += 1) {
+	    if (matches[i] != -1) {
+		Student   student   = students.get(i);
+		Preceptor preceptor = preceptors.get(matches[i]);
+		remember(rotation, student.getName(false), preceptor.getName(false), preceptor.practiceType());
+		lines.append(String.format("%d;%s;%s;%s\n",
+					   rotation,
+					   student.getName(false),
+					   preceptor.getName(false),
+					   preceptor.practiceType()));
+	    }
+	}
+	if (_path == null) {
+	    return;
+	}
+	try (FileWriter writer = new FileWriter(_path, true)) {
+	    writer.write(lines.toString());
+	} catch (IOException e) {
+	    Utility.abort("History.record(): Unable to append to " + _path + ": " + e.getMessage());
+	}
+
+    } // record ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private void remember (int rotation, String student, String preceptor, String practiceType) {
+
+	_preceptorsOf.computeIfAbsent(key(student), s -> new HashSet<String>()).add(key(preceptor));
+	_practiceTypesOf.computeIfAbsent(key(student), s -> new HashSet<String>()).add(key(practiceType));
+	_lastRotation = Math.max(_lastRotation, rotation);
+
+    } // remember ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Whether the student has already been paired with the preceptor. */
+    public boolean paired (Student student, Preceptor preceptor) {
+
+	Set<String> preceptors = _preceptorsOf.get(key(student.getName(false)));
+	return (preceptors != null && preceptors.contains(key(preceptor.getName(false))));
+
+    } // paired ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Whether the student has already been paired with a preceptor of the same practice type as this one. */
+    public boolean practicedIn (Student student, Preceptor preceptor) {
+
+	Set<String> practiceTypes = _practiceTypesOf.get(key(student.getName(false)));
+	return (practiceTypes != null && practiceTypes.contains(key(preceptor.practiceType())));
+
+    } // practicedIn ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The latest rotation recorded, or <code>0</code> if none is. */
+    public int lastRotation () {
+	return _lastRotation;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static String key (String text) {
+	return text.trim().toLowerCase();
+    }
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class History
+// =================================================================================================================================
@@ -0,0 +1,227 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * The Hopcroft-Karp algorithm for a maximum-cardinality matching in a bipartite graph, running in O(E sqrt(V)) time.  The graph is
+ * given in compressed sparse row form: the neighbors of left vertex <i>u</i> are <code>targets[offsets[u]]</code> through
+ * <code>targets[offsets[u + 1] - 1]</code>.  The search for augmenting paths is iterative, so that long paths in large graphs
+ * cannot overflow the stack.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class HopcroftKarp {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    private final int   _left;
+    private final int   _right;
+    private final int[] _offsets;
+    private final int[] _targets;
+
+    /** The right vertex matched to each left vertex, or <code>-1</code>. */
+    private final int[] _matchOfLeft;
+
+    /** The left vertex matched to each right vertex, or <code>-1</code>. */
+    private final int[] _matchOfRight;
+
+    /** The layer of each left vertex in the current breadth-first search, or <code>_UNREACHED</code>. */
+    private final int[] _layer;
+
+    /** For each left vertex, the position in its adjacency of the next edge the depth-first search will try. */
+    private final int[] _nextEdge;
+
+    /** The stack of left vertices on the path being extended by the depth-first search. */
+    private final int[] _stack;
+
+    private static final int _UNREACHED = Integer.MAX_VALUE;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param left    The number of left vertices.
+     * @param right   The number of right vertices.
+     * @param offsets The start of each left vertex's adjacency in <code>targets</code>, with a final entry marking the end.
+     * @param targets The right-vertex endpoints of every edge, grouped by left vertex.
+     */
+    public HopcroftKarp (int left, int right, int[] offsets, int[] targets) {
+
+	_left         = left;
+	_right        = right;
+	_offsets      = offsets;
+	_targets      = targets;
+	_matchOfLeft  = new int[left];
+	_matchOfRight = new int[right];
+	_layer        = new int[left];
+	_nextEdge     = new int[left];
+	_stack        = new int[left];
+	Arrays.fill(_matchOfLeft,  -1);
+	Arrays.fill(_matchOfRight, -1);
+
+    } // HopcroftKarp ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find a maximum matching.
+     *
+     * @return The number of edges in the matching.
+     */
+    public int execute () {
+
+	// Seed the search with a greedy matching.
+	int size = 0;
+	for (int u = 0; u < _left; u += 1) {
+	    for (int e = _offsets[u]; e < _offsets[u + 1]; e += 1) {
+		int v = _targets[e];
+		if (_matchOfRight[v] == -1) {
+		    _matchOfLeft[u]  = v;
+		    _matchOfRight[v] = u;
+		    size += 1;
+		    break;
+		}
+	    }
+	}
+
+	// Then augment along a maximal set of shortest disjoint paths per phase until none remain.
+	while (layer()) {
+	    for (int u = 0; u < _left; u += 1) {
+		_nextEdge[u] = _offsets[u];
+	    }
+	    for (int u = 0; u < _left; u += 1) {
+		if (_matchOfLeft[u] == -1 && augment(u)) {
+		    size += 1;
+		}
+	    }
+	}
+	return size;
+
+    } // execute ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The right vertex matched to each left vertex, or <code>-1</code> for those unmatched. */
+    public int[] matchOfLeft () {
+	return _matchOfLeft;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The left vertex matched to each right vertex, or <code>-1</code> for those unmatched. */
+    public int[] matchOfRight () {
+	return _matchOfRight;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Layer the left vertices by their distance, along alternating paths, from the free left vertices.
+     *
+     * @return Whether any free right vertex is reachable, and so whether an augmenting path exists.
+     */
+    private boolean layer () {
+
+	int[] queue = _stack;
+	int   head  = 0;
+	int   tail  = 0;
+	for (int u = 0; u < _left; u += 1) {
+	    if (_matchOfLeft[u] == -1) {
+		_layer[u]     = 0;
+		queue[tail++] = u;
+	    } else {
+		_layer[u]     = _UNREACHED;
+	    }
+	}
+
+	boolean found = false;
+	while (head < tail) {
+	    int u = queue[head++];
+	    for (int e = _offsets[u]; e < _offsets[u + 1]; e += 1) {
+		int w = _matchOfRight[_targets[e]];
+		if (w == -1) {
+		    found = true;
+		} else if (_layer[w] == _UNREACHED) {
+		    _layer[w]     = _layer[u] + 1;
+		    queue[tail++] = w;
+		}
+	    }
+	}
+	return found;
+
+    } // layer ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Search, depth-first along the layers, for an augmenting path from a free left vertex, and augment along it if found.
+     *
+     * @param root The free left vertex.
+     * @return Whether the matching was augmented.
+     */
+    private boolean augment (int root) {
+
+	int top = 0;
+	_stack[top++] = root;
+	while (top > 0) {
+
+	    int u = _stack[top - 1];
+	    if (_nextEdge[u] == _offsets[u + 1]) {
+		// A dead end: never try this vertex again in this phase, and move its parent past the edge that led here.
+		_layer[u] = _UNREACHED;
+		top -= 1;
+		if (top > 0) {
+		    _nextEdge[_stack[top - 1]] += 1;
+		}
+		continue;
+	    }
+
+	    int v = _targets[_nextEdge[u]];
+	    int w = _matchOfRight[v];
+	    if (w == -1) {
+		// Flip every edge along the path held on the stack.
+		for (int k = top - 1; k >= 0; k -= 1) {
+		    int uk = _stack[k];
+		    int vk = _targets[_nextEdge[uk]];
+		    _matchOfLeft[uk] = vk;
+		    _matchOfRight[vk] = uk;
+		}
+		return true;
+	    } else if (_layer[w] == _layer[u] + 1) {
+		_stack[top++] = w;
+	    } else {
+		_nextEdge[u] += 1;
+	    }
+
+	}
+	return false;
+
+    } // augment ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class HopcroftKarp
+// =================================================================================================================================
@@ -1,6 +1,7 @@
 // package blogspot.software_and_algorithms.stern_library.optimization;
 
 import java.util.Arrays;
+import java.util.concurrent.CancellationException;
 
 /* Copyright (c) 2012 Kevin L. Stern
  * 
@@ -47,9 +48,11 @@ import java.util.Arrays;
  * 
  * @author Kevin L. Stern
  */
-public class HungarianAlgorithm {
-  private final double[][] costMatrix;
+public class HungarianAlgorithm implements AssignmentSolver {
+  private final CostMatrix costMatrix;
   private final int rows, cols, dim;
+  private final double[] reductionByWorker, reductionByJob;
+  private final double[] costRow;
   private final double[] labelByWorker, labelByJob;
   private final int[] minSlackWorkerByJob;
   private final double[] minSlackValueByJob;
@@ -57,6 +60,25 @@ public class HungarianAlgorithm {
   private final int[] parentWorkerByCommittedJob;
   private final boolean[] committedWorkers;
 
+  /**
+   * The team that shares the O(n) sweeps of each phase, or null to run them on
+   * the calling thread, along with the minimum slack found in each of its
+   * chunks and the arguments of the sweep under way.
+   */
+  private final SweepTeam team;
+  private final double[] minSlackValueByChunk;
+  private final int[] minSlackJobByChunk;
+  private final SweepTeam.Body minSlackSweep, labelSweep, slackSweep;
+  private double sweepSlack;
+  private int sweepWorker;
+  private double[] sweepCosts;
+
+  /**
+   * The least dimension for which sweeps are shared among threads; below it,
+   * a sweep is too short to repay the cost of starting the other threads.
+   */
+  public static final int PARALLEL_THRESHOLD = 2048;
+
   /**
    * Construct an instance of the algorithm.
    * 
@@ -66,20 +88,44 @@ public class HungarianAlgorithm {
    *          irregular in the sense that all rows must be the same length.
    */
   public HungarianAlgorithm(double[][] costMatrix) {
-    this.dim = Math.max(costMatrix.length, costMatrix[0].length);
-    this.rows = costMatrix.length;
-    this.cols = costMatrix[0].length;
-    this.costMatrix = new double[this.dim][this.dim];
-    for (int w = 0; w < this.dim; w++) {
-      if (w < costMatrix.length) {
-        if (costMatrix[w].length != this.cols) {
-          throw new IllegalArgumentException("Irregular cost matrix");
-        }
-        this.costMatrix[w] = Arrays.copyOf(costMatrix[w], this.dim);
-      } else {
-        this.costMatrix[w] = new double[this.dim];
-      }
-    }
+    this(new ArrayCostMatrix(costMatrix));
+  }
+
+  /**
+   * Construct an instance of the algorithm that reads its costs directly from
+   * the given matrix, one row at a time. The matrix is neither copied nor
+   * modified: the implicit padding to a square matrix and the row and column
+   * reductions are applied as each row is read, so the matrix may live
+   * off-heap and be far larger than the heap.
+   * 
+   * @param costMatrix
+   *          the cost matrix, where get(i, j) holds the cost of assigning
+   *          worker i to job j, for all i, j.
+   */
+  public HungarianAlgorithm(CostMatrix costMatrix) {
+    this(costMatrix, 1);
+  }
+
+  /**
+   * Construct an instance of the algorithm that shares its O(n) sweeps among
+   * the given number of threads when the matrix is at least
+   * {@link #PARALLEL_THRESHOLD} on a side. Each thread sweeps a fixed chunk of
+   * the jobs and workers, and the minimum slack is combined across the chunks
+   * in a fixed order, so the result is the same for any number of threads.
+   * 
+   * @param costMatrix
+   *          the cost matrix, as for {@link #HungarianAlgorithm(CostMatrix)}.
+   * @param threads
+   *          the number of threads, the caller's included.
+   */
+  public HungarianAlgorithm(CostMatrix costMatrix, int threads) {
+    this.dim = Math.max(costMatrix.rows(), costMatrix.cols());
+    this.rows = costMatrix.rows();
+    this.cols = costMatrix.cols();
+    this.costMatrix = costMatrix;
+    reductionByWorker = new double[this.dim];
+    reductionByJob = new double[this.dim];
+    costRow = new double[this.dim];
     labelByWorker = new double[this.dim];
     labelByJob = new double[this.dim];
     minSlackWorkerByJob = new int[this.dim];
@@ -90,6 +136,38 @@ public class HungarianAlgorithm {
     Arrays.fill(matchJobByWorker, -1);
     matchWorkerByJob = new int[this.dim];
     Arrays.fill(matchWorkerByJob, -1);
+    minSlackSweep = this::sweepMinSlack;
+    labelSweep = this::sweepLabels;
+    slackSweep = this::sweepSlackValues;
+    if (threads > 1 && this.dim >= PARALLEL_THRESHOLD) {
+      team = new SweepTeam(threads, this.dim);
+      minSlackValueByChunk = new double[team.chunks()];
+      minSlackJobByChunk = new int[team.chunks()];
+    } else {
+      team = null;
+      minSlackValueByChunk = null;
+      minSlackJobByChunk = null;
+    }
+  }
+
+  /**
+   * Fill the given buffer with the reduced costs of worker w, padding the
+   * matrix with zero costs out to a square of size dim.
+   * 
+   * @return the buffer, for convenience.
+   */
+  protected double[] readRow(int w, double[] into) {
+    if (w < rows) {
+      costMatrix.readRow(w, into);
+      Arrays.fill(into, cols, dim, 0);
+    } else {
+      Arrays.fill(into, 0, dim, 0);
+    }
+    double reduction = reductionByWorker[w];
+    for (int j = 0; j < dim; j++) {
+      into[j] = into[j] - reduction - reductionByJob[j];
+    }
+    return into;
   }
 
   /**
@@ -102,9 +180,10 @@ public class HungarianAlgorithm {
       labelByJob[j] = Double.POSITIVE_INFINITY;
     }
     for (int w = 0; w < dim; w++) {
+      double[] cost = readRow(w, costRow);
       for (int j = 0; j < dim; j++) {
-        if (costMatrix[w][j] < labelByJob[j]) {
-          labelByJob[j] = costMatrix[w][j];
+        if (cost[j] < labelByJob[j]) {
+          labelByJob[j] = cost[j];
         }
       }
     }
@@ -126,12 +205,145 @@ g   * @return the minimum cost matching of workers to jobs based upon the
     reduce();
     computeInitialFeasibleSolution();
     greedyMatch();
+    return augment();
+  }
+
+  /**
+   * Execute the algorithm starting from the final state of another instance
+   * that solved a nearby problem: one that shares some of this problem's
+   * workers and jobs, with the same costs between them. The reductions, labels
+   * and matches of the shared workers and jobs are carried over, labels that
+   * keep the labeling feasible are computed for the new ones, and only the
+   * workers left unmatched need a phase of their own. A problem that differs
+   * from the last in k workers or jobs is thus solved in roughly O(k n^2) time
+   * rather than O(n^3). The workers and jobs that pad the matrix to a square
+   * are carried over from those of the previous problem, as far as they go.
+   * 
+   * @param previous
+   *          the instance that solved the nearby problem, after its execute.
+   * @param workerFrom
+   *          for each worker (row) of this problem, the worker of the previous
+   *          problem with the same costs to the shared jobs, or -1 for a new
+   *          worker.
+   * @param jobFrom
+   *          for each job (column) of this problem, the job of the previous
+   *          problem with the same costs from the shared workers, or -1 for a
+   *          new job.
+   * @return the minimum cost matching, as for {@link #execute()}.
+   */
+  public int[] execute(HungarianAlgorithm previous, int[] workerFrom,
+      int[] jobFrom) {
+    if (workerFrom.length != rows || jobFrom.length != cols) {
+      throw new IllegalArgumentException("Expected " + rows + " workers and "
+          + cols + " jobs to map");
+    }
+    int[] workerMap = carried(workerFrom, rows, previous.rows, previous.dim);
+    int[] jobMap = carried(jobFrom, cols, previous.cols, previous.dim);
+    int[] jobTo = new int[previous.dim];
+    Arrays.fill(jobTo, -1);
+    for (int j = 0; j < dim; j++) {
+      if (jobMap[j] != -1) {
+        jobTo[jobMap[j]] = j;
+        reductionByJob[j] = previous.reductionByJob[jobMap[j]];
+        labelByJob[j] = previous.labelByJob[jobMap[j]];
+      }
+    }
+    for (int w = 0; w < dim; w++) {
+      if (workerMap[w] != -1) {
+        reductionByWorker[w] = previous.reductionByWorker[workerMap[w]];
+        labelByWorker[w] = previous.labelByWorker[workerMap[w]];
+        int j = previous.matchJobByWorker[workerMap[w]];
+        if (j != -1 && jobTo[j] != -1) {
+          match(w, jobTo[j]);
+        }
+      }
+    }
+
+    /*
+     * The shared workers and jobs are feasibly labeled already. A new worker
+     * takes the largest label feasible against the shared jobs, and then a new
+     * job the largest feasible against every worker.
+     */
+    boolean newJobs = false;
+    for (int j = 0; j < dim; j++) {
+      newJobs |= (jobMap[j] == -1);
+    }
+    for (int w = 0; w < dim; w++) {
+      if (workerMap[w] == -1) {
+        double[] cost = readRow(w, costRow);
+        double label = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < dim; j++) {
+          if (jobMap[j] != -1 && cost[j] - labelByJob[j] < label) {
+            label = cost[j] - labelByJob[j];
+          }
+        }
+        labelByWorker[w] = (label == Double.POSITIVE_INFINITY ? 0 : label);
+      }
+    }
+    if (newJobs) {
+      for (int j = 0; j < dim; j++) {
+        if (jobMap[j] == -1) {
+          labelByJob[j] = Double.POSITIVE_INFINITY;
+        }
+      }
+      for (int w = 0; w < dim; w++) {
+        double[] cost = readRow(w, costRow);
+        for (int j = 0; j < dim; j++) {
+          if (jobMap[j] == -1 && cost[j] - labelByWorker[w] < labelByJob[j]) {
+            labelByJob[j] = cost[j] - labelByWorker[w];
+          }
+        }
+      }
+    }
+    return augment();
+  }
+
+  /**
+   * Extend a map from this problem's workers (or jobs) to the previous
+   * problem's over the padding, pairing this problem's padding with the
+   * previous problem's in order, and dropping any second claim on the same
+   * previous worker (or job).
+   * 
+   * @return the map, one entry for each of the dim workers (or jobs).
+   */
+  private int[] carried(int[] from, int real, int previousReal,
+      int previousDim) {
+    int[] map = new int[dim];
+    boolean[] claimed = new boolean[previousDim];
+    for (int k = 0; k < dim; k++) {
+      int pk = (k < real ? from[k] : previousReal + (k - real));
+      if (pk < 0 || pk >= previousDim || (k < real) != (pk < previousReal)
+          || claimed[pk]) {
+        pk = -1;
+      } else {
+        claimed[pk] = true;
+      }
+      map[k] = pk;
+    }
+    return map;
+  }
 
+  /**
+   * Grow the matching, a phase for each unmatched worker, until it is
+   * complete.
+   * 
+   * @return the matching of workers to jobs.
+   */
+  private int[] augment() {
     int w = fetchUnmatchedWorker();
-    while (w < dim) {
-      initializePhase(w);
-      executePhase();
-      w = fetchUnmatchedWorker();
+    try {
+      while (w < dim) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new CancellationException("HungarianAlgorithm interrupted");
+        }
+        initializePhase(w);
+        executePhase();
+        w = fetchUnmatchedWorker();
+      }
+    } finally {
+      if (team != null) {
+        team.close();
+      }
     }
     int[] result = Arrays.copyOf(matchJobByWorker, rows);
     for (w = 0; w < result.length; w++) {
@@ -142,6 +354,46 @@ g   * @return the minimum cost matching of workers to jobs based upon the
     return result;
   }
 
+  /**
+   * Export the dual solution found by {@link #execute()}, in terms of the
+   * original costs: the label of each worker plus the reduction recorded for
+   * it. No cost is less than the sum of its worker's and its job's duals, and
+   * every matched cost equals that sum, which certifies that the matching is
+   * optimal; see Certificate.
+   * 
+   * @return the dual of each worker, one per row of the cost matrix.
+   */
+  public double[] dualsByWorker() {
+    double[] duals = new double[rows];
+    for (int w = 0; w < rows; w++) {
+      duals[w] = labelByWorker[w] + reductionByWorker[w];
+    }
+    return duals;
+  }
+
+  /**
+   * Export the dual solution found by {@link #execute()}; see
+   * {@link #dualsByWorker()}.
+   * 
+   * @return the dual of each job, one per column of the cost matrix.
+   */
+  public double[] dualsByJob() {
+    double[] duals = new double[cols];
+    for (int j = 0; j < cols; j++) {
+      duals[j] = labelByJob[j] + reductionByJob[j];
+    }
+    return duals;
+  }
+
+  /**
+   * Check the matching found by {@link #execute()} against the duals.
+   * 
+   * @return the certificate; see Certificate.
+   */
+  public Certificate certify(int[] matches) {
+    return Certificate.check(costMatrix, matches, dualsByWorker(), dualsByJob());
+  }
+
   /**
    * Execute a single phase of the algorithm. A phase of the Hungarian algorithm
    * consists of building a set of committed workers and a set of committed jobs
@@ -164,14 +416,21 @@ g   * @return the minimum cost matching of workers to jobs based upon the
     while (true) {
       int minSlackWorker = -1, minSlackJob = -1;
       double minSlackValue = Double.POSITIVE_INFINITY;
-      for (int j = 0; j < dim; j++) {
-        if (parentWorkerByCommittedJob[j] == -1) {
-          if (minSlackValueByJob[j] < minSlackValue) {
-            minSlackValue = minSlackValueByJob[j];
-            minSlackWorker = minSlackWorkerByJob[j];
-            minSlackJob = j;
+      if (team == null) {
+        for (int j = 0; j < dim; j++) {
+          if (parentWorkerByCommittedJob[j] == -1) {
+            if (minSlackValueByJob[j] < minSlackValue) {
+              minSlackValue = minSlackValueByJob[j];
+              minSlackWorker = minSlackWorkerByJob[j];
+              minSlackJob = j;
+            }
           }
         }
+      } else {
+        team.sweep(minSlackSweep);
+        minSlackJob = reduceMinSlack();
+        minSlackValue = minSlackValueByJob[minSlackJob];
+        minSlackWorker = minSlackWorkerByJob[minSlackJob];
       }
       if (minSlackValue > 0) {
         updateLabeling(minSlackValue);
@@ -200,9 +459,16 @@ g   * @return the minimum cost matching of workers to jobs based upon the
          */
         int worker = matchWorkerByJob[minSlackJob];
         committedWorkers[worker] = true;
+        double[] cost = readRow(worker, costRow);
+        if (team != null) {
+          sweepWorker = worker;
+          sweepCosts = cost;
+          team.sweep(slackSweep);
+          continue;
+        }
         for (int j = 0; j < dim; j++) {
           if (parentWorkerByCommittedJob[j] == -1) {
-            double slack = costMatrix[worker][j] - labelByWorker[worker]
+            double slack = cost[j] - labelByWorker[worker]
                 - labelByJob[j];
             if (minSlackValueByJob[j] > slack) {
               minSlackValueByJob[j] = slack;
@@ -234,9 +500,10 @@ g   * @return the minimum cost matching of workers to jobs based upon the
    */
   protected void greedyMatch() {
     for (int w = 0; w < dim; w++) {
+      double[] cost = readRow(w, costRow);
       for (int j = 0; j < dim; j++) {
         if (matchJobByWorker[w] == -1 && matchWorkerByJob[j] == -1
-            && costMatrix[w][j] - labelByWorker[w] - labelByJob[j] == 0) {
+            && cost[j] - labelByWorker[w] - labelByJob[j] == 0) {
           match(w, j);
         }
       }
@@ -255,8 +522,9 @@ g   * @return the minimum cost matching of workers to jobs based upon the
     Arrays.fill(committedWorkers, false);
     Arrays.fill(parentWorkerByCommittedJob, -1);
     committedWorkers[w] = true;
+    double[] cost = readRow(w, costRow);
     for (int j = 0; j < dim; j++) {
-      minSlackValueByJob[j] = costMatrix[w][j] - labelByWorker[w]
+      minSlackValueByJob[j] = cost[j] - labelByWorker[w]
           - labelByJob[j];
       minSlackWorkerByJob[j] = w;
     }
@@ -274,36 +542,35 @@ g   * @return the minimum cost matching of workers to jobs based upon the
    * Reduce the cost matrix by subtracting the smallest element of each row from
    * all elements of the row as well as the smallest element of each column from
    * all elements of the column. Note that an optimal assignment for a reduced
-   * cost matrix is optimal for the original cost matrix.
+   * cost matrix is optimal for the original cost matrix. The reductions are
+   * recorded rather than applied, and are subtracted as each row is read.
    */
   protected void reduce() {
+    Arrays.fill(reductionByWorker, 0);
+    Arrays.fill(reductionByJob, 0);
     for (int w = 0; w < dim; w++) {
+      double[] cost = readRow(w, costRow);
       double min = Double.POSITIVE_INFINITY;
       for (int j = 0; j < dim; j++) {
-        if (costMatrix[w][j] < min) {
-          min = costMatrix[w][j];
+        if (cost[j] < min) {
+          min = cost[j];
         }
       }
-      for (int j = 0; j < dim; j++) {
-        costMatrix[w][j] -= min;
-      }
+      reductionByWorker[w] = min;
     }
     double[] min = new double[dim];
     for (int j = 0; j < dim; j++) {
       min[j] = Double.POSITIVE_INFINITY;
     }
     for (int w = 0; w < dim; w++) {
+      double[] cost = readRow(w, costRow);
       for (int j = 0; j < dim; j++) {
-        if (costMatrix[w][j] < min[j]) {
-          min[j] = costMatrix[w][j];
+        if (cost[j] < min[j]) {
+          min[j] = cost[j];
         }
       }
     }
-    for (int w = 0; w < dim; w++) {
-      for (int j = 0; j < dim; j++) {
-        costMatrix[w][j] -= min[j];
-      }
-    }
+    System.arraycopy(min, 0, reductionByJob, 0, dim);
   }
 
   /**
@@ -312,6 +579,11 @@ g   * @return the minimum cost matching of workers to jobs based upon the
    * addition, update the minimum slack values appropriately.
    */
   protected void updateLabeling(double slack) {
+    if (team != null) {
+      sweepSlack = slack;
+      team.sweep(labelSweep);
+      return;
+    }
     for (int w = 0; w < dim; w++) {
       if (committedWorkers[w]) {
         labelByWorker[w] += slack;
@@ -325,4 +597,82 @@ g   * @return the minimum cost matching of workers to jobs based upon the
       }
     }
   }
+
+  /**
+   * Find the minimum slack among the non-committed jobs of one chunk, taking
+   * the first job of least slack, as the sequential scan does.
+   */
+  private void sweepMinSlack(int chunk, int from, int to) {
+    int minSlackJob = -1;
+    double minSlackValue = Double.POSITIVE_INFINITY;
+    for (int j = from; j < to; j++) {
+      if (parentWorkerByCommittedJob[j] == -1) {
+        if (minSlackValueByJob[j] < minSlackValue) {
+          minSlackValue = minSlackValueByJob[j];
+          minSlackJob = j;
+        }
+      }
+    }
+    minSlackValueByChunk[chunk] = minSlackValue;
+    minSlackJobByChunk[chunk] = minSlackJob;
+  }
+
+  /**
+   * Combine the minimum slack of each chunk pairwise, as a tree, keeping the
+   * earlier chunk's on a tie so that the job chosen is the one the sequential
+   * scan would choose.
+   * 
+   * @return the first non-committed job of least slack.
+   */
+  private int reduceMinSlack() {
+    int chunks = minSlackValueByChunk.length;
+    for (int stride = 1; stride < chunks; stride *= 2) {
+      for (int c = 0; c + stride < chunks; c += 2 * stride) {
+        if (minSlackValueByChunk[c + stride] < minSlackValueByChunk[c]) {
+          minSlackValueByChunk[c] = minSlackValueByChunk[c + stride];
+          minSlackJobByChunk[c] = minSlackJobByChunk[c + stride];
+        }
+      }
+    }
+    return minSlackJobByChunk[0];
+  }
+
+  /**
+   * The sweep of {@link #updateLabeling(double)} over one chunk of the workers
+   * and the same chunk of the jobs.
+   */
+  private void sweepLabels(int chunk, int from, int to) {
+    double slack = sweepSlack;
+    for (int w = from; w < to; w++) {
+      if (committedWorkers[w]) {
+        labelByWorker[w] += slack;
+      }
+    }
+    for (int j = from; j < to; j++) {
+      if (parentWorkerByCommittedJob[j] != -1) {
+        labelByJob[j] -= slack;
+      } else {
+        minSlackValueByJob[j] -= slack;
+      }
+    }
+  }
+
+  /**
+   * The update of the slack values of one chunk of the non-committed jobs for
+   * a newly committed worker, whose reduced costs are in sweepCosts.
+   */
+  private void sweepSlackValues(int chunk, int from, int to) {
+    int worker = sweepWorker;
+    double[] cost = sweepCosts;
+    double label = labelByWorker[worker];
+    for (int j = from; j < to; j++) {
+      if (parentWorkerByCommittedJob[j] == -1) {
+        double slack = cost[j] - label - labelByJob[j];
+        if (minSlackValueByJob[j] > slack) {
+          minSlackValueByJob[j] = slack;
+          minSlackWorkerByJob[j] = worker;
+        }
+      }
+    }
+  }
 }
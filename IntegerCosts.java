@@ -0,0 +1,99 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.List;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * The mapping from match scores to bounded integer costs, for use with <code>IntegerHungarianAlgorithm</code>.  As with the
+ * floating-point pipeline, the cost of a pairing is the inverse of its score, so that lower costs are better; here that inverse is
+ * expressed in fixed-point units of <code>1 / SCALE</code> and rounded to the nearest unit.
+ * <p>
+ *
+ * <b>Precision:</b> every cost is within <code>0.5 / SCALE</code> (that is, 5e-7) of the exact inverse score, so two pairings are
+ * distinguished whenever their inverse scores differ by at least 1e-6.  Scores at or below <code>SCALE / MAX_COST</code> (that is,
+ * 0.001) &mdash; including scores of zero, which would otherwise produce an infinite cost &mdash; all receive
+ * <code>MAX_COST</code>, the cost of a pairing with no merit at all.  Since every cost fits in an <code>int</code> and every sum of
+ * costs in a <code>long</code>, the solver's arithmetic is exact and its results identical on every JVM.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class IntegerCosts {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The number of cost units per unit of inverse score. */
+    public static final double SCALE    = 1e6;
+
+    /** The largest cost, given to every pairing whose score is too low (or zero) to be worth distinguishing. */
+    public static final int    MAX_COST = 1000000000;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param score A match score, where higher is better.
+     * @return The integer cost of a pairing with that score, in <code>[0, MAX_COST]</code>.
+     */
+    public static int quantize (double score) {
+
+	// Compare in the form that also sends NaN and negative scores to the maximum cost.
+	if (!(score > SCALE / MAX_COST)) {
+	    return MAX_COST;
+	}
+	return (int)Math.min(MAX_COST, Math.round(SCALE / score));
+
+    } // quantize ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param cost An integer cost produced by <code>quantize()</code>.
+     * @return That cost in the units of the floating-point pipeline (an inverse score).
+     */
+    public static double dequantize (int cost) {
+	return cost / SCALE;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Build the integer cost matrix for a roster.
+     *
+     * @param students   The students, one per row.
+     * @param preceptors The preceptors, one per column.
+     * @param scorer     The scorer that measures each pairing.
+     * @return The cost of pairing each student with each preceptor.
+     */
+    public static int[][] of (List<Student> students, List<Preceptor> preceptors, PairScorer scorer) {
+
+	int[][] costs = new int[students.size()][preceptors.size()];
+	for (int i = 0; i < students.size(); i += 1) {
+	    Student student = students.get(i);
+	    for (int j = 0; j < preceptors.size(); j += 1) {
+		costs[i][j] = quantize(scorer.score(student, preceptors.get(j)));
+	    }
+	}
+	return costs;
+
+    } // of ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class IntegerCosts
+// =================================================================================================================================
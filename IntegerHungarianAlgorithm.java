@@ -0,0 +1,359 @@
+// package blogspot.software_and_algorithms.stern_library.optimization;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/* Copyright (c) 2012 Kevin L. Stern
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+/**
+ * The Hungarian algorithm of {@link HungarianAlgorithm}, specialized to
+ * non-negative integer costs. Costs are stored as ints and labels and slacks
+ * are kept as longs, so every comparison (in particular the test for a
+ * zero-slack edge) is exact, and the assignment found is the same on every JVM.
+ * <p>
+ *
+ * Costs must lie in [0, {@link IntegerCosts#MAX_COST}]; see
+ * {@link IntegerCosts} for the mapping from match scores.
+ *
+ * @author Kevin L. Stern
+ */
+public class IntegerHungarianAlgorithm implements AssignmentSolver {
+  private final int[][] costMatrix;
+  private final int rows, cols, dim;
+  private final long[] reductionByWorker, reductionByJob;
+  private final long[] costRow;
+  private final long[] labelByWorker, labelByJob;
+  private final int[] minSlackWorkerByJob;
+  private final long[] minSlackValueByJob;
+  private final int[] matchJobByWorker, matchWorkerByJob;
+  private final int[] parentWorkerByCommittedJob;
+  private final boolean[] committedWorkers;
+
+  /**
+   * Construct an instance of the algorithm. The matrix is neither copied nor
+   * modified.
+   *
+   * @param costMatrix
+   *          the cost matrix, where matrix[i][j] holds the cost of assigning
+   *          worker i to job j, for all i, j. The cost matrix must not be
+   *          irregular in the sense that all rows must be the same length.
+   */
+  public IntegerHungarianAlgorithm(int[][] costMatrix) {
+    this.rows = costMatrix.length;
+    this.cols = (costMatrix.length > 0 ? costMatrix[0].length : 0);
+    this.dim = Math.max(rows, cols);
+    for (int[] row : costMatrix) {
+      if (row.length != this.cols) {
+        throw new IllegalArgumentException("Irregular cost matrix");
+      }
+    }
+    this.costMatrix = costMatrix;
+    reductionByWorker = new long[this.dim];
+    reductionByJob = new long[this.dim];
+    costRow = new long[this.dim];
+    labelByWorker = new long[this.dim];
+    labelByJob = new long[this.dim];
+    minSlackWorkerByJob = new int[this.dim];
+    minSlackValueByJob = new long[this.dim];
+    committedWorkers = new boolean[this.dim];
+    parentWorkerByCommittedJob = new int[this.dim];
+    matchJobByWorker = new int[this.dim];
+    Arrays.fill(matchJobByWorker, -1);
+    matchWorkerByJob = new int[this.dim];
+    Arrays.fill(matchWorkerByJob, -1);
+  }
+
+  /**
+   * Fill the given buffer with the reduced costs of worker w, padding the
+   * matrix with zero costs out to a square of size dim.
+   *
+   * @return the buffer, for convenience.
+   */
+  protected long[] readRow(int w, long[] into) {
+    long reduction = reductionByWorker[w];
+    if (w < rows) {
+      int[] row = costMatrix[w];
+      for (int j = 0; j < cols; j++) {
+        into[j] = row[j] - reduction - reductionByJob[j];
+      }
+    } else {
+      for (int j = 0; j < cols; j++) {
+        into[j] = -reduction - reductionByJob[j];
+      }
+    }
+    for (int j = cols; j < dim; j++) {
+      into[j] = -reduction - reductionByJob[j];
+    }
+    return into;
+  }
+
+  /**
+   * Compute an initial feasible solution by assigning zero labels to the
+   * workers and by assigning to each job a label equal to the minimum cost
+   * among its incident edges.
+   */
+  protected void computeInitialFeasibleSolution() {
+    Arrays.fill(labelByJob, Long.MAX_VALUE);
+    for (int w = 0; w < dim; w++) {
+      long[] cost = readRow(w, costRow);
+      for (int j = 0; j < dim; j++) {
+        if (cost[j] < labelByJob[j]) {
+          labelByJob[j] = cost[j];
+        }
+      }
+    }
+  }
+
+  /**
+   * Execute the algorithm.
+   *
+   * @return the minimum cost matching of workers to jobs based upon the
+   *         provided cost matrix. A matching value of -1 indicates that the
+   *         corresponding worker is unassigned.
+   */
+  public int[] execute() {
+    reduce();
+    computeInitialFeasibleSolution();
+    greedyMatch();
+
+    int w = fetchUnmatchedWorker();
+    while (w < dim) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new CancellationException("IntegerHungarianAlgorithm interrupted");
+      }
+      initializePhase(w);
+      executePhase();
+      w = fetchUnmatchedWorker();
+    }
+    int[] result = Arrays.copyOf(matchJobByWorker, rows);
+    for (w = 0; w < result.length; w++) {
+      if (result[w] >= cols) {
+        result[w] = -1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Export the dual solution found by {@link #execute()}; see
+   * {@link HungarianAlgorithm#dualsByWorker()}. Being integers, the duals
+   * certify the matching exactly.
+   * 
+   * @return the dual of each worker, one per row of the cost matrix.
+   */
+  public long[] dualsByWorker() {
+    long[] duals = new long[rows];
+    for (int w = 0; w < rows; w++) {
+      duals[w] = labelByWorker[w] + reductionByWorker[w];
+    }
+    return duals;
+  }
+
+  /**
+   * Export the dual solution found by {@link #execute()}; see
+   * {@link HungarianAlgorithm#dualsByJob()}.
+   * 
+   * @return the dual of each job, one per column of the cost matrix.
+   */
+  public long[] dualsByJob() {
+    long[] duals = new long[cols];
+    for (int j = 0; j < cols; j++) {
+      duals[j] = labelByJob[j] + reductionByJob[j];
+    }
+    return duals;
+  }
+
+  /**
+   * Check the matching found by {@link #execute()} against the duals, exactly.
+   * 
+   * @return the certificate; see Certificate.
+   */
+  public Certificate certify(int[] matches) {
+    return Certificate.check(costMatrix, matches, dualsByWorker(), dualsByJob());
+  }
+
+  /**
+   * Execute a single phase of the algorithm; see
+   * {@link HungarianAlgorithm#executePhase()}.
+   */
+  protected void executePhase() {
+    while (true) {
+      int minSlackWorker = -1, minSlackJob = -1;
+      long minSlackValue = Long.MAX_VALUE;
+      for (int j = 0; j < dim; j++) {
+        if (parentWorkerByCommittedJob[j] == -1) {
+          if (minSlackValueByJob[j] < minSlackValue) {
+            minSlackValue = minSlackValueByJob[j];
+            minSlackWorker = minSlackWorkerByJob[j];
+            minSlackJob = j;
+          }
+        }
+      }
+      if (minSlackValue > 0) {
+        updateLabeling(minSlackValue);
+      }
+      parentWorkerByCommittedJob[minSlackJob] = minSlackWorker;
+      if (matchWorkerByJob[minSlackJob] == -1) {
+        /*
+         * An augmenting path has been found.
+         */
+        int committedJob = minSlackJob;
+        int parentWorker = parentWorkerByCommittedJob[committedJob];
+        while (true) {
+          int temp = matchJobByWorker[parentWorker];
+          match(parentWorker, committedJob);
+          committedJob = temp;
+          if (committedJob == -1) {
+            break;
+          }
+          parentWorker = parentWorkerByCommittedJob[committedJob];
+        }
+        return;
+      } else {
+        /*
+         * Update slack values since we increased the size of the committed
+         * workers set.
+         */
+        int worker = matchWorkerByJob[minSlackJob];
+        committedWorkers[worker] = true;
+        long[] cost = readRow(worker, costRow);
+        for (int j = 0; j < dim; j++) {
+          if (parentWorkerByCommittedJob[j] == -1) {
+            long slack = cost[j] - labelByWorker[worker] - labelByJob[j];
+            if (minSlackValueByJob[j] > slack) {
+              minSlackValueByJob[j] = slack;
+              minSlackWorkerByJob[j] = worker;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   *
+   * @return the first unmatched worker or {@link #dim} if none.
+   */
+  protected int fetchUnmatchedWorker() {
+    int w;
+    for (w = 0; w < dim; w++) {
+      if (matchJobByWorker[w] == -1) {
+        break;
+      }
+    }
+    return w;
+  }
+
+  /**
+   * Find a valid matching by greedily selecting among zero-slack edges. This is
+   * a heuristic to jump-start the augmentation algorithm.
+   */
+  protected void greedyMatch() {
+    for (int w = 0; w < dim; w++) {
+      long[] cost = readRow(w, costRow);
+      for (int j = 0; j < dim; j++) {
+        if (matchJobByWorker[w] == -1 && matchWorkerByJob[j] == -1
+            && cost[j] - labelByWorker[w] - labelByJob[j] == 0) {
+          match(w, j);
+        }
+      }
+    }
+  }
+
+  /**
+   * Initialize the next phase of the algorithm by clearing the committed
+   * workers and jobs sets and by initializing the slack arrays to the values
+   * corresponding to the specified root worker.
+   *
+   * @param w
+   *          the worker at which to root the next phase.
+   */
+  protected void initializePhase(int w) {
+    Arrays.fill(committedWorkers, false);
+    Arrays.fill(parentWorkerByCommittedJob, -1);
+    committedWorkers[w] = true;
+    long[] cost = readRow(w, costRow);
+    for (int j = 0; j < dim; j++) {
+      minSlackValueByJob[j] = cost[j] - labelByWorker[w] - labelByJob[j];
+      minSlackWorkerByJob[j] = w;
+    }
+  }
+
+  /**
+   * Helper method to record a matching between worker w and job j.
+   */
+  protected void match(int w, int j) {
+    matchJobByWorker[w] = j;
+    matchWorkerByJob[j] = w;
+  }
+
+  /**
+   * Reduce the cost matrix by its row minima and then its column minima. The
+   * reductions are recorded rather than applied, and are subtracted as each row
+   * is read.
+   */
+  protected void reduce() {
+    Arrays.fill(reductionByWorker, 0);
+    Arrays.fill(reductionByJob, 0);
+    for (int w = 0; w < dim; w++) {
+      long[] cost = readRow(w, costRow);
+      long min = Long.MAX_VALUE;
+      for (int j = 0; j < dim; j++) {
+        if (cost[j] < min) {
+          min = cost[j];
+        }
+      }
+      reductionByWorker[w] = min;
+    }
+    long[] min = new long[dim];
+    Arrays.fill(min, Long.MAX_VALUE);
+    for (int w = 0; w < dim; w++) {
+      long[] cost = readRow(w, costRow);
+      for (int j = 0; j < dim; j++) {
+        if (cost[j] < min[j]) {
+          min[j] = cost[j];
+        }
+      }
+    }
+    System.arraycopy(min, 0, reductionByJob, 0, dim);
+  }
+
+  /**
+   * Update labels with the specified slack by adding the slack value for
+   * committed workers and by subtracting the slack value for committed jobs. In
+   * addition, update the minimum slack values appropriately.
+   */
+  protected void updateLabeling(long slack) {
+    for (int w = 0; w < dim; w++) {
+      if (committedWorkers[w]) {
+        labelByWorker[w] += slack;
+      }
+    }
+    for (int j = 0; j < dim; j++) {
+      if (parentWorkerByCommittedJob[j] != -1) {
+        labelByJob[j] -= slack;
+      } else {
+        minSlackValueByJob[j] -= slack;
+      }
+    }
+  }
+}
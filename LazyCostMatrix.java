@@ -0,0 +1,178 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A read-only <code>CostMatrix</code> that never materializes the whole matrix.  A row of costs (one student against every
+ * preceptor) is computed by the scorer given the first time it is needed and then kept in a bounded cache that
+ * evicts the least recently used row.  Memory is therefore proportional to the cache rather than to the product of the roster
+ * sizes; the price is that rows evicted and later needed again must be recomputed.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class LazyCostMatrix implements CostMatrix {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The students, one per row. */
+    private final List<Student>         _students;
+
+    /** The preceptors, one per column. */
+    private final List<Preceptor>       _preceptors;
+
+    /** The scorer that measures each pairing. */
+    private final PairScorer            _scorer;
+
+    /** The most recently used rows, in least-to-most recently used order. */
+    private final Map<Integer,double[]> _cache;
+
+    /** The most recently requested row, kept aside so that runs of <code>get()</code> on one row skip the cache lookup. */
+    private volatile CachedRow          _lastRow;
+
+    /** The number of rows computed so far, including recomputations of evicted rows. */
+    private long                        _rowsComputed;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** A row of costs paired with its index. */
+    private static class CachedRow {
+
+	final int      index;
+	final double[] costs;
+
+	CachedRow (int index, double[] costs) {
+	    this.index = index;
+	    this.costs = costs;
+	}
+
+    } // class CachedRow
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Create a lazily evaluated matrix over the given roster.
+     *
+     * @param students   The students, one per row.
+     * @param preceptors The preceptors, one per column.
+     * @param scorer     The scorer that measures each pairing.
+     * @param cachedRows The largest number of rows to keep at once; at least one.
+     */
+    public LazyCostMatrix (List<Student> students, List<Preceptor> preceptors, PairScorer scorer, final int cachedRows) {
+
+	Utility.abortIfFalse(cachedRows >= 1, "LazyCostMatrix: The row cache must hold at least one row.");
+	_students   = students;
+	_preceptors = preceptors;
+	_scorer     = scorer;
+	_cache      = new LinkedHashMap<Integer,double[]>(16, 0.75f, true) {
+		protected boolean removeEldestEntry (Map.Entry<Integer,double[]> eldest) {
+		    return (size() > cachedRows);
+		}
+	    };
+
+    } // LazyCostMatrix ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int rows () {
+	return _students.size();
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int cols () {
+	return _preceptors.size();
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public double get (int row, int col) {
+
+	CachedRow last = _lastRow;
+	if (last == null || last.index != row) {
+	    last = new CachedRow(row, costsOf(row));
+	    _lastRow = last;
+	}
+	return last.costs[col];
+
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public void set (int row, int col, double cost) {
+	Utility.abort("LazyCostMatrix.set(): The costs are computed from the roster and cannot be changed");
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public void readRow (int row, double[] into) {
+	System.arraycopy(costsOf(row), 0, into, 0, _preceptors.size());
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of rows computed so far, counting each recomputation of an evicted row. */
+    public synchronized long rowsComputed () {
+	return _rowsComputed;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Fetch a row from the cache, computing it (and possibly evicting another) if it is absent.  The array returned is shared with
+     * the cache and must not be modified.
+     *
+     * @param row The student's index.
+     * @return The costs of pairing that student with each preceptor.
+     */
+    private synchronized double[] costsOf (int row) {
+
+	double[] costs = _cache.get(row);
+	if (costs == null) {
+	    costs = new double[_preceptors.size()];
+	    Student student = _students.get(row);
+	    for (int col = 0; col < costs.length; col += 1) {
+		costs[col] = _scorer.cost(student, _preceptors.get(col));
+	    }
+	    _rowsComputed += 1;
+	    _cache.put(row, costs);
+	}
+	return costs;
+
+    } // costsOf ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class LazyCostMatrix
+// =================================================================================================================================
@@ -0,0 +1,198 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A <code>CostMatrix</code> stored outside of the heap in a memory-mapped file.  A 50,000 x 50,000 matrix of doubles needs 20 GB,
+ * which no reasonable heap will hold; mapped, the operating system pages it in and out as the solver walks it, and the heap need
+ * only hold the solver's per-row bookkeeping.  Costs may be kept as 32-bit floats to halve the file (and the paging traffic) at the
+ * price of roughly seven significant digits.
+ * <p>
+ *
+ * A single mapping cannot exceed 2 GB, so the file is mapped as a sequence of segments, each holding a whole number of rows.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class MappedCostMatrix implements CostMatrix {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The number of rows (workers). */
+    private final int            _rows;
+
+    /** The number of columns (jobs). */
+    private final int            _cols;
+
+    /** Whether costs are stored as 32-bit floats (<code>true</code>) or 64-bit doubles (<code>false</code>). */
+    private final boolean        _singlePrecision;
+
+    /** The number of complete rows held by each mapped segment. */
+    private final int            _rowsPerSegment;
+
+    /** Views of each mapped segment when storing doubles; <code>null</code> when storing floats. */
+    private final DoubleBuffer[] _doubleSegments;
+
+    /** Views of each mapped segment when storing floats; <code>null</code> when storing doubles. */
+    private final FloatBuffer[]  _floatSegments;
+
+    /** The open channel onto the backing file. */
+    private final FileChannel    _channel;
+
+    /** The largest number of bytes placed in a single mapping, kept well under the 2 GB limit. */
+    private static final long    _MAX_SEGMENT_BYTES = 1L << 30;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Create (or overwrite) a backing file and map it.
+     *
+     * @param rows            The number of workers.
+     * @param cols            The number of jobs.
+     * @param path            The file in which to keep the costs; if <code>null</code>, a temporary file is created and deleted
+     *                        when the program exits.
+     * @param singlePrecision Whether to store 32-bit floats instead of 64-bit doubles.
+     * @throws IOException if the file cannot be created, sized, or mapped.
+     */
+    public MappedCostMatrix (int rows, int cols, String path, boolean singlePrecision) throws IOException {
+
+	_rows            = rows;
+	_cols            = cols;
+	_singlePrecision = singlePrecision;
+
+	File file;
+	if (path == null) {
+	    file = File.createTempFile("costs", ".bin");
+	    file.deleteOnExit();
+	} else {
+	    file = new File(path);
+	}
+
+	// Size the file, then map it one segment (of whole rows) at a time.
+	long elementBytes = (singlePrecision ? Float.BYTES : Double.BYTES);
+	long rowBytes     = Math.max(1L, cols * elementBytes);
+	_rowsPerSegment   = (int)Math.max(1L, Math.min(rows, _MAX_SEGMENT_BYTES / rowBytes));
+	int segments      = (rows + _rowsPerSegment - 1) / _rowsPerSegment;
+	RandomAccessFile raf = new RandomAccessFile(file, "rw");
+	raf.setLength(rows * rowBytes);
+	_channel = raf.getChannel();
+	_doubleSegments = (singlePrecision ? null : new DoubleBuffer[segments]);
+	_floatSegments  = (singlePrecision ? new FloatBuffer[segments] : null);
+	for (int s = 0; s < segments; s += 1) {
+	    long firstRow = (long)s * _rowsPerSegment;
+	    long size     = Math.min(_rowsPerSegment, rows - firstRow) * rowBytes;
+	    MappedByteBuffer mapped = _channel.map(FileChannel.MapMode.READ_WRITE, firstRow * rowBytes, size);
+	    mapped.order(ByteOrder.nativeOrder());
+	    if (singlePrecision) {
+		_floatSegments[s]  = mapped.asFloatBuffer();
+	    } else {
+		_doubleSegments[s] = mapped.asDoubleBuffer();
+	    }
+	}
+
+    } // MappedCostMatrix ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int rows () {
+	return _rows;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int cols () {
+	return _cols;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public double get (int row, int col) {
+
+	int segment = row / _rowsPerSegment;
+	int index   = (row - segment * _rowsPerSegment) * _cols + col;
+	return (_singlePrecision ? _floatSegments[segment].get(index) : _doubleSegments[segment].get(index));
+
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public void set (int row, int col, double cost) {
+
+	int segment = row / _rowsPerSegment;
+	int index   = (row - segment * _rowsPerSegment) * _cols + col;
+	if (_singlePrecision) {
+	    _floatSegments[segment].put(index, (float)cost);
+	} else {
+	    _doubleSegments[segment].put(index, cost);
+	}
+
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public void readRow (int row, double[] into) {
+
+	int segment = row / _rowsPerSegment;
+	int start   = (row - segment * _rowsPerSegment) * _cols;
+	if (_singlePrecision) {
+	    FloatBuffer floats = _floatSegments[segment];
+	    for (int col = 0; col < _cols; col += 1) {
+		into[col] = floats.get(start + col);
+	    }
+	} else {
+	    _doubleSegments[segment].get(start, into, 0, _cols);
+	}
+
+    } // readRow ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Release the backing file.  The mappings themselves are released by the garbage collector once unreachable.
+     */
+    public void close () {
+
+	try {
+	    _channel.close();
+	} catch (IOException e) {
+	    Utility.warning("MappedCostMatrix.close() failed upon closing the backing file.  Continuing.");
+	}
+
+    } // close ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class MappedCostMatrix
+// =================================================================================================================================
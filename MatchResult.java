@@ -0,0 +1,163 @@
+// =================================================================================================================================
+/**
+ * The pairings that one solve made of a <code>Roster</code>: for each student, by index, the index of the preceptor paired with
+ * them and the cost of the pairing.  A result is made whole and never changes, and records nothing in the roster, so results of
+ * different solves (under different weightings, say, or by different solvers) may be made from one roster at the same time.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class MatchResult {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    private final Roster    _roster;
+
+    /** The index of the preceptor paired with each student, or <code>-1</code> for a student left unpaired. */
+    private final int[]     _preceptorOf;
+
+    /** The cost of each student's pairing; zero for a pre-match or a student left unpaired. */
+    private final double[]  _quality;
+
+    /** Whether each student's pairing is a pre-match rather than one made by the solver. */
+    private final boolean[] _preMatched;
+
+    /** Whether the students and preceptors meet on a day they share, rather than on the preceptor's preferred day. */
+    private final boolean   _byDays;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param roster      The students and preceptors.
+     * @param preceptorOf The index of the preceptor paired with each student, or <code>-1</code>.
+     * @param quality     The cost of each student's pairing.
+     * @param preMatched  Whether each student's pairing is a pre-match.
+     * @param byDays      Whether a student meets the preceptor on a day they share (see <code>Preceptor.meetingDay()</code>),
+     *                    rather than on the preceptor's preferred day.
+     */
+    public MatchResult (Roster roster, int[] preceptorOf, double[] quality, boolean[] preMatched, boolean byDays) {
+
+	int students = roster.students().size();
+	Utility.abortIfFalse(preceptorOf.length == students && quality.length == students && preMatched.length == students,
+			     "MatchResult(): Expected one entry per student (" + students + ")");
+	_roster      = roster;
+	_preceptorOf = preceptorOf.clone();
+	_quality     = quality.clone();
+	_preMatched  = preMatched.clone();
+	_byDays      = byDays;
+
+    } // MatchResult ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public Roster roster () {
+	return _roster;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student The student's index.
+     * @return The index of the preceptor paired with the student, or <code>-1</code>.
+     */
+    public int preceptorOf (int student) {
+	return _preceptorOf[student];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student The student's index.
+     * @return The preceptor paired with the student, or <code>null</code>.
+     */
+    public Preceptor preceptor (int student) {
+	return (_preceptorOf[student] == -1 ? null : _roster.preceptors().get(_preceptorOf[student]));
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student The student's index.
+     * @return The cost of the student's pairing.
+     */
+    public double quality (int student) {
+	return _quality[student];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student The student's index.
+     * @return Whether the student's pairing is a pre-match.
+     */
+    public boolean preMatched (int student) {
+	return _preMatched[student];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student The student's index.
+     * @return How the student was paired: <code>pre</code>, <code>alg</code>, or <code>unm</code> (unmatched).
+     */
+    public String matchType (int student) {
+	return (_preceptorOf[student] == -1 ? "unm" : (_preMatched[student] ? "pre" : "alg"));
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student The student's index.
+     * @return The day on which the student meets the preceptor paired with them, or <code>null</code> if unpaired.
+     */
+    public String meetingDay (int student) {
+
+	Preceptor preceptor = preceptor(student);
+	if (preceptor == null) {
+	    return null;
+	}
+	return (_byDays && !_preMatched[student] ? preceptor.meetingDay(_roster.students().get(student)) : preceptor.preferredDay());
+
+    } // meetingDay ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The total cost of the pairings. */
+    public double totalQuality () {
+
+	double total = 0.0;
+	for (double quality : _quality) {
+	    total += quality;
+	}
+	return total;
+
+    } // totalQuality ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class MatchResult
+// =================================================================================================================================
@@ -0,0 +1,85 @@
+// =================================================================================================================================
+/**
+ * A function measuring the quality of the match between a student and a preceptor, where higher scores are better matches.
+ * <code>Student.cross()</code> is the hand-written scorer; <code>ScoringModel.compile()</code> produces others from a
+ * configuration file.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public interface PairScorer {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param student   The student.
+     * @param preceptor The preceptor.
+     * @return The quality of the match between the two.
+     */
+    public double score (Student student, Preceptor preceptor);
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The cost of a pairing that a scorer rules out, by a score of zero or less (as a model's filters do).  It is finite, since an
+     * infinite cost would poison the solvers' arithmetic, but far above the cost of any pairing with merit, so that a solver makes
+     * one only for want of any other.
+     */
+    public static final double _FILTERED_COST = 1e9;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The cost of pairing a student with a preceptor.  Because our matching algorithm seeks to minimize costs, we take the inverse
+     * of the match quality to make lower scores better.  A pairing that the scorer rules out costs <code>_FILTERED_COST</code>.
+     *
+     * @param student   The student.
+     * @param preceptor The preceptor.
+     * @return The cost of the pairing.
+     */
+    public default double cost (Student student, Preceptor preceptor) {
+	return inverse(score(student, preceptor));
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param score The quality of a match, where higher is better.
+     * @return Its inverse, or <code>_FILTERED_COST</code> if the score rules the match out.
+     */
+    public static double inverse (double score) {
+	return (score > 0 ? 1 / score : _FILTERED_COST);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param commute The commutes of the roster, or <code>null</code> if they are not scored.
+     * @param weight  The weight given to the quality of a commute.
+     * @return A scorer that adds the weighted quality of each pairing's commute to this one's score; or this one, without commutes.
+     */
+    public default PairScorer plus (CommuteTable commute, double weight) {
+
+	if (commute == null) {
+	    return this;
+	}
+	return (student, preceptor) -> score(student, preceptor) + weight * commute.quality(student, preceptor);
+
+    } // plus ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // interface PairScorer
+// =================================================================================================================================
@@ -1,8 +1,16 @@
 // =================================================================================================================================
 // IMPORTS
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
 // =================================================================================================================================
 
 
@@ -21,6 +29,99 @@ public class Pairer {
 
 
 
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /**
+     * The optional command-line arguments that follow the required ones, each given as <code>-name</code> or
+     * <code>-name=value</code>.  Flags without a value map to the empty string.
+     */
+    private static final Map<String, String> _options = new HashMap<String, String>();
+
+    /** The longest commute, in miles, that earns any credit when no other is given with <code>-maxCommute</code>. */
+    private static final double _DEFAULT_MAX_COMMUTE    = 30.0;
+
+    /** The weight of the commute component when no other is given with <code>-commuteWeight</code>. */
+    private static final double _DEFAULT_COMMUTE_WEIGHT = 0.2;
+
+    /** The cost added, with <code>-rotations</code>, to a pairing in a practice type the student has already had. */
+    private static final double _DEFAULT_REPEAT_PENALTY = 1.0;
+
+    /** The number of trials made by <code>-stability</code>, and the chance that a student's ranks are disturbed in each. */
+    private static final int    _DEFAULT_STABILITY_TRIALS = 100;
+    private static final double _DEFAULT_PERTURBATION     = 0.05;
+
+    /** The number of alternatives that <code>-explain</code> gives for a student's pairing when no other is given. */
+    private static final int    _DEFAULT_ALTERNATIVES     = 5;
+
+    /** The number of preceptors that <code>-recommend</code> lists for each student when no other number is given. */
+    private static final int    _DEFAULT_RECOMMENDATIONS  = 5;
+
+    /** The most space, in megabytes, that <code>-cache</code> may fill when no other size is given. */
+    private static final long   _DEFAULT_CACHE_MEGABYTES  = 256;
+
+    /** The options naming files that a result depends on, whose contents (not merely names) key the result in the cache. */
+    private static final String[] _CACHED_INPUT_OPTIONS = { "model", "gazetteer", "sweep", "history", "portfolio" };
+
+    /** The number of rows kept by the <code>-lazy</code> cost matrix when no other number is given. */
+    private static final int _DEFAULT_CACHED_ROWS = 1024;
+
+    /** The number of possible pairings at and above which every assignment is certified optimal unless <code>-nocertify</code>. */
+    private static final long _CERTIFY_PAIRINGS = 250000;
+
+    /** The options that choose something other than the default solve, which <code>-watch</code> does not redo incrementally. */
+    private static final String[] _UNWATCHED_OPTIONS = { "offheap", "lazy", "integer", "bottleneck", "hard", "preprocess",
+							 "portfolio", "days", "sweep", "stability", "gazetteer", "rotations", "explain",
+							 "recommend", "cache" };
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** How a run scores its pairings: with the scorer in use, plus the weighted quality of each commute if commutes are scored. */
+    private static class Scoring {
+
+	final PairScorer   scorer;
+	final CommuteTable commute;
+	final double       commuteWeight;
+
+	/**
+	 * @param scorer        The scorer: the hand-written one, unless a model is given with <code>-model</code>.
+	 * @param commute       The commutes of the roster, if they are scored (with <code>-gazetteer</code>); else <code>null</code>.
+	 * @param commuteWeight The weight given to the quality of a commute.
+	 */
+	Scoring (PairScorer scorer, CommuteTable commute, double commuteWeight) {
+	    this.scorer        = scorer.plus(commute, commuteWeight);
+	    this.commute       = commute;
+	    this.commuteWeight = commuteWeight;
+	}
+
+    } // class Scoring
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** What a solve leaves besides the cost of each pairing. */
+    private static class Solution {
+
+	/** The preceptor paired with each student, or <code>-1</code> for a student left unpaired. */
+	int[]                 matches;
+
+	/** The check of the pairings against the solver's duals, if one is to be made; deferred while the results are written. */
+	Supplier<Certificate> check;
+
+	/** The components of every pairing, if they were recorded as the costs were built (for <code>-explain</code>). */
+	ScoreComponents       explanations;
+
+	/** The pairings that the constraints allowed, if the solve was restricted to them; otherwise <code>null</code>. */
+	SparseCostGraph       allowed;
+
+    } // class Solution
+    // =============================================================================================================================
+
+
+
     // =============================================================================================================================
     /**
      * The starting point of the program.  Evaluate the command-line arugments.  Then use them to load the provided data for the run,
@@ -32,7 +133,7 @@ public class Pairer {
     public static void main (String[] args) {
 
 	// Do we have the right number of arguments to work with?
-	if (args.length != 3) {
+	if (args.length < 3) {
 	    showUsageAndExit();
 	}
 	
@@ -40,195 +141,672 @@ public class Pairer {
 	String studentsPath   = args[0];
 	String preceptorsPath = args[1];
 	String outputType     = args[2];
+	parseOptions(args, 3);
+	PairScorer scorer = Student::cross;
+	if (hasOption("model")) {
+	    String modelPath = option("model", null);
+	    Utility.abortIfFalse(modelPath != null, "Pairer.main(): -model requires a scoring model file (-model=<path>)");
+	    scorer = ScoringModel.load(modelPath).compile();
+	}
+	final PairScorer chosen = scorer;
+	Utility.abortIfFalse(!(hasOption("explain") && hasOption("model")),
+			     "Pairer.main(): -explain breaks down the hand-written scorer, and so cannot be used with -model");
+	Utility.abortIfFalse(!(hasOption("sweep") && hasOption("model")),
+			     "Pairer.main(): -sweep reweights the hand-written scorer, and so cannot be used with -model");
+	Utility.abortIfFalse(!(hasOption("sweep") && hasOption("gazetteer")),
+			     "Pairer.main(): -sweep reweights only the profile components, and so cannot be used with -gazetteer");
 	
-	// Create the data and operators.
-	List<Student>   students   = Student.read(studentsPath);
-	List<Preceptor> preceptors = Preceptor.read(preceptorsPath);
-		
-	// Cull the students and preceptors of those who cannot be matched (due to insufficient information).
-	List<Student> filteredStudents = new ArrayList<Student>();
-	for (Student student : students) {
-	    if (student.pairable()) {
-		filteredStudents.add(student);
-	    } else {
-		Utility.warning("Removing student from matching matrix: " + student.getName());
+	// Validation reports every problem in the rosters at once, rather than stopping at the first, and matches nothing.
+	if (hasOption("validate")) {
+	    RosterValidation validation = new RosterValidation(studentsPath, preceptorsPath);
+	    System.out.print(validation.report());
+	    Utility.abortIfFalse(validation.valid(), "Pairer.main(): The rosters have errors; see above");
+	    return;
+	}
+
+	// Watching pairs the rosters again each time either file changes, until interrupted, redoing only what changed.
+	if (hasOption("watch")) {
+	    for (String option : _UNWATCHED_OPTIONS) {
+		Utility.abortIfFalse(!hasOption(option), "Pairer.main(): -watch cannot be used with -" + option);
+	    }
+	    ResultWriter writer = ResultWriter.forFormat(outputType, System.out);
+	    if (writer == null) {
+		Utility.abort("Unknown output type:" + outputType);
 	    }
+	    new RosterWatch(studentsPath, preceptorsPath, writer, chosen, threads()).run();
+	    return;
 	}
-	students = filteredStudents;
 
-	List<Preceptor> filteredPreceptors = new ArrayList<Preceptor>();
-	for (Preceptor preceptor : preceptors) {
-	    if (preceptor.pairable()) {
-		filteredPreceptors.add(preceptor);
-	    } else {
-		Utility.warning("Removing preceptor from matching matrix: " + preceptor.getName());
+	// A result already cached for the same inputs is written again as it was, and one not yet cached is cached as it is written.
+	// A run that leaves anything besides its results (an explanation, or a report) is always made afresh.
+	if (hasOption("cache") && !hasOption("explain") && !hasOption("recommend")) {
+	    long cacheBytes = longOption("cacheSize", _DEFAULT_CACHE_MEGABYTES) << 20;
+	    try {
+		ResultCache cache = new ResultCache(option("cache", null), cacheBytes);
+		cache.serve(cacheKey(studentsPath, preceptorsPath, outputType), System.out, (out) -> {
+			PrintStream stdout = System.out;
+			System.setOut(new PrintStream(out));
+			try {
+			    pair(studentsPath, preceptorsPath, outputType, chosen);
+			    System.out.flush();
+			} finally {
+			    System.setOut(stdout);
+			}
+		    });
+	    } catch (IOException e) {
+		Utility.abort("Pairer.main(): Unable to use the result cache: " + e.getMessage());
 	    }
+	    return;
 	}
-	preceptors = filteredPreceptors;
-
-	// Cull the students and preceptors already matched to one another.  Verify that matching.
-	List<Student> preMatchedStudents = new ArrayList<Student>();
-	filteredStudents = new ArrayList<Student>();
-	for (Student student : students) {
-
-	    if (student.hasPreMatch()) {
-
-		for (Preceptor preceptor : preceptors) {
-		    if (preceptor.hasPreMatch() && student.preMatch().equals(preceptor.getName(false))) {
-			// Should be a match; verify.
-			Utility.abortIfFalse(preceptor.preMatch().equals(student.getName(false)),
-					     "Student (" + student.getName() + ") matched to " + student.preMatch() +
-					     ", but preceptor (" + preceptor.getName() + ") is matched to " + preceptor.preMatch());
-			student.match(preceptor, 0.0);
-			preceptors.remove(preceptor);
-			preMatchedStudents.add(student);
-			break;
-		    }
-		}
-		Utility.abortIfFalse(student.matched(), ("Student (" + student.getName() + ") prematched to " +
-							 student.preMatch() + ", but no such preceptor found."));
+	pair(studentsPath, preceptorsPath, outputType, chosen);
 
-	    } else {
+    } // main ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Read the rosters, match them as the options direct, and write the results to <code>stdout</code>.
+     *
+     * @param studentsPath   The file of student records.
+     * @param preceptorsPath The file of preceptor records.
+     * @param outputType     The format in which to write the results.
+     * @param scorer         The scorer that measures each pairing, before any commute is added.
+     */
+    private static void pair (String studentsPath, String preceptorsPath, String outputType, PairScorer scorer) {
+
+	// Settle the format first, whatever the mode.  Rotations and sweeps write tables of their own, which have only the readable
+	// and CSV forms.
+	ResultWriter writer = ResultWriter.forFormat(outputType, System.out);
+	if (writer == null) {
+	    Utility.abort("Unknown output type:" + outputType);
+	}
+	boolean csv = outputType.equalsIgnoreCase("CSV");
+	if (hasOption("rotations") || hasOption("sweep")) {
+	    Utility.abortIfFalse(csv || outputType.equalsIgnoreCase("Readable"),
+				 "Pairer.main(): -rotations and -sweep write only Readable or CSV output, not " + outputType);
+	}
+
+	// Read the data, culling the students and preceptors of those who cannot be matched (due to insufficient information).
+	Roster          roster     = Roster.pairable(Student.read(studentsPath), Preceptor.read(preceptorsPath));
+	List<Student>   students   = roster.students();
+	List<Preceptor> preceptors = roster.preceptors();
+
+	// Measure the commutes once, up front, if they are to be scored.
+	CommuteTable commute = null;
+	if (hasOption("gazetteer")) {
+	    String gazetteerPath = option("gazetteer", null);
+	    Utility.abortIfFalse(gazetteerPath != null, "Pairer.main(): -gazetteer requires a file of places (-gazetteer=<path>)");
+	    double maxCommute = doubleOption("maxCommute", _DEFAULT_MAX_COMMUTE);
+	    commute = new CommuteTable(Gazetteer.load(gazetteerPath), students, preceptors, maxCommute);
+	}
+	Scoring scoring = new Scoring(scorer, commute, doubleOption("commuteWeight", _DEFAULT_COMMUTE_WEIGHT));
+
+	// Several rotations are planned together, each from the same rosters, with pre-matches holding only for the first.
+	if (hasOption("rotations")) {
+	    int             count   = intOption("rotations", 1);
+	    double          penalty = doubleOption("repeatPenalty", _DEFAULT_REPEAT_PENALTY);
+	    RotationPlanner planner = new RotationPlanner(roster.students(),
+							  roster.preceptors(),
+							  scoring.scorer,
+							  new History(option("history", null)),
+							  penalty);
+	    planner.plan(count);
+	    planner.emit(csv);
+	    return;
+	}
+
+	// Set aside the students and preceptors already matched to one another, leaving the rest to be paired algorithmically.
+	Roster.Split split = roster.split(null);
+	students   = split.students;
+	preceptors = split.preceptors;
+
+	// A weight sweep compares the pairings under several weightings rather than emitting any one pairing.
+	if (hasOption("sweep")) {
+	    String gridPath = option("sweep", null);
+	    Utility.abortIfFalse(gridPath != null, "Pairer.main(): -sweep requires a file of weightings (-sweep=<path>)");
+	    WeightSweep sweep = new WeightSweep(students, preceptors, WeightSweep.readWeightings(gridPath));
+	    sweep.run();
+	    sweep.emit(csv);
+	    return;
+	}
+
+	// A stability analysis pairs the rosters many times over with students' ranks disturbed, rather than emitting any one pairing.
+	if (hasOption("stability")) {
+	    Utility.abortIfFalse(!hasOption("gazetteer"), "Pairer.main(): -stability cannot be used with -gazetteer");
+	    StabilityAnalysis analysis = new StabilityAnalysis(students,
+							       preceptors,
+							       scoring.scorer,
+							       intOption("stability", _DEFAULT_STABILITY_TRIALS),
+							       doubleOption("perturbation", _DEFAULT_PERTURBATION),
+							       longOption("seed", 0));
+	    analysis.run(hasOption("threads") ? threads() : Runtime.getRuntime().availableProcessors());
+	    analysis.emit(writer);
+	    return;
+	}
 
-		// A non-pre-matched student is still in the running to be paired algorithmically.
-		filteredStudents.add(student);
+	// Make a cost matrix and pair remaining students to preceptors based on it, then record those pairings and the pre-matches
+	// together, by each student's place in the roster.
+	double[] matchQualities = new double[students.size()];
+	Solution solution       = solve(students, preceptors, scoring, matchQualities);
+	int[]    matches        = solution.matches;
+	int[]    preceptorOf    = split.preMatchOf.clone();
+	double[] qualities      = new double[preceptorOf.length];
+	for (int k = 0; k < matches.length; k += 1) {
+	    if (matches[k] != -1) {
+		preceptorOf[split.freeStudents.get(k)] = split.freePreceptors.get(matches[k]);
+		qualities[split.freeStudents.get(k)]   = matchQualities[k];
+	    }
+	}
+	MatchResult result = new MatchResult(roster, preceptorOf, qualities, split.preMatched, hasOption("days"));
 
+	// Emit the matching results, checking the assignment against the solver's duals meanwhile.
+	writer.start(result);
+	if (solution.check != null) {
+	    report(solution.check.get());
+	}
+	writer.finish();
+
+	// Explain the pairings asked about, from the components recorded as the costs were built.  The solvers that build no cost
+	// matrix of their own record none, so measure them here for those.
+	if (hasOption("explain")) {
+	    Utility.abortIfFalse(option("explain", null) != null, "Pairer.main(): -explain requires a query (-explain=<student>)");
+	    ScoreComponents components = solution.explanations;
+	    if (components == null) {
+		components = new ScoreComponents(students, preceptors);
 	    }
+	    ScoreExplanation explanation = new ScoreExplanation(students,
+								preceptors,
+								components,
+								Student.defaultWeights(),
+								scoring.commute,
+								scoring.commuteWeight,
+								matches,
+								solution.allowed);
+	    int alternatives = intOption("alternatives", _DEFAULT_ALTERNATIVES);
+	    System.err.print(explanation.explain(option("explain", ""), alternatives));
+	}
 
+	// Report the preceptors with whom each student would score best, beside the one given to them.
+	if (hasOption("recommend")) {
+	    String reportPath = option("recommend", null);
+	    Utility.abortIfFalse(reportPath != null, "Pairer.main(): -recommend requires a file for the report (-recommend=<path>)");
+	    int top = intOption("top", _DEFAULT_RECOMMENDATIONS);
+	    new RecommendationReport(students,
+				     preceptors,
+				     scoring.scorer,
+				     scoring.commute,
+				     top,
+				     hasOption("hard"),
+				     hasOption("days")).write(reportPath, matches);
 	}
-	students = filteredStudents;
 
-	// Make a cost matrix.
-	double[][] costs = new double[students.size()][preceptors.size()];
-	for (int i = 0; i < students.size(); i += 1) {
-	    for (int j = 0; j < preceptors.size(); j += 1) {
+    } // pair ()
+    // =============================================================================================================================
 
-		// Because our matching algorithm seeks to minimize costs, we take the inverse to make lower scores better.
-		double crossResult = students.get(i).cross(preceptors.get(j));
-		costs[i][j] = 1 / crossResult;
 
+
+    // =============================================================================================================================
+    /**
+     * Hash everything that decides what a run writes: the contents of the rosters, the output format, the weights of the
+     * hand-written scorer, every option (the choice of solver among them) but those of the cache itself, and the contents of every
+     * file that an option names as an input.
+     *
+     * @param studentsPath   The file of student records.
+     * @param preceptorsPath The file of preceptor records.
+     * @param outputType     The format in which to write the results.
+     * @return The key of the run's results in the cache.
+     * @throws IOException If a file cannot be read.
+     */
+    private static String cacheKey (String studentsPath, String preceptorsPath, String outputType) throws IOException {
+
+	ResultCache.Key key = new ResultCache.Key();
+	key.file(studentsPath);
+	key.file(preceptorsPath);
+	key.text(outputType.toLowerCase(Locale.ROOT));
+	for (double weight : Student.defaultWeights()) {
+	    key.text(Double.toString(weight));
+	}
+
+	List<String> names = new ArrayList<String>(_options.keySet());
+	Collections.sort(names);
+	for (String name : names) {
+	    if (name.equals("cache") || name.equals("cacheSize")) {
+		continue;
+	    }
+	    key.text(name).text(_options.get(name));
+	    if (Arrays.asList(_CACHED_INPUT_OPTIONS).contains(name) && option(name, null) != null) {
+		key.file(option(name, null));
 	    }
 	}
+	return key.digest();
 
-	// Pair remaining students to preceptors based on the results.
-	HungarianAlgorithm matcher = new HungarianAlgorithm(costs);
-	int[] matches = matcher.execute();
-	for (int i = 0; i < matches.length; i += 1) {
+    } // cacheKey ()
+    // =============================================================================================================================
 
-	    if (matches[i] != -1) {
-		Student student = students.get(i);
-		Preceptor preceptor = preceptors.get(matches[i]);
-		double matchQuality = costs[i][matches[i]];
-		student.match(preceptor, matchQuality);
+
+
+    // =============================================================================================================================
+    /**
+     * Find the least costly pairing of the given students with the given preceptors.  With <code>-integer</code>, the costs are
+     * quantized to integers (see <code>IntegerCosts</code>) and solved with exact integer arithmetic; otherwise they are solved as
+     * doubles, held as selected by <code>makeCostMatrix()</code>.  With <code>-bottleneck</code>, the cost of the worst pairing is
+     * minimized first, and the total only among pairings that achieve it (see <code>BottleneckAssignment</code>); with
+     * <code>-bottleneck=threshold</code>, any pairing that achieves it is accepted.  With <code>-hard</code>, a pairing that violates
+     * a preceptor's gender or Spanish requirement is never made, rather than merely scored lower (see <code>SparseCostGraph</code>);
+     * if that leaves some students or preceptors unable to be paired, the conflict is reported and as many as possible are paired.
+     * With <code>-days</code>, likewise, a student is only paired with a preceptor available on a day that the student is; and
+     * with <code>-hard</code> and <code>-gazetteer</code>, only with a preceptor within the maximum commute.  With
+     * <code>-preprocess</code>, the pairings that provably need no solving are decided first, and only the rest solved (see
+     * <code>Preprocessor</code>).  With <code>-portfolio</code>, several engines race to solve it, one per processor (or as many as
+     * <code>-threads</code> gives), and the first proven result is taken; with <code>-portfolio=tallies</code>, the winners are
+     * tallied in that file to choose the engines when processors are few (see <code>Portfolio</code>).  Otherwise, with
+     * <code>-threads</code>, the solver's longest sweeps are shared among that many
+     * threads (by default, one per processor), which changes how quickly it finds the pairing but not which one it finds.
+     * <p>
+     *
+     * The assignment is then to be checked against the solver's duals (see <code>Certificate</code>), a warning given if they fail
+     * to certify it optimal; the check is returned with the pairings, to be made while the results are written (a
+     * portfolio's is made as it races).  The check is made for large rosters, or for any with <code>-certify</code>, and never with
+     * <code>-nocertify</code>.  It is not made of a bottleneck assignment, nor under constraints that leave some on the smaller
+     * side unpaired, since neither is optimal in the sense that duals certify; nor of a preprocessed one, whose solver sees only
+     * part of the problem and so has no duals for the whole, whether or not a portfolio chose it.
+     *
+     * @param students       The students, one per row.
+     * @param preceptors     The preceptors, one per column.
+     * @param scoring        How each pairing is scored.
+     * @param matchQualities A buffer, one entry per student, into which the cost of each student's pairing is written.
+     * @return The index of the preceptor paired with each student, or <code>-1</code> for a student left unpaired, with the check
+     *         to be made of them, if any.
+     */
+    private static Solution solve (List<Student>   students,
+				   List<Preceptor> preceptors,
+				   Scoring         scoring,
+				   double[]        matchQualities) {
+
+	Solution solution = new Solution();
+
+	int[] matches;
+	if (hasOption("hard") || hasOption("days")) {
+	    SparseCostGraph graph = SparseCostGraph.allowed(students,
+							    preceptors,
+							    scoring.scorer,
+							    scoring.commute,
+							    hasOption("hard"),
+							    hasOption("days"));
+	    Utility.debug(2, String.format("Constraints allow %d of %d pairings",
+					   graph.edges(),
+					   (long)students.size() * preceptors.size()));
+	    int[][] conflict = graph.conflict();
+	    if (conflict != null) {
+		reportConflict(conflict, students, preceptors);
+	    }
+	    SparseAssignment solver = new SparseAssignment(graph);
+	    matches          = solver.execute();
+	    solution.allowed = graph;
+	    for (int i = 0; i < matches.length; i += 1) {
+		if (matches[i] != -1) {
+		    matchQualities[i] = graph.cost(i, matches[i]);
+		}
 	    }
+	    if (conflict == null && certifying(students, preceptors)) {
+		final int[] solved = matches;
+		solution.check = () -> solver.certify(solved);
+	    }
+	} else if (hasOption("integer")) {
+	    int[][] costs = IntegerCosts.of(students, preceptors, scoring.scorer);
+	    IntegerHungarianAlgorithm solver = new IntegerHungarianAlgorithm(costs);
+	    matches = solver.execute();
+	    for (int i = 0; i < matches.length; i += 1) {
+		if (matches[i] != -1) {
+		    matchQualities[i] = IntegerCosts.dequantize(costs[i][matches[i]]);
+		}
+	    }
+	    if (certifying(students, preceptors)) {
+		final int[] solved = matches;
+		solution.check = () -> solver.certify(solved);
+	    }
+	} else if (hasOption("bottleneck")) {
+	    CostMatrix           costs  = makeCostMatrix(students, preceptors, scoring, solution);
+	    BottleneckAssignment solver = new BottleneckAssignment(costs, !option("bottleneck", "").equalsIgnoreCase("threshold"));
+	    matches = solver.execute();
+	    Utility.debug(2, String.format("Worst pairing costs %.4f (found in %d feasibility checks)",
+					   solver.threshold(),
+					   solver.probes()));
+	    for (int i = 0; i < matches.length; i += 1) {
+		if (matches[i] != -1) {
+		    matchQualities[i] = costs.get(i, matches[i]);
+		}
+	    }
+	} else if (hasOption("preprocess")) {
+	    CostMatrix   costs        = makeCostMatrix(students, preceptors, scoring, solution);
+	    Preprocessor preprocessor = new Preprocessor(costs);
+	    matches = preprocessor.execute();
+	    Utility.debug(2, preprocessor.summary());
+	    for (int i = 0; i < matches.length; i += 1) {
+		if (matches[i] != -1) {
+		    matchQualities[i] = costs.get(i, matches[i]);
+		}
+	    }
+	} else if (hasOption("portfolio")) {
+	    CostMatrix costs     = makeCostMatrix(students, preceptors, scoring, solution);
+	    Portfolio  portfolio = new Portfolio(costs, option("portfolio", null));
+	    matches = portfolio.execute(hasOption("threads") ? threads() : Runtime.getRuntime().availableProcessors());
+	    Utility.debug(2, portfolio.summary());
+	    for (int i = 0; i < matches.length; i += 1) {
+		if (matches[i] != -1) {
+		    matchQualities[i] = costs.get(i, matches[i]);
+		}
+	    }
+	    if (portfolio.certificate() != null && certifying(students, preceptors)) {
+		report(portfolio.certificate());
+	    }
+	} else {
+	    CostMatrix         costs  = makeCostMatrix(students, preceptors, scoring, solution);
+	    HungarianAlgorithm solver = new HungarianAlgorithm(costs, threads());
+	    matches = solver.execute();
+	    for (int i = 0; i < matches.length; i += 1) {
+		if (matches[i] != -1) {
+		    matchQualities[i] = costs.get(i, matches[i]);
+		}
+	    }
+	    if (certifying(students, preceptors)) {
+		final int[] solved = matches;
+		solution.check = () -> solver.certify(solved);
+	    }
+	}
+	solution.matches = unfiltered(matches, matchQualities, students, preceptors, scoring.scorer);
+	return solution;
+
+    } // solve ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Undo every pairing that the scorer rules out, which a solver makes only when some student or preceptor has no other left.
+     *
+     * @param matches        The preceptor paired with each student, or <code>-1</code>; not modified, since a pending check may
+     *                       hold it.
+     * @param matchQualities The cost of each student's pairing; that of each pairing undone is cleared.
+     * @param students       The students, one per row.
+     * @param preceptors     The preceptors, one per column.
+     * @param scorer         The scorer that measured them.
+     * @return The pairings, with those ruled out replaced by <code>-1</code>.
+     */
+    private static int[] unfiltered (int[]           matches,
+				     double[]        matchQualities,
+				     List<Student>   students,
+				     List<Preceptor> preceptors,
+				     PairScorer      scorer) {
+
+	int[] allowed = matches;
+	for (int i = 0; i < matches.length; i += 1) {
+	    if (matches[i] != -1 && !(scorer.score(students.get(i), preceptors.get(matches[i])) > 0)) {
+		Utility.warning("No preceptor allowed by the scoring model remains for student " + students.get(i).getName());
+		if (allowed == matches) {
+		    allowed = matches.clone();
+		}
+		allowed[i]        = -1;
+		matchQualities[i] = 0.0;
+	    }
+	}
+	return allowed;
+
+    } // unfiltered ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return The number of threads given by <code>-threads</code>, no more than the processors available; one if it is absent.
+     */
+    private static int threads () {
 
+	if (!hasOption("threads")) {
+	    return 1;
 	}
+	int processors = Runtime.getRuntime().availableProcessors();
+	int threads    = intOption("threads", processors);
+	Utility.abortIfFalse(threads >= 1, "Pairer.threads(): At least one thread is needed: " + threads);
+	return Math.min(threads, processors);
 
-	// Unify the lists of students and then emit their matching results.
-	students.addAll(preMatchedStudents);
-	if (outputType.equalsIgnoreCase("Readable")) {
-	    emitReadable(students);
-	} else if (outputType.equalsIgnoreCase("CSV")) {
-	    emitCSV(students);
+    } // threads ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param students   The students.
+     * @param preceptors The preceptors.
+     * @return Whether to certify the assignment of these students to these preceptors.
+     */
+    private static boolean certifying (List<Student> students, List<Preceptor> preceptors) {
+
+	if (hasOption("nocertify")) {
+	    return false;
+	}
+	return hasOption("certify") || (long)students.size() * preceptors.size() >= _CERTIFY_PAIRINGS;
+
+    } // certifying ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static void report (Certificate certificate) {
+
+	if (certificate.certified()) {
+	    Utility.debug(2, certificate.toString());
 	} else {
-	    Utility.abort("Unknown output type:" + outputType);
+	    Utility.warning("The assignment found is not certified optimal: " + certificate.failure());
 	}
 
-    } // main ()
+    } // report ()
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
     /**
-     * Write (to <code>stdout</code>) the list of students and the preceptor to which each is matched.  Show whether each student is
-     * unpatched, pre-matched, or algorithmically matched.  The format written is meant for easy human reading.
+     * Warn that hard constraints or days make it impossible to pair everyone on the smaller side, naming a set of students (or preceptors)
+     * whose allowed partners are too few for them all.
      *
-     * @param students The list of <code>Student</code>s, each of which has information on the <code>Preceptor</code> to whom a
-     *                 match was found (if any).
+     * @param conflict   The conflicting students (entry 0) and preceptors (entry 1), as found by
+     *                   <code>SparseCostGraph.conflict()</code>.
+     * @param students   The students, one per row.
+     * @param preceptors The preceptors, one per column.
      */
-    private static void emitReadable (List<Student> students) {
-
-	// Emit the pairings.
-	for (Student student : students) {
-	    String studentName = student.getName();
-	    String preceptorName;
-	    String matchType;
-	    if (student.matched()) {
-		if (student.hasPreMatch()) {
-		    matchType = "pre";
-		} else {
-		    matchType = "alg";
+    private static void reportConflict (int[][] conflict, List<Student> students, List<Preceptor> preceptors) {
+
+	boolean       studentsShort = (conflict[0].length > conflict[1].length);
+	StringBuilder message       = new StringBuilder();
+	message.append(String.format("Constraints leave %d %s with only %d allowed %s; at least %d will be unpaired.",
+				     (studentsShort ? conflict[0].length : conflict[1].length),
+				     (studentsShort ? "students" : "preceptors"),
+				     (studentsShort ? conflict[1].length : conflict[0].length),
+				     (studentsShort ? "preceptors" : "students"),
+				     Math.abs(conflict[0].length - conflict[1].length)));
+	message.append("\n  Students:");
+	for (int i : conflict[0]) {
+	    message.append("\n    ").append(students.get(i).getName());
+	}
+	message.append("\n  Preceptors:");
+	for (int j : conflict[1]) {
+	    message.append("\n    ").append(preceptors.get(j).getName());
+	}
+	Utility.warning(message.toString());
+
+    } // reportConflict ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Build the cost matrix for the students and preceptors that remain to be paired.  By default it is an on-heap array.  With
+     * <code>-offheap</code> it is instead a memory-mapped file (a temporary one, or the file named by <code>-offheap=path</code>),
+     * so that rosters whose costs exceed the heap can still be solved; adding <code>-float32</code> halves its size.  With
+     * <code>-lazy</code> nothing is precomputed at all: rows are computed as the solver asks for them and kept in a cache of
+     * <code>-lazy=rows</code> rows.
+     *
+     * @param students   The students, one per row.
+     * @param preceptors The preceptors, one per column.
+     * @param scoring    How each pairing is scored.
+     * @param solution   The solve for which the matrix is built, in which the components of each pairing are recorded with
+     *                   <code>-explain</code>.
+     * @return The matrix of costs of pairing each student with each preceptor.
+     */
+    private static CostMatrix makeCostMatrix (List<Student>   students,
+					      List<Preceptor> preceptors,
+					      Scoring         scoring,
+					      Solution        solution) {
+
+	if (hasOption("lazy")) {
+	    int cachedRows = intOption("lazy", _DEFAULT_CACHED_ROWS);
+	    return new LazyCostMatrix(students, preceptors, scoring.scorer, cachedRows);
+	}
+
+	CostMatrix costs = null;
+	if (!hasOption("offheap")) {
+	    costs = new ArrayCostMatrix(students.size(), preceptors.size());
+	} else {
+	    try {
+		costs = new MappedCostMatrix(students.size(), preceptors.size(), option("offheap", null), hasOption("float32"));
+	    } catch (IOException e) {
+		Utility.abort("Pairer.makeCostMatrix(): Unable to map cost matrix: " + e.getMessage());
+	    }
+	}
+
+	if (!hasOption("explain")) {
+	    for (int i = 0; i < students.size(); i += 1) {
+		for (int j = 0; j < preceptors.size(); j += 1) {
+		    costs.set(i, j, scoring.scorer.cost(students.get(i), preceptors.get(j)));
 		}
-		preceptorName = student.getMatch().getName();
-	    } else {
-		matchType = "unm";
-		preceptorName = "None";
 	    }
-	    System.out.printf("[%s]%40s\t%40s\t%2.4f\n", matchType, studentName, preceptorName, student.getMatchQuality());
+	    return costs;
 	}
 
-    } // emitReadable ()
+	// Measure the components of each pairing just once, both recording them and combining them into its cost exactly as
+	// Student.cross() and the scorer would.
+	ScoreComponents explanations = new ScoreComponents(students.size(), preceptors.size());
+	double[] weights    = Student.defaultWeights();
+	double[] components = new double[Student._numberComponents];
+	for (int i = 0; i < students.size(); i += 1) {
+	    Student student = students.get(i);
+	    for (int j = 0; j < preceptors.size(); j += 1) {
+		Preceptor preceptor = preceptors.get(j);
+		student.crossComponents(preceptor, components);
+		explanations.record(i, j, components);
+		double score = Student.combine(components, weights);
+		if (scoring.commute != null) {
+		    score += scoring.commuteWeight * scoring.commute.quality(student, preceptor);
+		}
+		costs.set(i, j, PairScorer.inverse(score));
+	    }
+	}
+	solution.explanations = explanations;
+	return costs;
+
+    } // makeCostMatrix ()
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
     /**
-     * Write (to <code>stdout</code>) the list of students and the preceptor to which each is matched.  Show whether each student is
-     * unpatched, pre-matched, or algorithmically matched.  The format written is a semicolon-delimited CSV file, intended to be
-     * imported into a spreadsheet application.
+     * Record the optional arguments, each of the form <code>-name</code> or <code>-name=value</code>.
      *
-     * @param students The list of <code>Student</code>s, each of which has information on the <code>Preceptor</code> to whom a
-     *                 match was found (if any).
+     * @param args  The command-line arguments.
+     * @param first The index of the first optional argument.
      */
-    private static void emitCSV (List<Student> students) {
-
-	// Emit the pairings, showing the following fields for each:
-	//   0. Student name
-	//   1. Match type (pre/alg/unm)
-	//   2. Preceptor name
-	//   3. Preceptor location
-	//   4. Practice type
-	//   5. Day of the week
-	//   6. Match quality
-	System.out.printf("STUDENT NAME;MATCH TYPE;PRECEPTOR NAME;LOCATION;PRACTICE TYPE;MEETING DAY;MATCH QUALITY\n");
-	for (Student student : students) {
-	    String studentName = student.getName();
-	    String preceptorName;
-	    String preceptorLocation;
-	    String practiceType;
-	    String dayOfWeek;
-	    String matchType;
-	    if (student.matched()) {
-		Preceptor preceptor = student.getMatch();
-		if (student.hasPreMatch()) {
-		    matchType     = "pre";
-		} else {
-		    matchType     = "alg";
-		}	
-		preceptorName     = preceptor.getName();
-		preceptorLocation = preceptor.location();
-		practiceType      = preceptor.practiceType();
-		dayOfWeek         = preceptor.preferredDay();
+    private static void parseOptions (String[] args, int first) {
+
+	for (int i = first; i < args.length; i += 1) {
+	    String arg = args[i];
+	    if (!arg.startsWith("-")) {
+		Utility.warning("Ignoring unrecognized argument: " + arg);
+		continue;
+	    }
+	    int equals = arg.indexOf('=');
+	    if (equals == -1) {
+		_options.put(arg.substring(1), "");
 	    } else {
-		matchType         = "unm";
-		preceptorName     = "None";
-		preceptorLocation = "N/A";
-		practiceType      = "N/A";
-		dayOfWeek         = "N/A";
+		_options.put(arg.substring(1, equals), arg.substring(equals + 1));
 	    }
-	    System.out.printf("\"%s\";%s;\"%s\";%s;%s;%s;%.4f\n",
-			      studentName,
-			      matchType,
-			      preceptorName,
-			      preceptorLocation,
-			      practiceType,
-			      dayOfWeek,
-			      student.getMatchQuality());
 	}
 
-    } // emitCSV ()
+    } // parseOptions ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static boolean hasOption (String name) {
+	return _options.containsKey(name);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static String option (String name, String defaultValue) {
+	String value = _options.get(name);
+	return (value != null && !value.equals("") ? value : defaultValue);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return The value of a numeric option, or the default if it is absent or given no value; aborting, with the usage, if the
+     *         value given is not a number.
+     */
+    private static int intOption (String name, int defaultValue) {
+
+	String value = option(name, null);
+	try {
+	    return (value == null ? defaultValue : Integer.parseInt(value));
+	} catch (NumberFormatException e) {
+	    return (int)badOption(name, "an integer", value);
+	}
+
+    } // intOption ()
+
+    private static long longOption (String name, long defaultValue) {
+
+	String value = option(name, null);
+	try {
+	    return (value == null ? defaultValue : Long.parseLong(value));
+	} catch (NumberFormatException e) {
+	    return (long)badOption(name, "an integer", value);
+	}
+
+    } // longOption ()
+
+    private static double doubleOption (String name, double defaultValue) {
+
+	String value = option(name, null);
+	try {
+	    return (value == null ? defaultValue : Double.parseDouble(value));
+	} catch (NumberFormatException e) {
+	    return badOption(name, "a number", value);
+	}
+
+    } // doubleOption ()
+
+    private static double badOption (String name, String kind, String value) {
+
+	Utility.warning("-" + name + " requires " + kind + ": " + value);
+	showUsageAndExit();
+	return 0;
+
+    } // badOption ()
     // =============================================================================================================================
 
 
@@ -244,7 +822,18 @@ public class Pairer {
 
 	System.err.printf("USAGE: java Pairer <student list pathname>\n" +
 			  "                   <preceptor list pathname>\n" +
-			  "                   <output format [Readable|CSV]>\n");
+			  "                   <output format [Readable|CSV|JSON|Binary]>\n" +
+			  "                   [-validate | -watch]\n" +
+			  "                   [-offheap[=<cost matrix pathname>] [-float32] | -lazy[=<cached rows>] | -integer]\n" +
+			  "                   [-bottleneck[=threshold] | -hard | -preprocess | -portfolio[=<tallies pathname>]]\n" +
+			  "                   [-days] [-certify | -nocertify] [-threads[=<count>]]\n" +
+			  "                   [-explain=<student>[/<preceptor>][;...] [-alternatives=<count>]]\n" +
+			  "                   [-recommend=<report pathname> [-top=<count>]]\n" +
+			  "                   [-cache=<cache directory> [-cacheSize=<megabytes>]]\n" +
+			  "                   [-sweep=<weightings pathname>] [-model=<scoring model pathname>]\n" +
+			  "                   [-stability[=<trials>] [-perturbation=<probability>] [-seed=<seed>]]\n" +
+			  "                   [-gazetteer=<places pathname> [-maxCommute=<miles>] [-commuteWeight=<weight>]]\n" +
+			  "                   [-rotations=<count> [-history=<history pathname>] [-repeatPenalty=<cost>]]\n");
 	System.exit(1);
 
     } // showUsageAndExit ()
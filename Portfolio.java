@@ -0,0 +1,413 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * Solves an assignment problem with whichever of several engines suits it, since each suits a different shape: the Hungarian
+ * algorithm a dense and roughly square matrix, the <code>Preprocessor</code> a small cohort drawn from a much larger pool, and
+ * successive shortest paths (<code>SparseAssignment</code>) a matrix in which most pairings are forbidden by an infinite cost.
+ * <p>
+ *
+ * Given cores enough, the portfolio races the engines, each on its own thread, and takes the first result proven optimal,
+ * interrupting the rest.  A result is proven when the duals of its engine certify it (see <code>Certificate</code>); one from an
+ * engine that keeps no duals for the whole problem, as the <code>Preprocessor</code> does not, is taken on the strength of its
+ * reductions, each of which is itself a proof.  A result whose certificate fails is set aside, and used only if no engine does
+ * better.
+ * <p>
+ *
+ * The winner of each race is tallied against the problem's shape: its size (to a power of two), whether it is square or wide, and
+ * how many of its pairings are allowed.  With fewer cores than engines, only the engines that have won most often on problems of
+ * that shape are raced, and with a single core, only the one that has won most often is run, on the calling thread.  Until a
+ * shape has been seen, the engines are ranked by a fixed rule.  The tallies may be kept in a file from one run to the next, so
+ * that a machine with cores to spare teaches the choices made on one without.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class Portfolio {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The names of the engines. */
+    public static final String HUNGARIAN  = "hungarian";
+    public static final String PREPROCESS = "preprocess";
+    public static final String SPARSE     = "sparse";
+
+    /** Every engine, in the order that breaks ties in the ranking when nothing else does. */
+    private static final String[] _ENGINES = { HUNGARIAN, PREPROCESS, SPARSE };
+
+    /** The most allowed pairings for which the sparse engine is run, since it holds each one as an edge. */
+    private static final long     _SPARSE_PAIRINGS = 1L << 22;
+
+    /** The fraction of pairings allowed below which a problem is considered sparse. */
+    private static final double   _SPARSE_DENSITY  = 0.25;
+
+    /** The ratio of the longer side to the shorter at and above which a problem is considered wide. */
+    private static final int      _WIDE_RATIO      = 4;
+
+    private final CostMatrix      _costs;
+
+    /** The number of pairings whose costs are finite. */
+    private final long            _allowed;
+
+    /** The tallies of wins, keyed by shape and engine, and the file that holds them, or <code>null</code>. */
+    private final Properties      _tallies = new Properties();
+    private final String          _talliesPath;
+
+    /** The engine whose result was taken, its certificate (if it has one), and the number of engines raced. */
+    private String                _winner;
+    private Certificate           _certificate;
+    private int                   _raced;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param costs       The costs, of which an infinite one marks a pairing that may not be made.
+     * @param talliesPath The file of tallies of earlier races, read if it exists and rewritten after each race; or
+     *                    <code>null</code> to keep them only in memory.
+     */
+    public Portfolio (CostMatrix costs, String talliesPath) {
+
+	_costs       = costs;
+	_talliesPath = talliesPath;
+
+	long     allowed = 0;
+	double[] buffer  = new double[costs.cols()];
+	for (int i = 0; i < costs.rows(); i += 1) {
+	    costs.readRow(i, buffer);
+	    for (int j = 0; j < costs.cols(); j += 1) {
+		if (Double.isFinite(buffer[j])) {
+		    allowed += 1;
+		}
+	    }
+	}
+	_allowed = allowed;
+
+	if (talliesPath != null) {
+	    try (FileReader reader = new FileReader(talliesPath)) {
+		_tallies.load(reader);
+	    } catch (FileNotFoundException e) {
+		// No races yet; the first one will create the file.
+	    } catch (IOException e) {
+		Utility.abort("Portfolio(): Unable to read " + talliesPath + ": " + e.getMessage());
+	    }
+	}
+
+    } // Portfolio ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find the assignment with as many engines as there are threads to race them on.
+     *
+     * @param threads The number of engines that may run at once.
+     * @return The column assigned to each row, or <code>-1</code> for a row left unassigned.
+     */
+    public int[] execute (int threads) {
+
+	List<String> ranking = ranking();
+	if (threads <= 1 || ranking.size() == 1) {
+	    _raced       = 1;
+	    _winner      = ranking.get(0);
+	    AssignmentSolver solver  = engine(_winner);
+	    int[]            matches = solver.execute();
+	    _certificate = solver.certify(matches);
+	    return matches;
+	}
+	return race(ranking.subList(0, Math.min(threads, ranking.size())));
+
+    } // execute ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Run the given engines at once, taking the first result proven optimal and interrupting the rest, and tally the winner.
+     *
+     * @param names The engines.
+     * @return The assignment taken.
+     */
+    private int[] race (List<String> names) {
+
+	_raced = names.size();
+	ExecutorService                      pool       = Executors.newFixedThreadPool(names.size());
+	ExecutorCompletionService<int[]>     completion = new ExecutorCompletionService<int[]>(pool);
+	Map<Future<int[]>, AssignmentSolver> solvers    = new HashMap<Future<int[]>, AssignmentSolver>();
+	Map<Future<int[]>, String>           engines    = new HashMap<Future<int[]>, String>();
+	for (String name : names) {
+	    AssignmentSolver solver = engine(name);
+	    Future<int[]>    future = completion.submit(solver::execute);
+	    solvers.put(future, solver);
+	    engines.put(future, name);
+	}
+
+	int[] taken    = null;
+	int[] fallback = null;
+	try {
+	    for (int k = 0; k < names.size() && taken == null; k += 1) {
+		Future<int[]> future = completion.take();
+		String        name   = engines.get(future);
+		int[]         matches;
+		try {
+		    matches = future.get();
+		} catch (ExecutionException e) {
+		    Utility.warning("Portfolio.race(): The " + name + " engine failed: " + e.getCause());
+		    continue;
+		}
+		Certificate certificate = solvers.get(future).certify(matches);
+		if (certificate == null || certificate.certified()) {
+		    taken        = matches;
+		    _winner      = name;
+		    _certificate = certificate;
+		} else if (fallback == null) {
+		    Utility.debug(2, "Portfolio.race(): Setting aside the " + name + " engine's result: " + certificate);
+		    fallback     = matches;
+		    _winner      = name;
+		    _certificate = certificate;
+		}
+	    }
+	} catch (InterruptedException e) {
+	    Utility.abort("Portfolio.race(): Interrupted while racing: " + e);
+	} finally {
+	    for (Future<int[]> future : engines.keySet()) {
+		future.cancel(true);
+	    }
+	    pool.shutdownNow();
+	}
+
+	if (taken == null) {
+	    Utility.abortIfFalse(fallback != null, "Portfolio.race(): Every engine failed");
+	    return fallback;
+	}
+	record(_winner);
+	return taken;
+
+    } // race ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Rank the engines that may run on this problem: those that have won most often on problems of its shape first, and the rest
+     * by the fixed rule of <code>ruled()</code>.
+     *
+     * @return The engines, best first.
+     */
+    public List<String> ranking () {
+
+	final String       shape   = shape();
+	final List<String> ruled   = ruled();
+	List<String>       ranking = new ArrayList<String>(ruled);
+	ranking.sort((a, b) -> {
+		int byWins = Integer.compare(wins(shape, b), wins(shape, a));
+		return (byWins != 0 ? byWins : Integer.compare(ruled.indexOf(a), ruled.indexOf(b)));
+	    });
+	return ranking;
+
+    } // ranking ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Rank the engines by the shape of the problem alone: the sparse engine first when most pairings are forbidden, the
+     * <code>Preprocessor</code> first when the problem is wide, and the Hungarian algorithm first otherwise.  The sparse engine is
+     * left out when the allowed pairings are too many to hold as edges.
+     *
+     * @return The engines, best first.
+     */
+    private List<String> ruled () {
+
+	List<String> ruled = new ArrayList<String>();
+	if (density() < _SPARSE_DENSITY) {
+	    ruled.add(SPARSE);
+	}
+	if (wide()) {
+	    ruled.add(PREPROCESS);
+	}
+	for (String name : _ENGINES) {
+	    if (!ruled.contains(name)) {
+		ruled.add(name);
+	    }
+	}
+	if (_allowed > _SPARSE_PAIRINGS) {
+	    ruled.remove(SPARSE);
+	}
+	return ruled;
+
+    } // ruled ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param name The name of an engine.
+     * @return A new instance of that engine for this problem.
+     */
+    public AssignmentSolver engine (String name) {
+
+	if (name.equals(HUNGARIAN)) {
+	    return new HungarianAlgorithm(_costs);
+	} else if (name.equals(PREPROCESS)) {
+	    return new Preprocessor(_costs);
+	} else if (name.equals(SPARSE)) {
+	    return new SparseAssignment(SparseCostGraph.finite(_costs));
+	}
+	Utility.abort("Portfolio.engine(): No such engine: " + name);
+	return null;
+
+    } // engine ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Tally a win for an engine on problems of this shape, and rewrite the file of tallies, if there is one.
+     *
+     * @param name The engine.
+     */
+    public void record (String name) {
+
+	String key = shape() + "." + name;
+	_tallies.setProperty(key, Integer.toString(wins(shape(), name) + 1));
+	if (_talliesPath == null) {
+	    return;
+	}
+	try (FileWriter writer = new FileWriter(_talliesPath)) {
+	    _tallies.store(writer, "Wins by problem shape and assignment engine");
+	} catch (IOException e) {
+	    Utility.abort("Portfolio.record(): Unable to write " + _talliesPath + ": " + e.getMessage());
+	}
+
+    } // record ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private int wins (String shape, String name) {
+
+	String wins = _tallies.getProperty(shape + "." + name);
+	try {
+	    return (wins == null ? 0 : Integer.parseInt(wins.trim()));
+	} catch (NumberFormatException e) {
+	    Utility.warning("Portfolio: Ignoring malformed tally for " + shape + "." + name + ": " + wins);
+	    return 0;
+	}
+
+    } // wins ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return The shape of the problem, as tallies are kept: for example, <code>size10.wide.dense</code> for a problem whose longer
+     *         side is at least 1024 and less than 2048, at least four times as long as its shorter side, and with at least a
+     *         quarter of its pairings allowed.
+     */
+    public String shape () {
+
+	int longer = Math.max(_costs.rows(), _costs.cols());
+	return String.format("size%d.%s.%s",
+			     31 - Integer.numberOfLeadingZeros(Math.max(longer, 1)),
+			     (wide() ? "wide" : "square"),
+			     (density() < _SPARSE_DENSITY ? "sparse" : "dense"));
+
+    } // shape ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private boolean wide () {
+
+	long shorter = Math.min(_costs.rows(), _costs.cols());
+	long longer  = Math.max(_costs.rows(), _costs.cols());
+	return longer >= _WIDE_RATIO * shorter;
+
+    } // wide ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The fraction of pairings whose costs are finite. */
+    public double density () {
+
+	long pairings = (long)_costs.rows() * _costs.cols();
+	return (pairings == 0 ? 1.0 : (double)_allowed / pairings);
+
+    } // density ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The engine whose result <code>execute()</code> took. */
+    public String winner () {
+	return _winner;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The certificate of the result taken, or <code>null</code> if its engine keeps no duals. */
+    public Certificate certificate () {
+	return _certificate;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return A one-line description of the last <code>execute()</code>. */
+    public String summary () {
+
+	return String.format("Portfolio: %s problem, %d engine%s raced, %s engine taken%s",
+			     shape(),
+			     _raced,
+			     (_raced == 1 ? "" : "s"),
+			     _winner,
+			     (_certificate == null ? "" : " (" + (_certificate.certified() ? "certified" : "not certified") + ")"));
+
+    } // summary ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class Portfolio
+// =================================================================================================================================
@@ -1,13 +1,15 @@
 // =================================================================================================================================
 // IMPORTS
 
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 // =================================================================================================================================
@@ -69,19 +71,26 @@ public class Preceptor {
 
     /** The preferred day of the week for working with students. */
     private String   _dayOfWeek;
+
+    /** The day of the week on which the preceptor can work with students if not the preferred one (if any). */
+    private String   _secondaryDayOfWeek;
+
+    /** The preferred and secondary days, as sets of <code>Days</code>. */
+    private int      _preferredDays;
+    private int      _secondaryDays;
     
     /** The student with whom this preceptor has been pre-matched (if any). */
     private String   _preMatch;
 
-    /** The <code>Student</code> to whom this student is matched (if any). */
-    private Student  _student;
-
     /**
      * Whether sufficient information for the fields above is provided to properly match this student with a <code>Preceptor</code>.
      * @see Student.cross
      */
     private boolean  _sufficientForMatching;
 
+    /** Why the fields above could not all be read, if they could not. */
+    private String   _problem;
+
     /**
      * A boolean constant to represent a male.
      * @see _prefersFemale
@@ -130,6 +139,69 @@ public class Preceptor {
 						    "woman",
 						    "women"
     };
+
+    /**
+     * The names by which a header may know each field, by the field's index; the first is the usual one.
+     * @see Schema
+     */
+    private static final String[][] _FIELD_NAMES = { { "Last Name", "Last" },
+						     { "First Name", "First" },
+						     { "Practice Type", "Practice Types", "Practice" },
+						     { "Location" },
+						     { "Setting", "Practice Setting" },
+						     { "Gender Preference", "Gender" },
+						     { "Spanish", "Languages", "Language" },
+						     { "Preferred Day", "Day" },
+						     { "Secondary Day" },
+						     { "Comments" },
+						     { "Pre-Matched", "Pre-Match" } };
+
+    /**
+     * The practice mask for each practice type that names one, looked up by the type in lower case.  The masks are templates,
+     * copied before use.
+     * @see Preceptor.parsePractice
+     */
+    private static final Map<String, double[]> _PRACTICE_MASKS = new HashMap<String, double[]>();
+    static {
+	int length = Student._numberPracticeFields;
+	_PRACTICE_MASKS.put("fp",              mask(length, 1.0,  Student._FAMILY_PRACTITIONER_RANK_INDEX));
+	_PRACTICE_MASKS.put("im",              mask(length, 1.0,  Student._INTERNISTS_RANK_INDEX));
+	_PRACTICE_MASKS.put("ped",             mask(length, 1.0,  Student._PEDIATRICIAN_RANK_INDEX));
+	_PRACTICE_MASKS.put("geriatrician",    mask(length, 1.0,  Student._GERIATRICIAN_RANK_INDEX));
+	_PRACTICE_MASKS.put("fp/im",           mask(length, 0.75, Student._FAMILY_PRACTITIONER_RANK_INDEX,
+							  Student._INTERNISTS_RANK_INDEX));
+	_PRACTICE_MASKS.put("ped/fp",          mask(length, 0.75, Student._PEDIATRICIAN_RANK_INDEX,
+							  Student._FAMILY_PRACTITIONER_RANK_INDEX));
+	_PRACTICE_MASKS.put("im/geriatrician", mask(length, 0.75, Student._INTERNISTS_RANK_INDEX,
+							  Student._GERIATRICIAN_RANK_INDEX));
+    }
+
+    /**
+     * The setting mask for each setting that names one, in either order for a pair, looked up by the setting in lower case.  The
+     * masks are templates, copied before use.
+     * @see Preceptor.parseSetting
+     */
+    private static final Map<String, double[]> _SETTING_MASKS = new HashMap<String, double[]>();
+    static {
+	int      length   = Student._numberSettingFields;
+	String[] settings = { "rural", "suburban", "urban", "underserved" };
+	int[]    indices  = { Student._RURAL_SETTING_RANK_INDEX,
+			      Student._SUBURBAN_SETTING_RANK_INDEX,
+			      Student._URBAN_SETTING_RANK_INDEX,
+			      Student._UNDERSERVED_RANK_INDEX };
+	for (int a = 0; a < settings.length; a += 1) {
+	    _SETTING_MASKS.put(settings[a], mask(length, 1.0, indices[a]));
+	}
+	int[][] pairs = { { 2, 3 }, { 1, 3 }, { 0, 3 }, { 1, 2 }, { 1, 0 } };
+	for (int[] pair : pairs) {
+	    double[] mask = mask(length, 0.5, indices[pair[0]], indices[pair[1]]);
+	    _SETTING_MASKS.put(settings[pair[0]] + "/" + settings[pair[1]], mask);
+	    _SETTING_MASKS.put(settings[pair[1]] + "/" + settings[pair[0]], mask);
+	}
+    }
+
+    /** A percentage of pediatrics, as a range <code>x-y%</code>. */
+    private static final Pattern _PERCENT_PEDIATRICS = Pattern.compile("(\\d+){1}-(\\d+)?%", Pattern.CASE_INSENSITIVE);
     // =============================================================================================================================
 
 	
@@ -141,21 +213,43 @@ public class Preceptor {
      * @param record The text of the complete, unparsed CSV record.
      */
     public Preceptor (String record) {
-		
-	// Split the record into its parts.  Assume semi-colon delimiters (since commas may appear within fields).  Trim the results.
-	String[] fields = record.split(";", -1);
-	Utility.abortIfFalse(fields.length >= _numberFields, ("Preceptor.Preceptor(string): " +
-							      "Record had the insufficient fields (" +
-							      fields.length +
-							      " must be at least " +
-							      _numberFields +
-							      "):\n  " +
-							      record +
-							      "\n"));
-	for (int i = 0; i < fields.length; i += 1) {
-	    fields[i] = fields[i].trim();
+	this(record, null);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Constructor from a CSV record whose columns are laid out as a file's header says.
+     * 
+     * @param record The text of the complete, unparsed CSV record.
+     * @param schema The layout of the record's columns, as given by <code>schema()</code>; or <code>null</code> for the usual one.
+     */
+    Preceptor (String record, Schema schema) {
+
+	this(checkedFields(record, schema));
+	if (_problem != null) {
+	    Utility.warning(String.format("Unable to read complete profile from record for preceptor %s, %s\n\tMESSAGE: %s",
+					  _lastName,
+					  _firstName,
+					  _problem));
 	}
-		
+
+    } // Preceptor
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Constructor from the fields of a record, recording (see <code>problem()</code>) rather than reporting any failure to read a
+     * complete profile from them.
+     * 
+     * @param fields The trimmed fields of the record, at least <code>fieldCount()</code> of them.
+     */
+    private Preceptor (String[] fields) {
+
 	// Parse the fields, constructing the profile of the student.  Ignore comments, since we don't use them for matching right
 	// now.
 	_lastName                   = fields[_LAST_NAME_INDEX];
@@ -166,8 +260,14 @@ public class Preceptor {
 	String genderPreferenceText = fields[_GENDER_PREFERENCE_INDEX];
 	String languagesText        = fields[_LANGUAGES_INDEX];
 	_dayOfWeek                  = fields[_PREFERRED_DAY_INDEX];
+	_secondaryDayOfWeek         = fields[_SECONDARY_DAY_INDEX];
 	String preMatchText         = fields[_PRE_MATCHED_INDEX];
 
+	// The days are free text that has never had to parse, so any that do not are taken to mean any day rather than excluding
+	// the preceptor from matching.
+	_preferredDays = parseDays(_dayOfWeek);
+	_secondaryDays = parseDays(_secondaryDayOfWeek);
+
 	// Construct a ranking mask from the information given.
 	try {
 	    _practiceMask          = parsePractice(_practiceType, settingText);
@@ -180,10 +280,7 @@ public class Preceptor {
 	    _preMatch          = parsePreMatch(preMatchText);
 	    _sufficientForMatching = true;
 	} catch (InsufficientDataException e) {
-	    Utility.warning(String.format("Unable to read complete profile from record for preceptor %s, %s\n\tMESSAGE: %s",
-					  _lastName,
-					  _firstName,
-					  e.getMessage()));
+	    _problem               = e.getMessage();
 	    _sufficientForMatching = false;
 	}
 
@@ -197,6 +294,116 @@ public class Preceptor {
     } // Preceptor
     // =============================================================================================================================
 
+
+
+    // =============================================================================================================================
+    /**
+     * Split a record into its fields, trimmed.  Assume semi-colon delimiters (since commas may appear within fields).
+     *
+     * @param record The text of the record.
+     * @return The fields, however many there are.
+     */
+    static String[] split (String record) {
+
+	String[] fields = record.split(";", -1);
+	for (int i = 0; i < fields.length; i += 1) {
+	    fields[i] = fields[i].trim();
+	}
+	return fields;
+
+    } // split ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static String[] checkedFields (String record, Schema schema) {
+
+	String[] fields = split(record);
+	int      needed = (schema == null ? _numberFields : schema.columns());
+	Utility.abortIfFalse(fields.length >= needed, ("Preceptor.Preceptor(string): " +
+						       "Record had the insufficient fields (" +
+						       fields.length +
+						       " must be at least " +
+						       needed +
+						       "):\n  " +
+						       record +
+						       "\n"));
+	return (schema == null ? fields : schema.arrange(fields));
+
+    } // checkedFields ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Construct a preceptor from the fields of a record without reporting anything, for callers that gather the problems of many
+     * records (see <code>RosterValidation</code>).
+     *
+     * @param fields The trimmed fields of the record, at least <code>fieldCount()</code> of them.
+     * @return The preceptor, whose <code>problem()</code> tells what, if anything, kept a complete profile from being read.
+     */
+    static Preceptor fromFields (String[] fields) {
+	return new Preceptor(fields);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The least number of fields that a preceptor record may have. */
+    public static int fieldCount () {
+	return _numberFields;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Work out from a file's header which of its columns holds each field of a preceptor record.
+     *
+     * @param header The text of the header line.
+     * @return The layout of the file's records.
+     */
+    static Schema schema (String header) {
+	return new Schema("preceptor", split(header), _FIELD_NAMES, _numberFields);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param length  The length of the mask.
+     * @param weight  The weight of each entry named.
+     * @param indices The entries to weight; the rest are zero.
+     * @return The mask.
+     */
+    private static double[] mask (int length, double weight, int... indices) {
+
+	double[] mask = new double[length];
+	for (int index : indices) {
+	    mask[index] = weight;
+	}
+	return mask;
+
+    } // mask ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return Why a complete profile could not be read from this preceptor's record, or <code>null</code> if it was.  A preceptor
+     *         with a pre-match may be paired even so.
+     */
+    public String problem () {
+	return _problem;
+    }
+    // =============================================================================================================================
+
 	
 	
     // =============================================================================================================================
@@ -204,37 +411,43 @@ public class Preceptor {
      * Read a delimited list of student characteristics.  Construct each preceptor based on each record, and insert each into a
      * newly made set.
      * 
-     * @param path The filename that contains the preceptor records.
+     * @param path The filename that contains the preceptor records, plain or compressed (see <code>RosterInput</code>).
      * @return A list of the preceptors read from the given path.
      */
     public static List<Preceptor> read (String path) {
 		
 	// Open the file for reading.
-	FileReader file = null;
+	BufferedReader reader = null;
 	try {
-	    file = new FileReader(path);
+	    reader = RosterInput.open(path);
 	} catch (FileNotFoundException e) {
 	    Utility.abort("Preceptor.readSet(): No such file " + path);
+	} catch (IOException e) {
+	    Utility.abort("Preceptor.readSet(): Unable to read " + path + ": " + e.getMessage());
 	}
-	Scanner scanner = new Scanner(file);
 
-	// Read the first line, assuming that it contains field headers.
-	Utility.abortIfFalse(scanner.hasNextLine(), "Preceptor.readSet(): No lines of data!");
-	String fieldNames = scanner.nextLine();
-		
-	// Read and parse the file's records, one at a time, creating a Preceptor from each and adding it to the set of such.
+	// Read the first line, assuming that it contains field headers, and lay out the records as they say.
 	List<Preceptor> preceptors = new ArrayList<Preceptor>();
-	while (scanner.hasNextLine()) {
-			
-	    String record = scanner.nextLine();
-	    Preceptor preceptor = new Preceptor(record);
-	    preceptors.add(preceptor);
-			
+	try {
+	    String fieldNames = reader.readLine();
+	    Utility.abortIfFalse(fieldNames != null, "Preceptor.readSet(): No lines of data!");
+	    Schema schema = schema(fieldNames);
+	    if (schema.problem() != null) {
+		Utility.warning(schema.problem());
+	    }
+		
+	    // Read and parse the file's records, one at a time, creating a Preceptor from each and adding it to the set of such.
+	    String record;
+	    while ((record = reader.readLine()) != null) {
+		preceptors.add(new Preceptor(record, schema));
+	    }
+	} catch (IOException e) {
+	    Utility.abort("Preceptor.readSet(): Unable to read " + path + ": " + e.getMessage());
 	}
 		
 	// Clean up and return the set of students.
 	try {
-	    file.close();
+	    reader.close();
 	} catch (IOException e) {
 	    System.err.println("WARNING: Preceptor.readSet() failed upon closing path.  Continuing.");
 	}
@@ -245,6 +458,30 @@ public class Preceptor {
 
 
 
+    // =============================================================================================================================
+    /**
+     * Parse one of the day fields.
+     *
+     * @param daysText The text of the field.
+     * @return The days named, as a set of <code>Days</code>; <code>Days.ALL</code> if the text names no day that can be parsed.
+     */
+    private int parseDays (String daysText) {
+
+	try {
+	    return Days.parse(daysText);
+	} catch (InsufficientDataException e) {
+	    Utility.warning(String.format("Treating day as any day for preceptor %s, %s\n\tMESSAGE: %s",
+					  _lastName,
+					  _firstName,
+					  e.getMessage()));
+	    return Days.ALL;
+	}
+
+    } // parseDays ()
+    // =============================================================================================================================
+
+
+
     // =============================================================================================================================
     /**
      * Given a string provided to indicate the preferred gender of the student, determine whether any preference is expressed at
@@ -323,7 +560,7 @@ public class Preceptor {
 	// If not a female, does the text indicate a male?
 	for (String maleText : _MALE_TEXTS) {
 	    if (genderText.contains(maleText)) {
-		return true;
+		return _GENDER_MALE;
 	    }
 	}
 
@@ -380,9 +617,6 @@ public class Preceptor {
 
     private static double[] parsePractice (String practiceTypesText, String settingText) throws InsufficientDataException {
 
-	// Create a space to store the rank mask.
-	double[] rankMask = new double[Student._numberPracticeFields];
-
 	// First: Parse practice types.  They seem to follow one of the following forms:
 	//   (0) [Blank]
 	//   (1) FP [Family practitioner]
@@ -391,25 +625,9 @@ public class Preceptor {
 	//   (4) FP/Internist
 	//   (5) Pedi/FP
 	//   (6) Internist/Geriatrician
-	String loweredPracticeTypes = practiceTypesText.toLowerCase();
-	if (practiceTypesText.equalsIgnoreCase("FP")) {
-	    rankMask[Student._FAMILY_PRACTITIONER_RANK_INDEX] = 1.0;
-	} else if (practiceTypesText.equalsIgnoreCase("IM")) {
-	    rankMask[Student._INTERNISTS_RANK_INDEX]          = 1.0;
-	} else if (practiceTypesText.equalsIgnoreCase("Ped")) {
-	    rankMask[Student._PEDIATRICIAN_RANK_INDEX]        = 1.0;
-	} else if (practiceTypesText.equalsIgnoreCase("Geriatrician")) {
-	    rankMask[Student._GERIATRICIAN_RANK_INDEX]        = 1.0;
-	} else if (practiceTypesText.equalsIgnoreCase("FP/IM")) {
-	    rankMask[Student._FAMILY_PRACTITIONER_RANK_INDEX] = 0.75;
-	    rankMask[Student._INTERNISTS_RANK_INDEX]          = 0.75;
-	} else if (practiceTypesText.equalsIgnoreCase("Ped/FP")) {
-	    rankMask[Student._PEDIATRICIAN_RANK_INDEX]        = 0.75;
-	    rankMask[Student._FAMILY_PRACTITIONER_RANK_INDEX] = 0.75;
-	} else if (practiceTypesText.equalsIgnoreCase("IM/Geriatrician")) {
-	    rankMask[Student._INTERNISTS_RANK_INDEX]          = 0.75;
-	    rankMask[Student._GERIATRICIAN_RANK_INDEX]        = 0.75;
-	}
+	// Any other form leaves the mask empty.
+	double[] template = _PRACTICE_MASKS.get(practiceTypesText.toLowerCase(Locale.ROOT));
+	double[] rankMask = (template != null ? template.clone() : new double[Student._numberPracticeFields]);
 
 	// Second: Handle the percentage pediatrics, if it's there and this isn't a straight pediatrician.  It could have one of the
 	// following formats:
@@ -419,8 +637,7 @@ public class Preceptor {
 	String[] settingSplit = settingText.split(" ");
 	if ((settingSplit.length >= 2) && (rankMask[Student._PEDIATRICIAN_RANK_INDEX] == 0.0)) {
 	    String percentPeds = settingSplit[1];
-	    Pattern pattern = Pattern.compile("(\\d+){1}-(\\d+)?%", Pattern.CASE_INSENSITIVE);
-	    Matcher matcher = pattern.matcher(percentPeds);
+	    Matcher matcher = _PERCENT_PEDIATRICS.matcher(percentPeds);
 	    if (!matcher.matches()) {
 		System.err.println("WARNING: Preceptor.parsePracticeRanks(): Unable to parse percentage pediatrics = " + percentPeds);
 	    } else {
@@ -458,37 +675,15 @@ public class Preceptor {
      */
     private static double[] parseSetting (String settingText) throws InsufficientDataException {
 
-	// Create the rank mask.
-	double[] rankMask = new double[Student._numberSettingFields];
-
 	// The setting must be split from its ancillary information regarding the percentage of pediatrics; that setting must then
 	// be parsed.
+	double[] rankMask = new double[Student._numberSettingFields];
 	String[] settingSplit = settingText.split(" ");
 	if (settingSplit.length >= 1) {
-	    String setting = settingSplit[0];
-	    if (setting.equalsIgnoreCase("Urban")) {
-		rankMask[Student._URBAN_SETTING_RANK_INDEX]    = 1.0;
-	    } else if (setting.equalsIgnoreCase("Suburban")) {
-		rankMask[Student._SUBURBAN_SETTING_RANK_INDEX] = 1.0;
-	    } else if (setting.equalsIgnoreCase("Rural")) {
-		rankMask[Student._RURAL_SETTING_RANK_INDEX]    = 1.0;
-	    } else if (setting.equalsIgnoreCase("Underserved")) {
-		rankMask[Student._UNDERSERVED_RANK_INDEX]      = 1.0;
-	    } else if (setting.equalsIgnoreCase("Urban/Underserved")    || setting.equalsIgnoreCase("Underserved/Urban")) {
-		rankMask[Student._UNDERSERVED_RANK_INDEX]      = 0.5;
-		rankMask[Student._URBAN_SETTING_RANK_INDEX]    = 0.5;
-	    } else if (setting.equalsIgnoreCase("Suburban/Underserved") || setting.equalsIgnoreCase("Underserved/Suburban")) {
-		rankMask[Student._UNDERSERVED_RANK_INDEX]      = 0.5;
-		rankMask[Student._SUBURBAN_SETTING_RANK_INDEX] = 0.5;
-	    } else if (setting.equalsIgnoreCase("Rural/Underserved")    || setting.equalsIgnoreCase("Underserved/Rural")) {
-		rankMask[Student._UNDERSERVED_RANK_INDEX]      = 0.5;
-		rankMask[Student._RURAL_SETTING_RANK_INDEX]    = 0.5;
-	    } else if (setting.equalsIgnoreCase("Suburban/Urban")       || setting.equalsIgnoreCase("Urban/Suburban")) {
-		rankMask[Student._SUBURBAN_SETTING_RANK_INDEX] = 0.5;
-		rankMask[Student._URBAN_SETTING_RANK_INDEX]    = 0.5;
-	    } else if (setting.equalsIgnoreCase("Suburban/Rural")       || setting.equalsIgnoreCase("Rural/Suburban")) {
-		rankMask[Student._SUBURBAN_SETTING_RANK_INDEX] = 0.5;
-		rankMask[Student._RURAL_SETTING_RANK_INDEX]    = 0.5;
+	    String   setting  = settingSplit[0];
+	    double[] template = _SETTING_MASKS.get(setting.toLowerCase(Locale.ROOT));
+	    if (template != null) {
+		rankMask = template.clone();
 	    } else {
 		Utility.warning("Unable to parse setting = " + setting);
 	    }
@@ -546,6 +741,22 @@ public class Preceptor {
 
 
 
+    // =============================================================================================================================
+    public String lastName () {
+	return _lastName;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String firstName () {
+	return _firstName;
+    }
+    // =============================================================================================================================
+
+
+
     // =============================================================================================================================
     /**
      * Generate a textual representation of this student.
@@ -617,6 +828,23 @@ public class Preceptor {
 
 
 
+    // =============================================================================================================================
+    /**
+     * Whether this preceptor's requirements permit pairing with the given student at all: a required gender must be the student's,
+     * and a required Spanish speaker must be one.  Ordinarily these requirements only lower the score; with hard constraints, a
+     * pairing that violates them is never made.
+     *
+     * @param student The student to consider.
+     * @return <code>true</code> if the pairing violates no requirement of this preceptor.
+     */
+    public boolean admits (Student student) {
+	return ((!hasGenderPreference() || prefersFemale() == student.isFemale()) &&
+		(!prefersSpanish()      || student.speaksSpanish()));
+    }
+    // =============================================================================================================================
+
+
+
     // =============================================================================================================================
     public String preferredDay () {
 	return _dayOfWeek;
@@ -626,56 +854,77 @@ public class Preceptor {
 
 
     // =============================================================================================================================
-    public String location () {
-	return _location;
+    public String secondaryDay () {
+	return _secondaryDayOfWeek;
     }
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
-    public String practiceType () {
-	return _practiceType;
-    }
+    /**
+     * @return The days on which this preceptor can work with a student, as a set of <code>Days</code>: the preferred and secondary
+     *         days, or every day if neither is given.
+     */
+    public int availableDays () {
+
+	int days = _preferredDays | _secondaryDays;
+	return (Days.any(days) ? days : Days.ALL);
+
+    } // availableDays ()
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
-    public boolean hasPreMatch () {
-	return (_preMatch != null);
-    }
+    /**
+     * Choose the day on which this preceptor would meet a student: the preferred day if the student is free then, and the
+     * secondary day otherwise.
+     *
+     * @param student The student.
+     * @return The name of the day, or <code>null</code> if the two share no day.
+     */
+    public String meetingDay (Student student) {
+
+	int free = student.availableDays();
+	if (!Days.any(_preferredDays | _secondaryDays)) {
+	    return Days.first(free);
+	}
+	String day = Days.first(_preferredDays & free);
+	return (day != null ? day : Days.first(_secondaryDays & free));
+
+    } // meetingDay ()
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
-    public String preMatch () {
-	return _preMatch;
+    public String location () {
+	return _location;
     }
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
-    public void match (Student student) {
-	_student = student;
+    public String practiceType () {
+	return _practiceType;
     }
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
-    public boolean matched () {
-	return (_student == null);
+    public boolean hasPreMatch () {
+	return (_preMatch != null);
     }
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
-    public Student getMatch () {
-	return _student;
+    public String preMatch () {
+	return _preMatch;
     }
     // =============================================================================================================================
 
@@ -0,0 +1,657 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * Shrinks an assignment problem by the decisions that can be proven before solving it, then solves what is left.  Three
+ * reductions are made, each of which keeps at least one optimal assignment of the whole:
+ * <ol>
+ *   <li><b>Dominated columns.</b>  When there are more columns than rows, a column that costs no less, in every row, than each of
+ *       as many other columns as there are rows is removed: whichever row an assignment gives it to, one of those other columns
+ *       is free and no more costly.</li>
+ *   <li><b>Eliminated pairings.</b>  Each row's cheapest cost (and, when the problem is square, each column's cheapest after
+ *       that) bounds every assignment from below, and a greedy assignment bounds the optimal one from above.  A pairing whose cost
+ *       exceeds its share of the lower bound by more than the gap between the two bounds is in no optimal assignment.</li>
+ *   <li><b>Forced pairings.</b>  Every row must be paired (and, when square, every column), so a row left with just one pairing
+ *       that could be optimal must take it; its column is then lost to every other row, which may leave another with just one.</li>
+ * </ol>
+ * What remains is solved by <code>HungarianAlgorithm</code>, or, when so few pairings survive that a sparse graph of them is
+ * smaller, by <code>SparseAssignment</code>.  The passes over the costs are few and cheap beside the solve, so when nothing is
+ * found, little is lost.  The bounds tighten as the problem shrinks relative to the spread of its costs, so the reductions
+ * find most in small cohorts drawn from large pools of preceptors, and least in large, evenly matched ones.
+ * <p>
+ *
+ * A problem with more rows than columns is handled through its transpose.  One with a cost that is not finite is solved whole,
+ * since the bounds would mean nothing.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class Preprocessor implements AssignmentSolver {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The costs as given, and as preprocessed, with no more rows than columns. */
+    private final CostMatrix  _costs;
+    private final CostMatrix  _oriented;
+
+    /** The pairs fixed before solving, as <code>{row, column}</code> in the costs as given. */
+    private final List<int[]> _fixed = new ArrayList<int[]>();
+
+    /** The number of columns (or rows, if transposed) removed as dominated, and of pairings eliminated by the bounds. */
+    private int               _dominated;
+    private long              _eliminated;
+
+    /** The size of the problem left to solve, and whether it was solved as a sparse graph. */
+    private int               _residualRows;
+    private int               _residualCols;
+    private boolean           _sparse;
+
+    /** The lower and upper bounds on the cost of an optimal assignment. */
+    private double            _lowerBound = Double.NaN;
+    private double            _upperBound = Double.NaN;
+
+    /** The greatest fraction of the residual problem's pairings that may survive for it to be solved as a sparse graph. */
+    public static final double SPARSE_FRACTION = 0.25;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param costs The costs of the problem, which are read but not modified.
+     */
+    public Preprocessor (CostMatrix costs) {
+
+	_costs    = costs;
+	_oriented = (costs.rows() > costs.cols() ? transpose(costs) : costs);
+
+    } // Preprocessor ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Reduce the problem and solve what remains.
+     *
+     * @return The column assigned to each row, or <code>-1</code> for a row left unassigned.
+     */
+    public int[] execute () {
+
+	int[] matchOfRow = reduceAndSolve();
+	for (int[] pair : _fixed) {
+	    matchOfRow[pair[0]] = pair[1];
+	}
+	if (_oriented == _costs) {
+	    return matchOfRow;
+	}
+
+	int[] matches = new int[_costs.rows()];
+	Arrays.fill(matches, -1);
+	for (int j = 0; j < matchOfRow.length; j += 1) {
+	    if (matchOfRow[j] != -1) {
+		matches[matchOfRow[j]] = j;
+	    }
+	}
+	for (int[] pair : _fixed) {
+	    int row = pair[0];
+	    pair[0] = pair[1];
+	    pair[1] = row;
+	}
+	return matches;
+
+    } // execute ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Reduce the oriented problem, recording the pairs fixed, and solve the residual problem.
+     *
+     * @return The column assigned to each unfixed row of the oriented problem, or <code>-1</code>.
+     */
+    private int[] reduceAndSolve () {
+
+	int      rows   = _oriented.rows();
+	int      cols   = _oriented.cols();
+	double[] buffer = new double[cols];
+	_residualRows = rows;
+	_residualCols = cols;
+	if (rows == 0) {
+	    return new int[0];
+	}
+
+	// Each row's cheapest cost (its dual) and the margin to its next cheapest, and each column's sum.
+	double[] rowDual = new double[rows];
+	double[] regret  = new double[rows];
+	double[] sums    = new double[cols];
+	for (int i = 0; i < rows; i += 1) {
+	    _oriented.readRow(i, buffer);
+	    double least  = Double.POSITIVE_INFINITY;
+	    double second = Double.POSITIVE_INFINITY;
+	    for (int j = 0; j < cols; j += 1) {
+		double cost = buffer[j];
+		if (Double.isNaN(cost) || Double.isInfinite(cost)) {
+		    return new HungarianAlgorithm(_oriented).execute();
+		}
+		if (cost < least) {
+		    second = least;
+		    least  = cost;
+		} else if (cost < second) {
+		    second = cost;
+		}
+		sums[j] += cost;
+	    }
+	    rowDual[i] = least;
+	    regret[i]  = second - least;
+	}
+
+	// A problem left square must pair every column too, so each column's cheapest cost beyond its row's dual is its own dual.
+	boolean[] removed = dominatedColumns(rows, cols, sums);
+	int       live    = cols - _dominated;
+	boolean   square  = (rows == live);
+	double[]  colDual = new double[cols];
+	if (square) {
+	    Arrays.fill(colDual, Double.POSITIVE_INFINITY);
+	    for (int i = 0; i < rows; i += 1) {
+		_oriented.readRow(i, buffer);
+		for (int j = 0; j < cols; j += 1) {
+		    colDual[j] = Math.min(colDual[j], buffer[j] - rowDual[i]);
+		}
+	    }
+	    for (int j = 0; j < cols; j += 1) {
+		if (removed[j]) {
+		    colDual[j] = 0.0;
+		}
+	    }
+	}
+	_lowerBound = 0.0;
+	for (int i = 0; i < rows; i += 1) {
+	    _lowerBound += rowDual[i];
+	}
+	for (int j = 0; j < cols; j += 1) {
+	    _lowerBound += colDual[j];
+	}
+	_upperBound = greedyCost(rows, cols, removed, regret, buffer);
+
+	// A pairing survives if an assignment containing it could cost no more than the greedy one.
+	double budget    = _upperBound - _lowerBound + Certificate.DEFAULT_TOLERANCE * Math.max(1.0, Math.abs(_upperBound));
+	int[]  rowCount  = new int[rows];
+	int[]  colCount  = new int[cols];
+	int[]  rowLast   = new int[rows];
+	int[]  colLast   = new int[cols];
+	long   survivors = 0;
+	for (int i = 0; i < rows; i += 1) {
+	    _oriented.readRow(i, buffer);
+	    for (int j = 0; j < cols; j += 1) {
+		if (!removed[j] && buffer[j] - rowDual[i] - colDual[j] <= budget) {
+		    rowCount[i] += 1;
+		    colCount[j] += 1;
+		    rowLast[i]   = j;
+		    colLast[j]   = i;
+		}
+	    }
+	    survivors += rowCount[i];
+	}
+	_eliminated = (long)rows * live - survivors;
+	_sparse     = (survivors <= SPARSE_FRACTION * rows * live);
+
+	boolean[] rowFixed = new boolean[rows];
+	boolean[] colFixed = new boolean[cols];
+	if (_sparse) {
+	    SparseCostGraph graph = survivingGraph(rows, cols, removed, rowDual, colDual, budget, survivors, buffer);
+	    fixPropagating(graph, square, rowCount, colCount, rowFixed, colFixed);
+	    return solveSparse(graph, removed, rowFixed, colFixed);
+	}
+
+	// Without the graph of survivors at hand, fix only what a single pass shows.
+	for (int i = 0; i < rows; i += 1) {
+	    if (rowCount[i] == 1 && !colFixed[rowLast[i]]) {
+		fix(i, rowLast[i], rowFixed, colFixed);
+	    }
+	}
+	if (square) {
+	    for (int j = 0; j < cols; j += 1) {
+		if (colCount[j] == 1 && !colFixed[j] && !rowFixed[colLast[j]]) {
+		    fix(colLast[j], j, rowFixed, colFixed);
+		}
+	    }
+	}
+	return solveDense(removed, rowFixed, colFixed);
+
+    } // reduceAndSolve ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Remove the dominated columns, most costly first, each only if enough of the columns still present dominate it.
+     *
+     * @param rows The number of rows.
+     * @param cols The number of columns.
+     * @param sums The sum of each column's costs; a column can only be dominated by one whose sum is no greater.
+     * @return Whether each column was removed.
+     */
+    private boolean[] dominatedColumns (int rows, int cols, final double[] sums) {
+
+	boolean[] removed = new boolean[cols];
+	if (cols <= rows) {
+	    return removed;
+	}
+
+	Integer[] order = new Integer[cols];
+	for (int j = 0; j < cols; j += 1) {
+	    order[j] = j;
+	}
+	Arrays.sort(order, Comparator.comparingDouble((Integer j) -> sums[j]).reversed());
+
+	int[] candidates = new int[cols];
+	for (int k : order) {
+	    if (cols - _dominated == rows) {
+		break;
+	    }
+	    int count = 0;
+	    for (int j = 0; j < cols; j += 1) {
+		if (j != k && !removed[j] && sums[j] <= sums[k]) {
+		    candidates[count++] = j;
+		}
+	    }
+	    for (int i = 0; i < rows && count >= rows; i += 1) {
+		double cost = _oriented.get(i, k);
+		int    kept = 0;
+		for (int c = 0; c < count; c += 1) {
+		    if (_oriented.get(i, candidates[c]) <= cost) {
+			candidates[kept++] = candidates[c];
+		    }
+		}
+		count = kept;
+	    }
+	    if (count >= rows) {
+		removed[k]  = true;
+		_dominated += 1;
+	    }
+	}
+	return removed;
+
+    } // dominatedColumns ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Pair each row with its cheapest free column, taking first the rows that would lose the most by waiting.
+     *
+     * @return The cost of the assignment so found.
+     */
+    private double greedyCost (int rows, int cols, boolean[] removed, final double[] regret, double[] buffer) {
+
+	Integer[] order = new Integer[rows];
+	for (int i = 0; i < rows; i += 1) {
+	    order[i] = i;
+	}
+	Arrays.sort(order, Comparator.comparingDouble((Integer i) -> regret[i]).reversed());
+
+	boolean[] taken = removed.clone();
+	double    total = 0.0;
+	for (int i : order) {
+	    _oriented.readRow(i, buffer);
+	    int cheapest = -1;
+	    for (int j = 0; j < cols; j += 1) {
+		if (!taken[j] && (cheapest == -1 || buffer[j] < buffer[cheapest])) {
+		    cheapest = j;
+		}
+	    }
+	    taken[cheapest] = true;
+	    total          += buffer[cheapest];
+	}
+	return total;
+
+    } // greedyCost ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return The graph of the pairings that survive the bounds.
+     */
+    private SparseCostGraph survivingGraph (int       rows,
+					    int       cols,
+					    boolean[] removed,
+					    double[]  rowDual,
+					    double[]  colDual,
+					    double    budget,
+					    long      survivors,
+					    double[]  buffer) {
+
+	int[]    offsets = new int[rows + 1];
+	int[]    targets = new int[(int)survivors];
+	double[] costs   = new double[(int)survivors];
+	int      edge    = 0;
+	for (int i = 0; i < rows; i += 1) {
+	    _oriented.readRow(i, buffer);
+	    for (int j = 0; j < cols; j += 1) {
+		if (!removed[j] && buffer[j] - rowDual[i] - colDual[j] <= budget) {
+		    targets[edge] = j;
+		    costs[edge]   = buffer[j];
+		    edge         += 1;
+		}
+	    }
+	    offsets[i + 1] = edge;
+	}
+	return new SparseCostGraph(rows, cols, offsets, targets, costs);
+
+    } // survivingGraph ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Fix every row left with a single surviving pairing (and, when square, every such column), and then every row or column
+     * that fixing those leaves with one, until none remains.
+     */
+    private void fixPropagating (SparseCostGraph graph,
+				 boolean         square,
+				 int[]           rowCount,
+				 int[]           colCount,
+				 boolean[]       rowFixed,
+				 boolean[]       colFixed) {
+
+	SparseCostGraph     byColumn = graph.transpose();
+	ArrayDeque<Integer> rowQueue = new ArrayDeque<Integer>();
+	ArrayDeque<Integer> colQueue = new ArrayDeque<Integer>();
+	for (int i = 0; i < graph.rows(); i += 1) {
+	    if (rowCount[i] == 1) {
+		rowQueue.add(i);
+	    }
+	}
+	for (int j = 0; j < graph.cols() && square; j += 1) {
+	    if (colCount[j] == 1) {
+		colQueue.add(j);
+	    }
+	}
+
+	while (!rowQueue.isEmpty() || !colQueue.isEmpty()) {
+	    int row;
+	    int col;
+	    if (!rowQueue.isEmpty()) {
+		row = rowQueue.poll();
+		col = onlyLive(graph, row, colFixed);
+	    } else {
+		col = colQueue.poll();
+		row = onlyLive(byColumn, col, rowFixed);
+	    }
+	    if (row == -1 || col == -1 || rowFixed[row] || colFixed[col]) {
+		continue;
+	    }
+	    fix(row, col, rowFixed, colFixed);
+
+	    // The fixed column's other rows, and the fixed row's other columns, each lose a pairing.
+	    for (int e = byColumn.offsets()[col]; e < byColumn.offsets()[col + 1]; e += 1) {
+		int other = byColumn.targets()[e];
+		if (!rowFixed[other] && --rowCount[other] == 1) {
+		    rowQueue.add(other);
+		}
+	    }
+	    for (int e = graph.offsets()[row]; e < graph.offsets()[row + 1]; e += 1) {
+		int other = graph.targets()[e];
+		if (!colFixed[other] && --colCount[other] == 1 && square) {
+		    colQueue.add(other);
+		}
+	    }
+	}
+
+    } // fixPropagating ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return The one partner of the given row of the graph that is not yet fixed, or <code>-1</code> if it has none.
+     */
+    private static int onlyLive (SparseCostGraph graph, int row, boolean[] fixed) {
+
+	for (int e = graph.offsets()[row]; e < graph.offsets()[row + 1]; e += 1) {
+	    if (!fixed[graph.targets()[e]]) {
+		return graph.targets()[e];
+	    }
+	}
+	return -1;
+
+    } // onlyLive ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private void fix (int row, int col, boolean[] rowFixed, boolean[] colFixed) {
+
+	rowFixed[row] = true;
+	colFixed[col] = true;
+	_fixed.add(new int[] { row, col });
+
+    } // fix ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Solve the surviving pairings of the rows and columns neither fixed nor removed.
+     *
+     * @return The column assigned to each unfixed row, or <code>-1</code>.
+     */
+    private int[] solveSparse (SparseCostGraph graph, boolean[] removed, boolean[] rowFixed, boolean[] colFixed) {
+
+	int[] residualRows = indices(rowFixed, null);
+	int[] residualCols = indices(colFixed, removed);
+	int[] colIndex     = new int[graph.cols()];
+	Arrays.fill(colIndex, -1);
+	for (int c = 0; c < residualCols.length; c += 1) {
+	    colIndex[residualCols[c]] = c;
+	}
+
+	int[]    offsets = new int[residualRows.length + 1];
+	int[]    targets = new int[graph.edges()];
+	double[] costs   = new double[graph.edges()];
+	int      edge    = 0;
+	for (int r = 0; r < residualRows.length; r += 1) {
+	    int i = residualRows[r];
+	    for (int e = graph.offsets()[i]; e < graph.offsets()[i + 1]; e += 1) {
+		int c = colIndex[graph.targets()[e]];
+		if (c != -1) {
+		    targets[edge] = c;
+		    costs[edge]   = graph.costs()[e];
+		    edge         += 1;
+		}
+	    }
+	    offsets[r + 1] = edge;
+	}
+	_residualRows = residualRows.length;
+	_residualCols = residualCols.length;
+
+	SparseCostGraph residual = new SparseCostGraph(residualRows.length, residualCols.length, offsets, targets, costs);
+	return expand(new SparseAssignment(residual).execute(), residualRows, residualCols, graph.rows());
+
+    } // solveSparse ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Solve the full costs of the rows and columns neither fixed nor removed, or the problem as given if none are.
+     *
+     * @return The column assigned to each unfixed row, or <code>-1</code>.
+     */
+    private int[] solveDense (boolean[] removed, boolean[] rowFixed, boolean[] colFixed) {
+
+	if (_fixed.isEmpty() && _dominated == 0) {
+	    return new HungarianAlgorithm(_oriented).execute();
+	}
+
+	final int[] residualRows = indices(rowFixed, null);
+	final int[] residualCols = indices(colFixed, removed);
+	_residualRows = residualRows.length;
+	_residualCols = residualCols.length;
+
+	CostMatrix residual = new CostMatrix () {
+
+		public int rows () {
+		    return residualRows.length;
+		}
+
+		public int cols () {
+		    return residualCols.length;
+		}
+
+		public double get (int row, int col) {
+		    return _oriented.get(residualRows[row], residualCols[col]);
+		}
+
+		public void set (int row, int col, double cost) {
+		    Utility.abort("Preprocessor.solveDense(): The residual costs are not to be changed");
+		}
+
+	    };
+	return expand(new HungarianAlgorithm(residual).execute(), residualRows, residualCols, rowFixed.length);
+
+    } // solveDense ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The assignment of a residual problem, in the rows and columns of the oriented problem. */
+    private static int[] expand (int[] matches, int[] residualRows, int[] residualCols, int rows) {
+
+	int[] matchOfRow = new int[rows];
+	Arrays.fill(matchOfRow, -1);
+	for (int r = 0; r < matches.length; r += 1) {
+	    if (matches[r] != -1) {
+		matchOfRow[residualRows[r]] = residualCols[matches[r]];
+	    }
+	}
+	return matchOfRow;
+
+    } // expand ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The indices at which neither flag array (the second may be <code>null</code>) is set, in increasing order. */
+    private static int[] indices (boolean[] excluded, boolean[] alsoExcluded) {
+
+	int[] indices = new int[excluded.length];
+	int   count   = 0;
+	for (int k = 0; k < excluded.length; k += 1) {
+	    if (!excluded[k] && (alsoExcluded == null || !alsoExcluded[k])) {
+		indices[count++] = k;
+	    }
+	}
+	return Arrays.copyOf(indices, count);
+
+    } // indices ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static CostMatrix transpose (final CostMatrix costs) {
+
+	return new CostMatrix () {
+
+	    public int rows () {
+		return costs.cols();
+	    }
+
+	    public int cols () {
+		return costs.rows();
+	    }
+
+	    public double get (int row, int col) {
+		return costs.get(col, row);
+	    }
+
+	    public void set (int row, int col, double cost) {
+		costs.set(col, row, cost);
+	    }
+
+	};
+
+    } // transpose ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The pairs fixed before solving, as <code>{row, column}</code>, valid once <code>execute()</code> has run. */
+    public List<int[]> fixedPairs () {
+	return _fixed;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of columns (or rows, when there are more rows than columns) removed as dominated. */
+    public int dominated () {
+	return _dominated;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of pairings eliminated by the bounds. */
+    public long eliminated () {
+	return _eliminated;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return A one-line account of the reductions made. */
+    public String summary () {
+
+	return String.format("Preprocessing fixed %d pairs, removed %d dominated %s, and eliminated %d pairings " +
+			     "(bounds %.4f to %.4f); solved %d x %d%s",
+			     _fixed.size(),
+			     _dominated,
+			     (_oriented == _costs ? "columns" : "rows"),
+			     _eliminated,
+			     _lowerBound,
+			     _upperBound,
+			     _residualRows,
+			     _residualCols,
+			     (_sparse ? " as a sparse graph" : ""));
+
+    } // summary ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class Preprocessor
+// =================================================================================================================================
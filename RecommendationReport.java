@@ -0,0 +1,277 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.stream.IntStream;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A report, for advisors, of the preceptors with whom each student scores best, beside the preceptor actually given to the student.
+ * It is written as semicolon-delimited text, one line per student:
+ *
+ * <pre>
+ *   STUDENT NAME;ASSIGNED PRECEPTOR;ASSIGNED QUALITY;PRECEPTOR 1;QUALITY 1;...;PRECEPTOR N;QUALITY N
+ * </pre>
+ *
+ * with the best first, and fewer than <i>N</i> if fewer preceptors are allowed the student.  Pairings are scored as the matching
+ * scores them (by the scorer given), and one that the matching could never make is never recommended.
+ * <p>
+ *
+ * Each student's row of scores is scanned once, keeping only the best <i>N</i> seen so far in a bounded heap, so that no row is
+ * ever stored or sorted whole.  The students are taken a block at a time, each block scanned across all cores and then written
+ * out in order before the next is begun, so that the report streams out as it is made.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class RecommendationReport {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The students and the preceptors available to them. */
+    private final List<Student>   _students;
+    private final List<Preceptor> _preceptors;
+
+    /** The scorer that measures each pairing, and the commutes of the roster if they are scored (else <code>null</code>). */
+    private final PairScorer      _scorer;
+    private final CommuteTable    _commute;
+
+    /** The number of preceptors to recommend to each student. */
+    private final int             _count;
+
+    /** Whether a recommendation must meet the preceptor's requirements, and whether it must share a day with the student. */
+    private final boolean         _requirements;
+    private final boolean         _days;
+
+    /** The number of students scanned per core before a block is written. */
+    private static final int      _STUDENTS_PER_CORE = 64;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param students     The students.
+     * @param preceptors   The preceptors available to them.
+     * @param scorer       The scorer that measures each pairing.
+     * @param commute      The commutes of the roster, if they are scored; otherwise <code>null</code>.
+     * @param count        The number of preceptors to recommend to each student.
+     * @param requirements Whether to recommend only preceptors whose requirements the student meets, as <code>-hard</code>
+     *                     pairs only them.
+     * @param days         Whether to recommend only preceptors available on a day that the student is, as <code>-days</code>
+     *                     pairs only them.
+     */
+    public RecommendationReport (List<Student>   students,
+				 List<Preceptor> preceptors,
+				 PairScorer      scorer,
+				 CommuteTable    commute,
+				 int             count,
+				 boolean         requirements,
+				 boolean         days) {
+
+	Utility.abortIfFalse(count >= 1, "RecommendationReport(): At least one recommendation is needed: " + count);
+	_students     = students;
+	_preceptors   = preceptors;
+	_scorer       = scorer;
+	_commute      = commute;
+	_count        = count;
+	_requirements = requirements;
+	_days         = days;
+
+    } // RecommendationReport ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Write the report to a file.
+     *
+     * @param path    The file.
+     * @param matches The preceptor given to each student, or <code>-1</code> for a student left unpaired.
+     */
+    public void write (String path, int[] matches) {
+
+	try (Writer out = new BufferedWriter(new FileWriter(path), 1 << 16)) {
+	    write(out, matches);
+	} catch (IOException e) {
+	    Utility.abort("RecommendationReport.write(): Unable to write " + path + ": " + e.getMessage());
+	}
+
+    } // write ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Write the report.
+     *
+     * @param out     The stream to write to.
+     * @param matches The preceptor given to each student, or <code>-1</code> for a student left unpaired.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void write (Writer out, int[] matches) throws IOException {
+
+	StringBuilder line = new StringBuilder("STUDENT NAME;ASSIGNED PRECEPTOR;ASSIGNED QUALITY");
+	for (int k = 1; k <= _count; k += 1) {
+	    line.append(";PRECEPTOR ").append(k).append(";QUALITY ").append(k);
+	}
+	out.write(line.append('\n').toString());
+
+	int        block  = _STUDENTS_PER_CORE * Runtime.getRuntime().availableProcessors();
+	int[][]    best   = new int[block][_count];
+	double[][] scores = new double[block][_count];
+	int[]      found  = new int[block];
+	for (int first = 0; first < _students.size(); first += block) {
+
+	    final int start = first;
+	    final int end   = Math.min(first + block, _students.size());
+	    IntStream.range(start, end).parallel().forEach(i -> {
+		    found[i - start] = best(_students.get(i), best[i - start], scores[i - start]);
+		});
+
+	    for (int i = start; i < end; i += 1) {
+		Student student = _students.get(i);
+		line.setLength(0);
+		line.append('"').append(student.getName()).append("\";");
+		if (matches[i] != -1) {
+		    Preceptor assigned = _preceptors.get(matches[i]);
+		    line.append('"').append(assigned.getName()).append("\";");
+		    line.append(String.format("%.4f", _scorer.score(student, assigned)));
+		} else {
+		    line.append(';');
+		}
+		for (int k = 0; k < found[i - start]; k += 1) {
+		    line.append(";\"").append(_preceptors.get(best[i - start][k]).getName()).append("\";");
+		    line.append(String.format("%.4f", scores[i - start][k]));
+		}
+		out.write(line.append('\n').toString());
+	    }
+
+	}
+
+    } // write ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find the preceptors with whom a student scores best, keeping the best seen so far in a heap whose root is the worst of them,
+     * so that each score is compared with the root and most are discarded at once.  Of two equal scores, the preceptor listed
+     * first in the roster is preferred.
+     *
+     * @param student The student.
+     * @param best    Where to put the indices of the preceptors found, best first.
+     * @param scores  Where to put their scores, likewise.
+     * @return The number of preceptors found: <code>best.length</code>, or fewer if fewer are allowed the student.
+     */
+    private int best (Student student, int[] best, double[] scores) {
+
+	CommuteTable commute = (_requirements ? _commute : null);
+	int          size    = 0;
+	for (int j = 0; j < _preceptors.size(); j += 1) {
+	    Preceptor preceptor = _preceptors.get(j);
+	    if ((_requirements || _days) && !SparseCostGraph.allows(preceptor, student, _requirements, _days)) {
+		continue;
+	    }
+	    if (commute != null && commute.beyondReach(student, preceptor)) {
+		continue;
+	    }
+
+	    // A score of zero rules the pairing out, as the matching never keeps it.
+	    double score = _scorer.score(student, preceptor);
+	    if (score <= 0.0) {
+		continue;
+	    }
+	    if (size < best.length) {
+		// Not yet full: sift the newcomer up from the bottom.
+		int at = size++;
+		while (at > 0 && worse(score, j, scores[(at - 1) / 2], best[(at - 1) / 2])) {
+		    best[at]   = best[(at - 1) / 2];
+		    scores[at] = scores[(at - 1) / 2];
+		    at = (at - 1) / 2;
+		}
+		best[at]   = j;
+		scores[at] = score;
+	    } else if (worse(scores[0], best[0], score, j)) {
+		// Better than the worst kept: sift it down from the root in the worst one's place.
+		int at = 0;
+		while (true) {
+		    int child = 2 * at + 1;
+		    if (child >= size) {
+			break;
+		    }
+		    if (child + 1 < size && worse(scores[child + 1], best[child + 1], scores[child], best[child])) {
+			child += 1;
+		    }
+		    if (!worse(scores[child], best[child], score, j)) {
+			break;
+		    }
+		    best[at]   = best[child];
+		    scores[at] = scores[child];
+		    at = child;
+		}
+		best[at]   = j;
+		scores[at] = score;
+	    }
+	}
+
+	// Take the worst remaining from the root, one at a time, filling the arrays from the back, so that the best end up first.
+	for (int last = size - 1; last > 0; last -= 1) {
+	    int    rootBest   = best[0];
+	    double rootScore  = scores[0];
+	    int    movedBest  = best[last];
+	    double movedScore = scores[last];
+	    int    at         = 0;
+	    while (true) {
+		int child = 2 * at + 1;
+		if (child >= last) {
+		    break;
+		}
+		if (child + 1 < last && worse(scores[child + 1], best[child + 1], scores[child], best[child])) {
+		    child += 1;
+		}
+		if (!worse(scores[child], best[child], movedScore, movedBest)) {
+		    break;
+		}
+		best[at]   = best[child];
+		scores[at] = scores[child];
+		at = child;
+	    }
+	    best[at]     = movedBest;
+	    scores[at]   = movedScore;
+	    best[last]   = rootBest;
+	    scores[last] = rootScore;
+	}
+	return size;
+
+    } // best ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Whether the first pairing ranks below the second: a lower score, or an equal one with a later preceptor. */
+    private static boolean worse (double score, int preceptor, double otherScore, int otherPreceptor) {
+	return (score < otherScore || (score == otherScore && preceptor > otherPreceptor));
+    }
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class RecommendationReport
+// =================================================================================================================================
@@ -0,0 +1,329 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A cache, in a directory, of the results written by earlier runs, each kept under a hash of everything that decided it (see
+ * <code>Key</code>), so that the same rosters submitted again with the same settings are answered without being read, scored, or
+ * solved again.  The cache is bounded in size: when it grows past its bound, the results least recently written or served are
+ * removed until it fits.
+ * <p>
+ *
+ * Identical requests made at once are coalesced, so that only one of them does the work.  The first to arrive takes a lock on the
+ * key (a file lock, so that this holds across processes, and a monitor, so that it holds among threads), produces the result and
+ * caches it; the others wait for the lock and then find the result cached.  A result is written to its file whole and then moved
+ * into place, so that no one ever reads half of one.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class ResultCache {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** Something that writes a result, to be cached if it is not already. */
+    public interface Producer {
+	public void produce (OutputStream out) throws IOException;
+    }
+
+    /**
+     * The hash of everything that decides a result, taken in order.  Each piece is prefixed by its kind and length, so that no two
+     * different sequences of pieces hash alike by running together.
+     */
+    public static class Key {
+
+	private final MessageDigest _digest;
+
+	public Key () {
+
+	    try {
+		_digest = MessageDigest.getInstance("SHA-256");
+	    } catch (NoSuchAlgorithmException e) {
+		throw new IllegalStateException("SHA-256 is unavailable", e);
+	    }
+
+	}
+
+	/** Add a piece of text to the key. */
+	public Key text (String text) {
+
+	    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+	    piece('t', bytes.length);
+	    _digest.update(bytes);
+	    return this;
+
+	}
+
+	/** Add the contents of a file to the key; or, if there is no such file, the fact that there is none. */
+	public Key file (String path) throws IOException {
+
+	    Path file = Paths.get(path);
+	    if (!Files.isRegularFile(file)) {
+		return text("no file " + path);
+	    }
+	    piece('f', Files.size(file));
+	    byte[] buffer = new byte[1 << 16];
+	    try (InputStream in = Files.newInputStream(file)) {
+		int count;
+		while ((count = in.read(buffer)) != -1) {
+		    _digest.update(buffer, 0, count);
+		}
+	    }
+	    return this;
+
+	}
+
+	private void piece (char kind, long length) {
+
+	    _digest.update((byte)kind);
+	    for (int shift = 56; shift >= 0; shift -= 8) {
+		_digest.update((byte)(length >>> shift));
+	    }
+
+	}
+
+	/** @return The key, in hexadecimal; no more may be added to it. */
+	public String digest () {
+
+	    StringBuilder hex = new StringBuilder();
+	    for (byte b : _digest.digest()) {
+		hex.append(String.format("%02x", b));
+	    }
+	    return hex.toString();
+
+	}
+
+    } // class Key
+
+    /** The directory of the cache, and the most bytes of results that it may hold. */
+    private final Path _directory;
+    private final long _maxBytes;
+
+    /** The monitor of each key being produced in this process, by the path of its result, while any thread is using it. */
+    private static final ConcurrentHashMap<String, Flight> _flights = new ConcurrentHashMap<String, Flight>();
+
+    /** A key's monitor, counting the threads holding it or waiting for it, so that it can be dropped when the last is done. */
+    private static class Flight {
+	int _users;
+    }
+
+    /** The suffixes of the file holding a result, of the file locked while one is produced, and of one being written. */
+    private static final String _RESULT_SUFFIX  = ".result";
+    private static final String _LOCK_SUFFIX    = ".lock";
+    private static final String _PARTIAL_SUFFIX = ".partial";
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Open a cache, making its directory if need be.
+     *
+     * @param directory The directory of the cache.
+     * @param maxBytes  The most bytes of results that it may hold.
+     * @throws IOException If the directory cannot be made.
+     */
+    public ResultCache (String directory, long maxBytes) throws IOException {
+
+	Utility.abortIfFalse(directory != null, "ResultCache(): A directory is needed for the cache");
+	_directory = Paths.get(directory);
+	_maxBytes  = maxBytes;
+	Files.createDirectories(_directory);
+
+    } // ResultCache ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Write the result cached under a key; or, if there is none, produce it, writing it as it is produced, and cache it.  If the
+     * same key is being produced elsewhere, wait for that to finish and write its result instead.
+     *
+     * @param key      The key, as given by <code>Key.digest()</code>.
+     * @param out      Where to write the result.
+     * @param producer What produces the result, if it is not cached.
+     * @return Whether the result was found in the cache, rather than produced.
+     * @throws IOException If the cache or <code>out</code> cannot be used.
+     */
+    public boolean serve (String key, OutputStream out, Producer producer) throws IOException {
+
+	Path result = _directory.resolve(key + _RESULT_SUFFIX);
+	if (copy(result, out)) {
+	    return true;
+	}
+
+	String path   = result.toString();
+	Flight flight = _flights.compute(path, (name, joined) -> {
+		Flight using = (joined == null ? new Flight() : joined);
+		using._users += 1;
+		return using;
+	    });
+	try {
+	    synchronized (flight) {
+		try (FileChannel lockFile = FileChannel.open(_directory.resolve(key + _LOCK_SUFFIX),
+							     StandardOpenOption.CREATE,
+							     StandardOpenOption.WRITE)) {
+		    FileLock lock = lockFile.lock();
+		    try {
+			// Whoever held the lock before may have just cached the result.
+			if (copy(result, out)) {
+			    return true;
+			}
+
+			final ByteArrayOutputStream produced = new ByteArrayOutputStream();
+			producer.produce(new OutputStream() {
+				public void write (int b) throws IOException {
+				    out.write(b);
+				    produced.write(b);
+				}
+				public void write (byte[] bytes, int offset, int length) throws IOException {
+				    out.write(bytes, offset, length);
+				    produced.write(bytes, offset, length);
+				}
+				public void flush () throws IOException {
+				    out.flush();
+				}
+			    });
+			Path partial = _directory.resolve(key + _PARTIAL_SUFFIX);
+			Files.write(partial, produced.toByteArray());
+			Files.move(partial, result, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Utility.debug(2, "Cached the result as " + result);
+		    } finally {
+			lock.release();
+		    }
+		}
+	    }
+	} finally {
+	    // The last thread done drops the monitor; any that arrive later start afresh.
+	    _flights.compute(path, (name, joined) -> (--joined._users == 0 ? null : joined));
+	}
+	evict();
+	return false;
+
+    } // serve ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Write a cached result, marking it as recently used.
+     *
+     * @return Whether the result was cached.
+     */
+    private boolean copy (Path result, OutputStream out) throws IOException {
+
+	InputStream in;
+	try {
+	    in = Files.newInputStream(result);
+	} catch (NoSuchFileException e) {
+	    return false;
+	}
+	try {
+	    Files.setLastModifiedTime(result, FileTime.fromMillis(System.currentTimeMillis()));
+	} catch (NoSuchFileException e) {
+	    // Evicted since it was opened, which leaves it whole for reading.
+	}
+	try {
+	    in.transferTo(out);
+	} finally {
+	    in.close();
+	}
+	out.flush();
+	Utility.debug(2, "Served the result from " + result);
+	return true;
+
+    } // copy ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Remove the results least recently used until those left fit within the bound.  A process that is producing one of them at
+     * that moment is not disturbed, except that a request arriving meanwhile might produce it again.  The lock files are left in
+     * place: another process may hold one, or have it open to wait on, and one removed and created anew would let a second
+     * producer lock the new file while the first still holds the old.  They are empty.
+     */
+    private void evict () throws IOException {
+
+	List<Path> results = new ArrayList<Path>();
+	long       total   = 0;
+	try (DirectoryStream<Path> entries = Files.newDirectoryStream(_directory, "*" + _RESULT_SUFFIX)) {
+	    for (Path entry : entries) {
+		try {
+		    total += Files.size(entry);
+		    results.add(entry);
+		} catch (NoSuchFileException e) {
+		    // Evicted by another process meanwhile.
+		}
+	    }
+	}
+	if (total <= _maxBytes) {
+	    return;
+	}
+
+	final List<FileTime> used = new ArrayList<FileTime>();
+	for (Path entry : results) {
+	    try {
+		used.add(Files.getLastModifiedTime(entry));
+	    } catch (NoSuchFileException e) {
+		used.add(FileTime.fromMillis(0));
+	    }
+	}
+	List<Integer> order = new ArrayList<Integer>();
+	for (int k = 0; k < results.size(); k += 1) {
+	    order.add(k);
+	}
+	order.sort((a, b) -> used.get(a).compareTo(used.get(b)));
+	for (int k : order) {
+	    if (total <= _maxBytes) {
+		break;
+	    }
+	    Path entry = results.get(k);
+	    try {
+		total -= Files.size(entry);
+		Files.delete(entry);
+	    } catch (NoSuchFileException e) {
+		continue;
+	    }
+	    Utility.debug(2, "Evicted the cached result " + entry);
+	}
+
+    } // evict ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class ResultCache
+// =================================================================================================================================
@@ -0,0 +1,506 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * Writes the pairings of a <code>MatchResult</code> in one of several formats: <code>Readable</code>, for people;
+ * <code>CSV</code>, for spreadsheets; <code>JSON</code>, one object per line, for other programs; and <code>Binary</code>, the
+ * most compact, for programs that read it with <code>DataInputStream</code>.  Each format's encoder appends fields directly to a
+ * buffer that is reused from one student to the next and written out only when full, rather than parsing a format string and
+ * flushing a <code>PrintStream</code> per student.  The text formats are byte for byte what <code>printf</code> would write.
+ * <p>
+ *
+ * Writing may be started on a thread of its own with <code>start()</code>, so that it proceeds while the caller finishes its
+ * work on the solve (checking its certificate, say), and then awaited with <code>finish()</code>.  A caller with more to say of
+ * each pairing (a stability analysis, say) may add one column of numbers after the match quality with <code>withColumn()</code>.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public abstract class ResultWriter {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The number of characters or bytes gathered before they are written out. */
+    protected static final int _BUFFER_SIZE = 1 << 16;
+
+    /** The stream written to. */
+    protected final OutputStream _out;
+
+    /** The thread writing, if started with <code>start()</code>, and the failure that ended it, if any. */
+    private Thread               _writer;
+    private volatile IOException _failure;
+
+    /** The column written after the match quality, if any: its heading, its name in JSON, and its value for each student. */
+    protected String             _columnHeading;
+    protected String             _columnKey;
+    protected double[]           _column;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param out The stream to write to.
+     */
+    protected ResultWriter (OutputStream out) {
+	_out = out;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param format The name of a format: <code>Readable</code>, <code>CSV</code>, <code>JSON</code>, or <code>Binary</code>, in
+     *               any case.
+     * @param out    The stream to write to.
+     * @return A writer of that format, or <code>null</code> if there is no such format.
+     */
+    public static ResultWriter forFormat (String format, OutputStream out) {
+
+	if (format.equalsIgnoreCase("Readable")) {
+	    return new Readable(out);
+	} else if (format.equalsIgnoreCase("CSV")) {
+	    return new CSV(out);
+	} else if (format.equalsIgnoreCase("JSON")) {
+	    return new JSONLines(out);
+	} else if (format.equalsIgnoreCase("Binary")) {
+	    return new Binary(out);
+	}
+	return null;
+
+    } // forFormat ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Write the pairings of every student, in the order of <code>order()</code>, and flush the stream.
+     *
+     * @param result The pairings.
+     * @throws IOException If the stream cannot be written.
+     */
+    public abstract void write (MatchResult result) throws IOException;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Add a column after the match quality.
+     *
+     * @param heading The heading of the column in the CSV format (e.g., <code>PROBABILITY KEPT</code>).
+     * @param key     The name of the column in the JSON format (e.g., <code>kept</code>).
+     * @param values  The value of the column for each student, by their place in the roster.
+     * @return This writer.
+     */
+    public ResultWriter withColumn (String heading, String key, double[] values) {
+
+	_columnHeading = heading;
+	_columnKey     = key;
+	_column        = values;
+	return this;
+
+    } // withColumn ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Begin writing on a thread of its own.
+     *
+     * @param result The pairings.
+     */
+    public void start (final MatchResult result) {
+
+	Utility.abortIfFalse(_writer == null, "ResultWriter.start(): Already started");
+	_writer = new Thread(() -> {
+		try {
+		    write(result);
+		} catch (IOException e) {
+		    _failure = e;
+		}
+	    }, "result-writer");
+	_writer.start();
+
+    } // start ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Wait for the writing begun by <code>start()</code> to end.
+     */
+    public void finish () {
+
+	try {
+	    _writer.join();
+	} catch (InterruptedException e) {
+	    Utility.abort("ResultWriter.finish(): Interrupted while writing");
+	}
+	if (_failure != null) {
+	    Utility.abort("ResultWriter.finish(): Unable to write the results: " + _failure.getMessage());
+	}
+
+    } // finish ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param result The pairings.
+     * @return The indices of the students in the order in which their pairings are written: those paired algorithmically (or left
+     *         unpaired) first, then the pre-matched, each in roster order.
+     */
+    public static List<Integer> order (MatchResult result) {
+
+	List<Integer> order = new ArrayList<Integer>();
+	int           count = result.roster().students().size();
+	for (int i = 0; i < count; i += 1) {
+	    if (!result.preMatched(i)) {
+		order.add(i);
+	    }
+	}
+	for (int i = 0; i < count; i += 1) {
+	    if (result.preMatched(i)) {
+		order.add(i);
+	    }
+	}
+	return order;
+
+    } // order ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * A writer of text, one line per student after an optional header, gathered in a reused buffer and encoded as
+     * <code>System.out</code> would encode it.
+     */
+    private abstract static class Text extends ResultWriter {
+
+	/** The characters gathered and not yet written. */
+	protected final StringBuilder _text = new StringBuilder(_BUFFER_SIZE + 1024);
+
+	/** The charset in which to encode them, and the characters with which the default locale writes numbers. */
+	private final Charset         _charset;
+	private final char            _decimalSeparator;
+	private final boolean         _plainDigits;
+
+	protected Text (OutputStream out) {
+
+	    super(out);
+	    String encoding = System.getProperty("sun.stdout.encoding");
+	    _charset = (encoding != null && Charset.isSupported(encoding) ? Charset.forName(encoding) : Charset.defaultCharset());
+	    DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+	    _decimalSeparator = symbols.getDecimalSeparator();
+	    _plainDigits      = (symbols.getZeroDigit() == '0');
+
+	}
+
+	/** Append whatever precedes the first student's line. */
+	protected void header (MatchResult result) {
+	}
+
+	/** Append the line of one student. */
+	protected abstract void line (MatchResult result, int student);
+
+	public void write (MatchResult result) throws IOException {
+
+	    _text.setLength(0);
+	    header(result);
+	    for (int i : order(result)) {
+		line(result, i);
+		if (_text.length() >= _BUFFER_SIZE) {
+		    drain();
+		}
+	    }
+	    drain();
+	    _out.flush();
+
+	}
+
+	private void drain () throws IOException {
+
+	    _out.write(_text.toString().getBytes(_charset));
+	    _text.setLength(0);
+
+	}
+
+	/** Append a string right-justified in a field of the given width, as <code>%<i>width</i>s</code> would. */
+	protected void appendPadded (String value, int width) {
+
+	    for (int pad = width - String.valueOf(value).length(); pad > 0; pad -= 1) {
+		_text.append(' ');
+	    }
+	    _text.append(value);
+
+	}
+
+	/**
+	 * Append a number with four places after the decimal point, as <code>%.4f</code> would.  A value far enough from a tie at
+	 * the fifth place is rounded directly; the few that are not, or are negative or large, are left to <code>String.format</code>
+	 * so that the result is always the same as it would write.
+	 */
+	protected void appendFixed4 (double value) {
+
+	    if (_plainDigits && value >= 0.0 && value < 1e6 && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0)) {
+		double scaled = value * 10000.0;
+		double floor  = Math.floor(scaled);
+		if (Math.abs(scaled - floor - 0.5) > 1e-4) {
+		    long units = (long)floor + (scaled - floor > 0.5 ? 1 : 0);
+		    _text.append(units / 10000).append(_decimalSeparator);
+		    long fraction = units % 10000;
+		    for (long digit = 1000; digit > fraction && digit > 1; digit /= 10) {
+			_text.append('0');
+		    }
+		    _text.append(fraction);
+		    return;
+		}
+	    }
+	    _text.append(String.format("%.4f", value));
+
+	}
+
+    } // class Text
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** The human-readable format: match type, student, and preceptor aligned in columns, then the match quality and any column. */
+    private static class Readable extends Text {
+
+	Readable (OutputStream out) {
+	    super(out);
+	}
+
+	protected void line (MatchResult result, int student) {
+
+	    Preceptor preceptor = result.preceptor(student);
+	    _text.append('[').append(result.matchType(student)).append(']');
+	    appendPadded(result.roster().students().get(student).getName(), 40);
+	    _text.append('\t');
+	    appendPadded((preceptor == null ? "None" : preceptor.getName()), 40);
+	    _text.append('\t');
+	    appendFixed4(result.quality(student));
+	    if (_column != null) {
+		_text.append('\t');
+		appendFixed4(_column[student]);
+	    }
+	    _text.append('\n');
+
+	}
+
+    } // class Readable
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** The semicolon-delimited format, with a header line, for import into a spreadsheet. */
+    private static class CSV extends Text {
+
+	CSV (OutputStream out) {
+	    super(out);
+	}
+
+	protected void header (MatchResult result) {
+
+	    _text.append("STUDENT NAME;MATCH TYPE;PRECEPTOR NAME;LOCATION;PRACTICE TYPE;MEETING DAY;MATCH QUALITY");
+	    if (_column != null) {
+		_text.append(';').append(_columnHeading);
+	    }
+	    _text.append('\n');
+
+	}
+
+	protected void line (MatchResult result, int student) {
+
+	    Preceptor preceptor = result.preceptor(student);
+	    _text.append('"').append(result.roster().students().get(student).getName()).append("\";");
+	    _text.append(result.matchType(student)).append(';');
+	    _text.append('"').append(preceptor == null ? "None" : preceptor.getName()).append("\";");
+	    _text.append(preceptor == null ? "N/A" : preceptor.location()).append(';');
+	    _text.append(preceptor == null ? "N/A" : preceptor.practiceType()).append(';');
+	    _text.append(preceptor == null ? "N/A" : result.meetingDay(student)).append(';');
+	    appendFixed4(result.quality(student));
+	    if (_column != null) {
+		_text.append(';');
+		appendFixed4(_column[student]);
+	    }
+	    _text.append('\n');
+
+	}
+
+    } // class CSV
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * One JSON object per student and per line, with the fields of the CSV format; an unpaired student's preceptor fields are
+     * <code>null</code>, and the match quality is written in full rather than to four places.
+     */
+    private static class JSONLines extends Text {
+
+	JSONLines (OutputStream out) {
+	    super(out);
+	}
+
+	protected void line (MatchResult result, int student) {
+
+	    Preceptor preceptor = result.preceptor(student);
+	    _text.append("{\"student\":");
+	    appendString(result.roster().students().get(student).getName());
+	    _text.append(",\"matchType\":");
+	    appendString(result.matchType(student));
+	    _text.append(",\"preceptor\":");
+	    appendString(preceptor == null ? null : preceptor.getName());
+	    _text.append(",\"location\":");
+	    appendString(preceptor == null ? null : preceptor.location());
+	    _text.append(",\"practiceType\":");
+	    appendString(preceptor == null ? null : preceptor.practiceType());
+	    _text.append(",\"meetingDay\":");
+	    appendString(preceptor == null ? null : result.meetingDay(student));
+	    _text.append(",\"quality\":");
+	    appendNumber(result.quality(student));
+	    if (_column != null) {
+		_text.append(',');
+		appendString(_columnKey);
+		_text.append(':');
+		appendNumber(_column[student]);
+	    }
+	    _text.append("}\n");
+
+	}
+
+	/** Append a number in full, or <code>null</code> if it is not finite. */
+	private void appendNumber (double value) {
+
+	    if (Double.isFinite(value)) {
+		_text.append(value);
+	    } else {
+		_text.append("null");
+	    }
+
+	}
+
+	/** Append a string as a JSON string literal, or <code>null</code>. */
+	private void appendString (String value) {
+
+	    if (value == null) {
+		_text.append("null");
+		return;
+	    }
+	    _text.append('"');
+	    for (int k = 0; k < value.length(); k += 1) {
+		char c = value.charAt(k);
+		if (c == '"' || c == '\\') {
+		    _text.append('\\').append(c);
+		} else if (c < 0x20) {
+		    _text.append(String.format("\\u%04x", (int)c));
+		} else {
+		    _text.append(c);
+		}
+	    }
+	    _text.append('"');
+
+	}
+
+    } // class JSONLines
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The compact format, big-endian as <code>DataOutputStream</code> writes it and strings in its modified UTF-8:
+     * <pre>
+     *   int     magic number, 0x53504D52 ("SPMR")
+     *   short   format version: 1; or 2, with a column added by withColumn()
+     *   string  in version 2 only, the name of the added column
+     *   int     number of preceptors, then for each: name, location, practice type (strings)
+     *   int     number of students, then for each, in the order of order():
+     *             name (string), match type (byte: 0 unmatched, 1 algorithmic, 2 pre-matched),
+     *             preceptor index (int, -1 if unmatched), meeting day (string, empty if unmatched), match quality (double),
+     *             and in version 2 only, the value of the added column (double)
+     * </pre>
+     * Each preceptor's details are written once rather than with every student paired with them.
+     */
+    private static class Binary extends ResultWriter {
+
+	/** The magic number and versions that begin the format, without and with an added column. */
+	public static final int   MAGIC          = 0x53504D52;
+	public static final short VERSION        = 1;
+	public static final short COLUMN_VERSION = 2;
+
+	Binary (OutputStream out) {
+	    super(out);
+	}
+
+	public void write (MatchResult result) throws IOException {
+
+	    DataOutputStream data       = new DataOutputStream(new BufferedOutputStream(_out, _BUFFER_SIZE));
+	    List<Preceptor>  preceptors = result.roster().preceptors();
+	    data.writeInt(MAGIC);
+	    if (_column == null) {
+		data.writeShort(VERSION);
+	    } else {
+		data.writeShort(COLUMN_VERSION);
+		data.writeUTF(_columnKey);
+	    }
+	    data.writeInt(preceptors.size());
+	    for (Preceptor preceptor : preceptors) {
+		data.writeUTF(preceptor.getName());
+		data.writeUTF(String.valueOf(preceptor.location()));
+		data.writeUTF(String.valueOf(preceptor.practiceType()));
+	    }
+	    List<Integer> order = order(result);
+	    data.writeInt(order.size());
+	    for (int i : order) {
+		data.writeUTF(result.roster().students().get(i).getName());
+		data.writeByte(result.preceptorOf(i) == -1 ? 0 : (result.preMatched(i) ? 2 : 1));
+		data.writeInt(result.preceptorOf(i));
+		data.writeUTF(result.preceptorOf(i) == -1 ? "" : String.valueOf(result.meetingDay(i)));
+		data.writeDouble(result.quality(i));
+		if (_column != null) {
+		    data.writeDouble(_column[i]);
+		}
+	    }
+	    data.flush();
+
+	}
+
+    } // class Binary
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class ResultWriter
+// =================================================================================================================================
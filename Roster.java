@@ -0,0 +1,271 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * The students and preceptors of one matching session, once read and culled.  A roster never changes once made, and neither do the
+ * profiles it holds (no method of <code>Student</code> or <code>Preceptor</code> alters one after it is read), so any number of
+ * solves may share it at once, each recording its pairings in a <code>MatchResult</code> of its own.
+ * <p>
+ *
+ * <code>pairable()</code> culls the profiles read of those that cannot be paired, and <code>split()</code> sets aside the
+ * pre-matched students and preceptors, leaving the rest for a solver.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class Roster {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    private final List<Student>   _students;
+    private final List<Preceptor> _preceptors;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * A roster split by its pre-matches: the students and preceptors pre-matched to one another, and those left for a solver,
+     * with the place in the roster of each of the latter.
+     */
+    public static class Split {
+
+	/** The index of the preceptor pre-matched with each student, or <code>-1</code>; and whether there is one. */
+	public final int[]           preMatchOf;
+	public final boolean[]       preMatched;
+
+	/** The index in the roster of each student, and of each preceptor, left to be paired, in roster order. */
+	public final List<Integer>   freeStudents   = new ArrayList<Integer>();
+	public final List<Integer>   freePreceptors = new ArrayList<Integer>();
+
+	/** The students and preceptors left to be paired, in the same order. */
+	public final List<Student>   students       = new ArrayList<Student>();
+	public final List<Preceptor> preceptors     = new ArrayList<Preceptor>();
+
+	private Split (Roster roster, int[] preMatchOf) {
+
+	    this.preMatchOf = preMatchOf;
+	    preMatched      = new boolean[preMatchOf.length];
+	    boolean[] taken = new boolean[roster._preceptors.size()];
+	    for (int i = 0; i < preMatchOf.length; i += 1) {
+		if (preMatchOf[i] == -1) {
+		    freeStudents.add(i);
+		    students.add(roster._students.get(i));
+		} else {
+		    preMatched[i]        = true;
+		    taken[preMatchOf[i]] = true;
+		}
+	    }
+	    for (int j = 0; j < taken.length; j += 1) {
+		if (!taken[j]) {
+		    freePreceptors.add(j);
+		    preceptors.add(roster._preceptors.get(j));
+		}
+	    }
+
+	}
+
+    } // class Split
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param students   The students, in the order that results will index them.
+     * @param preceptors The preceptors, likewise.
+     */
+    public Roster (List<Student> students, List<Preceptor> preceptors) {
+
+	_students   = Collections.unmodifiableList(new ArrayList<Student>(students));
+	_preceptors = Collections.unmodifiableList(new ArrayList<Preceptor>(preceptors));
+
+    } // Roster ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Make a roster of the students and preceptors that can be paired, leaving out, with a warning, any whose profile is too
+     * incomplete (see <code>Student.pairable()</code> and <code>Preceptor.pairable()</code>).
+     *
+     * @param students      The students read.
+     * @param preceptors    The preceptors read.
+     * @param warnStudent   Whether to warn of leaving out a given student.
+     * @param warnPreceptor Whether to warn of leaving out a given preceptor.
+     * @return The roster of those that remain, in the order given.
+     */
+    public static Roster pairable (List<Student>        students,
+				   List<Preceptor>      preceptors,
+				   Predicate<Student>   warnStudent,
+				   Predicate<Preceptor> warnPreceptor) {
+
+	List<Student> pairableStudents = new ArrayList<Student>();
+	for (Student student : students) {
+	    if (student.pairable()) {
+		pairableStudents.add(student);
+	    } else if (warnStudent.test(student)) {
+		Utility.warning("Removing student from matching matrix: " + student.getName());
+	    }
+	}
+	List<Preceptor> pairablePreceptors = new ArrayList<Preceptor>();
+	for (Preceptor preceptor : preceptors) {
+	    if (preceptor.pairable()) {
+		pairablePreceptors.add(preceptor);
+	    } else if (warnPreceptor.test(preceptor)) {
+		Utility.warning("Removing preceptor from matching matrix: " + preceptor.getName());
+	    }
+	}
+	return new Roster(pairableStudents, pairablePreceptors);
+
+    } // pairable ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Make a roster of the students and preceptors that can be paired, warning of each one left out.
+     *
+     * @param students   The students read.
+     * @param preceptors The preceptors read.
+     * @return The roster of those that remain, in the order given.
+     */
+    public static Roster pairable (List<Student> students, List<Preceptor> preceptors) {
+	return pairable(students, preceptors, (student) -> true, (preceptor) -> true);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The students, as an unmodifiable list. */
+    public List<Student> students () {
+	return _students;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The preceptors, as an unmodifiable list. */
+    public List<Preceptor> preceptors () {
+	return _preceptors;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find the preceptor pre-matched with each student, verifying that the preceptor names the student in turn, and aborting if
+     * one does not.  Each preceptor may be pre-matched with only one student; a second student naming the same preceptor finds no
+     * such preceptor.
+     *
+     * @return The index of the preceptor pre-matched with each student, or <code>-1</code> for a student with no pre-match.
+     */
+    public int[] preMatches () {
+	return preMatches(null);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find the preceptor pre-matched with each student, as <code>preMatches()</code> does, but recording each pre-match that
+     * cannot be honored rather than aborting at the first.
+     *
+     * @param problems Where to record why each such student's pre-match cannot be honored, by the student's index; or
+     *                 <code>null</code> to abort instead.
+     * @return The index of the preceptor pre-matched with each student, or <code>-1</code> for a student with no pre-match or one
+     *         that cannot be honored.
+     */
+    public int[] preMatches (Map<Integer, String> problems) {
+
+	int[]     preMatchOf = new int[_students.size()];
+	boolean[] taken      = new boolean[_preceptors.size()];
+	for (int i = 0; i < _students.size(); i += 1) {
+
+	    preMatchOf[i] = -1;
+	    Student student = _students.get(i);
+	    if (!student.hasPreMatch()) {
+		continue;
+	    }
+
+	    boolean named = false;
+	    for (int j = 0; j < _preceptors.size(); j += 1) {
+		Preceptor preceptor = _preceptors.get(j);
+		if (!taken[j] && preceptor.hasPreMatch() && student.preMatch().equals(preceptor.getName(false))) {
+		    // Should be a match; verify.
+		    named = true;
+		    if (preceptor.preMatch().equals(student.getName(false))) {
+			preMatchOf[i] = j;
+			taken[j]      = true;
+		    } else {
+			fail(problems, i, ("Student (" + student.getName() + ") matched to " + student.preMatch() +
+					   ", but preceptor (" + preceptor.getName() + ") is matched to " + preceptor.preMatch()));
+		    }
+		    break;
+		}
+	    }
+	    if (!named) {
+		fail(problems, i, ("Student (" + student.getName() + ") prematched to " +
+				   student.preMatch() + ", but no such preceptor found."));
+	    }
+
+	}
+	return preMatchOf;
+
+    } // preMatches ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Set aside the students and preceptors pre-matched to one another (see <code>preMatches()</code>), leaving the rest to be
+     * paired by a solver.
+     *
+     * @param problems Where to record why each student's pre-match cannot be honored, leaving the student to be paired like any
+     *                 other; or <code>null</code> to abort instead.
+     * @return The roster, split.
+     */
+    public Split split (Map<Integer, String> problems) {
+	return new Split(this, preMatches(problems));
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static void fail (Map<Integer, String> problems, int student, String message) {
+
+	if (problems == null) {
+	    Utility.abort(message);
+	}
+	problems.put(student, message);
+
+    } // fail ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class Roster
+// =================================================================================================================================
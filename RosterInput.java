@@ -0,0 +1,227 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * Opens a roster file for reading whether it is plain text or compressed, so that archived rosters need not be decompressed to disk
+ * first.  The kind of file is told by its first bytes, not its name:
+ * <ul>
+ *   <li>a <i>gzip</i> file is decoded by <code>GZIPInputStream</code>;</li>
+ *   <li>a <i>zstd</i> file is decoded by the <code>zstd</code> command, which must be on the path, since Java has no decoder of
+ *       its own for it;</li>
+ *   <li>anything else is read as plain text, just as <code>FileReader</code> would read it.</li>
+ * </ul>
+ * A compressed file is decoded on a thread of its own, a chunk ahead of the reader, so that decoding proceeds while the records
+ * already decoded are parsed.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class RosterInput {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The first bytes of a gzip file, and of a zstd frame. */
+    private static final byte[] _GZIP_MAGIC = { (byte)0x1f, (byte)0x8b };
+    private static final byte[] _ZSTD_MAGIC = { (byte)0x28, (byte)0xb5, (byte)0x2f, (byte)0xfd };
+
+    /** The number of bytes decoded at a time, and the number of such chunks that may wait, decoded, for the reader. */
+    private static final int    _CHUNK_SIZE = 1 << 16;
+    private static final int    _CHUNKS     = 8;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Open a roster file, plain or compressed.
+     *
+     * @param path The file.
+     * @return A reader of its text.
+     * @throws java.io.FileNotFoundException If there is no such file.
+     * @throws IOException If the file cannot be read, or is compressed in a way that cannot be decoded here.
+     */
+    public static BufferedReader open (String path) throws IOException {
+
+	byte[] magic = new byte[_ZSTD_MAGIC.length];
+	int    read  = 0;
+	try (InputStream in = new FileInputStream(path)) {
+	    int count;
+	    while (read < magic.length && (count = in.read(magic, read, magic.length - read)) != -1) {
+		read += count;
+	    }
+	}
+
+	if (startsWith(magic, read, _GZIP_MAGIC)) {
+	    return reader(new DecodedStream(new GZIPInputStream(new FileInputStream(path), _CHUNK_SIZE), null));
+	} else if (startsWith(magic, read, _ZSTD_MAGIC)) {
+	    Process zstd;
+	    try {
+		zstd = new ProcessBuilder("zstd", "-d", "-c", "-q", path).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+	    } catch (IOException e) {
+		throw new IOException("zstd-compressed, but the zstd command is not available to decode it");
+	    }
+	    zstd.getOutputStream().close();
+	    return reader(new DecodedStream(zstd.getInputStream(), zstd));
+	}
+	return new BufferedReader(new FileReader(path));
+
+    } // open ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static boolean startsWith (byte[] bytes, int length, byte[] prefix) {
+	return (length >= prefix.length && Arrays.equals(Arrays.copyOf(bytes, prefix.length), prefix));
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return A reader of decoded bytes, as text in the default charset, as <code>FileReader</code> reads a plain file. */
+    private static BufferedReader reader (InputStream decoded) {
+	return new BufferedReader(new InputStreamReader(decoded), _CHUNK_SIZE);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The bytes of a decoder, read from it in chunks on a thread of their own and handed over through a bounded queue.  The end of
+     * the bytes is marked in the queue by an empty chunk; a failure to decode is passed on to the reader when it reaches the end.
+     */
+    private static class DecodedStream extends InputStream {
+
+	private final BlockingQueue<byte[]> _chunks = new ArrayBlockingQueue<byte[]>(_CHUNKS);
+	private final Thread                _decoder;
+	private volatile IOException        _failure;
+
+	/** The chunk being read, the position in it, and whether the last chunk has been taken. */
+	private byte[]                      _chunk  = new byte[0];
+	private int                         _next   = 0;
+	private boolean                     _ended  = false;
+
+	/**
+	 * @param in      The decoder's output.
+	 * @param process The process decoding, whose exit status tells whether the bytes are whole; or <code>null</code>.
+	 */
+	DecodedStream (final InputStream in, final Process process) {
+
+	    _decoder = new Thread(() -> {
+		    try {
+			byte[] chunk = new byte[_CHUNK_SIZE];
+			int    length;
+			while ((length = in.readNBytes(chunk, 0, chunk.length)) > 0) {
+			    _chunks.put(length == chunk.length ? chunk : Arrays.copyOf(chunk, length));
+			    chunk = new byte[_CHUNK_SIZE];
+			}
+			if (process != null && process.waitFor() != 0) {
+			    _failure = new IOException("zstd exited with status " + process.exitValue());
+			}
+		    } catch (IOException e) {
+			_failure = e;
+		    } catch (InterruptedException e) {
+			// Closed before the end; nobody is waiting for the rest.
+			return;
+		    } finally {
+			try {
+			    in.close();
+			} catch (IOException e) {
+			    // The bytes have been read or abandoned; there is nothing more to lose.
+			}
+			if (process != null) {
+			    process.destroy();
+			}
+		    }
+		    try {
+			_chunks.put(new byte[0]);
+		    } catch (InterruptedException e) {
+			// Closed at the end; nobody is waiting for it.
+		    }
+		}, "roster-decoder");
+	    _decoder.setDaemon(true);
+	    _decoder.start();
+
+	}
+
+	/** @return Whether bytes remain in the chunk being read, taking the next chunk if need be. */
+	private boolean fill () throws IOException {
+
+	    while (_next == _chunk.length) {
+		if (_ended) {
+		    return false;
+		}
+		try {
+		    _chunk = _chunks.take();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    throw new IOException("Interrupted while decoding");
+		}
+		_next = 0;
+		if (_chunk.length == 0) {
+		    _ended = true;
+		    if (_failure != null) {
+			throw _failure;
+		    }
+		}
+	    }
+	    return true;
+
+	}
+
+	public int read () throws IOException {
+	    return (fill() ? (_chunk[_next++] & 0xff) : -1);
+	}
+
+	public int read (byte[] buffer, int offset, int length) throws IOException {
+
+	    if (length == 0) {
+		return 0;
+	    }
+	    if (!fill()) {
+		return -1;
+	    }
+	    int count = Math.min(length, _chunk.length - _next);
+	    System.arraycopy(_chunk, _next, buffer, offset, count);
+	    _next += count;
+	    return count;
+
+	}
+
+	public void close () {
+
+	    _ended = true;
+	    _next  = _chunk.length;
+	    _decoder.interrupt();
+
+	}
+
+    } // class DecodedStream
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class RosterInput
+// =================================================================================================================================
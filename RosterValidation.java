@@ -0,0 +1,366 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A check of a pair of roster files that finds every problem in them at once, rather than stopping at the first as reading them
+ * for a match does.  The records are parsed in parallel, and each problem is recorded with the file and line on which it lies:
+ * <ul>
+ *   <li>an <i>error</i> is a problem that would stop a match, such as a record with too few fields, or a pre-match that the
+ *       preceptor named does not return;</li>
+ *   <li>a <i>warning</i> is one that a match would survive, such as a profile incomplete enough that its student or preceptor
+ *       would be left out of the matching, or two records with the same name.</li>
+ * </ul>
+ * Nothing is written and nothing exits; the problems, and the students and preceptors that could be read, are returned for the
+ * caller to use as it sees fit.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class RosterValidation {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** One problem found in a roster file. */
+    public static class Problem {
+
+	private final String  _path;
+	private final int     _line;
+	private final boolean _error;
+	private final String  _message;
+
+	Problem (String path, int line, boolean error, String message) {
+	    _path    = path;
+	    _line    = line;
+	    _error   = error;
+	    _message = message;
+	}
+
+	/** @return The file in which the problem lies. */
+	public String path () {
+	    return _path;
+	}
+
+	/** @return The number of the line on which the problem lies, from one; or zero if it lies with the file as a whole. */
+	public int line () {
+	    return _line;
+	}
+
+	/** @return Whether the problem would stop a match, rather than merely change it. */
+	public boolean error () {
+	    return _error;
+	}
+
+	public String message () {
+	    return _message;
+	}
+
+	public String toString () {
+	    return String.format("%s:%d: %s: %s", _path, _line, (_error ? "ERROR" : "WARNING"), _message);
+	}
+
+    } // class Problem
+
+    /** The students and preceptors read, in the order of their files, and the line on which each was read. */
+    private final List<Student>   _students       = new ArrayList<Student>();
+    private final List<Preceptor> _preceptors     = new ArrayList<Preceptor>();
+    private final List<Integer>   _studentLines   = new ArrayList<Integer>();
+    private final List<Integer>   _preceptorLines = new ArrayList<Integer>();
+
+    /** The problems found, in the order of the files and their lines, with those found across records last. */
+    private final List<Problem>   _problems = new ArrayList<Problem>();
+
+    private final String          _studentsPath;
+    private final String          _preceptorsPath;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Check a pair of roster files.
+     *
+     * @param studentsPath   The file of student records.
+     * @param preceptorsPath The file of preceptor records.
+     */
+    public RosterValidation (String studentsPath, String preceptorsPath) {
+
+	_studentsPath   = studentsPath;
+	_preceptorsPath = preceptorsPath;
+
+	// Parse each file's records, all at once, in the layout that its header gives, keeping the results by line so that the
+	// problems are reported in order.
+	List<String> studentLines = readLines(studentsPath);
+	if (studentLines != null) {
+	    final Schema studentSchema = Student.schema(studentLines.get(0));
+	    if (studentSchema.problem() != null) {
+		warning(studentsPath, 1, studentSchema.problem());
+	    }
+	    final Student[] parsed    = new Student[studentLines.size()];
+	    final String[]  malformed = new String[studentLines.size()];
+	    IntStream.range(1, studentLines.size()).parallel().forEach(k -> {
+		    String[] fields = Student.split(studentLines.get(k));
+		    if (fields.length < studentSchema.columns()) {
+			malformed[k] = tooFew("student", fields.length, studentSchema.columns());
+		    } else {
+			parsed[k] = Student.fromFields(studentSchema.arrange(fields));
+		    }
+		});
+	    for (int k = 1; k < parsed.length; k += 1) {
+		if (malformed[k] != null) {
+		    error(studentsPath, k + 1, malformed[k]);
+		    continue;
+		}
+		_students.add(parsed[k]);
+		_studentLines.add(k + 1);
+		if (parsed[k].problem() != null) {
+		    warning(studentsPath, k + 1, String.format("Incomplete profile for student %s; not to be paired: %s",
+							      parsed[k].getName(),
+							      parsed[k].problem()));
+		}
+	    }
+	}
+
+	List<String> preceptorLines = readLines(preceptorsPath);
+	if (preceptorLines != null) {
+	    final Schema preceptorSchema = Preceptor.schema(preceptorLines.get(0));
+	    if (preceptorSchema.problem() != null) {
+		warning(preceptorsPath, 1, preceptorSchema.problem());
+	    }
+	    final Preceptor[] parsed    = new Preceptor[preceptorLines.size()];
+	    final String[]    malformed = new String[preceptorLines.size()];
+	    IntStream.range(1, preceptorLines.size()).parallel().forEach(k -> {
+		    String[] fields = Preceptor.split(preceptorLines.get(k));
+		    if (fields.length < preceptorSchema.columns()) {
+			malformed[k] = tooFew("preceptor", fields.length, preceptorSchema.columns());
+		    } else {
+			parsed[k] = Preceptor.fromFields(preceptorSchema.arrange(fields));
+		    }
+		});
+	    for (int k = 1; k < parsed.length; k += 1) {
+		if (malformed[k] != null) {
+		    error(preceptorsPath, k + 1, malformed[k]);
+		    continue;
+		}
+		_preceptors.add(parsed[k]);
+		_preceptorLines.add(k + 1);
+		if (parsed[k].problem() != null) {
+		    warning(preceptorsPath, k + 1, String.format("Incomplete profile for preceptor %s; %s: %s",
+								 parsed[k].getName(),
+								 (parsed[k].pairable() ? "paired only by pre-match" : "not to be paired"),
+								 parsed[k].problem()));
+		}
+	    }
+	}
+
+	checkAcrossRecords();
+
+    } // RosterValidation ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Check what no single record shows: that every pre-match among the records to be paired is returned by the preceptor named,
+     * and that no two records share a name.
+     */
+    private void checkAcrossRecords () {
+
+	List<Student>   students     = new ArrayList<Student>();
+	List<Integer>   studentLines = new ArrayList<Integer>();
+	List<Preceptor> preceptors   = new ArrayList<Preceptor>();
+	for (int i = 0; i < _students.size(); i += 1) {
+	    if (_students.get(i).pairable()) {
+		students.add(_students.get(i));
+		studentLines.add(_studentLines.get(i));
+	    }
+	}
+	for (Preceptor preceptor : _preceptors) {
+	    if (preceptor.pairable()) {
+		preceptors.add(preceptor);
+	    }
+	}
+
+	Map<Integer, String> preMatchProblems = new HashMap<Integer, String>();
+	new Roster(students, preceptors).preMatches(preMatchProblems);
+	for (int i = 0; i < students.size(); i += 1) {
+	    if (preMatchProblems.containsKey(i)) {
+		error(_studentsPath, studentLines.get(i), preMatchProblems.get(i));
+	    }
+	}
+
+	Map<String, Integer> firstLineOf = new HashMap<String, Integer>();
+	for (int i = 0; i < _students.size(); i += 1) {
+	    Integer first = firstLineOf.putIfAbsent(_students.get(i).getName(false), _studentLines.get(i));
+	    if (first != null) {
+		warning(_studentsPath, _studentLines.get(i), "Student " + _students.get(i).getName() + " also appears on line " + first);
+	    }
+	}
+	firstLineOf.clear();
+	for (int j = 0; j < _preceptors.size(); j += 1) {
+	    Integer first = firstLineOf.putIfAbsent(_preceptors.get(j).getName(false), _preceptorLines.get(j));
+	    if (first != null) {
+		warning(_preceptorsPath, _preceptorLines.get(j), ("Preceptor " + _preceptors.get(j).getName() +
+								  " also appears on line " + first));
+	    }
+	}
+
+    } // checkAcrossRecords ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Read the lines of a roster file, recording a problem rather than the lines if it cannot be read or has not even a header.
+     *
+     * @param path The file.
+     * @return The lines, the header first; or <code>null</code>.
+     */
+    private List<String> readLines (String path) {
+
+	List<String> lines = new ArrayList<String>();
+	try (BufferedReader reader = RosterInput.open(path)) {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		lines.add(line);
+	    }
+	} catch (FileNotFoundException e) {
+	    error(path, 0, "No such file");
+	    return null;
+	} catch (IOException e) {
+	    error(path, 0, "Unable to read: " + e.getMessage());
+	    return null;
+	}
+	if (lines.isEmpty()) {
+	    error(path, 0, "No lines of data");
+	    return null;
+	}
+	return lines;
+
+    } // readLines ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static String tooFew (String kind, int fields, int needed) {
+	return String.format("Record has %d fields; a %s record needs at least %d", fields, kind, needed);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private void error (String path, int line, String message) {
+	_problems.add(new Problem(path, line, true, message));
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private void warning (String path, int line, String message) {
+	_problems.add(new Problem(path, line, false, message));
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Every student whose record had fields enough to be read, whether or not it can be paired. */
+    public List<Student> students () {
+	return Collections.unmodifiableList(_students);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Every preceptor whose record had fields enough to be read, whether or not it can be paired. */
+    public List<Preceptor> preceptors () {
+	return Collections.unmodifiableList(_preceptors);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Every problem found. */
+    public List<Problem> problems () {
+	return Collections.unmodifiableList(_problems);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of problems found that would stop a match. */
+    public int errors () {
+
+	int errors = 0;
+	for (Problem problem : _problems) {
+	    if (problem.error()) {
+		errors += 1;
+	    }
+	}
+	return errors;
+
+    } // errors ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Whether the rosters can be matched: that is, whether no error was found. */
+    public boolean valid () {
+	return (errors() == 0);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Every problem, one per line, followed by a line counting the records read and the problems found. */
+    public String report () {
+
+	StringBuilder report = new StringBuilder();
+	for (Problem problem : _problems) {
+	    report.append(problem).append('\n');
+	}
+	int errors = errors();
+	report.append(String.format("%d students and %d preceptors read; %d error%s, %d warning%s\n",
+				    _students.size(),
+				    _preceptors.size(),
+				    errors,
+				    (errors == 1 ? "" : "s"),
+				    _problems.size() - errors,
+				    (_problems.size() - errors == 1 ? "" : "s")));
+	return report.toString();
+
+    } // report ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class RosterValidation
+// =================================================================================================================================
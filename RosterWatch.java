@@ -0,0 +1,461 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * Pairs a pair of roster files, and then pairs them again each time either one changes, until interrupted, for coordinators who
+ * edit the rosters while watching the pairings that result.  Each time, only what changed is redone:
+ * <ul>
+ *   <li>a record is parsed only if its line is new, the profile parsed from each line being kept, by the line's text, until the
+ *       line disappears;</li>
+ *   <li>the cost matrix is copied from the last one for every student and preceptor that remains, and computed only for the rows
+ *       and columns of those that are new;</li>
+ *   <li>the solver starts from the last solve's labels and pairings (see <code>HungarianAlgorithm.execute(previous, ...)</code>),
+ *       so that only the students whose pairings the change undid need a phase of their own.</li>
+ * </ul>
+ * The pairings are written in full each time, and a summary of what changed since the last time (the time taken, the rows and
+ * columns recomputed, and each student whose pairing changed) follows on the error stream.  A file that cannot be read, or a
+ * record or pre-match that cannot be used, is warned of rather than ending the watch, since a roster being edited is often
+ * briefly wrong.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class RosterWatch {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** How long to let a burst of changes (an editor's save, say, or a copy) settle before reading the files. */
+    private static final long _SETTLE_MILLIS = 100;
+
+    /**
+     * The records of one roster file, as last read: the profile parsed from each line of the file, by the line's text, and the
+     * header under whose layout they were parsed.
+     */
+    private static class Records<T> {
+
+	private final String                     _kind;
+	private final Function<String, Schema>   _schemaOf;
+	private final Function<String, String[]> _split;
+	private final Function<String[], T>      _parse;
+	private String                           _header;
+	private Schema                           _schema;
+	private Map<String, List<T>>             _byLine = new HashMap<String, List<T>>();
+	private Set<T>                           _fresh  = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+
+	Records (String kind, Function<String, Schema> schemaOf, Function<String, String[]> split, Function<String[], T> parse) {
+	    _kind     = kind;
+	    _schemaOf = schemaOf;
+	    _split    = split;
+	    _parse    = parse;
+	}
+
+	/**
+	 * Take up the lines of the file as it now is, parsing only those not seen the last time (or all of them, if the header has
+	 * changed, warning of any required field that it does not name), and skipping with a warning any that have too few fields.
+	 *
+	 * @param path  The file, for messages.
+	 * @param lines The file's lines, the header first.
+	 * @return The profile of each record, in the order of the file.
+	 */
+	List<T> update (Path path, List<String> lines) {
+
+	    if (!lines.get(0).equals(_header)) {
+		_header = lines.get(0);
+		_schema = _schemaOf.apply(_header);
+		_byLine.clear();
+		if (_schema.problem() != null) {
+		    Utility.warning(String.format("%s:1: %s", path, _schema.problem()));
+		}
+	    }
+	    Schema               schema = _schema;
+	    Map<String, List<T>> byLine = new HashMap<String, List<T>>();
+	    List<T>              all    = new ArrayList<T>();
+	    _fresh.clear();
+	    for (int k = 1; k < lines.size(); k += 1) {
+
+		// A line that appears more than once is parsed once for each, so that no profile appears twice.
+		String  line    = lines.get(k);
+		List<T> seen    = _byLine.get(line);
+		T       profile = (seen == null || seen.isEmpty() ? null : seen.remove(0));
+		if (profile == null) {
+		    String[] fields = _split.apply(line);
+		    if (fields.length < schema.columns()) {
+			Utility.warning(String.format("%s:%d: Skipping %s record with %d fields; at least %d are needed",
+						      path, k + 1, _kind, fields.length, schema.columns()));
+			continue;
+		    }
+		    profile = _parse.apply(schema.arrange(fields));
+		    _fresh.add(profile);
+		}
+		byLine.computeIfAbsent(line, key -> new LinkedList<T>()).add(profile);
+		all.add(profile);
+
+	    }
+	    _byLine = byLine;
+	    return all;
+
+	} // update ()
+
+	/** @return Whether the profile was parsed by the last update, rather than kept from an earlier one. */
+	boolean fresh (T profile) {
+	    return _fresh.contains(profile);
+	}
+
+    } // class Records
+
+    private final Path               _studentsPath;
+    private final Path               _preceptorsPath;
+    private final ResultWriter       _writer;
+    private final PairScorer         _scorer;
+    private final int                _threads;
+    private final Records<Student>   _students   = new Records<Student>("student",
+									Student::schema,
+									Student::split,
+									Student::fromFields);
+    private final Records<Preceptor> _preceptors = new Records<Preceptor>("preceptor",
+									  Preceptor::schema,
+									  Preceptor::split,
+									  Preceptor::fromFields);
+
+    /** The last solve: the students and preceptors paired by the solver, their costs, the solver, and the pairings. */
+    private List<Student>      _freeStudents;
+    private List<Preceptor>    _freePreceptors;
+    private CostMatrix         _costs;
+    private HungarianAlgorithm _solver;
+    private MatchResult        _result;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param studentsPath   The file of student records.
+     * @param preceptorsPath The file of preceptor records.
+     * @param writer         The writer of each solve's pairings.
+     * @param scorer         The scorer that measures each pairing.
+     * @param threads        The number of threads among which to share the solver's sweeps.
+     */
+    public RosterWatch (String studentsPath, String preceptorsPath, ResultWriter writer, PairScorer scorer, int threads) {
+
+	_studentsPath   = Paths.get(studentsPath).toAbsolutePath().normalize();
+	_preceptorsPath = Paths.get(preceptorsPath).toAbsolutePath().normalize();
+	_writer         = writer;
+	_scorer         = scorer;
+	_threads        = threads;
+
+    } // RosterWatch ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Pair the rosters, and then pair them again whenever either file changes, until interrupted.
+     */
+    public void run () {
+
+	try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+
+	    // Watch the directories, rather than the files, so that a file replaced by an editor's save is still seen.
+	    Set<Path> directories = new HashSet<Path>();
+	    directories.add(_studentsPath.getParent());
+	    directories.add(_preceptorsPath.getParent());
+	    for (Path directory : directories) {
+		directory.register(watcher,
+				   StandardWatchEventKinds.ENTRY_CREATE,
+				   StandardWatchEventKinds.ENTRY_MODIFY,
+				   StandardWatchEventKinds.ENTRY_DELETE);
+	    }
+
+	    pair();
+	    while (true) {
+		if (!changed(watcher.take())) {
+		    continue;
+		}
+		Thread.sleep(_SETTLE_MILLIS);
+		for (WatchKey key = watcher.poll(); key != null; key = watcher.poll()) {
+		    key.pollEvents();
+		    key.reset();
+		}
+		pair();
+	    }
+
+	} catch (IOException e) {
+	    Utility.abort("RosterWatch.run(): Unable to watch the rosters: " + e.getMessage());
+	} catch (InterruptedException | ClosedWatchServiceException e) {
+	    // Interrupted: the watch is over.
+	}
+
+    } // run ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param key A key with events pending.
+     * @return Whether any of its events touched either roster file.
+     */
+    private boolean changed (WatchKey key) {
+
+	boolean changed   = false;
+	Path    directory = (Path)key.watchable();
+	for (WatchEvent<?> event : key.pollEvents()) {
+	    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+		changed = true;
+	    } else {
+		Path path = directory.resolve((Path)event.context());
+		changed |= (path.equals(_studentsPath) || path.equals(_preceptorsPath));
+	    }
+	}
+	key.reset();
+	return changed;
+
+    } // changed ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Read the rosters as they now are, pair them, write the pairings, and summarize what changed since the last pairing.
+     */
+    private void pair () {
+
+	long         start          = System.nanoTime();
+	List<String> studentLines   = readLines(_studentsPath);
+	List<String> preceptorLines = readLines(_preceptorsPath);
+	if (studentLines == null || preceptorLines == null) {
+	    return;
+	}
+
+	// Cull those who cannot be paired, warning only of those read anew.
+	Roster roster = Roster.pairable(_students.update(_studentsPath, studentLines),
+					_preceptors.update(_preceptorsPath, preceptorLines),
+					_students::fresh,
+					_preceptors::fresh);
+
+	// Set aside the pre-matches, leaving a student whose pre-match cannot be honored to be paired like any other.
+	Map<Integer, String> problems = new HashMap<Integer, String>();
+	Roster.Split         split    = roster.split(problems);
+	for (String problem : problems.values()) {
+	    Utility.warning(problem);
+	}
+	List<Student>   free = split.students;
+	List<Preceptor> open = split.preceptors;
+
+	// Copy the costs of those paired the last time, and compute the rest.
+	int[]      rowFrom = indexIn(free, _freeStudents);
+	int[]      colFrom = indexIn(open, _freePreceptors);
+	CostMatrix costs   = new ArrayCostMatrix(free.size(), open.size());
+	int        rows    = 0;
+	int        cols    = 0;
+	double[]   last    = new double[(_costs == null ? 0 : _costs.cols())];
+	for (int i = 0; i < free.size(); i += 1) {
+	    if (rowFrom[i] == -1) {
+		rows += 1;
+	    } else {
+		_costs.readRow(rowFrom[i], last);
+	    }
+	    for (int j = 0; j < open.size(); j += 1) {
+		costs.set(i, j, (rowFrom[i] != -1 && colFrom[j] != -1 ?
+				 last[colFrom[j]] :
+				 _scorer.cost(free.get(i), open.get(j))));
+	    }
+	}
+	for (int j = 0; j < open.size(); j += 1) {
+	    cols += (colFrom[j] == -1 ? 1 : 0);
+	}
+
+	// Solve from where the last solve left off, if there was one.
+	int[]              matches = new int[free.size()];
+	HungarianAlgorithm solver  = null;
+	Arrays.fill(matches, -1);
+	if (!free.isEmpty() && !open.isEmpty()) {
+	    solver  = new HungarianAlgorithm(costs, _threads);
+	    matches = (_solver == null ? solver.execute() : solver.execute(_solver, rowFrom, colFrom));
+	}
+	int[]    preceptorOf = split.preMatchOf.clone();
+	double[] qualities   = new double[preceptorOf.length];
+	for (int k = 0; k < matches.length; k += 1) {
+	    // A pairing that the scorer rules out is made only for want of any other; leave the student unpaired instead.
+	    if (matches[k] != -1 && costs.get(k, matches[k]) < PairScorer._FILTERED_COST) {
+		preceptorOf[split.freeStudents.get(k)] = split.freePreceptors.get(matches[k]);
+		qualities[split.freeStudents.get(k)]   = costs.get(k, matches[k]);
+	    }
+	}
+	MatchResult result  = new MatchResult(roster, preceptorOf, qualities, split.preMatched, false);
+	long        elapsed = System.nanoTime() - start;
+
+	try {
+	    _writer.write(result);
+	} catch (IOException e) {
+	    Utility.abort("RosterWatch.pair(): Unable to write the results: " + e.getMessage());
+	}
+	System.err.printf("Paired in %.1f ms: %d of %d rows and %d of %d columns computed\n",
+			  elapsed / 1e6,
+			  rows,
+			  free.size(),
+			  cols,
+			  open.size());
+	if (_result != null) {
+	    System.err.print(diff(_result, result));
+	}
+
+	_freeStudents   = free;
+	_freePreceptors = open;
+	_costs          = costs;
+	_solver         = solver;
+	_result         = result;
+
+    } // pair ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param path A roster file.
+     * @return Its lines, the header first; or <code>null</code>, with a warning, if it cannot be read or is empty.
+     */
+    private static List<String> readLines (Path path) {
+
+	List<String> lines = new ArrayList<String>();
+	try (BufferedReader reader = RosterInput.open(path.toString())) {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		lines.add(line);
+	    }
+	} catch (IOException e) {
+	    Utility.warning("Unable to read " + path + " (" + e.getMessage() + "); waiting for it to change");
+	    return null;
+	}
+	if (lines.isEmpty()) {
+	    Utility.warning("No lines of data in " + path + "; waiting for it to change");
+	    return null;
+	}
+	return lines;
+
+    } // readLines ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param profiles The profiles now.
+     * @param previous The profiles the last time, or <code>null</code>.
+     * @return The index in <code>previous</code> of each profile, by identity, or <code>-1</code> for one not there.
+     */
+    private static <T> int[] indexIn (List<T> profiles, List<T> previous) {
+
+	Map<T, Integer> indexOf = new IdentityHashMap<T, Integer>();
+	if (previous != null) {
+	    for (int k = 0; k < previous.size(); k += 1) {
+		indexOf.put(previous.get(k), k);
+	    }
+	}
+	int[] from = new int[profiles.size()];
+	for (int k = 0; k < from.length; k += 1) {
+	    Integer index = indexOf.get(profiles.get(k));
+	    from[k] = (index == null ? -1 : index);
+	}
+	return from;
+
+    } // indexIn ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Describe how the pairings changed, student by student (each known by name), in roster order.
+     *
+     * @param previous The last pairings.
+     * @param current  The new pairings.
+     * @return One line counting the changes, and then one line per student added, removed, or paired differently.
+     */
+    private static String diff (MatchResult previous, MatchResult current) {
+
+	Map<String, String> before = pairings(previous);
+	Map<String, String> after  = pairings(current);
+	StringBuilder       lines  = new StringBuilder();
+	int                 count  = 0;
+	for (Student student : current.roster().students()) {
+	    String name = student.getName();
+	    if (!before.containsKey(name)) {
+		lines.append(String.format("  + %s: %s\n", name, after.get(name)));
+		count += 1;
+	    } else if (!before.get(name).equals(after.get(name))) {
+		lines.append(String.format("  ~ %s: %s -> %s\n", name, before.get(name), after.get(name)));
+		count += 1;
+	    }
+	}
+	for (Student student : previous.roster().students()) {
+	    String name = student.getName();
+	    if (!after.containsKey(name)) {
+		lines.append(String.format("  - %s: %s\n", name, before.get(name)));
+		count += 1;
+	    }
+	}
+	return String.format("%d pairing%s changed\n", count, (count == 1 ? "" : "s")) + lines;
+
+    } // diff ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param result Some pairings.
+     * @return The preceptor of each student, and how they were paired, by the student's name.
+     */
+    private static Map<String, String> pairings (MatchResult result) {
+
+	Map<String, String> pairings = new HashMap<String, String>();
+	List<Student>       students = result.roster().students();
+	for (int i = 0; i < students.size(); i += 1) {
+	    Preceptor preceptor = result.preceptor(i);
+	    pairings.put(students.get(i).getName(),
+			 (preceptor == null ? "unpaired" : preceptor.getName() + " (" + result.matchType(i) + ")"));
+	}
+	return pairings;
+
+    } // pairings ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class RosterWatch
+// =================================================================================================================================
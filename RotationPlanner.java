@@ -0,0 +1,324 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * Plans several rotations in one session, each pairing every student with a preceptor they have not had before and, where possible,
+ * in a practice type they have not yet seen.  The rosters are scored once; each rotation then adjusts those base costs by what the
+ * history holds (including the rotations just planned), solves, and records its pairings in the history before the next begins.
+ * <p>
+ *
+ * A repeated preceptor (or one that the scorer rules out) is excluded outright, by a cost prohibitive enough that it is chosen only
+ * when no other pairing is possible, in which case the student is left unpaired.  A repeated practice type is only penalized, by a
+ * fixed amount added to the cost, since a small pool of preceptors may leave no fresh practice type for everyone.  The pre-matches in the rosters hold for the first
+ * rotation planned (unless the history shows them already made); in later ones, those students and preceptors rejoin the pool.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class RotationPlanner {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    private final List<Student>   _students;
+    private final List<Preceptor> _preceptors;
+    private final History         _history;
+
+    /** The cost added to a pairing in a practice type that the student has already had. */
+    private final double          _repeatPenalty;
+
+    /** The cost of each pairing before any adjustment for history, computed once for the session. */
+    private final CostMatrix      _baseCosts;
+
+    /** A cost greater than any assignment of allowed pairings could reach, given to excluded pairings. */
+    private final double          _prohibitive;
+
+    /** Whether each student has had each preceptor, and each practice type (numbered by <code>_practiceOf</code>). */
+    private final boolean[][]     _hadPreceptor;
+    private final boolean[][]     _hadPractice;
+
+    /** The number of each preceptor's practice type. */
+    private final int[]           _practiceOf;
+
+    /** The preceptor pre-matched with each student, or <code>-1</code>. */
+    private final int[]           _preMatchOf;
+
+    /** The rotations planned: each one's number, pairings, and the base cost of each pairing. */
+    private final List<Integer>   _rotationNumbers = new ArrayList<Integer>();
+    private final List<int[]>     _rotationMatches = new ArrayList<int[]>();
+    private final List<double[]>  _rotationCosts   = new ArrayList<double[]>();
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Score the rosters and read what the history says of them.
+     *
+     * @param students      The students, every one of whom is to be paired in every rotation.
+     * @param preceptors    The preceptors.
+     * @param scorer        The scorer that measures each pairing.
+     * @param history       The pairings of earlier rotations, to which those planned here are appended.
+     * @param repeatPenalty The cost added to a pairing in a practice type the student has already had.
+     */
+    public RotationPlanner (List<Student>   students,
+			    List<Preceptor> preceptors,
+			    PairScorer      scorer,
+			    History         history,
+			    double          repeatPenalty) {
+
+	_students      = students;
+	_preceptors    = preceptors;
+	_history       = history;
+	_repeatPenalty = repeatPenalty;
+
+	int rows = students.size();
+	int cols = preceptors.size();
+	_baseCosts = new ArrayCostMatrix(rows, cols);
+	double greatest = 0.0;
+	for (int i = 0; i < rows; i += 1) {
+	    for (int j = 0; j < cols; j += 1) {
+		double cost = scorer.cost(students.get(i), preceptors.get(j));
+		_baseCosts.set(i, j, cost);
+		if (cost < PairScorer._FILTERED_COST) {
+		    greatest = Math.max(greatest, cost);
+		}
+	    }
+	}
+	_prohibitive = (greatest + Math.max(0.0, repeatPenalty) + 1.0) * (Math.max(rows, cols) + 1);
+
+	// Number the practice types, then consult the history once for every pairing; from here on it is tracked by index.
+	Map<String, Integer> practiceNumbers = new HashMap<String, Integer>();
+	_practiceOf = new int[cols];
+	for (int j = 0; j < cols; j += 1) {
+	    String practice = preceptors.get(j).practiceType().trim().toLowerCase();
+	    Integer number  = practiceNumbers.get(practice);
+	    if (number == null) {
+		number = practiceNumbers.size();
+		practiceNumbers.put(practice, number);
+	    }
+	    _practiceOf[j] = number;
+	}
+	_hadPreceptor = new boolean[rows][cols];
+	_hadPractice  = new boolean[rows][practiceNumbers.size()];
+	for (int i = 0; i < rows; i += 1) {
+	    for (int j = 0; j < cols; j += 1) {
+		_hadPreceptor[i][j] = history.paired(students.get(i), preceptors.get(j));
+		if (history.practicedIn(students.get(i), preceptors.get(j))) {
+		    _hadPractice[i][_practiceOf[j]] = true;
+		}
+	    }
+	}
+
+	_preMatchOf = preMatches();
+
+    } // RotationPlanner ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find and verify the pre-matches in the rosters, as <code>Pairer</code> does for a single rotation, ignoring any that the
+     * history already holds.
+     *
+     * @return The preceptor pre-matched with each student, or <code>-1</code>.
+     */
+    private int[] preMatches () {
+
+	int[] preMatchOf = new int[_students.size()];
+	for (int i = 0; i < _students.size(); i += 1) {
+	    preMatchOf[i] = -1;
+	    Student student = _students.get(i);
+	    if (!student.hasPreMatch()) {
+		continue;
+	    }
+	    for (int j = 0; j < _preceptors.size(); j += 1) {
+		Preceptor preceptor = _preceptors.get(j);
+		if (preceptor.hasPreMatch() && student.preMatch().equals(preceptor.getName(false))) {
+		    Utility.abortIfFalse(preceptor.preMatch().equals(student.getName(false)),
+					 "Student (" + student.getName() + ") matched to " + student.preMatch() +
+					 ", but preceptor (" + preceptor.getName() + ") is matched to " + preceptor.preMatch());
+		    // A pre-match already in the history was honored by an earlier session, and is not to be repeated.
+		    preMatchOf[i] = (_hadPreceptor[i][j] ? -2 : j);
+		    break;
+		}
+	    }
+	    Utility.abortIfFalse(preMatchOf[i] != -1, ("Student (" + student.getName() + ") prematched to " +
+						       student.preMatch() + ", but no such preceptor found."));
+	    if (preMatchOf[i] == -2) {
+		preMatchOf[i] = -1;
+	    }
+	}
+	return preMatchOf;
+
+    } // preMatches ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Plan the given number of rotations, numbered on from the last in the history, recording each in the history as it is planned.
+     *
+     * @param count The number of rotations.
+     */
+    public void plan (int count) {
+
+	for (int k = 0; k < count; k += 1) {
+
+	    int        rotation = _history.lastRotation() + 1;
+	    boolean    first    = (k == 0);
+	    CostMatrix costs    = adjusted(first);
+	    int[]      matches  = new HungarianAlgorithm(costs).execute();
+
+	    // A prohibitive pairing was made only for want of any other; leave the student unpaired instead.
+	    double[] baseCosts = new double[matches.length];
+	    for (int i = 0; i < matches.length; i += 1) {
+		if (matches[i] == -1) {
+		    continue;
+		}
+		if (costs.get(i, matches[i]) >= _prohibitive) {
+		    Utility.warning(String.format("Rotation %d: No allowed preceptor remains for student %s",
+						  rotation,
+						  _students.get(i).getName()));
+		    matches[i] = -1;
+		    continue;
+		}
+		baseCosts[i] = (first && _preMatchOf[i] != -1 ? 0.0 : _baseCosts.get(i, matches[i]));
+		_hadPreceptor[i][matches[i]]            = true;
+		_hadPractice[i][_practiceOf[matches[i]]] = true;
+	    }
+
+	    _history.record(rotation, _students, _preceptors, matches);
+	    _rotationNumbers.add(rotation);
+	    _rotationMatches.add(matches);
+	    _rotationCosts.add(baseCosts);
+
+	}
+
+    } // plan ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * A view of the base costs adjusted by the history so far: repeated preceptors excluded, repeated practice types penalized,
+     * and, in the first rotation, every pre-matched student and preceptor restricted to each other.
+     *
+     * @param first Whether this is the first rotation of the session.
+     * @return The adjusted costs.
+     */
+    private CostMatrix adjusted (final boolean first) {
+
+	final int   rows         = _students.size();
+	final int   cols         = _preceptors.size();
+	final int[] preMatchedBy = new int[cols];
+	Arrays.fill(preMatchedBy, -1);
+	if (first) {
+	    for (int i = 0; i < rows; i += 1) {
+		if (_preMatchOf[i] != -1) {
+		    preMatchedBy[_preMatchOf[i]] = i;
+		}
+	    }
+	}
+
+	return new CostMatrix () {
+
+	    public int rows () {
+		return rows;
+	    }
+
+	    public int cols () {
+		return cols;
+	    }
+
+	    public double get (int row, int col) {
+
+		if (first && (_preMatchOf[row] != -1 || preMatchedBy[col] != -1)) {
+		    return (_preMatchOf[row] == col ? 0.0 : _prohibitive);
+		}
+		double cost = _baseCosts.get(row, col);
+		if (_hadPreceptor[row][col] || cost >= PairScorer._FILTERED_COST) {
+		    return _prohibitive;
+		}
+		return (_hadPractice[row][_practiceOf[col]] ? cost + _repeatPenalty : cost);
+
+	    }
+
+	    public void set (int row, int col, double cost) {
+		Utility.abort("RotationPlanner.adjusted(): The adjusted costs are not to be changed");
+	    }
+
+	};
+
+    } // adjusted ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Write (to <code>stdout</code>) the pairings of every rotation planned, in the same forms as <code>Pairer</code> writes a
+     * single rotation's, with the rotation's number first.  The lines are gathered and written at once, rather than one at a time.
+     *
+     * @param csv Whether to write semicolon-delimited CSV rather than the human-readable form.
+     */
+    public void emit (boolean csv) {
+
+	StringBuilder text = new StringBuilder();
+	if (csv) {
+	    text.append("ROTATION;STUDENT NAME;MATCH TYPE;PRECEPTOR NAME;LOCATION;PRACTICE TYPE;MEETING DAY;MATCH QUALITY\n");
+	}
+	for (int r = 0; r < _rotationNumbers.size(); r += 1) {
+	    int[]    matches = _rotationMatches.get(r);
+	    double[] costs   = _rotationCosts.get(r);
+	    for (int i = 0; i < matches.length; i += 1) {
+		Student   student   = _students.get(i);
+		Preceptor preceptor = (matches[i] == -1 ? null : _preceptors.get(matches[i]));
+		String    matchType = (preceptor == null ? "unm" : (r == 0 && _preMatchOf[i] != -1 ? "pre" : "alg"));
+		if (csv) {
+		    text.append(String.format("%d;\"%s\";%s;\"%s\";%s;%s;%s;%.4f\n",
+					      _rotationNumbers.get(r),
+					      student.getName(),
+					      matchType,
+					      (preceptor == null ? "None" : preceptor.getName()),
+					      (preceptor == null ? "N/A"  : preceptor.location()),
+					      (preceptor == null ? "N/A"  : preceptor.practiceType()),
+					      (preceptor == null ? "N/A"  : preceptor.preferredDay()),
+					      costs[i]));
+		} else {
+		    text.append(String.format("%3d [%s]%40s\t%40s\t%2.4f\n",
+					      _rotationNumbers.get(r),
+					      matchType,
+					      student.getName(),
+					      (preceptor == null ? "None" : preceptor.getName()),
+					      costs[i]));
+		}
+	    }
+	}
+	System.out.print(text);
+	System.out.flush();
+
+    } // emit ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class RotationPlanner
+// =================================================================================================================================
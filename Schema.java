@@ -0,0 +1,181 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.List;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * The mapping from the columns of a roster file to the fields of a record, worked out once from the file's header.  Each field is
+ * known by one or more names, compared without regard to case, spaces, or punctuation (so that <i>Pre-Matched</i> and
+ * <i>prematched</i> are the same name), and may lie in any column.  A header that names every required field in the usual order
+ * (or that does not name them all, as a file from before headers were read might not) leaves the columns as they are, so that the
+ * usual layout costs nothing to arrange.  A header that leaves a required field unnamed is noted (see <code>problem()</code>)
+ * for the reader to report as it sees fit.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class Schema {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The column holding each field, or <code>-1</code> for an optional field that the header does not name. */
+    private final int[]   _columnOf;
+
+    /** Whether every field lies in the column of its own index, so that records need no arranging. */
+    private final boolean _positional;
+
+    /** The number of columns a record must have to hold every required field. */
+    private final int     _columns;
+
+    /** The number of fields in an arranged record: the required ones, and then every optional one that the header names. */
+    private final int     _fields;
+
+    /** Why the header cannot be trusted, or <code>null</code> if it names every required field. */
+    private final String  _problem;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Map the columns named by a header to the fields of a record.
+     *
+     * @param kind     What the records describe, for messages (e.g., <code>student</code>).
+     * @param header   The fields of the header line, as split from it.
+     * @param names    The names by which each field may be known, in the order of the fields; the first is the usual one.
+     * @param required The number of fields, from the first, that every record must have.  Those after it are optional.
+     */
+    public Schema (String kind, String[] header, String[][] names, int required) {
+
+	List<String> columns = new ArrayList<String>();
+	for (String column : header) {
+	    columns.add(normalize(column));
+	}
+
+	int[]        columnOf = new int[names.length];
+	List<String> missing  = new ArrayList<String>();
+	for (int field = 0; field < names.length; field += 1) {
+	    columnOf[field] = -1;
+	    for (int alias = 0; alias < names[field].length && columnOf[field] == -1; alias += 1) {
+		columnOf[field] = columns.indexOf(normalize(names[field][alias]));
+	    }
+	    if (columnOf[field] == -1 && field < required) {
+		missing.add(names[field][0]);
+	    }
+	}
+
+	// Without every required field named, the header cannot be trusted, so fall back on the usual positions.
+	_problem = (missing.isEmpty()
+		    ? null
+		    : String.format("The %s header does not name %s; reading the columns in the usual order", kind, missing));
+	boolean positional = true;
+	for (int field = 0; field < names.length; field += 1) {
+	    if (columnOf[field] != -1 && columnOf[field] != field) {
+		positional = false;
+	    }
+	}
+	_positional = (positional || !missing.isEmpty());
+
+	if (_positional) {
+	    _columnOf = null;
+	    _columns  = required;
+	    _fields   = required;
+	} else {
+	    int fields        = required;
+	    int columnsNeeded = 0;
+	    for (int field = 0; field < names.length; field += 1) {
+		if (field < required) {
+		    columnsNeeded = Math.max(columnsNeeded, columnOf[field] + 1);
+		} else if (columnOf[field] != -1) {
+		    fields = field + 1;
+		}
+	    }
+	    _columnOf = columnOf;
+	    _columns  = columnsNeeded;
+	    _fields   = fields;
+	}
+
+    } // Schema ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param name A column or field name.
+     * @return The name in lower case, with everything but letters and digits removed.
+     */
+    private static String normalize (String name) {
+
+	StringBuilder normal = new StringBuilder(name.length());
+	for (int i = 0; i < name.length(); i += 1) {
+	    char c = name.charAt(i);
+	    if (Character.isLetterOrDigit(c)) {
+		normal.append(Character.toLowerCase(c));
+	    }
+	}
+	return normal.toString();
+
+    } // normalize ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return Why the header cannot be trusted, namely the required fields that it does not name, for the reader to report; or
+     *         <code>null</code> if it names them all.
+     */
+    public String problem () {
+	return _problem;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The least number of columns that a record may have. */
+    public int columns () {
+	return _columns;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Put the columns of a record into the order of its fields.  With the usual layout the columns are returned as they are, any
+     * beyond the required ones included; otherwise an optional field that lies beyond the end of a short record is empty.
+     *
+     * @param columns The record's columns, at least <code>columns()</code> of them.
+     * @return The record's fields.
+     */
+    public String[] arrange (String[] columns) {
+
+	if (_positional) {
+	    return columns;
+	}
+	String[] fields = new String[_fields];
+	for (int field = 0; field < _fields; field += 1) {
+	    int column = _columnOf[field];
+	    fields[field] = (column != -1 && column < columns.length ? columns[column] : "");
+	}
+	return fields;
+
+    } // arrange ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class Schema
+// =================================================================================================================================
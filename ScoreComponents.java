@@ -0,0 +1,172 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.List;
+import java.util.stream.IntStream;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * The unweighted components of every student's match quality with every preceptor (see <code>Student.crossComponents()</code>),
+ * each held as its own column of floats.  Computing them is the expensive part of scoring; once they are held, the score for any
+ * vector of weights is just a weighted sum of columns, so many weightings can be compared for little more than the cost of one.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class ScoreComponents {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The number of students (rows). */
+    private final int       _rows;
+
+    /** The number of preceptors (columns). */
+    private final int       _cols;
+
+    /**
+     * One column per component, each holding that component for every pairing in row-major order: the pairing of student
+     * <i>i</i> with preceptor <i>j</i> is at <code>i * _cols + j</code>.
+     */
+    private final float[][] _columns;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Compute the components for every pairing of the given students and preceptors, spreading the students across all cores.
+     *
+     * @param students   The students, one per row.
+     * @param preceptors The preceptors, one per column.
+     */
+    public ScoreComponents (final List<Student> students, final List<Preceptor> preceptors) {
+
+	_rows    = students.size();
+	_cols    = preceptors.size();
+	_columns = new float[Student._numberComponents][_rows * _cols];
+	IntStream.range(0, _rows).parallel().forEach(i -> {
+		double[] components = new double[Student._numberComponents];
+		Student  student    = students.get(i);
+		for (int j = 0; j < _cols; j += 1) {
+		    student.crossComponents(preceptors.get(j), components);
+		    for (int c = 0; c < Student._numberComponents; c += 1) {
+			_columns[c][i * _cols + j] = (float)components[c];
+		    }
+		}
+	    });
+
+    } // ScoreComponents ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Make room for the components of every pairing of the given numbers of students and preceptors, to be recorded one pairing at
+     * a time with <code>record()</code> by whoever measures them (as <code>Pairer</code> does while building its cost matrix).
+     *
+     * @param rows The number of students.
+     * @param cols The number of preceptors.
+     */
+    public ScoreComponents (int rows, int cols) {
+
+	_rows    = rows;
+	_cols    = cols;
+	_columns = new float[Student._numberComponents][_rows * _cols];
+
+    } // ScoreComponents ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int rows () {
+	return _rows;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int cols () {
+	return _cols;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param component The component, such as <code>Student._PRACTICE_COMPONENT</code>.
+     * @param row       The student's index.
+     * @param col       The preceptor's index.
+     * @return The unweighted quality of the pairing on that component.
+     */
+    public double component (int component, int row, int col) {
+	return _columns[component][row * _cols + col];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param row        The student's index.
+     * @param col        The preceptor's index.
+     * @param components The unweighted quality of the pairing on each component, as <code>Student.crossComponents()</code> gives.
+     */
+    public void record (int row, int col, double[] components) {
+
+	int at = row * _cols + col;
+	for (int c = 0; c < Student._numberComponents; c += 1) {
+	    _columns[c][at] = (float)components[c];
+	}
+
+    } // record ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Build the cost matrix for a given weighting.  Each cost is the inverse of the weighted sum of components, as with
+     * <code>PairScorer.cost()</code>, and so a pairing that the weighting scores at zero costs
+     * <code>PairScorer._FILTERED_COST</code> rather than an infinity that would poison the solver's arithmetic.
+     *
+     * @param weights The weight of each component, indexed as for <code>Student.combine()</code>.
+     * @return The matrix of costs.
+     */
+    public CostMatrix costs (double[] weights) {
+
+	double[][] costs = new double[_rows][_cols];
+	for (int i = 0; i < _rows; i += 1) {
+	    double[] row = costs[i];
+	    int      at  = i * _cols;
+	    for (int c = 0; c < Student._numberComponents; c += 1) {
+		float[] column = _columns[c];
+		double  weight = weights[c];
+		for (int j = 0; j < _cols; j += 1) {
+		    row[j] += column[at + j] * weight;
+		}
+	    }
+	    for (int j = 0; j < _cols; j += 1) {
+		row[j] = PairScorer.inverse(row[j]);
+	    }
+	}
+	return new ArrayCostMatrix(costs);
+
+    } // costs ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class ScoreComponents
+// =================================================================================================================================
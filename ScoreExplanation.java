@@ -0,0 +1,292 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.List;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * Answers to the question of why a student and a preceptor scored as they did, drawn from the components of match quality that
+ * were recorded as the cost matrix was built (see <code>ScoreComponents</code>), so that nothing is measured again and nothing
+ * need be printed while matching.  A query names a student, for the breakdown of the student's own pairing and the best of the
+ * preceptors that the student might have had instead; or a student and a preceptor, separated by <code>/</code>, for the
+ * breakdown of that one pairing.  Several queries may be given at once, separated by <code>;</code>.  Names may be given either as
+ * <i>Last, First</i> or as <i>First Last</i>, in any case.
+ * <p>
+ *
+ * Only the students and preceptors paired by score are explained; a pre-matched student was not scored against anyone.  When the
+ * run's constraints (<code>-hard</code> or <code>-days</code>) allowed only some pairings, only those are offered as alternatives
+ * or counted in a pairing's standing, and a pairing that they forbade is marked as such.  The components are held as floats, so
+ * the totals given here agree with those of the matching to about seven digits.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class ScoreExplanation {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The students and preceptors paired by score, indexed as the components are. */
+    private final List<Student>   _students;
+    private final List<Preceptor> _preceptors;
+
+    /** The components of every pairing of them, and the weights with which they were combined. */
+    private final ScoreComponents _components;
+    private final double[]        _weights;
+
+    /** The commutes, if they were scored, and the weight they were given; otherwise <code>null</code>. */
+    private final CommuteTable    _commute;
+    private final double          _commuteWeight;
+
+    /** The preceptor with which each student was paired, or <code>-1</code> if none. */
+    private final int[]           _matches;
+
+    /** The pairings that the run allowed, or <code>null</code> if it allowed every one. */
+    private final SparseCostGraph _allowed;
+
+    /** The names of the components, indexed as they are. */
+    private static final String[] _COMPONENT_NAMES = { "practice", "setting", "gender", "spanish" };
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param students      The students paired by score, one per row of the components.
+     * @param preceptors    The preceptors available to them, one per column.
+     * @param components    The components of every pairing.
+     * @param weights       The weight of each component, indexed as for <code>Student.combine()</code>.
+     * @param commute       The commutes, or <code>null</code> if they were not scored.
+     * @param commuteWeight The weight given to the quality of a commute.
+     * @param matches       The preceptor with which each student was paired, or <code>-1</code> if none.
+     * @param allowed       The pairings that the run's constraints allowed (see <code>SparseCostGraph.allowed()</code>), or
+     *                      <code>null</code> if it allowed every one.
+     */
+    public ScoreExplanation (List<Student>   students,
+			     List<Preceptor> preceptors,
+			     ScoreComponents components,
+			     double[]        weights,
+			     CommuteTable    commute,
+			     double          commuteWeight,
+			     int[]           matches,
+			     SparseCostGraph allowed) {
+
+	_students      = students;
+	_preceptors    = preceptors;
+	_components    = components;
+	_weights       = weights.clone();
+	_commute       = commute;
+	_commuteWeight = commuteWeight;
+	_matches       = matches;
+	_allowed       = allowed;
+
+    } // ScoreExplanation ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Answer one or more queries.
+     *
+     * @param query        The queries, separated by <code>;</code>: each a student's name, or a student's and a preceptor's,
+     *                     separated by <code>/</code>.
+     * @param alternatives The number of alternatives to give for a student's own pairing.
+     * @return The answers, one or more lines each.
+     */
+    public String explain (String query, int alternatives) {
+
+	StringBuilder answer = new StringBuilder();
+	for (String one : query.split(";")) {
+	    String[] names = one.split("/", 2);
+	    int      i     = indexOf(_students, names[0]);
+	    if (i == -1) {
+		answer.append(String.format("No student paired by score is named %s\n", names[0].trim()));
+		continue;
+	    }
+	    if (names.length == 2) {
+		int j = indexOf(_preceptors, names[1]);
+		if (j == -1) {
+		    answer.append(String.format("No preceptor available to be paired by score is named %s\n", names[1].trim()));
+		    continue;
+		}
+		describe(answer, i, j);
+	    } else if (_matches[i] == -1) {
+		answer.append(String.format("%s is unpaired\n", _students.get(i).getName()));
+		best(answer, i, alternatives);
+	    } else {
+		describe(answer, i, _matches[i]);
+		best(answer, i, alternatives);
+	    }
+	}
+	return answer.toString();
+
+    } // explain ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param people Students or preceptors.
+     * @param name   A name, as <i>Last, First</i> or <i>First Last</i>.
+     * @return The index of the first so named, or <code>-1</code> if none is.
+     */
+    private static int indexOf (List<?> people, String name) {
+
+	name = name.trim();
+	for (int k = 0; k < people.size(); k += 1) {
+	    Object person = people.get(k);
+	    String last   = (person instanceof Student ? ((Student)person).getName(true)  : ((Preceptor)person).getName(true));
+	    String first  = (person instanceof Student ? ((Student)person).getName(false) : ((Preceptor)person).getName(false));
+	    if (name.equalsIgnoreCase(last) || name.equalsIgnoreCase(first)) {
+		return k;
+	    }
+	}
+	return -1;
+
+    } // indexOf ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return The quality of the pairing of the <i>i</i>-th student with the <i>j</i>-th preceptor, combined from its components.
+     */
+    private double total (int i, int j) {
+
+	double total = 0.0;
+	for (int c = 0; c < Student._numberComponents; c += 1) {
+	    total += _components.component(c, i, j) * _weights[c];
+	}
+	if (_commute != null) {
+	    total += _commuteWeight * _commute.quality(_students.get(i), _preceptors.get(j));
+	}
+	return total;
+
+    } // total ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return Whether the run allowed the pairing of the <i>i</i>-th student with the <i>j</i>-th preceptor.
+     */
+    private boolean allowed (int i, int j) {
+	return (_allowed == null || !Double.isNaN(_allowed.cost(i, j)));
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Append the breakdown of one pairing: each component, its weight, and what it contributed; the total; and where the pairing
+     * stands among all of the student's allowed pairings.
+     */
+    private void describe (StringBuilder answer, int i, int j) {
+
+	Student   student   = _students.get(i);
+	Preceptor preceptor = _preceptors.get(j);
+	answer.append(String.format("%s with %s (%s):\n",
+				    student.getName(),
+				    preceptor.getName(),
+				    (_matches[i] == j ? "paired" : (allowed(i, j) ? "not paired" : "not allowed by the constraints"))));
+	answer.append(String.format("    %-10s %10s %10s %12s\n", "component", "quality", "weight", "contribution"));
+	for (int c = 0; c < Student._numberComponents; c += 1) {
+	    double quality = _components.component(c, i, j);
+	    answer.append(String.format("    %-10s %10.4f %10.4f %12.4f\n",
+					_COMPONENT_NAMES[c],
+					quality,
+					_weights[c],
+					quality * _weights[c]));
+	}
+	if (_commute != null) {
+	    double quality = _commute.quality(student, preceptor);
+	    answer.append(String.format("    %-10s %10.4f %10.4f %12.4f\n",
+					"commute",
+					quality,
+					_commuteWeight,
+					quality * _commuteWeight));
+	}
+
+	double total   = total(i, j);
+	int    better  = 0;
+	int    choices = 0;
+	for (int k = 0; k < _preceptors.size(); k += 1) {
+	    if (allowed(i, k)) {
+		better  += (total(i, k) > total ? 1 : 0);
+		choices += 1;
+	    }
+	}
+	if (allowed(i, j)) {
+	    answer.append(String.format("    %-10s %10s %10s %12.4f  (best %d of %d for this student)\n",
+					"total", "", "", total, better + 1, choices));
+	} else {
+	    answer.append(String.format("    %-10s %10s %10s %12.4f  (better than %d of %d allowed for this student)\n",
+					"total", "", "", total, choices - better, choices));
+	}
+
+    } // describe ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Append the preceptors with whom a student would have scored best, other than the one with whom the student was paired, among
+     * those that the run allowed.
+     */
+    private void best (StringBuilder answer, int i, int count) {
+
+	// Keep the best few seen so far, best first.
+	int[]    best   = new int[Math.min(count, _preceptors.size())];
+	double[] totals = new double[best.length];
+	int      kept   = 0;
+	for (int j = 0; j < _preceptors.size(); j += 1) {
+	    if (j == _matches[i] || !allowed(i, j)) {
+		continue;
+	    }
+	    double total = total(i, j);
+	    if (kept == best.length && total <= totals[kept - 1]) {
+		continue;
+	    }
+	    int at = Math.min(kept, best.length - 1);
+	    while (at > 0 && totals[at - 1] < total) {
+		best[at]   = best[at - 1];
+		totals[at] = totals[at - 1];
+		at -= 1;
+	    }
+	    best[at]   = j;
+	    totals[at] = total;
+	    kept       = Math.min(kept + 1, best.length);
+	}
+
+	answer.append(String.format("  Best alternatives:\n"));
+	for (int k = 0; k < kept; k += 1) {
+	    StringBuilder components = new StringBuilder();
+	    for (int c = 0; c < Student._numberComponents; c += 1) {
+		components.append(String.format("%s%s %.4f",
+						(c == 0 ? "" : ", "),
+						_COMPONENT_NAMES[c],
+						_components.component(c, i, best[k])));
+	    }
+	    answer.append(String.format("    %-30s %10.4f  (%s)\n", _preceptors.get(best[k]).getName(), totals[k], components));
+	}
+
+    } // best ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class ScoreExplanation
+// =================================================================================================================================
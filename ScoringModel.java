@@ -0,0 +1,251 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A scoring model read from a configuration file, so that the terms of <code>Student.cross()</code> can be changed without
+ * recompiling.  The file is a Java properties file; every key is optional, and any key not given takes the value that reproduces
+ * the hand-written scorer exactly:
+ *
+ * <pre>
+ *   weight.practice  = 0.6        # The weight of each component; a weight of 0 drops the component entirely.
+ *   weight.setting   = 0.2
+ *   weight.gender    = 0.2
+ *   weight.spanish   = 0.2
+ *   decay            = inverse    # How a rank r is valued: inverse (1/r), exponential (base^(r-1)), or linear ((n-r+1)/n).
+ *   decay.base       = 0.5        # The base of the exponential decay.
+ *   credit.gender.none    = 0.25  # The credit given when the preceptor has no gender preference,
+ *   credit.gender.match   = 1.0   #   when the preference is met,
+ *   credit.spanish.none   = 0.25  # and likewise for the need for a Spanish speaker.
+ *   credit.spanish.match  = 1.0
+ *   filter.gender    = false      # Whether an unmet preference rules a pairing out entirely (a score of 0).
+ *   filter.spanish   = false
+ * </pre>
+ *
+ * A key not listed above is warned of and ignored, and a filter must be either <code>true</code> or <code>false</code>, so that
+ * a misspelling cannot silently leave a setting at its default.
+ * <p>
+ *
+ * The model is compiled once, by <code>compile()</code>, into a <code>PairScorer</code> in which every choice above has already
+ * been made: rank values are looked up in a precomputed table, and absent terms cost nothing.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class ScoringModel {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The weight of each component, indexed as for <code>Student.combine()</code>. */
+    private final double[] _weights = Student.defaultWeights();
+
+    /** The value of each rank, indexed by the rank itself (so entry 0 is unused). */
+    private final double[] _rankValues;
+
+    private final double   _genderNoneCredit;
+    private final double   _genderMatchCredit;
+    private final double   _spanishNoneCredit;
+    private final double   _spanishMatchCredit;
+    private final boolean  _filterGender;
+    private final boolean  _filterSpanish;
+
+    /** Every key that a model may set. */
+    private static final List<String> _KEYS = Arrays.asList("weight.practice", "weight.setting", "weight.gender", "weight.spanish",
+							    "decay", "decay.base",
+							    "credit.gender.none", "credit.gender.match",
+							    "credit.spanish.none", "credit.spanish.match",
+							    "filter.gender", "filter.spanish");
+
+    /** The largest rank that any student may give, which bounds the rank-value table. */
+    private static final int _MAX_RANK = Math.max(Student._numberPracticeFields, Student._numberSettingFields);
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Construct a model from the given properties, substituting the hand-written scorer's values for any absent.
+     *
+     * @param properties The configuration.
+     */
+    public ScoringModel (Properties properties) {
+
+	for (String key : properties.stringPropertyNames()) {
+	    if (!_KEYS.contains(key)) {
+		Utility.warning("ScoringModel: Ignoring unknown key " + key);
+	    }
+	}
+
+	_weights[Student._PRACTICE_COMPONENT] = number(properties, "weight.practice", _weights[Student._PRACTICE_COMPONENT]);
+	_weights[Student._SETTING_COMPONENT]  = number(properties, "weight.setting",  _weights[Student._SETTING_COMPONENT]);
+	_weights[Student._GENDER_COMPONENT]   = number(properties, "weight.gender",   _weights[Student._GENDER_COMPONENT]);
+	_weights[Student._SPANISH_COMPONENT]  = number(properties, "weight.spanish",  _weights[Student._SPANISH_COMPONENT]);
+
+	_rankValues = new double[_MAX_RANK + 1];
+	String decay = properties.getProperty("decay", "inverse").trim();
+	double base  = number(properties, "decay.base", 0.5);
+	for (int rank = 1; rank <= _MAX_RANK; rank += 1) {
+	    if (decay.equalsIgnoreCase("inverse")) {
+		_rankValues[rank] = 1.0 / rank;
+	    } else if (decay.equalsIgnoreCase("exponential")) {
+		_rankValues[rank] = Math.pow(base, rank - 1);
+	    } else if (decay.equalsIgnoreCase("linear")) {
+		_rankValues[rank] = (double)(_MAX_RANK - rank + 1) / _MAX_RANK;
+	    } else {
+		Utility.abort("ScoringModel: Unknown rank decay: " + decay);
+	    }
+	}
+
+	_genderNoneCredit   = number(properties, "credit.gender.none",   0.25);
+	_genderMatchCredit  = number(properties, "credit.gender.match",  1.0);
+	_spanishNoneCredit  = number(properties, "credit.spanish.none",  0.25);
+	_spanishMatchCredit = number(properties, "credit.spanish.match", 1.0);
+	_filterGender       = flag(properties, "filter.gender",  false);
+	_filterSpanish      = flag(properties, "filter.spanish", false);
+
+    } // ScoringModel ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Read a model from a configuration file.
+     *
+     * @param path The properties file.
+     * @return The model described.
+     */
+    public static ScoringModel load (String path) {
+
+	Properties properties = new Properties();
+	try (FileReader reader = new FileReader(path)) {
+	    properties.load(reader);
+	} catch (IOException e) {
+	    Utility.abort("ScoringModel.load(): Unable to read " + path + ": " + e.getMessage());
+	}
+	return new ScoringModel(properties);
+
+    } // load ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Compile this model into a scorer.  The terms are combined in the same order, and with the same arithmetic, as in
+     * <code>Student.cross()</code>, so that the default model reproduces it to the last bit.
+     *
+     * @return The scorer.
+     */
+    public PairScorer compile () {
+
+	// Copy everything into locals so that the scorer holds constants rather than reaching back into this model.
+	final double[] rankValues         = _rankValues.clone();
+	final double   practiceWeight     = _weights[Student._PRACTICE_COMPONENT];
+	final double   settingWeight      = _weights[Student._SETTING_COMPONENT];
+	final double   genderWeight       = _weights[Student._GENDER_COMPONENT];
+	final double   spanishWeight      = _weights[Student._SPANISH_COMPONENT];
+	final boolean  usePractice        = (practiceWeight != 0.0);
+	final boolean  useSetting         = (settingWeight  != 0.0);
+	final double   genderNoneCredit   = _genderNoneCredit;
+	final double   genderMatchCredit  = _genderMatchCredit;
+	final double   spanishNoneCredit  = _spanishNoneCredit;
+	final double   spanishMatchCredit = _spanishMatchCredit;
+	final boolean  filterGender       = _filterGender;
+	final boolean  filterSpanish      = _filterSpanish;
+
+	return (student, preceptor) -> {
+
+	    // Gender and Spanish are cheap, so settle them (and any filter they trigger) first.
+	    double genderMatchQuality = genderNoneCredit;
+	    if (preceptor.hasGenderPreference()) {
+		genderMatchQuality = (preceptor.prefersFemale() == student.isFemale() ? genderMatchCredit : 0.0);
+		if (filterGender && genderMatchQuality == 0.0) {
+		    return 0.0;
+		}
+	    }
+	    double spanishMatchQuality = spanishNoneCredit;
+	    if (preceptor.prefersSpanish()) {
+		spanishMatchQuality = (student.speaksSpanish() ? spanishMatchCredit : 0.0);
+		if (filterSpanish && spanishMatchQuality == 0.0) {
+		    return 0.0;
+		}
+	    }
+
+	    double practiceMatchQuality = 0.0;
+	    if (usePractice) {
+		for (int i = 0; i < Student._numberPracticeFields; i += 1) {
+		    practiceMatchQuality += rankValues[student.getPracticeRank(i)] * preceptor.getPracticeMask(i);
+		}
+	    }
+	    double settingMatchQuality = 0.0;
+	    if (useSetting) {
+		for (int i = 0; i < Student._numberSettingFields; i += 1) {
+		    settingMatchQuality += rankValues[student.getSettingRank(i)] * preceptor.getSettingMask(i);
+		}
+	    }
+
+	    return ((practiceMatchQuality * practiceWeight) +
+		    (settingMatchQuality  * settingWeight ) +
+		    (genderMatchQuality   * genderWeight  ) +
+		    (spanishMatchQuality  * spanishWeight ));
+
+	};
+
+    } // compile ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static double number (Properties properties, String key, double defaultValue) {
+
+	String text = properties.getProperty(key);
+	if (text == null) {
+	    return defaultValue;
+	}
+	try {
+	    return Double.parseDouble(text.trim());
+	} catch (NumberFormatException e) {
+	    Utility.abort("ScoringModel: Unable to parse " + key + " = " + text);
+	    return defaultValue;
+	}
+
+    } // number ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static boolean flag (Properties properties, String key, boolean defaultValue) {
+
+	String text = properties.getProperty(key);
+	if (text == null) {
+	    return defaultValue;
+	}
+	if (!text.trim().equalsIgnoreCase("true") && !text.trim().equalsIgnoreCase("false")) {
+	    Utility.abort("ScoringModel: " + key + " must be true or false, not " + text);
+	}
+	return text.trim().equalsIgnoreCase("true");
+
+    } // flag ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class ScoringModel
+// =================================================================================================================================
@@ -0,0 +1,578 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A minimum-cost assignment over a sparse graph of allowed pairings, for use when hard constraints forbid some pairings outright.
+ * Of all the assignments that pair as many rows as the allowed pairings permit, it finds one of least total cost.
+ * <p>
+ *
+ * The method is that of successive shortest paths: the cheapest augmenting path from any unpaired row is found by Dijkstra's
+ * algorithm and the matching flipped along it, until no augmenting path remains.  Dual potentials on rows and columns keep every
+ * reduced cost non-negative, so that Dijkstra's algorithm applies, and the work per path is proportional to the allowed pairings
+ * examined rather than to the full rows-by-columns matrix.  When there are more rows than
+ * columns, the transposed graph is solved instead, so that every path begins on the smaller side.  When every row can be paired,
+ * as many as the cheapest edges allow are paired at the start, and each search then begins from a single unpaired row.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class SparseAssignment implements AssignmentSolver {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The graph as given. */
+    private final SparseCostGraph _graph;
+
+    /** The graph as solved, with rows on the smaller side. */
+    private final SparseCostGraph _oriented;
+
+    /** The number of augmenting paths found, not counting any pairs taken greedily at the start. */
+    private int                   _augmentations;
+
+    /** The potentials of the rows and of the columns of the graph as solved, once solved. */
+    private double[]              _leftPotential;
+    private double[]              _rightPotential;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param graph The allowed pairings and their costs.
+     */
+    public SparseAssignment (SparseCostGraph graph) {
+
+	_graph    = graph;
+	_oriented = (graph.rows() > graph.cols() ? graph.transpose() : graph);
+
+    } // SparseAssignment ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Find the assignment.
+     *
+     * @return The column assigned to each row, or <code>-1</code> for a row left unassigned.
+     */
+    public int[] execute () {
+
+	int[] matchOfLeft = solve(_oriented);
+	if (_oriented == _graph) {
+	    return matchOfLeft;
+	}
+
+	int[] matches = new int[_graph.rows()];
+	Arrays.fill(matches, -1);
+	for (int j = 0; j < matchOfLeft.length; j += 1) {
+	    if (matchOfLeft[j] != -1) {
+		matches[matchOfLeft[j]] = j;
+	    }
+	}
+	return matches;
+
+    } // execute ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of augmenting paths that <code>execute()</code> searched out beyond its greedy start. */
+    public int augmentations () {
+	return _augmentations;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The dual of each row, as left by <code>execute()</code>.  No allowed pairing costs less than the sum of its row's and its
+     * column's duals, every pairing made costs exactly that, and the duals of the larger side are zero where unpaired and negative
+     * at most where paired.  When every row or column of the smaller side is paired, they certify that the assignment is optimal
+     * (see <code>Certificate</code>); otherwise they certify only that each matching found along the way was the cheapest of its
+     * size.
+     *
+     * @return The dual of each row of the graph as given.
+     */
+    public double[] dualsByRow () {
+	return (_oriented == _graph ? _leftPotential : _rightPotential).clone();
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The dual of each column of the graph as given; see <code>dualsByRow()</code>. */
+    public double[] dualsByColumn () {
+	return (_oriented == _graph ? _rightPotential : _leftPotential).clone();
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Check an assignment against the duals; see <code>dualsByRow()</code> for when they suffice to certify it.
+     *
+     * @param matches The assignment returned by <code>execute()</code>.
+     * @return The check.
+     */
+    public Certificate certify (int[] matches) {
+	return Certificate.check(_graph, matches, dualsByRow(), dualsByColumn());
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Solve a graph with no more rows than columns.
+     *
+     * @param graph The graph.
+     * @return The column assigned to each row, or <code>-1</code>.
+     */
+    private int[] solve (SparseCostGraph graph) {
+
+	int      rows         = graph.rows();
+	int      cols         = graph.cols();
+	int[]    offsets      = graph.offsets();
+	int[]    targets      = graph.targets();
+	double[] costs        = graph.costs();
+	int[]    matchOfLeft  = new int[rows];
+	int[]    matchOfRight = new int[cols];
+	Arrays.fill(matchOfLeft,  -1);
+	Arrays.fill(matchOfRight, -1);
+
+	// The reduced cost of an edge is its cost less the potentials of its endpoints.  Starting each row at its cheapest edge and
+	// each column at zero makes every reduced cost non-negative, and each row's cheapest edge tight.  When every row can be
+	// paired, those tight edges may be taken greedily.  When some cannot, which rows go unpaired is itself a choice of cost, and
+	// only an empty start guarantees that each matching along the way is the cheapest of its size.
+	boolean  greedy       = (new HopcroftKarp(rows, cols, offsets, targets).execute() == rows);
+	if (greedy && rows < cols && (long) (cols - rows) * cols <= offsets[rows]) {
+	    return padded(graph);
+	}
+	double[] rowPotential = new double[rows];
+	double[] colPotential = new double[cols];
+	_leftPotential  = rowPotential;
+	_rightPotential = colPotential;
+	double   sourcePotential = Double.POSITIVE_INFINITY;
+	for (int i = 0; i < rows; i += 1) {
+	    int cheapest = -1;
+	    for (int e = offsets[i]; e < offsets[i + 1]; e += 1) {
+		if (cheapest == -1 || costs[e] < costs[cheapest]) {
+		    cheapest = e;
+		}
+	    }
+	    if (cheapest != -1) {
+		rowPotential[i] = costs[cheapest];
+		sourcePotential = Math.min(sourcePotential, rowPotential[i]);
+		if (greedy && matchOfRight[targets[cheapest]] == -1) {
+		    matchOfLeft[i]                   = targets[cheapest];
+		    matchOfRight[targets[cheapest]] = i;
+		}
+	    }
+	}
+	if (sourcePotential == Double.POSITIVE_INFINITY) {
+	    return matchOfLeft;
+	}
+	if (greedy) {
+	    reduce(offsets, targets, costs, rowPotential, colPotential, matchOfLeft, matchOfRight);
+	}
+
+	// The searches run from a virtual source joined to every unpaired row, each of which starts at the source's potential plus
+	// its own; the source's potential keeps the least of those starts at zero and none below.
+	sourcePotential = -sourcePotential;
+	double[] distance  = new double[cols];
+	int[]    reachedBy = new int[cols];
+	int[]    settled   = new int[cols];
+	Arrays.fill(distance, Double.POSITIVE_INFINITY);
+	ColumnHeap heap = new ColumnHeap(cols, distance);
+
+	int next = 0;
+	while (true) {
+
+	    if (Thread.currentThread().isInterrupted()) {
+		throw new CancellationException("SparseAssignment.solve(): Interrupted");
+	    }
+
+	    // When every row can be paired, each row must be in the end, so the search need start only from the next unpaired one;
+	    // otherwise, every unpaired row is a start, at a distance that only it can be reached at.
+	    int start  = -1;
+	    int nearby = -1;
+	    if (greedy) {
+		while (next < rows && matchOfLeft[next] != -1) {
+		    next += 1;
+		}
+		if (next == rows) {
+		    break;
+		}
+		start = next;
+		nearby = relax(start, 0.0, offsets, targets, costs, rowPotential, colPotential, matchOfRight, reachedBy, heap);
+	    } else {
+		for (int i = 0; i < rows; i += 1) {
+		    if (matchOfLeft[i] == -1) {
+			relax(i, sourcePotential + rowPotential[i], offsets, targets, costs, rowPotential, colPotential, null, reachedBy,
+			      heap);
+		    }
+		}
+	    }
+
+	    // Settle columns in order of distance until an unpaired one is reached, extending the search through each paired one to
+	    // its row at no further cost.  An unpaired column already offered a distance no greater than any left ends the search
+	    // without waiting its turn.
+	    int settledCount = 0;
+	    int free         = -1;
+	    while (!heap.isEmpty()) {
+		if (nearby != -1 && !(distance[heap.peek()] < distance[nearby])) {
+		    free = nearby;
+		    break;
+		}
+		int j = heap.pop();
+		if (matchOfRight[j] == -1) {
+		    free = j;
+		    break;
+		}
+		settled[settledCount++] = j;
+		int i     = matchOfRight[j];
+		int found = relax(i, distance[j], offsets, targets, costs, rowPotential, colPotential, matchOfRight, reachedBy, heap);
+		if (found != -1 && (nearby == -1 || distance[found] < distance[nearby])) {
+		    nearby = found;
+		}
+	    }
+	    if (free == -1) {
+		break;
+	    }
+	    _augmentations += 1;
+
+	    // Shift the potentials of everything settled closer than the free column, which keeps every reduced cost non-negative
+	    // and makes the path just found tight.
+	    double length = distance[free];
+	    for (int k = 0; k < settledCount; k += 1) {
+		int    j     = settled[k];
+		double shift = length - distance[j];
+		colPotential[j]               -= shift;
+		rowPotential[matchOfRight[j]] += shift;
+	    }
+	    if (start != -1) {
+		rowPotential[start] += length;
+	    } else {
+		for (int i = 0; i < rows; i += 1) {
+		    if (matchOfLeft[i] == -1) {
+			double begun = sourcePotential + rowPotential[i];
+			if (begun < length) {
+			    rowPotential[i] += length - begun;
+			}
+		    }
+		}
+		sourcePotential -= length;
+	    }
+
+	    // Flip the matching along the path, from the free column back to the unpaired row at which it began.
+	    int j = free;
+	    while (j != -1) {
+		int i        = reachedBy[j];
+		int formerly = matchOfLeft[i];
+		matchOfLeft[i]  = j;
+		matchOfRight[j] = i;
+		j = formerly;
+	    }
+
+	    // Forget the distances for the next search.
+	    for (int k = 0; k < settledCount; k += 1) {
+		distance[settled[k]] = Double.POSITIVE_INFINITY;
+	    }
+	    distance[free] = Double.POSITIVE_INFINITY;
+	    while (!heap.isEmpty()) {
+		distance[heap.pop()] = Double.POSITIVE_INFINITY;
+	    }
+
+	}
+	return matchOfLeft;
+
+    } // solve ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Solve a graph whose every row can be paired, but that has fewer rows than columns, as a square one.  A square graph lets
+     * every column start at its cheapest edge (see <code>reduce()</code>), which pairs far more rows at the start when many rows
+     * share their cheapest column.  The rows added may be paired with any column, all at one cost, so that together they add the
+     * same to every assignment, and leave the cheapest one of the real rows unchanged.
+     *
+     * @param graph The graph.
+     * @return The column assigned to each row.
+     */
+    private int[] padded (SparseCostGraph graph) {
+
+	int      rows    = graph.rows();
+	int      cols    = graph.cols();
+	int[]    offsets = Arrays.copyOf(graph.offsets(), cols + 1);
+	int      edges   = offsets[rows] + (cols - rows) * cols;
+	int[]    targets = Arrays.copyOf(graph.targets(), edges);
+	double[] costs   = Arrays.copyOf(graph.costs(),   edges);
+	double   most    = 0.0;
+	for (int e = 0; e < offsets[rows]; e += 1) {
+	    most = Math.max(most, costs[e]);
+	}
+	for (int i = rows; i < cols; i += 1) {
+	    offsets[i + 1] = offsets[i] + cols;
+	    for (int j = 0; j < cols; j += 1) {
+		targets[offsets[i] + j] = j;
+		costs[offsets[i] + j]   = most;
+	    }
+	}
+	int[] matchOfLeft = solve(new SparseCostGraph(cols, cols, offsets, targets, costs));
+
+	// Each added row's column has the greatest potential of any, and so all of them the same one.  Shifting it to zero, as an
+	// unpaired column's must be, and the real rows' potentials by as much the other way, changes no reduced cost.
+	double greatest = Double.NEGATIVE_INFINITY;
+	for (int j = 0; j < cols; j += 1) {
+	    greatest = Math.max(greatest, _rightPotential[j]);
+	}
+	for (int j = 0; j < cols; j += 1) {
+	    _rightPotential[j] -= greatest;
+	}
+	_leftPotential = Arrays.copyOf(_leftPotential, rows);
+	for (int i = 0; i < rows; i += 1) {
+	    _leftPotential[i] += greatest;
+	}
+	return Arrays.copyOf(matchOfLeft, rows);
+
+    } // padded ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Improve on the greedy start.  When the graph is square, every column must be paired in the end, and so may start at the
+     * potential of its cheapest edge, paired with that edge's row if the row is free; otherwise every column's potential stays
+     * zero.  Each row's potential is then its least reduced cost, which keeps every reduced cost non-negative, and as many rows
+     * are paired as the edges thereby made tight allow.  Whatever rows remain unpaired are left to the searches.
+     */
+    private static void reduce (int[]    offsets,
+				int[]    targets,
+				double[] costs,
+				double[] rowPotential,
+				double[] colPotential,
+				int[]    matchOfLeft,
+				int[]    matchOfRight) {
+
+	int   rows    = matchOfLeft.length;
+	int   cols    = matchOfRight.length;
+	if (rows == cols) {
+	    Arrays.fill(matchOfLeft,  -1);
+	    Arrays.fill(matchOfRight, -1);
+	    int[] cheapest = new int[cols];
+	    Arrays.fill(colPotential, Double.POSITIVE_INFINITY);
+	    for (int i = 0; i < rows; i += 1) {
+		for (int e = offsets[i]; e < offsets[i + 1]; e += 1) {
+		    if (costs[e] < colPotential[targets[e]]) {
+			colPotential[targets[e]] = costs[e];
+			cheapest[targets[e]]     = i;
+		    }
+		}
+	    }
+	    for (int j = cols - 1; j >= 0; j -= 1) {
+		if (matchOfLeft[cheapest[j]] == -1) {
+		    matchOfLeft[cheapest[j]] = j;
+		    matchOfRight[j]          = cheapest[j];
+		}
+	    }
+	}
+	// Every row's potential is its least reduced cost, which makes each paired row's edge tight.
+	for (int i = 0; i < rows; i += 1) {
+	    double least = Double.POSITIVE_INFINITY;
+	    for (int e = offsets[i]; e < offsets[i + 1]; e += 1) {
+		least = Math.min(least, costs[e] - colPotential[targets[e]]);
+	    }
+	    rowPotential[i] = least;
+	}
+
+	// Pair as many rows as the tight edges allow.
+	int[] tightStart = new int[rows + 1];
+	for (int i = 0; i < rows; i += 1) {
+	    int count = 0;
+	    for (int e = offsets[i]; e < offsets[i + 1]; e += 1) {
+		if (costs[e] - colPotential[targets[e]] <= rowPotential[i]) {
+		    count += 1;
+		}
+	    }
+	    tightStart[i + 1] = tightStart[i] + count;
+	}
+	int[] tight = new int[tightStart[rows]];
+	for (int i = 0; i < rows; i += 1) {
+	    int at = tightStart[i];
+	    for (int e = offsets[i]; e < offsets[i + 1]; e += 1) {
+		if (costs[e] - colPotential[targets[e]] <= rowPotential[i]) {
+		    tight[at++] = targets[e];
+		}
+	    }
+	}
+	HopcroftKarp matching = new HopcroftKarp(rows, cols, tightStart, tight);
+	matching.execute();
+	System.arraycopy(matching.matchOfLeft(),  0, matchOfLeft,  0, rows);
+	System.arraycopy(matching.matchOfRight(), 0, matchOfRight, 0, cols);
+
+    } // reduce ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Offer a shorter distance to each column adjacent to a row that the search has reached.
+     *
+     * @param i            The row.
+     * @param reached      The distance at which the row was reached.
+     * @param matchOfRight The row paired with each column, if the nearest unpaired column offered a shorter distance is sought;
+     *                     otherwise <code>null</code>.
+     * @return The nearest unpaired column offered a shorter distance, or <code>-1</code> if none was (or none was sought).
+     */
+    private static int relax (int        i,
+			      double     reached,
+			      int[]      offsets,
+			      int[]      targets,
+			      double[]   costs,
+			      double[]   rowPotential,
+			      double[]   colPotential,
+			      int[]      matchOfRight,
+			      int[]      reachedBy,
+			      ColumnHeap heap) {
+
+	int    nearest        = -1;
+	double nearestReduced = 0.0;
+	for (int e = offsets[i]; e < offsets[i + 1]; e += 1) {
+	    int    j       = targets[e];
+	    // Rounding may leave a tight edge a hair below zero; it is zero.
+	    double reduced = Math.max(0.0, costs[e] - rowPotential[i] - colPotential[j]);
+	    if (heap.decrease(j, reached + reduced)) {
+		reachedBy[j] = i;
+		if (matchOfRight != null && matchOfRight[j] == -1 && (nearest == -1 || reduced < nearestReduced)) {
+		    nearest        = j;
+		    nearestReduced = reduced;
+		}
+	    }
+	}
+	return nearest;
+
+    } // relax ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * A binary min-heap of columns keyed by their tentative distances, supporting the decrease of a key in place.
+     */
+    private static class ColumnHeap {
+
+	private final double[] _distance;
+	private final int[]    _heap;
+	private final int[]    _position;
+	private int            _size;
+
+	ColumnHeap (int cols, double[] distance) {
+	    _distance = distance;
+	    _heap     = new int[cols];
+	    _position = new int[cols];
+	    Arrays.fill(_position, -1);
+	}
+
+	boolean isEmpty () {
+	    return _size == 0;
+	}
+
+	/**
+	 * Since no reduced cost is negative, no offer to a popped column can beat its final distance, so none re-enters the heap.
+	 *
+	 * @return Whether the column's distance was lowered (or first set).
+	 */
+	boolean decrease (int j, double candidate) {
+	    if (!(candidate < _distance[j])) {
+		return false;
+	    }
+	    _distance[j] = candidate;
+	    if (_position[j] == -1) {
+		_position[j] = _size;
+		_heap[_size++] = j;
+	    }
+	    siftUp(_position[j]);
+	    return true;
+	}
+
+	int peek () {
+	    return _heap[0];
+	}
+
+	int pop () {
+	    int top = _heap[0];
+	    _size -= 1;
+	    _position[top] = -1;
+	    if (_size > 0) {
+		_heap[0] = _heap[_size];
+		_position[_heap[0]] = 0;
+		siftDown(0);
+	    }
+	    return top;
+	}
+
+	private void siftUp (int at) {
+	    int j = _heap[at];
+	    while (at > 0) {
+		int parent = (at - 1) >>> 1;
+		if (!(_distance[j] < _distance[_heap[parent]])) {
+		    break;
+		}
+		_heap[at] = _heap[parent];
+		_position[_heap[at]] = at;
+		at = parent;
+	    }
+	    _heap[at] = j;
+	    _position[j] = at;
+	}
+
+	private void siftDown (int at) {
+	    int j = _heap[at];
+	    while (true) {
+		int child = 2 * at + 1;
+		if (child >= _size) {
+		    break;
+		}
+		if (child + 1 < _size && _distance[_heap[child + 1]] < _distance[_heap[child]]) {
+		    child += 1;
+		}
+		if (!(_distance[_heap[child]] < _distance[j])) {
+		    break;
+		}
+		_heap[at] = _heap[child];
+		_position[_heap[at]] = at;
+		at = child;
+	    }
+	    _heap[at] = j;
+	    _position[j] = at;
+	}
+
+    } // class ColumnHeap
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class SparseAssignment
+// =================================================================================================================================
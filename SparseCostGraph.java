@@ -0,0 +1,413 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * The costs of only those pairings that may be made, held in compressed sparse row form: the columns allowed to row <i>i</i> are
+ * <code>targets[offsets[i]]</code> through <code>targets[offsets[i + 1] - 1]</code>, in increasing order, with the matching costs
+ * in <code>costs</code>.  Under hard constraints, a pairing that violates a preceptor's requirements (or, when scheduling by
+ * day, that shares no day on which the two can meet) is not merely costly but absent, and so is never scored, stored, or
+ * considered by the solver.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class SparseCostGraph {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    private final int      _rows;
+    private final int      _cols;
+    private final int[]    _offsets;
+    private final int[]    _targets;
+    private final double[] _costs;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param rows    The number of rows.
+     * @param cols    The number of columns.
+     * @param offsets The start of each row's edges in <code>targets</code>, with a final entry marking the end.
+     * @param targets The column of every edge, grouped by row and in increasing order within each row.
+     * @param costs   The cost of every edge, parallel to <code>targets</code>.
+     */
+    public SparseCostGraph (int rows, int cols, int[] offsets, int[] targets, double[] costs) {
+
+	_rows    = rows;
+	_cols    = cols;
+	_offsets = offsets;
+	_targets = targets;
+	_costs   = costs;
+
+    } // SparseCostGraph ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Build the graph of pairings allowed by every preceptor's requirements (see <code>Preceptor.admits()</code>), by the days on
+     * which the two can meet, or both.  The preceptors are first grouped by what they require and when they are available, so that
+     * each student tests only one preceptor per group and visits only the groups that allow them; no forbidden pairing is ever
+     * scored.  A pairing that scores zero (or less) is also left out, since the scorer rules it out.
+     *
+     * @param students     The students, one per row.
+     * @param preceptors   The preceptors, one per column.
+     * @param scorer       The scorer that measures each allowed pairing.
+     * @param commute      The commutes of the roster, if they are scored; otherwise <code>null</code>.
+     * @param requirements Whether a pairing must meet the preceptor's gender and Spanish requirements, and be within the maximum
+     *                     commute if commutes are scored.
+     * @param days         Whether a pairing must share a day on which the two are available.
+     * @return The graph of allowed pairings and their costs.
+     */
+    public static SparseCostGraph allowed (List<Student> students,
+					   List<Preceptor> preceptors,
+					   PairScorer scorer,
+					   CommuteTable commute,
+					   boolean requirements,
+					   boolean days) {
+
+	// Group the preceptors by a key of (none, female, male) for gender, times (no, yes) for Spanish, times their days.
+	Map<Integer, Integer> groupOfKey     = new HashMap<Integer, Integer>();
+	int[]                 groupOf        = new int[preceptors.size()];
+	List<Preceptor>       representative = new ArrayList<Preceptor>();
+	for (int j = 0; j < preceptors.size(); j += 1) {
+	    Preceptor preceptor = preceptors.get(j);
+	    int key = 0;
+	    if (requirements) {
+		int gender = (!preceptor.hasGenderPreference() ? 0 : (preceptor.prefersFemale() ? 1 : 2));
+		key = 2 * gender + (preceptor.prefersSpanish() ? 1 : 0);
+	    }
+	    if (days) {
+		key = (key << 7) | preceptor.availableDays();
+	    }
+	    Integer group = groupOfKey.get(key);
+	    if (group == null) {
+		group = representative.size();
+		groupOfKey.put(key, group);
+		representative.add(preceptor);
+	    }
+	    groupOf[j] = group;
+	}
+	int[][] groups     = new int[representative.size()][];
+	int[]   groupSizes = new int[representative.size()];
+	for (int j = 0; j < preceptors.size(); j += 1) {
+	    groupSizes[groupOf[j]] += 1;
+	}
+	for (int g = 0; g < groups.length; g += 1) {
+	    groups[g]     = new int[groupSizes[g]];
+	    groupSizes[g] = 0;
+	}
+	for (int j = 0; j < preceptors.size(); j += 1) {
+	    groups[groupOf[j]][groupSizes[groupOf[j]]++] = j;
+	}
+
+	// Collect and score each student's allowed preceptors, one row per task, leaving out any pairing that scores zero (or, under
+	// hard constraints with commutes scored, that is beyond the maximum commute).
+	int        rows     = students.size();
+	int[][]    rowCols  = new int[rows][];
+	double[][] rowCosts = new double[rows][];
+	IntStream.range(0, rows).parallel().forEach(i -> {
+		Student student = students.get(i);
+		int     count   = 0;
+		for (int g = 0; g < groups.length; g += 1) {
+		    if (allows(representative.get(g), student, requirements, days)) {
+			count += groups[g].length;
+		    }
+		}
+		int[] cols = new int[count];
+		count = 0;
+		for (int g = 0; g < groups.length; g += 1) {
+		    if (allows(representative.get(g), student, requirements, days)) {
+			System.arraycopy(groups[g], 0, cols, count, groups[g].length);
+			count += groups[g].length;
+		    }
+		}
+		Arrays.sort(cols);
+
+		double[] costs = new double[count];
+		int      kept  = 0;
+		for (int e = 0; e < count; e += 1) {
+		    if (requirements && commute != null && commute.beyondReach(student, preceptors.get(cols[e]))) {
+			continue;
+		    }
+		    double cost = scorer.cost(student, preceptors.get(cols[e]));
+		    if (cost < PairScorer._FILTERED_COST) {
+			cols[kept]  = cols[e];
+			costs[kept] = cost;
+			kept += 1;
+		    }
+		}
+		rowCols[i]  = (kept < count ? Arrays.copyOf(cols,  kept) : cols);
+		rowCosts[i] = (kept < count ? Arrays.copyOf(costs, kept) : costs);
+	    });
+
+	// Concatenate the rows.
+	int[] offsets = new int[rows + 1];
+	for (int i = 0; i < rows; i += 1) {
+	    offsets[i + 1] = offsets[i] + rowCols[i].length;
+	}
+	int[]    targets = new int[offsets[rows]];
+	double[] costs   = new double[offsets[rows]];
+	for (int i = 0; i < rows; i += 1) {
+	    System.arraycopy(rowCols[i],  0, targets, offsets[i], rowCols[i].length);
+	    System.arraycopy(rowCosts[i], 0, costs,   offsets[i], rowCosts[i].length);
+	}
+	return new SparseCostGraph(rows, preceptors.size(), offsets, targets, costs);
+
+    } // allowed ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param preceptor    A preceptor representing its group.
+     * @param student      The student.
+     * @param requirements Whether the preceptor's requirements must be met.
+     * @param days         Whether the two must share a day.
+     * @return Whether the pairing is allowed.
+     */
+    static boolean allows (Preceptor preceptor, Student student, boolean requirements, boolean days) {
+	return ((!requirements || preceptor.admits(student)) &&
+		(!days         || (preceptor.availableDays() & student.availableDays()) != Days.NONE));
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int rows () {
+	return _rows;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int cols () {
+	return _cols;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of allowed pairings. */
+    public int edges () {
+	return _offsets[_rows];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The start of each row's edges, with a final entry marking the end.  Not to be modified. */
+    public int[] offsets () {
+	return _offsets;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The column of every edge.  Not to be modified. */
+    public int[] targets () {
+	return _targets;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The cost of every edge.  Not to be modified. */
+    public double[] costs () {
+	return _costs;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param row The row.
+     * @param col The column.
+     * @return The cost of the edge between the two, or <code>NaN</code> if the pairing is not allowed.
+     */
+    public double cost (int row, int col) {
+
+	int e = Arrays.binarySearch(_targets, _offsets[row], _offsets[row + 1], col);
+	return (e >= 0 ? _costs[e] : Double.NaN);
+
+    } // cost ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Build the graph of the pairings in a cost matrix whose costs are finite, treating an infinite (or undefined) cost as a
+     * pairing that may not be made.
+     *
+     * @param matrix The costs.
+     * @return The graph of finite costs.
+     */
+    public static SparseCostGraph finite (CostMatrix matrix) {
+
+	int      rows    = matrix.rows();
+	int      cols    = matrix.cols();
+	double[] buffer  = new double[cols];
+	int[]    offsets = new int[rows + 1];
+	for (int i = 0; i < rows; i += 1) {
+	    matrix.readRow(i, buffer);
+	    int count = 0;
+	    for (int j = 0; j < cols; j += 1) {
+		if (Double.isFinite(buffer[j])) {
+		    count += 1;
+		}
+	    }
+	    offsets[i + 1] = offsets[i] + count;
+	}
+
+	int[]    targets = new int[offsets[rows]];
+	double[] costs   = new double[offsets[rows]];
+	for (int i = 0; i < rows; i += 1) {
+	    matrix.readRow(i, buffer);
+	    int e = offsets[i];
+	    for (int j = 0; j < cols; j += 1) {
+		if (Double.isFinite(buffer[j])) {
+		    targets[e] = j;
+		    costs[e]   = buffer[j];
+		    e         += 1;
+		}
+	    }
+	}
+	return new SparseCostGraph(rows, cols, offsets, targets, costs);
+
+    } // finite ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @return The same graph with rows and columns exchanged.
+     */
+    public SparseCostGraph transpose () {
+
+	int   edges   = edges();
+	int[] offsets = new int[_cols + 1];
+	for (int e = 0; e < edges; e += 1) {
+	    offsets[_targets[e] + 1] += 1;
+	}
+	for (int j = 0; j < _cols; j += 1) {
+	    offsets[j + 1] += offsets[j];
+	}
+
+	// Visiting rows in order leaves each column's edges in increasing order of row.
+	int[]    next    = Arrays.copyOf(offsets, _cols);
+	int[]    targets = new int[edges];
+	double[] costs   = new double[edges];
+	for (int i = 0; i < _rows; i += 1) {
+	    for (int e = _offsets[i]; e < _offsets[i + 1]; e += 1) {
+		int at = next[_targets[e]]++;
+		targets[at] = i;
+		costs[at]   = _costs[e];
+	    }
+	}
+	return new SparseCostGraph(_cols, _rows, offsets, targets, costs);
+
+    } // transpose ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Determine whether the allowed pairings can fill every place on the smaller side, as an unconstrained assignment would, and
+     * if not, find a reason why.  The reason is a set of vertices on the smaller side whose allowed partners, taken together, are
+     * fewer than they are: by Hall's theorem, such a set exists exactly when the places cannot all be filled, and at least the
+     * difference in the sizes of the two sets must go unpaired.
+     *
+     * @return <code>null</code> if the allowed pairings can fill every place on the smaller side; otherwise, the conflicting rows
+     *         (in entry 0) and columns (in entry 1).  The larger of the two is the set that cannot all be paired.
+     */
+    public int[][] conflict () {
+
+	if (_rows > _cols) {
+	    int[][] conflict = transpose().conflict();
+	    return (conflict == null ? null : new int[][] { conflict[1], conflict[0] });
+	}
+
+	HopcroftKarp matching = new HopcroftKarp(_rows, _cols, _offsets, _targets);
+	if (matching.execute() == _rows) {
+	    return null;
+	}
+
+	// Every row reachable by an alternating path from an unmatched row belongs to the conflict, along with every column so
+	// reached.  Each such column is matched (else the path would augment), and to a row so reached, so the columns number
+	// fewer than the rows by exactly the count of unmatched rows.
+	int[]     matchOfLeft  = matching.matchOfLeft();
+	int[]     matchOfRight = matching.matchOfRight();
+	boolean[] rowReached   = new boolean[_rows];
+	boolean[] colReached   = new boolean[_cols];
+	int[]     queue        = new int[_rows];
+	int       head         = 0;
+	int       tail         = 0;
+	for (int i = 0; i < _rows; i += 1) {
+	    if (matchOfLeft[i] == -1) {
+		rowReached[i] = true;
+		queue[tail++] = i;
+	    }
+	}
+	int colCount = 0;
+	while (head < tail) {
+	    int i = queue[head++];
+	    for (int e = _offsets[i]; e < _offsets[i + 1]; e += 1) {
+		int j = _targets[e];
+		if (!colReached[j]) {
+		    colReached[j]  = true;
+		    colCount      += 1;
+		    int k = matchOfRight[j];
+		    if (!rowReached[k]) {
+			rowReached[k] = true;
+			queue[tail++] = k;
+		    }
+		}
+	    }
+	}
+
+	int[] rows = Arrays.copyOf(queue, tail);
+	Arrays.sort(rows);
+	int[] cols = new int[colCount];
+	for (int j = 0, at = 0; j < _cols; j += 1) {
+	    if (colReached[j]) {
+		cols[at++] = j;
+	    }
+	}
+	return new int[][] { rows, cols };
+
+    } // conflict ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class SparseCostGraph
+// =================================================================================================================================
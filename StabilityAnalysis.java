@@ -0,0 +1,282 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A measure of how firmly each student holds the preceptor given to them, found by pairing the roster again many times, each time
+ * with a few students' ranks disturbed, and counting how often each student keeps that preceptor.  In each trial every student,
+ * with a given probability, swaps two adjacent ranks (of practice types or of settings, chosen at random), as a student unsure
+ * between two choices might have.  The trials are drawn from a seeded generator, one seed per trial, so that a run can be
+ * repeated exactly however many threads share it.
+ * <p>
+ *
+ * Only the rows of the disturbed students differ from the roster's own cost matrix, so each trial overlays just those rows on it
+ * and is solved starting from the roster's own solve (see <code>HungarianAlgorithm.execute(previous, workerFrom,
+ * jobFrom)</code>): every other student keeps their labels and pairing, and only the disturbed students need to be paired anew.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class StabilityAnalysis {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The roster being disturbed, and the scorer that measures its pairings. */
+    private final Roster             _roster;
+    private final PairScorer         _scorer;
+
+    /** The number of trials, the probability that a given student's ranks are disturbed in a trial, and the seed of the trials. */
+    private final int                _trials;
+    private final double             _perturbation;
+    private final long               _seed;
+
+    /** The costs of the undisturbed roster, the solve of them from which each trial starts, and the pairings it found. */
+    private CostMatrix               _costs;
+    private HungarianAlgorithm       _base;
+    private int[]                    _baseMatches;
+
+    /** The number of trials in which each student kept the preceptor of the undisturbed pairing. */
+    private int[]                    _kept;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Prepare an analysis of the given roster.
+     *
+     * @param students     The students to be paired.
+     * @param preceptors   The preceptors available to them.
+     * @param scorer       The scorer that measures each pairing.
+     * @param trials       The number of disturbed pairings to make.
+     * @param perturbation The probability, in each trial, that a given student's ranks are disturbed.
+     * @param seed         The seed from which the disturbances are drawn.
+     */
+    public StabilityAnalysis (List<Student>   students,
+			      List<Preceptor> preceptors,
+			      PairScorer      scorer,
+			      int             trials,
+			      double          perturbation,
+			      long            seed) {
+
+	Utility.abortIfFalse(trials >= 1, "StabilityAnalysis(): At least one trial is needed: " + trials);
+	Utility.abortIfFalse(perturbation >= 0 && perturbation <= 1,
+			     "StabilityAnalysis(): The perturbation must be a probability: " + perturbation);
+	_roster       = new Roster(students, preceptors);
+	_scorer       = scorer;
+	_trials       = trials;
+	_perturbation = perturbation;
+	_seed         = seed;
+
+    } // StabilityAnalysis ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Pair the undisturbed roster, and then run every trial, as many at a time as there are threads.
+     *
+     * @param threads The number of threads to use.
+     */
+    public void run (int threads) {
+
+	final List<Student>   students   = _roster.students();
+	final List<Preceptor> preceptors = _roster.preceptors();
+	_costs = new ArrayCostMatrix(students.size(), preceptors.size());
+	IntStream.range(0, students.size()).parallel().forEach(i -> {
+		for (int j = 0; j < preceptors.size(); j += 1) {
+		    _costs.set(i, j, _scorer.cost(students.get(i), preceptors.get(j)));
+		}
+	    });
+	_base        = new HungarianAlgorithm(_costs, threads);
+	_baseMatches = unfiltered(_base.execute(), _costs);
+
+	// Draw each trial's seed in turn, so that the trials are the same whichever thread runs them.
+	SplittableRandom    seeds   = new SplittableRandom(_seed);
+	ExecutorService     pool    = Executors.newFixedThreadPool(threads);
+	List<Future<int[]>> pending = new ArrayList<Future<int[]>>();
+	for (int t = 0; t < _trials; t += 1) {
+	    final long seed = seeds.nextLong();
+	    pending.add(pool.submit(() -> trial(new SplittableRandom(seed))));
+	}
+
+	_kept = new int[students.size()];
+	try {
+	    for (Future<int[]> trial : pending) {
+		int[] matches = trial.get();
+		for (int i = 0; i < matches.length; i += 1) {
+		    if (matches[i] == _baseMatches[i]) {
+			_kept[i] += 1;
+		    }
+		}
+	    }
+	} catch (InterruptedException | ExecutionException e) {
+	    Utility.abort("StabilityAnalysis.run(): A trial failed: " + e);
+	} finally {
+	    pool.shutdown();
+	}
+
+    } // run ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Disturb the ranks of some students and pair the roster again.
+     *
+     * @param random The source of the disturbances.
+     * @return The preceptor paired with each student, or <code>-1</code> for a student left unpaired.
+     */
+    private int[] trial (SplittableRandom random) {
+
+	List<Student>   students   = _roster.students();
+	List<Preceptor> preceptors = _roster.preceptors();
+	double[][]      disturbed  = new double[students.size()][];
+	int[]           workerFrom = new int[students.size()];
+	int[]           jobFrom    = new int[preceptors.size()];
+	for (int i = 0; i < students.size(); i += 1) {
+	    workerFrom[i] = i;
+	    if (random.nextDouble() < _perturbation) {
+		boolean practice = random.nextBoolean();
+		int     choices  = (practice ? Student._numberPracticeFields : Student._numberSettingFields);
+		Student student  = students.get(i).withRanksSwapped(practice, 1 + random.nextInt(choices - 1));
+		disturbed[i]  = new double[preceptors.size()];
+		workerFrom[i] = -1;
+		for (int j = 0; j < preceptors.size(); j += 1) {
+		    disturbed[i][j] = _scorer.cost(student, preceptors.get(j));
+		}
+	    }
+	}
+	for (int j = 0; j < preceptors.size(); j += 1) {
+	    jobFrom[j] = j;
+	}
+	CostMatrix costs = new DisturbedCosts(_costs, disturbed);
+	return unfiltered(new HungarianAlgorithm(costs).execute(_base, workerFrom, jobFrom), costs);
+
+    } // trial ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Leave unpaired every student given a preceptor that the scorer rules out, which the solver does only for want of any other.
+     *
+     * @param matches The preceptor paired with each student, or <code>-1</code>; modified in place.
+     * @param costs   The costs from which they were found.
+     * @return The pairings.
+     */
+    private static int[] unfiltered (int[] matches, CostMatrix costs) {
+
+	for (int i = 0; i < matches.length; i += 1) {
+	    if (matches[i] != -1 && costs.get(i, matches[i]) >= PairScorer._FILTERED_COST) {
+		matches[i] = -1;
+	    }
+	}
+	return matches;
+
+    } // unfiltered ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The costs of a trial: those of the undisturbed roster, but for the rows of the students whose ranks were disturbed.  Neither
+     * is copied, so a trial costs only the rows that it changes.
+     */
+    private static class DisturbedCosts implements CostMatrix {
+
+	private final CostMatrix _base;
+	private final double[][] _rows;
+
+	/**
+	 * @param base The undisturbed costs.
+	 * @param rows The costs of each student whose ranks were disturbed, by row; <code>null</code> for every other student.
+	 */
+	DisturbedCosts (CostMatrix base, double[][] rows) {
+	    _base = base;
+	    _rows = rows;
+	}
+
+	public int rows () {
+	    return _base.rows();
+	}
+
+	public int cols () {
+	    return _base.cols();
+	}
+
+	public double get (int row, int col) {
+	    return (_rows[row] != null ? _rows[row][col] : _base.get(row, col));
+	}
+
+	public void set (int row, int col, double cost) {
+	    Utility.abort("StabilityAnalysis.DisturbedCosts.set(): The costs of a trial are not to be changed");
+	}
+
+	public void readRow (int row, double[] into) {
+
+	    if (_rows[row] != null) {
+		System.arraycopy(_rows[row], 0, into, 0, _rows[row].length);
+	    } else {
+		_base.readRow(row, into);
+	    }
+
+	}
+
+    } // class DisturbedCosts
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Write the undisturbed pairing, with the cost of each pairing as its match quality as in any other pairing written, and with
+     * the fraction of trials in which each student kept their preceptor added as a column (<code>PROBABILITY KEPT</code>).
+     *
+     * @param writer The writer of the format in which to write them.
+     */
+    public void emit (ResultWriter writer) {
+
+	int      students  = _baseMatches.length;
+	double[] qualities = new double[students];
+	double[] kept      = new double[students];
+	for (int i = 0; i < students; i += 1) {
+	    qualities[i] = (_baseMatches[i] == -1 ? 0.0 : _costs.get(i, _baseMatches[i]));
+	    kept[i]      = (double)_kept[i] / _trials;
+	}
+	MatchResult result = new MatchResult(_roster, _baseMatches, qualities, new boolean[students], false);
+	try {
+	    writer.withColumn("PROBABILITY KEPT", "kept", kept).write(result);
+	} catch (IOException e) {
+	    Utility.abort("StabilityAnalysis.emit(): Unable to write the results: " + e.getMessage());
+	}
+
+    } // emit ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class StabilityAnalysis
+// =================================================================================================================================
@@ -1,13 +1,15 @@
 // =================================================================================================================================
 // IMPORTS
 
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Locale;
+import java.util.Map;
 // =================================================================================================================================
 
 
@@ -70,21 +72,21 @@ public class Student {
     /** The location of the student's home. */
     private String  _home;
 
+    /** The days of the week on which the student is free to meet a preceptor, as a set of <code>Days</code>. */
+    private int     _availableDays;
+
     /** The preceptor with whom this student has been pre-matched (if any). */
      private String _preMatch;
 
-    /** The <code>Preceptor</code> to whom this student is matched (if any). */
-    private Preceptor _preceptor;
-
-    /** The quality of the match with the chosen preceptor (if there was an algorithmic match). */
-    private double _matchQuality;
-
     /**
      * Whether sufficient information for the fields above is provided to properly match this student with a <code>Preceptor</code>.
      * @see Student.cross
      */
     private boolean _sufficientForMatching;
 
+    /** Why the fields above could not all be read, if they could not. */
+    private String  _problem;
+
     /** A constant that, when compared with <code>_isFemale</code>, indicates whether the student is male. */
     private static final boolean _GENDER_MALE   = false;
 
@@ -108,6 +110,10 @@ public class Student {
     private static final int _PRE_MATCHED_INDEX         = 14;
     private static final int _numberFields              = 15;
 
+    // An optional field, after the required ones so that rosters without it still parse.  If absent or empty, the student is free
+    // every day.
+    private static final int _AVAILABLE_DAYS_INDEX      = 15;
+
     private static final int _BEGIN_PRACTICE_RANK_INDEX = _PEDIATRICIAN_INDEX;
     private static final int _END_PRACTICE_RANK_INDEX   = _GERIATRICIAN_INDEX + 1;
     private static final int _BEGIN_SETTING_RANK_INDEX  = _RURAL_SETTING_INDEX;
@@ -132,6 +138,16 @@ public class Student {
     private static final double _GENDER_WEIGHT        = 0.2;
     private static final double _SPEAKSSPANISH_WEIGHT = 0.2;
 
+    // The components of a match's quality, as indices into the arrays filled by crossComponents() and into weight vectors.
+    public static final int _PRACTICE_COMPONENT = 0;
+    public static final int _SETTING_COMPONENT  = 1;
+    public static final int _GENDER_COMPONENT   = 2;
+    public static final int _SPANISH_COMPONENT  = 3;
+    public static final int _numberComponents   = 4;
+
+    /** The weights above, indexed by component. */
+    private static final double[] _DEFAULT_WEIGHTS = { _PRACTICE_WEIGHT, _SETTING_WEIGHT, _GENDER_WEIGHT, _SPEAKSSPANISH_WEIGHT };
+
     /**
      * A collection of case-insensitive strings that unambiguously indicate a male student.
      *
@@ -153,6 +169,39 @@ public class Student {
 						    "woman",
 						    "women"
     };
+
+    /** The genders named by each of the texts above, looked up by the text in lower case. */
+    private static final Map<String, Boolean> _GENDERS = new HashMap<String, Boolean>();
+    static {
+	for (String maleText : _MALE_TEXTS) {
+	    _GENDERS.put(maleText, _GENDER_MALE);
+	}
+	for (String femaleText : _FEMALE_TEXTS) {
+	    _GENDERS.put(femaleText, _GENDER_FEMALE);
+	}
+    }
+
+    /**
+     * The names by which a header may know each field, by the field's index; the first is the usual one.  The last, the available
+     * days, is optional.
+     * @see Schema
+     */
+    private static final String[][] _FIELD_NAMES = { { "Last Name", "Last" },
+						     { "First Name", "First" },
+						     { "Gender", "Sex" },
+						     { "Pediatrician", "Pediatrics" },
+						     { "Family Practitioner", "Family Practice" },
+						     { "Internists", "Internist", "Internal Medicine" },
+						     { "Geriatrician", "Geriatrics" },
+						     { "Rural" },
+						     { "Suburban" },
+						     { "Urban" },
+						     { "Underserved" },
+						     { "Languages", "Language", "Spanish" },
+						     { "Living Location", "Home", "Location" },
+						     { "Comments" },
+						     { "Pre-Matched", "Pre-Match" },
+						     { "Available Days", "Days" } };
     // =============================================================================================================================
 
 	
@@ -164,44 +213,159 @@ public class Student {
      * @param record The text of the complete, unparsed CSV record.
      */
     public Student (String record) {
-		
-	// Split the record into its parts.  Assume semi-colon delimiters (since comments are likely to contain commas).  Trim the
-	// results.
-	String[] fields = record.split(";", -1);
-	Utility.abortIfFalse(fields.length >= _numberFields, ("Student.Student(string): " +
-							      "Record had the insufficent fields (" +
-							      fields.length +
-							      " must be at least " +
-							      _numberFields +
-							      "):\n  " +
-							      record +
-							      "\n"));
-	for (int i = 0; i < fields.length; i += 1) {
-	    fields[i] = fields[i].trim();
+	this(record, null);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Constructor from a CSV record whose columns are laid out as a file's header says.
+     * 
+     * @param record The text of the complete, unparsed CSV record.
+     * @param schema The layout of the record's columns, as given by <code>schema()</code>; or <code>null</code> for the usual one.
+     */
+    Student (String record, Schema schema) {
+
+	this(checkedFields(record, schema));
+	if (_problem != null) {
+	    Utility.warning(String.format("Unable to read complete profile from record for student %s, %s\n\tMESSAGE: %s",
+					  _lastName,
+					  _firstName,
+					  _problem));
 	}
 
+    } // Student()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Constructor from the fields of a record, recording (see <code>problem()</code>) rather than reporting any failure to read a
+     * complete profile from them.
+     * 
+     * @param fields The trimmed fields of the record, at least <code>fieldCount()</code> of them.
+     */
+    private Student (String[] fields) {
+
 	// Parse the fields, constructing the profile of the student.  If any one of the attempts to parse the given data is a
 	// fundamental failure, emit a warning message and record that insufficient information is available to match this student.
 	_lastName      = fields[_LAST_NAME_INDEX];
 	_firstName     = fields[_FIRST_NAME_INDEX];
+	_home          = fields[_LIVING_LOCATION_INDEX];
 	try {
 	    _isFemale      = parseGender(fields[_GENDER_INDEX]);
 	    _speaksSpanish = parseLanguages(fields[_LANGUAGES_INDEX]);
 	    _practiceRanks = parseRanks(Arrays.copyOfRange(fields, _BEGIN_PRACTICE_RANK_INDEX, _END_PRACTICE_RANK_INDEX));
 	    _settingRanks  = parseRanks(Arrays.copyOfRange(fields, _BEGIN_SETTING_RANK_INDEX,  _END_SETTING_RANK_INDEX));
 	    _preMatch      = parsePreMatch(fields[_PRE_MATCHED_INDEX]);
+	    _availableDays = (fields.length > _AVAILABLE_DAYS_INDEX ? parseDays(fields[_AVAILABLE_DAYS_INDEX]) : Days.ALL);
 	    _sufficientForMatching = true;
 	} catch (InsufficientDataException e) {
-	    Utility.warning(String.format("Unable to read complete profile from record for student %s, %s\n\tMESSAGE: %s",
-					  _lastName,
-					  _firstName,
-					  e.getMessage()));
+	    _problem               = e.getMessage();
 	    _sufficientForMatching = false;
 	}
 
     } // Student()
     // =============================================================================================================================
 
+
+
+    // =============================================================================================================================
+    /** Constructor of a blank student, for <code>withRanksSwapped()</code> to fill in. */
+    private Student () {
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Split a record into its fields, trimmed.  Assume semi-colon delimiters (since comments are likely to contain commas).
+     *
+     * @param record The text of the record.
+     * @return The fields, however many there are.
+     */
+    static String[] split (String record) {
+
+	String[] fields = record.split(";", -1);
+	for (int i = 0; i < fields.length; i += 1) {
+	    fields[i] = fields[i].trim();
+	}
+	return fields;
+
+    } // split ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    private static String[] checkedFields (String record, Schema schema) {
+
+	String[] fields = split(record);
+	int      needed = (schema == null ? _numberFields : schema.columns());
+	Utility.abortIfFalse(fields.length >= needed, ("Student.Student(string): " +
+						       "Record had the insufficent fields (" +
+						       fields.length +
+						       " must be at least " +
+						       needed +
+						       "):\n  " +
+						       record +
+						       "\n"));
+	return (schema == null ? fields : schema.arrange(fields));
+
+    } // checkedFields ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Construct a student from the fields of a record without reporting anything, for callers that gather the problems of many
+     * records (see <code>RosterValidation</code>).
+     *
+     * @param fields The trimmed fields of the record, at least <code>fieldCount()</code> of them.
+     * @return The student, whose <code>problem()</code> tells what, if anything, kept a complete profile from being read.
+     */
+    static Student fromFields (String[] fields) {
+	return new Student(fields);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The least number of fields that a student record may have. */
+    public static int fieldCount () {
+	return _numberFields;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Work out from a file's header which of its columns holds each field of a student record.
+     *
+     * @param header The text of the header line.
+     * @return The layout of the file's records.
+     */
+    static Schema schema (String header) {
+	return new Schema("student", split(header), _FIELD_NAMES, _numberFields);
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return Why a complete profile could not be read from this student's record, or <code>null</code> if it was. */
+    public String problem () {
+	return _problem;
+    }
+    // =============================================================================================================================
+
 	
 	
     // =============================================================================================================================
@@ -217,13 +381,50 @@ public class Student {
 
     public double cross (Preceptor preceptor) {
 
-	Utility.debug(2, String.format("\nCrossing %40s with %40s:", this.getName(), preceptor.getName()));
+	double[] components = new double[_numberComponents];
+	crossComponents(preceptor, components);
+
+	// Combine them all with weights.
+	double matchQuality = combine(components, _DEFAULT_WEIGHTS);
+	if (Utility.debugging(2)) {
+	    Utility.debug(2, String.format("\tmatchQuality        = %2.4f", matchQuality));
+	}
+
+	return matchQuality;
+
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Measure each component of the quality of the match between this student and a preceptor, before they are weighted and
+     * combined by <code>cross()</code>.
+     *
+     * @param preceptor  The preceptor against whose traits a match is to be calculated.
+     * @param components A buffer of <code>_numberComponents</code> entries, into which the quality of the match on each component
+     *                   is written.
+     * @see Student._PRACTICE_COMPONENT
+     * @see Student._SETTING_COMPONENT
+     * @see Student._GENDER_COMPONENT
+     * @see Student._SPANISH_COMPONENT
+     */
+
+    public void crossComponents (Preceptor preceptor, double[] components) {
+
+	// Formatting the debugging messages costs far more than the crossing itself, so do so only when they will be shown.
+	boolean debugging = Utility.debugging(2);
+	if (debugging) {
+	    Utility.debug(2, String.format("\nCrossing %40s with %40s:", this.getName(), preceptor.getName()));
+	}
 
 	// Crossing should not have been requested unless the student and preceptor are pairable.
-	Utility.abortIfFalse(this.pairable() && preceptor.pairable(),
-			     String.format("Tried to pair unpairable student ({0}) and preceptor ({1})",
-					   this.getName(),
-					   preceptor.getName()));
+	if (!(this.pairable() && preceptor.pairable())) {
+	    Utility.abort(String.format("Tried to pair unpairable student (%s) and preceptor (%s)",
+					this.getName(),
+					preceptor.getName()));
+	}
 
 	// The preceptor's masks should be crossed with the inverse ranking (1/r), since we are aiming for maximization.  SFHK: The
 	// use of an inverse (for a ranking $r$, the value is $v = 1/r$) is good, but an exponential inverse would allow the rate of
@@ -232,13 +433,17 @@ public class Student {
 	for (int i = 0; i < _practiceRanks.length; i += 1) {
 	    double maskedValue = (1.0 / _practiceRanks[i]) * preceptor.getPracticeMask(i);
 	    practiceMatchQuality += maskedValue;
-	    Utility.debug(2, String.format("\t\t%d: (1.0 / %d) * %2.4f = %2.4f",
-					   i,
-					   _practiceRanks[i],
-					   preceptor.getPracticeMask(i),
-					   maskedValue));
+	    if (debugging) {
+		Utility.debug(2, String.format("\t\t%d: (1.0 / %d) * %2.4f = %2.4f",
+					       i,
+					       _practiceRanks[i],
+					       preceptor.getPracticeMask(i),
+					       maskedValue));
+	    }
+	}
+	if (debugging) {
+	    Utility.debug(2, String.format("\tpracticeMatchQuality = %2.4f", practiceMatchQuality));
 	}
-	Utility.debug(2, String.format("\tpracticeMatchQuality = %2.4f", practiceMatchQuality));
 	double settingMatchQuality = 0.0;
 	for (int i = 0; i < _settingRanks.length; i += 1) {
 	    double maskedValue = (1.0 / _settingRanks[i]) * preceptor.getSettingMask(i);
@@ -270,15 +475,41 @@ public class Student {
 	}
 	// Utility.debug(2, String.format("\tspanishMatchQuality  = %2.4f", spanishMatchQuality));
 
-	// Combine them all with weights.
-	double matchQuality = ((practiceMatchQuality * _PRACTICE_WEIGHT     ) +
-			       (settingMatchQuality  * _SETTING_WEIGHT      ) +
-			       (genderMatchQuality   * _GENDER_WEIGHT       ) +
-			       (spanishMatchQuality  * _SPEAKSSPANISH_WEIGHT));
-	Utility.debug(2, String.format("\tmatchQuality        = %2.4f", matchQuality));
+	components[_PRACTICE_COMPONENT] = practiceMatchQuality;
+	components[_SETTING_COMPONENT]  = settingMatchQuality;
+	components[_GENDER_COMPONENT]   = genderMatchQuality;
+	components[_SPANISH_COMPONENT]  = spanishMatchQuality;
+
+    } // crossComponents()
+    // =============================================================================================================================
 
-	return matchQuality;
 
+
+    // =============================================================================================================================
+    /**
+     * Combine the components of a match's quality into a single score.
+     *
+     * @param components The quality of the match on each component, as computed by <code>crossComponents()</code>.
+     * @param weights    The weight of each component, indexed in the same way.
+     * @return The weighted sum of the components.
+     */
+
+    public static double combine (double[] components, double[] weights) {
+
+	return ((components[_PRACTICE_COMPONENT] * weights[_PRACTICE_COMPONENT]) +
+		(components[_SETTING_COMPONENT]  * weights[_SETTING_COMPONENT] ) +
+		(components[_GENDER_COMPONENT]   * weights[_GENDER_COMPONENT]  ) +
+		(components[_SPANISH_COMPONENT]  * weights[_SPANISH_COMPONENT] ));
+
+    } // combine()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return A copy of the weights with which <code>cross()</code> combines the components of a match's quality. */
+    public static double[] defaultWeights () {
+	return _DEFAULT_WEIGHTS.clone();
     }
     // =============================================================================================================================
 
@@ -289,37 +520,43 @@ public class Student {
      * Read a delimited list of student characteristics.  Construct each student based on each record, and insert each into a newly
      * made set.
      * 
-     * @param path The filename that contains the student records.
+     * @param path The filename that contains the student records, plain or compressed (see <code>RosterInput</code>).
      * @return A list of the students read from the given path.
      */
     public static List<Student> read (String path) {
 		
 	// Open the file for reading.
-	FileReader file = null;
+	BufferedReader reader = null;
 	try {
-	    file = new FileReader(path);
+	    reader = RosterInput.open(path);
 	} catch (FileNotFoundException e) {
 	    Utility.abort("Student.read(): No such file " + path);
+	} catch (IOException e) {
+	    Utility.abort("Student.read(): Unable to read " + path + ": " + e.getMessage());
 	}
-	Scanner scanner = new Scanner(file);
 
-	// Read the first line, assuming that it contains field headers.
-	Utility.abortIfFalse(scanner.hasNextLine(), "Student.read(): No lines of data!");
-	String fieldNames = scanner.nextLine();
-		
-	// Read and parse the file's records, one at a time, creating a Student from each and adding it to the set of such.
+	// Read the first line, assuming that it contains field headers, and lay out the records as they say.
 	List<Student> students = new ArrayList<Student>();
-	while (scanner.hasNextLine()) {
-			
-	    String record = scanner.nextLine();
-	    Student student = new Student(record);
-	    students.add(student);
-			
+	try {
+	    String fieldNames = reader.readLine();
+	    Utility.abortIfFalse(fieldNames != null, "Student.read(): No lines of data!");
+	    Schema schema = schema(fieldNames);
+	    if (schema.problem() != null) {
+		Utility.warning(schema.problem());
+	    }
+		
+	    // Read and parse the file's records, one at a time, creating a Student from each and adding it to the set of such.
+	    String record;
+	    while ((record = reader.readLine()) != null) {
+		students.add(new Student(record, schema));
+	    }
+	} catch (IOException e) {
+	    Utility.abort("Student.read(): Unable to read " + path + ": " + e.getMessage());
 	}
 		
 	// Clean up and return the set of students.
 	try {
-	    file.close();
+	    reader.close();
 	} catch (IOException e) {
 	    Utility.warning("Student.read() failed upon closing path.  Continuing.");
 	}
@@ -347,18 +584,10 @@ public class Student {
 
     private static boolean parseGender (String genderText) throws InsufficientDataException {
 
-	// Does the text indicate a female?
-	for (String femaleText : _FEMALE_TEXTS) {
-	    if (femaleText.equalsIgnoreCase(genderText)) {
-		return _GENDER_FEMALE;
-	    }
-	}
-
-	// If not a female, does the text indicate a male?
-	for (String maleText : _MALE_TEXTS) {
-	    if (maleText.equalsIgnoreCase(genderText)) {
-		return _GENDER_MALE;
-	    }
+	// Does the text indicate either gender?
+	Boolean gender = _GENDERS.get(genderText.toLowerCase(Locale.ROOT));
+	if (gender != null) {
+	    return gender;
 	}
 
 	// If neither, something is wrong.
@@ -462,6 +691,32 @@ public class Student {
 
 
 
+    // =============================================================================================================================
+    /**
+     * Parse the optional field of days on which this student is available.
+     *
+     * @param daysText The text of the field.
+     * @return The days named, as a set of <code>Days</code>; <code>Days.ALL</code> if the text is empty or names no day that can
+     *         be parsed.
+     */
+    private int parseDays (String daysText) {
+
+	try {
+	    int days = Days.parse(daysText);
+	    return (Days.any(days) ? days : Days.ALL);
+	} catch (InsufficientDataException e) {
+	    Utility.warning(String.format("Treating day as any day for student %s, %s\n\tMESSAGE: %s",
+					  _lastName,
+					  _firstName,
+					  e.getMessage()));
+	    return Days.ALL;
+	}
+
+    } // parseDays ()
+    // =============================================================================================================================
+
+
+
     // =============================================================================================================================
     public String getName (boolean lastNameFirst) {
 	if (lastNameFirst) {
@@ -482,6 +737,22 @@ public class Student {
 
 
 
+    // =============================================================================================================================
+    public String lastName () {
+	return _lastName;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String firstName () {
+	return _firstName;
+    }
+    // =============================================================================================================================
+
+
+
     // =============================================================================================================================
     public boolean pairable () {
 	return _sufficientForMatching;
@@ -507,33 +778,89 @@ public class Student {
 
 
     // =============================================================================================================================
-    public double getMatchQuality () {
-	return _matchQuality;
+    public boolean isFemale () {
+	return _isFemale;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public boolean speaksSpanish () {
+	return _speaksSpanish;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public int getPracticeRank (int position) {
+	return _practiceRanks[position];
     }
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
-    public void match (Preceptor preceptor, double quality) {
-	_preceptor    = preceptor;
-	_matchQuality = quality;
+    public int getSettingRank (int position) {
+	return _settingRanks[position];
     }
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
-    public boolean matched () {
-	return (_preceptor != null);
+    /**
+     * Make a copy of this student that ranks two adjacent choices the other way around, as though the student had wavered between
+     * them.  This student is not changed.
+     *
+     * @param practice Whether to swap two practice ranks (<code>true</code>) or two setting ranks (<code>false</code>).
+     * @param rank     The better of the two ranks, from <code>1</code>; the choice so ranked trades places with the one ranked just
+     *                 below it.
+     * @return The copy.
+     */
+    Student withRanksSwapped (boolean practice, int rank) {
+
+	int[] ranks = (practice ? _practiceRanks : _settingRanks).clone();
+	for (int i = 0; i < ranks.length; i += 1) {
+	    if (ranks[i] == rank) {
+		ranks[i] = rank + 1;
+	    } else if (ranks[i] == rank + 1) {
+		ranks[i] = rank;
+	    }
+	}
+
+	Student copy = new Student();
+	copy._lastName              = _lastName;
+	copy._firstName             = _firstName;
+	copy._isFemale              = _isFemale;
+	copy._speaksSpanish         = _speaksSpanish;
+	copy._practiceRanks         = (practice ? ranks : _practiceRanks);
+	copy._settingRanks          = (practice ? _settingRanks : ranks);
+	copy._home                  = _home;
+	copy._availableDays         = _availableDays;
+	copy._preMatch              = _preMatch;
+	copy._sufficientForMatching = _sufficientForMatching;
+	copy._problem               = _problem;
+	return copy;
+
+    } // withRanksSwapped ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    public String home () {
+	return _home;
     }
     // =============================================================================================================================
 
 
 
     // =============================================================================================================================
-    public Preceptor getMatch () {
-	return _preceptor;
+    /** @return The days on which this student is free to meet a preceptor, as a set of <code>Days</code>. */
+    public int availableDays () {
+	return _availableDays;
     }
     // =============================================================================================================================
 
@@ -0,0 +1,216 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A fixed team of threads that sweeps a range of indices together, each thread always taking the same chunk, for loops too short
+ * to hand to a thread pool: a sweep over a few thousand entries takes microseconds, less than a pool takes to start a task.  The
+ * threads instead wait for each sweep by spinning on a shared counter, and are parked only after a long idle spell, so that a
+ * sweep costs little more than its share of the work plus a few memory fences.  The calling thread takes the first chunk itself.
+ * <p>
+ *
+ * The chunks are fixed for the life of the team, so a sweep that combines results by chunk (such as a minimum) combines them in
+ * the same order every time.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class SweepTeam implements AutoCloseable {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The work of one sweep, applied to each chunk of the range. */
+    public interface Body {
+
+	/**
+	 * @param chunk The number of the chunk, from zero.
+	 * @param from  The first index of the chunk.
+	 * @param to    One past the last index of the chunk.
+	 */
+	void sweep (int chunk, int from, int to);
+
+    } // interface Body
+
+    /** The start of each chunk, with a final entry marking the end of the range. */
+    private final int[]              _bounds;
+
+    /** The threads other than the caller's, one per chunk after the first. */
+    private final Thread[]           _threads;
+
+    /** Whether each thread is parked (or about to be), and so must be woken for the next sweep. */
+    private final AtomicIntegerArray _parked;
+
+    /** The number of sweeps begun, which each thread watches for a change. */
+    private volatile int             _generation;
+
+    /** The number of chunks of the current sweep not yet finished by the other threads. */
+    private final AtomicInteger      _pending = new AtomicInteger();
+
+    /** The current sweep's work, and the first failure of any thread in doing it. */
+    private volatile Body            _body;
+    private volatile Throwable       _failure;
+
+    /** Whether the team has been closed. */
+    private volatile boolean         _closed;
+
+    /** The number of times a waiting thread spins before yielding, and checks for work before parking. */
+    private static final int _SPINS      = 1 << 10;
+    private static final int _PARK_AFTER = 1 << 16;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Start a team.
+     *
+     * @param threads The number of threads, the caller's included, and so the number of chunks.
+     * @param length  The length of the range to be swept.
+     */
+    public SweepTeam (int threads, int length) {
+
+	Utility.abortIfFalse(threads >= 1, "SweepTeam(): At least one thread is needed: " + threads);
+	_bounds = new int[threads + 1];
+	for (int chunk = 0; chunk <= threads; chunk += 1) {
+	    _bounds[chunk] = (int)((long)length * chunk / threads);
+	}
+	_parked  = new AtomicIntegerArray(threads);
+	_threads = new Thread[threads - 1];
+	for (int t = 0; t < _threads.length; t += 1) {
+	    final int chunk = t + 1;
+	    _threads[t] = new Thread(() -> work(chunk), "sweep-" + chunk);
+	    _threads[t].setDaemon(true);
+	    _threads[t].start();
+	}
+
+    } // SweepTeam ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** @return The number of chunks into which the range is divided. */
+    public int chunks () {
+	return _bounds.length - 1;
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Sweep the range, returning once every chunk is done.
+     *
+     * @param body The work to apply to each chunk.
+     */
+    public void sweep (Body body) {
+
+	_body = body;
+	_pending.set(_threads.length);
+	_generation += 1;
+	for (int t = 0; t < _threads.length; t += 1) {
+	    if (_parked.get(t + 1) != 0) {
+		LockSupport.unpark(_threads[t]);
+	    }
+	}
+
+	body.sweep(0, _bounds[0], _bounds[1]);
+	for (int spins = 0; _pending.get() > 0; spins += 1) {
+	    pause(spins);
+	}
+	if (_failure != null) {
+	    throw new RuntimeException("SweepTeam.sweep(): A chunk failed", _failure);
+	}
+
+    } // sweep ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * The loop of each thread but the caller's: wait for a sweep, do its chunk, and report it done.
+     *
+     * @param chunk The thread's chunk.
+     */
+    private void work (int chunk) {
+
+	int seen = 0;
+	while (true) {
+	    for (int spins = 0; _generation == seen && !_closed; spins += 1) {
+		if (spins < _PARK_AFTER) {
+		    pause(spins);
+		} else {
+		    // Announce the park before checking once more, so that a sweep begun in between is sure to unpark this thread.
+		    _parked.set(chunk, 1);
+		    if (_generation == seen && !_closed) {
+			LockSupport.park(this);
+		    }
+		    _parked.set(chunk, 0);
+		}
+	    }
+	    if (_closed) {
+		return;
+	    }
+	    seen = _generation;
+	    try {
+		_body.sweep(chunk, _bounds[chunk], _bounds[chunk + 1]);
+	    } catch (Throwable failure) {
+		_failure = failure;
+	    }
+	    _pending.decrementAndGet();
+	}
+
+    } // work ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Wait briefly: spin at first, then yield, so that a thread waiting on a machine with fewer cores than threads does not hold
+     * the core that the thread it waits for needs.
+     *
+     * @param spins The number of times the caller has waited so far.
+     */
+    private static void pause (int spins) {
+
+	if (spins < _SPINS) {
+	    Thread.onSpinWait();
+	} else {
+	    Thread.yield();
+	}
+
+    } // pause ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /** Stop the team's threads. */
+    public void close () {
+
+	_closed = true;
+	for (Thread thread : _threads) {
+	    LockSupport.unpark(thread);
+	}
+
+    } // close ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class SweepTeam
+// =================================================================================================================================
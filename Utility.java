@@ -51,6 +51,18 @@ public class Utility {
 
 
 
+    // =============================================================================================================================
+    /**
+     * @param level The level of a prospective debugging message.
+     * @return Whether a message at that level would be shown, so that callers can skip building messages that would not be.
+     */
+    public static boolean debugging (int level) {
+	return (level <= _debug);
+    }
+    // =============================================================================================================================
+
+
+
     // =============================================================================================================================
     public static void debug (int level, String message) {
 
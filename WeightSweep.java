@@ -0,0 +1,219 @@
+// =================================================================================================================================
+// IMPORTS
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+// =================================================================================================================================
+
+
+
+// =================================================================================================================================
+/**
+ * A comparison of the pairings produced under different weightings of the components of match quality, used to tune the weights
+ * in <code>Student</code> without recompiling.  The components are computed once (see <code>ScoreComponents</code>); each weighting
+ * then costs only a weighted sum of them and a solve, and the solves run in parallel.
+ *
+ * @author Scott F. H. Kaplan <sfkaplan@cs.amherst.edu>
+ * @version %G%
+ */
+public class WeightSweep {
+// =================================================================================================================================
+
+
+
+    // =============================================================================================================================
+    // DATA MEMBERS
+
+    /** The roster being swept, and the components of match quality for it. */
+    private final Roster          _roster;
+    private final ScoreComponents _components;
+
+    /** The weightings to compare; the first is always the default weighting, against which the others are compared. */
+    private final List<double[]>  _weightings;
+
+    /** The pairings found for each weighting, in the same order, each costed with its own weighting. */
+    private MatchResult[]         _results;
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Prepare a sweep over the given roster.
+     *
+     * @param students   The students to be paired.
+     * @param preceptors The preceptors available to them.
+     * @param weightings The weightings to compare, each indexed as for <code>Student.combine()</code>.
+     */
+    public WeightSweep (List<Student> students, List<Preceptor> preceptors, List<double[]> weightings) {
+
+	_roster     = new Roster(students, preceptors);
+	_components = new ScoreComponents(_roster.students(), _roster.preceptors());
+	_weightings = new ArrayList<double[]>();
+	_weightings.add(Student.defaultWeights());
+	_weightings.addAll(weightings);
+
+    } // WeightSweep ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Solve every weighting, one per core at a time.
+     */
+    public void run () {
+
+	_results = new MatchResult[_weightings.size()];
+	ExecutorService    pool    = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+	List<Future<?>>    pending = new ArrayList<Future<?>>();
+	for (int k = 0; k < _weightings.size(); k += 1) {
+	    final int which = k;
+	    pending.add(pool.submit(() -> {
+			CostMatrix costs     = _components.costs(_weightings.get(which));
+			int[]      matches   = new HungarianAlgorithm(costs).execute();
+			double[]   qualities = new double[matches.length];
+			int        undone    = 0;
+			for (int i = 0; i < matches.length; i += 1) {
+			    // A pairing that the weighting scores at zero is made only for want of any other; leave the student unpaired.
+			    if (matches[i] != -1 && costs.get(i, matches[i]) >= PairScorer._FILTERED_COST) {
+				matches[i] = -1;
+				undone    += 1;
+			    } else if (matches[i] != -1) {
+				qualities[i] = costs.get(i, matches[i]);
+			    }
+			}
+			if (undone > 0) {
+			    Utility.warning(String.format("The weighting %s leaves %d students with no preceptor that it scores above zero",
+							  Arrays.toString(_weightings.get(which)),
+							  undone));
+			}
+			_results[which] = new MatchResult(_roster, matches, qualities, new boolean[matches.length], false);
+		    }));
+	}
+
+	// Waiting on every solve also makes their results visible to this thread.
+	try {
+	    for (Future<?> solve : pending) {
+		solve.get();
+	    }
+	} catch (InterruptedException | ExecutionException e) {
+	    Utility.abort("WeightSweep.run(): A solve failed: " + e);
+	} finally {
+	    pool.shutdown();
+	}
+
+    } // run ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * @param weighting The index of a weighting: zero for the default one, and then those given, in order.
+     * @return The pairings found for it by <code>run()</code>, a student left unpaired wherever the weighting scores no preceptor
+     *         left for them above zero.
+     */
+    public MatchResult result (int weighting) {
+	return _results[weighting];
+    }
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Write (to <code>stdout</code>) one line per weighting: the weights, the total cost of its assignment, and the number of
+     * students whose preceptor differs from the one given to them under the default weighting.  The lines are gathered and written
+     * at once, rather than one at a time.
+     *
+     * @param csv Whether to write a semicolon-delimited table (<code>true</code>) or one aligned for reading.
+     */
+    public void emit (boolean csv) {
+
+	MatchResult   baseline = _results[0];
+	StringBuilder text     = new StringBuilder();
+	if (csv) {
+	    text.append("PRACTICE WEIGHT;SETTING WEIGHT;GENDER WEIGHT;SPANISH WEIGHT;TOTAL COST;CHANGED ASSIGNMENTS\n");
+	} else {
+	    text.append(String.format("%10s %10s %10s %10s %14s %10s\n",
+				      "practice", "setting", "gender", "spanish", "total cost", "changed"));
+	}
+	for (int k = 0; k < _weightings.size(); k += 1) {
+	    double[]    weights = _weightings.get(k);
+	    MatchResult result  = _results[k];
+	    int         changed = 0;
+	    for (int i = 0; i < _roster.students().size(); i += 1) {
+		if (result.preceptorOf(i) != baseline.preceptorOf(i)) {
+		    changed += 1;
+		}
+	    }
+	    String format = (csv ? "%.4f;%.4f;%.4f;%.4f;%.4f;%d\n" : "%10.4f %10.4f %10.4f %10.4f %14.4f %10d\n");
+	    text.append(String.format(format,
+				      weights[Student._PRACTICE_COMPONENT],
+				      weights[Student._SETTING_COMPONENT],
+				      weights[Student._GENDER_COMPONENT],
+				      weights[Student._SPANISH_COMPONENT],
+				      result.totalQuality(),
+				      changed));
+	}
+	System.out.print(text);
+	System.out.flush();
+
+    } // emit ()
+    // =============================================================================================================================
+
+
+
+    // =============================================================================================================================
+    /**
+     * Read a grid of weightings, one per line, each as four semicolon-delimited weights in the order practice, setting, gender,
+     * Spanish.  Blank lines and lines beginning with <code>#</code> are ignored.
+     *
+     * @param path The file holding the grid.
+     * @return The weightings read.
+     */
+    public static List<double[]> readWeightings (String path) {
+
+	List<double[]> weightings = new ArrayList<double[]>();
+	try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		line = line.trim();
+		if (line.equals("") || line.startsWith("#")) {
+		    continue;
+		}
+		String[] fields = line.split(";");
+		Utility.abortIfFalse(fields.length == Student._numberComponents,
+				     "WeightSweep.readWeightings(): Expected " + Student._numberComponents + " weights: " + line);
+		double[] weights = new double[Student._numberComponents];
+		for (int c = 0; c < weights.length; c += 1) {
+		    try {
+			weights[c] = Double.parseDouble(fields[c].trim());
+		    } catch (NumberFormatException e) {
+			Utility.abort("WeightSweep.readWeightings(): Unable to parse weight " + fields[c] + " in: " + line);
+		    }
+		}
+		weightings.add(weights);
+	    }
+	} catch (IOException e) {
+	    Utility.abort("WeightSweep.readWeightings(): Unable to read " + path + ": " + e.getMessage());
+	}
+	return weightings;
+
+    } // readWeightings ()
+    // =============================================================================================================================
+
+
+
+// =================================================================================================================================
+} // class WeightSweep
+// =================================================================================================================================